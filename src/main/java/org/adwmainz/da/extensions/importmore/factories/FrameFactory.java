@@ -6,6 +6,7 @@
  */
 package org.adwmainz.da.extensions.importmore.factories;
 
+import org.adwmainz.da.extensions.importmore.models.LoadingProgress;
 import org.adwmainz.da.extensions.importmore.views.LoadingFrame;
 import org.adwmainz.da.extensions.importmore.views.PieChartFrame;
 import org.jfree.data.general.PieDataset;
@@ -32,5 +33,15 @@ public class FrameFactory {
 		frame.setLocationRelativeTo(null); // center view
 		return frame;
 	}
+	
+	/**
+	 * Creates a LoadingFrame that displays the given LoadingProgress and lets the user cancel it
+	 * @param progress a LoadingProgress
+	 */
+	public static LoadingFrame createLoadingFrame(LoadingProgress progress) {
+		LoadingFrame frame = new LoadingFrame(progress);
+		frame.setLocationRelativeTo(null); // center view
+		return frame;
+	}
 
 }
@@ -0,0 +1,93 @@
+/**
+ * AnnotationTemplate.java - is a model class representing a String containing ImportMoreAnnotations that has been split into literal segments
+ *  and compiled XPath expressions so that it may be rendered for many context nodes without being parsed again as used within the
+ *  ImportMoreXtension developed at the Digital Academy of the Academy of Sciences and Literature | Mainz.
+ * @author Patrick D. Brookshire
+ * @version 1.0.0
+ */
+package org.adwmainz.da.extensions.importmore.models;
+
+import java.util.List;
+
+import org.adwmainz.da.extensions.importmore.exceptions.ImportMoreXPathException;
+
+import net.sf.saxon.s9api.SaxonApiException;
+import net.sf.saxon.s9api.SaxonApiUncheckedException;
+import net.sf.saxon.s9api.XPathExecutable;
+import net.sf.saxon.s9api.XPathSelector;
+import net.sf.saxon.s9api.XdmItem;
+import net.sf.saxon.s9api.XdmNode;
+
+public class AnnotationTemplate {
+
+	// fields
+	protected final String[] literals;
+	protected final String[] xPathExpressions;
+	protected final XPathExecutable[] executables;
+	protected final boolean[] serializeAllResults;
+
+	// constructor
+	/**
+	 * Creates a new AnnotationTemplate
+	 * @param literals the literal segments of the template, i.e. one segment more than there are annotations
+	 * @param xPathExpressions the XPath expressions of all annotations
+	 * @param executables the compiled forms of all XPath expressions
+	 * @param serializeAllResults specifies for each annotation whether all of its results should be serialized (i.e. whether the flag
+	 *  <code>XML</code> has been set) instead of only returning the String value of the first result
+	 */
+	public AnnotationTemplate(List<String> literals, List<String> xPathExpressions, List<XPathExecutable> executables, List<Boolean> serializeAllResults) {
+		int numberOfAnnotations = xPathExpressions.size();
+		if (literals.size() != numberOfAnnotations + 1 || executables.size() != numberOfAnnotations || serializeAllResults.size() != numberOfAnnotations)
+			throw new IllegalArgumentException("An AnnotationTemplate needs exactly one literal segment more than it has annotations");
+		this.literals = literals.toArray(new String[numberOfAnnotations + 1]);
+		this.xPathExpressions = xPathExpressions.toArray(new String[numberOfAnnotations]);
+		this.executables = executables.toArray(new XPathExecutable[numberOfAnnotations]);
+		this.serializeAllResults = new boolean[numberOfAnnotations];
+		for (int i=0; i<numberOfAnnotations; ++i)
+			this.serializeAllResults[i] = serializeAllResults.get(i);
+	}
+
+	// basic getters
+	/**
+	 * Checks whether this template contains any ImportMoreAnnotations
+	 */
+	public boolean hasAnnotations() {
+		return executables.length > 0;
+	}
+
+	// rendering method
+	/**
+	 * Replaces all ImportMoreAnnotations with XPath results from the given context node
+	 * @param contextNode the XdmNode serving as the context for the XPath expressions
+	 * @throws ImportMoreXPathException if an XPath expression cannot be evaluated or returns an empty result set although only its first result
+	 *  is requested
+	 */
+	public String render(XdmNode contextNode) throws ImportMoreXPathException {
+		if (!hasAnnotations())
+			return literals[0];
+
+		StringBuilder builder = new StringBuilder(literals[0]);
+		for (int i=0; i<executables.length; ++i) {
+			try {
+				XPathSelector selector = executables[i].load();
+				selector.setContextItem(contextNode);
+				if (serializeAllResults[i]) {
+					// concat all result items while they are being evaluated
+					for (XdmItem item: selector)
+						builder.append(item.toString());
+				} else {
+					// get only the text value of the first result item
+					XdmItem firstResult = selector.evaluateSingle();
+					if (firstResult == null)
+						throw new ImportMoreXPathException("The xpath " + xPathExpressions[i] + " returned an empty result set.");
+					builder.append(firstResult.getStringValue());
+				}
+			} catch (SaxonApiException | SaxonApiUncheckedException ex) {
+				throw new ImportMoreXPathException("Cannot evaluate the xpath " + xPathExpressions[i], ex);
+			}
+			builder.append(literals[i + 1]);
+		}
+		return builder.toString();
+	}
+
+}
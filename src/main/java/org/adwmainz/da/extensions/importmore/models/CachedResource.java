@@ -0,0 +1,123 @@
+/**
+ * CachedResource.java - is a model class representing a parsed external resource held in memory as used within the ImportMoreXtension developed
+ *  at the Digital Academy of the Academy of Sciences and Literature | Mainz.
+ * @author Patrick D. Brookshire
+ * @version 1.0.0
+ */
+package org.adwmainz.da.extensions.importmore.models;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import net.sf.saxon.s9api.XdmNode;
+
+public class CachedResource {
+	
+	// fields
+	protected final XdmNode document;
+	protected final ResourceVersion version;
+	protected long estimatedSize;
+	protected volatile long lastValidated;
+	protected final Map<List<Object>, List<ExtractedNode>> extractions = new HashMap<>();
+	protected final Map<List<Object>, KeyIndex> keyIndexes = new HashMap<>();
+	
+	// constructor
+	/**
+	 * Creates a new CachedResource
+	 * @param document the parsed resource
+	 * @param version the version of the resource the document has been parsed from
+	 * @param estimatedSize the estimated number of bytes occupied by the document
+	 * @param lastValidated the point in time (in milliseconds) the version has been validated the last time
+	 */
+	public CachedResource(XdmNode document, ResourceVersion version, long estimatedSize, long lastValidated) {
+		this.document = document;
+		this.version = version;
+		this.estimatedSize = estimatedSize;
+		this.lastValidated = lastValidated;
+	}
+	
+	// basic getters
+	public XdmNode getDocument() {
+		return document;
+	}
+	
+	public ResourceVersion getVersion() {
+		return version;
+	}
+	
+	public long getEstimatedSize() {
+		return estimatedSize;
+	}
+	
+	/**
+	 * Adds the given number of bytes to the estimated size (e.g. for values extracted from the document). Since the size is summed up by the
+	 * cache this method must only be called while the cache is locked.
+	 * @param numberOfBytes the estimated number of additional bytes
+	 */
+	public void addEstimatedSize(long numberOfBytes) {
+		estimatedSize += numberOfBytes;
+	}
+	
+	public long getLastValidated() {
+		return lastValidated;
+	}
+	
+	public void setLastValidated(long lastValidated) {
+		this.lastValidated = lastValidated;
+	}
+	
+	// extraction methods
+	/**
+	 * Returns the ExtractedNodes extracted with the given signature or <code>null</code> if there are none
+	 * @param signature a List of the XPath expressions and namespaces the nodes have been extracted with
+	 */
+	public List<ExtractedNode> getExtractedNodes(List<Object> signature) {
+		synchronized (extractions) {
+			return extractions.get(signature);
+		}
+	}
+	
+	/**
+	 * Stores the given ExtractedNodes so that they may be reused as long as this document is cached
+	 * @param signature a List of the XPath expressions and namespaces the nodes have been extracted with
+	 * @param extractedNodes a List of ExtractedNodes
+	 * @return <code>false</code> if other ExtractedNodes have already been stored for the given signature
+	 */
+	public boolean putExtractedNodes(List<Object> signature, List<ExtractedNode> extractedNodes) {
+		synchronized (extractions) {
+			if (extractions.containsKey(signature))
+				return false;
+			extractions.put(signature, Collections.unmodifiableList(extractedNodes));
+			return true;
+		}
+	}
+	
+	// key index methods
+	/**
+	 * Returns the KeyIndex built for the given signature or <code>null</code> if there is none
+	 * @param signature a List of the XPath expressions and namespaces the indexed nodes have been extracted with
+	 */
+	public KeyIndex getKeyIndex(List<Object> signature) {
+		synchronized (keyIndexes) {
+			return keyIndexes.get(signature);
+		}
+	}
+	
+	/**
+	 * Stores the given KeyIndex so that it may be reused as long as this document is cached
+	 * @param signature a List of the XPath expressions and namespaces the indexed nodes have been extracted with
+	 * @param keyIndex a KeyIndex
+	 * @return <code>false</code> if another KeyIndex has already been stored for the given signature
+	 */
+	public boolean putKeyIndex(List<Object> signature, KeyIndex keyIndex) {
+		synchronized (keyIndexes) {
+			if (keyIndexes.containsKey(signature))
+				return false;
+			keyIndexes.put(signature, keyIndex);
+			return true;
+		}
+	}
+
+}
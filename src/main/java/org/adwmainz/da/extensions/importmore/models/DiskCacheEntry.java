@@ -0,0 +1,58 @@
+/**
+ * DiskCacheEntry.java - is a model class representing a copy of an external resource stored on disk together with the validators it has been
+ *  served with as used within the ImportMoreXtension developed at the Digital Academy of the Academy of Sciences and Literature | Mainz.
+ * @author Patrick D. Brookshire
+ * @version 1.0.0
+ */
+package org.adwmainz.da.extensions.importmore.models;
+
+import java.io.File;
+
+public class DiskCacheEntry {
+	
+	// fields
+	protected final String url;
+	protected final ResourceVersion version;
+	protected final File dataFile;
+	protected final File metadataFile;
+	
+	// constructor
+	/**
+	 * Creates a new DiskCacheEntry
+	 * @param url the external form of the URL the resource has been fetched from
+	 * @param version the version of the stored copy
+	 * @param dataFile the file containing the stored copy
+	 * @param metadataFile the file containing the URL and the validators
+	 */
+	public DiskCacheEntry(String url, ResourceVersion version, File dataFile, File metadataFile) {
+		this.url = url;
+		this.version = version;
+		this.dataFile = dataFile;
+		this.metadataFile = metadataFile;
+	}
+	
+	// basic getters
+	public String getUrl() {
+		return url;
+	}
+	
+	public ResourceVersion getVersion() {
+		return version;
+	}
+	
+	public File getDataFile() {
+		return dataFile;
+	}
+	
+	public File getMetadataFile() {
+		return metadataFile;
+	}
+	
+	/**
+	 * Returns the point in time (in milliseconds) this copy has been stored or validated the last time
+	 */
+	public long getLastValidated() {
+		return metadataFile.lastModified();
+	}
+
+}
@@ -0,0 +1,76 @@
+/**
+ * DocumentProjection.java - is a model class describing which parts of an external resource need to be built when it is only queried for the
+ *  elements matching a SimplePath and expressions relative to these elements (i.e. the matching elements with all their descendants and their
+ *  ancestors without any siblings) as used within the ImportMoreXtension developed at the Digital Academy of the Academy of Sciences and
+ *  Literature | Mainz.
+ * @author Patrick D. Brookshire
+ * @version 1.0.0
+ */
+package org.adwmainz.da.extensions.importmore.models;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.regex.Pattern;
+
+public class DocumentProjection {
+
+	// constant
+	protected static final Pattern UNSUPPORTED_EXPRESSION_PATTERN = Pattern.compile(
+			"ancestor|parent|preceding|following|\\.\\.|root\\s*\\(|\\b(id|idref|element-with-id)\\s*\\(|(^|[^\\w)\\].@*\\s])\\s*/"
+			+ "|\\b(return|then|else|and|or|in|satisfies|to|div|mod|eq|ne|lt|le|gt|ge|is)\\s+/");
+
+	// fields
+	protected final SimplePath path;
+	protected final String signature;
+
+	// constructor
+	protected DocumentProjection(SimplePath path, String signature) {
+		this.path = path;
+		this.signature = signature;
+	}
+
+	// factory method
+	/**
+	 * Analyzes whether the results of the given XPath expressions do not change if a resource is projected to the elements matching the first one
+	 * @param xPathExpression an XPath expression identifying the elements that should be kept
+	 * @param relativeExpressions XPath expressions that will be evaluated using the kept elements as context nodes (<code>null</code> values are
+	 *  ignored)
+	 * @param namespaceMap a Map of namespace prefixes and their respective namespace URIs
+	 * @return a DocumentProjection or <code>null</code> if the whole resource is needed (or the analysis is inconclusive)
+	 */
+	public static DocumentProjection analyze(String xPathExpression, Collection<String> relativeExpressions, Map<String, String> namespaceMap) {
+		SimplePath path = SimplePath.parse(xPathExpression, namespaceMap);
+		if (path == null || !isSelfContained(relativeExpressions))
+			return null;
+		return new DocumentProjection(path, xPathExpression.trim() + " " + new TreeMap<>(namespaceMap));
+	}
+	
+	// analysis method
+	/**
+	 * Checks whether the given XPath expressions only access their context node and its descendants (i.e. they use neither reverse nor sibling
+	 * axes nor absolute paths)
+	 * @param relativeExpressions XPath expressions that will be evaluated using the same context node (<code>null</code> values are ignored)
+	 */
+	public static boolean isSelfContained(Collection<String> relativeExpressions) {
+		for (String relativeExpression: relativeExpressions) {
+			if (relativeExpression != null && UNSUPPORTED_EXPRESSION_PATTERN.matcher(relativeExpression).find())
+				return false;
+		}
+		return true;
+	}
+
+	// basic getters
+	public SimplePath getPath() {
+		return path;
+	}
+
+	/**
+	 * Returns a String identifying the projected parts of a resource (i.e. the relative expressions are not part of it since they do not change
+	 * the projected parts)
+	 */
+	public String getSignature() {
+		return signature;
+	}
+
+}
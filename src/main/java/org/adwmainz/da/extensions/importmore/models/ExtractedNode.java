@@ -0,0 +1,46 @@
+/**
+ * ExtractedNode.java - is a model class representing a node of a parsed external resource together with its key and label which have been
+ *  extracted from it by a single XPath evaluation as used within the ImportMoreXtension developed at the Digital Academy of the Academy of
+ *  Sciences and Literature | Mainz.
+ * @author Patrick D. Brookshire
+ * @version 1.0.0
+ */
+package org.adwmainz.da.extensions.importmore.models;
+
+import net.sf.saxon.s9api.XdmNode;
+
+public class ExtractedNode {
+
+	// fields
+	protected final XdmNode node;
+	protected final String key;
+	protected final String label;
+
+	// constructor
+	/**
+	 * Creates a new ExtractedNode
+	 * @param node a node
+	 * @param key the string value of the key of the node or <code>null</code> if no key has been extracted
+	 * @param label the string value of the label of the node or <code>null</code> if no label has been extracted or the label expression returned
+	 *  an empty result set
+	 */
+	public ExtractedNode(XdmNode node, String key, String label) {
+		this.node = node;
+		this.key = key;
+		this.label = label;
+	}
+
+	// basic getters
+	public XdmNode getNode() {
+		return node;
+	}
+
+	public String getKey() {
+		return key;
+	}
+
+	public String getLabel() {
+		return label;
+	}
+
+}
@@ -0,0 +1,93 @@
+/**
+ * FetchedResource.java - is a model class representing the response to a (conditional) request for an external resource as used within the
+ *  ImportMoreXtension developed at the Digital Academy of the Academy of Sciences and Literature | Mainz.
+ * @author Patrick D. Brookshire
+ * @version 1.0.0
+ */
+package org.adwmainz.da.extensions.importmore.models;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+
+public class FetchedResource implements Closeable {
+	
+	// fields
+	protected final InputStream stream;
+	protected final ResourceVersion version;
+	protected final long staleSince;
+	
+	// constructors
+	/**
+	 * Creates a new FetchedResource
+	 * @param stream the content of the resource or <code>null</code> if it has not been modified since the requested version
+	 * @param version the current version of the resource
+	 */
+	public FetchedResource(InputStream stream, ResourceVersion version) {
+		this(stream, version, 0);
+	}
+	
+	/**
+	 * Creates a new FetchedResource
+	 * @param stream the content of the resource or <code>null</code> if it has not been modified since the requested version
+	 * @param version the current version of the resource
+	 * @param staleSince the point in time (in milliseconds) a stored copy has been validated the last time if it could not be validated now
+	 *  or <code>0</code>
+	 */
+	public FetchedResource(InputStream stream, ResourceVersion version, long staleSince) {
+		this.stream = stream;
+		this.version = version;
+		this.staleSince = staleSince;
+	}
+	
+	// factory methods
+	/**
+	 * Creates a FetchedResource signaling that the requested version is still up to date
+	 * @param version the requested version of the resource
+	 */
+	public static FetchedResource notModified(ResourceVersion version) {
+		return new FetchedResource(null, version);
+	}
+	
+	/**
+	 * Creates a FetchedResource representing a stored copy that could not be validated
+	 * @param stream the content of the stored copy or <code>null</code> if it is the requested version
+	 * @param version the version of the stored copy
+	 * @param lastValidated the point in time (in milliseconds) the stored copy has been validated the last time
+	 */
+	public static FetchedResource stale(InputStream stream, ResourceVersion version, long lastValidated) {
+		return new FetchedResource(stream, version, Math.max(lastValidated, 1));
+	}
+	
+	// basic getters
+	public InputStream getStream() {
+		return stream;
+	}
+	
+	public ResourceVersion getVersion() {
+		return version;
+	}
+	
+	/**
+	 * Returns whether the resource has been modified since the requested version (i.e. whether its content has been fetched)
+	 */
+	public boolean isModified() {
+		return stream != null;
+	}
+	
+	public long getStaleSince() {
+		return staleSince;
+	}
+	
+	public boolean isStale() {
+		return staleSince > 0;
+	}
+
+	// implemented method
+	@Override
+	public void close() throws IOException {
+		if (stream != null)
+			stream.close();
+	}
+	
+}
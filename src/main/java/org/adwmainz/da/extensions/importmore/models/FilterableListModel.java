@@ -0,0 +1,120 @@
+/**
+ * FilterableListModel.java - is an extension of a javax.swing.AbstractListModel that only shows the options whose labels contain a filter string
+ *  and keeps track of the selected options independently of the current filter as used within the ImportMoreXtension developed at the Digital
+ *  Academy of the Academy of Sciences and Literature | Mainz.
+ * @param <T> the type of the options
+ * @author Patrick D. Brookshire
+ * @version 1.0.0
+ */
+package org.adwmainz.da.extensions.importmore.models;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+import javax.swing.AbstractListModel;
+
+public class FilterableListModel<T> extends AbstractListModel<T> {
+
+	// constant
+	private static final long serialVersionUID = 4630186235137826504L;
+	
+	// fields
+	protected final List<T> options;
+	protected final NGramIndex index;
+	protected final BitSet selectedOptions;
+	protected int[] visibleOptions;
+	protected String filter = "";
+	
+	// constructor
+	/**
+	 * Creates a new FilterableListModel
+	 * @param options a List of options whose labels are derived from their String representations
+	 */
+	public FilterableListModel(List<T> options) {
+		this.options = new ArrayList<>(options);
+		List<String> labels = new ArrayList<>(options.size());
+		for (T option: options)
+			labels.add(String.valueOf(option));
+		this.index = new NGramIndex(labels);
+		this.selectedOptions = new BitSet(options.size());
+		this.visibleOptions = index.search("");
+	}
+	
+	// implemented methods
+	@Override
+	public int getSize() {
+		return visibleOptions.length;
+	}
+
+	@Override
+	public T getElementAt(int row) {
+		return options.get(visibleOptions[row]);
+	}
+	
+	// filter methods
+	public String getFilter() {
+		return filter;
+	}
+	
+	/**
+	 * Only shows the options whose labels contain the given filter string (ignoring case)
+	 * @param filter a filter string
+	 */
+	public void setFilter(String filter) {
+		// narrow down the current results if the filter has only been extended
+		int[] candidates = (!this.filter.isEmpty() && NGramIndex.normalize(filter).contains(NGramIndex.normalize(this.filter))) ? visibleOptions : null;
+		int oldSize = visibleOptions.length;
+		visibleOptions = index.search(filter, candidates);
+		this.filter = filter;
+		
+		if (oldSize > 0)
+			fireIntervalRemoved(this, 0, oldSize - 1);
+		if (visibleOptions.length > 0)
+			fireIntervalAdded(this, 0, visibleOptions.length - 1);
+	}
+	
+	// selection methods
+	/**
+	 * Returns the index of the option displayed in the given row
+	 * @param row a row of the filtered list
+	 */
+	public int getOptionIndex(int row) {
+		return visibleOptions[row];
+	}
+	
+	/**
+	 * Checks whether the option displayed in the given row is selected
+	 * @param row a row of the filtered list
+	 */
+	public boolean isSelected(int row) {
+		return selectedOptions.get(visibleOptions[row]);
+	}
+	
+	/**
+	 * Selects or deselects the option displayed in the given row
+	 * @param row a row of the filtered list
+	 * @param selected specifies whether the option should be selected
+	 */
+	public void setSelected(int row, boolean selected) {
+		selectedOptions.set(visibleOptions[row], selected);
+	}
+	
+	/**
+	 * Deselects all options (including the ones hidden by the current filter)
+	 */
+	public void clearSelection() {
+		selectedOptions.clear();
+	}
+	
+	/**
+	 * Returns all selected options (including the ones hidden by the current filter) in their original order
+	 */
+	public List<T> getSelectedOptions() {
+		List<T> result = new ArrayList<>(selectedOptions.cardinality());
+		for (int i = selectedOptions.nextSetBit(0); i >= 0; i = selectedOptions.nextSetBit(i + 1))
+			result.add(options.get(i));
+		return result;
+	}
+
+}
@@ -0,0 +1,100 @@
+/**
+ * FingerprintSet.java - is a model class representing a compact hash set of 64-bit fingerprints (e.g. of serialized XML fragments) as used within
+ *  the ImportMoreXtension developed at the Digital Academy of the Academy of Sciences and Literature | Mainz.
+ * @author Patrick D. Brookshire
+ * @version 1.0.0
+ */
+package org.adwmainz.da.extensions.importmore.models;
+
+public class FingerprintSet {
+	
+	// constants
+	protected static final long EMPTY_SLOT = 0L;
+	protected static final long ZERO_REPLACEMENT = 0x9E3779B97F4A7C15L;
+	protected static final int MIN_CAPACITY = 16;
+	
+	// fields
+	protected long[] slots;
+	protected int size = 0;
+	
+	// constructors
+	/**
+	 * Creates a new empty FingerprintSet
+	 */
+	public FingerprintSet() {
+		this(MIN_CAPACITY);
+	}
+	
+	/**
+	 * Creates a new empty FingerprintSet that is able to hold the given number of fingerprints without being resized
+	 * @param expectedSize the expected number of fingerprints
+	 */
+	public FingerprintSet(int expectedSize) {
+		int capacity = MIN_CAPACITY;
+		while (capacity < 2 * expectedSize)
+			capacity <<= 1;
+		slots = new long[capacity];
+	}
+	
+	// main methods
+	/**
+	 * Adds a fingerprint to this set
+	 * @param fingerprint a 64-bit fingerprint
+	 * @return <code>true</code> if the fingerprint has not been contained in this set before
+	 */
+	public boolean add(long fingerprint) {
+		fingerprint = normalize(fingerprint);
+		int index = findSlot(slots, fingerprint);
+		if (slots[index] == fingerprint)
+			return false;
+		slots[index] = fingerprint;
+		
+		// keep load factor below 0.5
+		if (++size * 2 > slots.length)
+			resize(slots.length << 1);
+		return true;
+	}
+	
+	/**
+	 * Checks whether this set contains the given fingerprint
+	 * @param fingerprint a 64-bit fingerprint
+	 */
+	public boolean contains(long fingerprint) {
+		fingerprint = normalize(fingerprint);
+		return slots[findSlot(slots, fingerprint)] == fingerprint;
+	}
+	
+	/**
+	 * Returns the number of distinct fingerprints in this set
+	 */
+	public int size() {
+		return size;
+	}
+	
+	public boolean isEmpty() {
+		return size == 0;
+	}
+	
+	// helper methods
+	protected static long normalize(long fingerprint) {
+		return (fingerprint == EMPTY_SLOT) ? ZERO_REPLACEMENT : fingerprint;
+	}
+	
+	protected static int findSlot(long[] slots, long fingerprint) {
+		int mask = slots.length - 1;
+		int index = (int) (fingerprint ^ (fingerprint >>> 32)) & mask;
+		while (slots[index] != EMPTY_SLOT && slots[index] != fingerprint)
+			index = (index + 1) & mask; // linear probing
+		return index;
+	}
+	
+	protected void resize(int newCapacity) {
+		long[] newSlots = new long[newCapacity];
+		for (long fingerprint: slots) {
+			if (fingerprint != EMPTY_SLOT)
+				newSlots[findSlot(newSlots, fingerprint)] = fingerprint;
+		}
+		slots = newSlots;
+	}
+
+}
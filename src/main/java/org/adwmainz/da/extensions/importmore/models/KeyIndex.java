@@ -0,0 +1,97 @@
+/**
+ * KeyIndex.java - is a model class representing an index of the nodes of a parsed external resource by the string value of a key expression (similar
+ *  to an xsl:key) as used within the ImportMoreXtension developed at the Digital Academy of the Academy of Sciences and Literature | Mainz.
+ * @author Patrick D. Brookshire
+ * @version 1.0.0
+ */
+package org.adwmainz.da.extensions.importmore.models;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import net.sf.saxon.s9api.XdmNode;
+
+public class KeyIndex {
+
+	// field
+	protected final Map<String, ExtractedNode> nodesByKey = new LinkedHashMap<>();
+
+	// constructor
+	/**
+	 * Creates a new KeyIndex of the given ExtractedNodes. If several nodes share the same key the last one is indexed (at the position the key
+	 * first appears at).
+	 * @param extractedNodes a List of ExtractedNodes with keys
+	 */
+	public KeyIndex(List<ExtractedNode> extractedNodes) {
+		for (ExtractedNode extractedNode: extractedNodes)
+			nodesByKey.put(extractedNode.getKey(), extractedNode);
+	}
+
+	// lookup methods
+	/**
+	 * Returns the ExtractedNode with the given key or <code>null</code> if there is none
+	 * @param key a key
+	 */
+	public ExtractedNode get(String key) {
+		return nodesByKey.get(key);
+	}
+
+	/**
+	 * Checks whether there is a node with the given key
+	 * @param key a key
+	 */
+	public boolean containsKey(String key) {
+		return nodesByKey.containsKey(key);
+	}
+
+	/**
+	 * Returns all indexed keys in the order they first appear in the resource
+	 */
+	public Set<String> keySet() {
+		return Collections.unmodifiableSet(nodesByKey.keySet());
+	}
+
+	/**
+	 * Returns all indexed ExtractedNodes in the order of their keys
+	 */
+	public Collection<ExtractedNode> values() {
+		return Collections.unmodifiableCollection(nodesByKey.values());
+	}
+
+	public int size() {
+		return nodesByKey.size();
+	}
+
+	public boolean isEmpty() {
+		return nodesByKey.isEmpty();
+	}
+
+	/**
+	 * Returns a new Map of all keys and their respective nodes
+	 */
+	public Map<String, XdmNode> toNodeMap() {
+		Map<String, XdmNode> resultMap = new LinkedHashMap<>();
+		for (Map.Entry<String, ExtractedNode> entry: nodesByKey.entrySet())
+			resultMap.put(entry.getKey(), entry.getValue().getNode());
+		return resultMap;
+	}
+
+	/**
+	 * Returns a new List of the ExtractedNodes whose keys are not contained in the given Collection in the order of their keys
+	 * @param excludedKeys a Collection of keys (that should provide constant time lookups)
+	 */
+	public List<ExtractedNode> getValuesWithout(Collection<String> excludedKeys) {
+		List<ExtractedNode> results = new ArrayList<>();
+		for (Map.Entry<String, ExtractedNode> entry: nodesByKey.entrySet()) {
+			if (!excludedKeys.contains(entry.getKey()))
+				results.add(entry.getValue());
+		}
+		return results;
+	}
+
+}
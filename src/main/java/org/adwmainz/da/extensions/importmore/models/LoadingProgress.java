@@ -0,0 +1,112 @@
+/**
+ * LoadingProgress.java - is a model class representing the progress of fetching, parsing and querying an external resource as well as the request
+ *  to cancel it as used within the ImportMoreXtension developed at the Digital Academy of the Academy of Sciences and Literature | Mainz.
+ * @author Patrick D. Brookshire
+ * @version 1.0.0
+ */
+package org.adwmainz.da.extensions.importmore.models;
+
+import java.io.InterruptedIOException;
+import java.util.ResourceBundle;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.adwmainz.da.extensions.importmore.utils.ImportMoreArgumentProvider;
+
+public class LoadingProgress {
+	
+	// constant list of all phases (i.e. keys of the DialogTextBundle)
+	public static final String PHASE_CONNECTING = "CONNECTING";
+	public static final String PHASE_PARSING = "PARSING";
+	public static final String PHASE_EVALUATING = "EVALUATING";
+	public static final String PHASE_INSERTING = "INSERTING";
+	
+	// fields
+	protected final long startTime = System.currentTimeMillis();
+	protected volatile String phase = PHASE_CONNECTING;
+	protected volatile boolean cancelled = false;
+	protected volatile long staleSince = 0;
+	protected final AtomicLong bytesRead = new AtomicLong();
+	protected final AtomicLong matchedNodes = new AtomicLong();
+	
+	// basic getters and setters
+	public String getPhase() {
+		return phase;
+	}
+	
+	public void setPhase(String phase) {
+		this.phase = phase;
+	}
+	
+	public long getBytesRead() {
+		return bytesRead.get();
+	}
+	
+	public void addBytesRead(long numberOfBytes) {
+		bytesRead.addAndGet(numberOfBytes);
+	}
+	
+	public long getMatchedNodes() {
+		return matchedNodes.get();
+	}
+	
+	public void addMatchedNodes(long numberOfNodes) {
+		matchedNodes.addAndGet(numberOfNodes);
+	}
+	
+	/**
+	 * Notes that a cached copy that could not be validated (or is being refreshed) has been used
+	 * @param lastValidated the point in time (in milliseconds) the cached copy has been validated the last time
+	 */
+	public synchronized void markStale(long lastValidated) {
+		if (staleSince == 0 || lastValidated < staleSince)
+			staleSince = lastValidated;
+	}
+	
+	public long getStaleSince() {
+		return staleSince;
+	}
+	
+	public boolean isStale() {
+		return staleSince > 0;
+	}
+	
+	/**
+	 * Returns the number of milliseconds since this LoadingProgress has been created
+	 */
+	public long getElapsedTime() {
+		return System.currentTimeMillis() - startTime;
+	}
+	
+	// cancellation methods
+	/**
+	 * Requests the cancellation of the loading process
+	 */
+	public void cancel() {
+		cancelled = true;
+	}
+	
+	public boolean isCancelled() {
+		return cancelled;
+	}
+	
+	/**
+	 * Throws an InterruptedIOException if the cancellation of the loading process has been requested
+	 * @throws InterruptedIOException if the loading process has been cancelled
+	 */
+	public void checkCancelled() throws InterruptedIOException {
+		if (cancelled)
+			throw new InterruptedIOException(ImportMoreArgumentProvider.getAbortedImportMessage());
+	}
+	
+	/**
+	 * Returns a localized description of the current progress
+	 */
+	public String getDescription() {
+		ResourceBundle rb = ResourceBundle.getBundle("org.adwmainz.da.extensions.importmore.resources.DialogTextBundle");
+		if (PHASE_INSERTING.equals(phase))
+			return String.format(rb.getString("INSERTING_PROGRESS"), rb.getString(phase), getMatchedNodes(), getElapsedTime() / 1000);
+		return String.format(rb.getString("LOADING_PROGRESS"), rb.getString(phase), getBytesRead() / (1024.0 * 1024.0), getMatchedNodes(),
+				getElapsedTime() / 1000);
+	}
+
+}
@@ -0,0 +1,60 @@
+/**
+ * LocalFragment.java - is a model class representing a fingerprinted XPath result from the document currently opened in Oxygen as used within the
+ *  ImportMoreXtension developed at the Digital Academy of the Academy of Sciences and Literature | Mainz.
+ * @author Patrick D. Brookshire
+ * @version 1.0.0
+ */
+package org.adwmainz.da.extensions.importmore.models;
+
+import ro.sync.ecss.extensions.api.node.AuthorNode;
+
+public class LocalFragment {
+	
+	// fields
+	protected final long fingerprint;
+	protected final AuthorNode targetNode;
+	protected final String value;
+	
+	// constructors
+	/**
+	 * Creates a new LocalFragment representing an AuthorNode
+	 * @param fingerprint the fingerprint of the node
+	 * @param targetNode the node
+	 */
+	public LocalFragment(long fingerprint, AuthorNode targetNode) {
+		this.fingerprint = fingerprint;
+		this.targetNode = targetNode;
+		this.value = null;
+	}
+	
+	/**
+	 * Creates a new LocalFragment representing an atomic value
+	 * @param fingerprint the fingerprint of the value
+	 * @param value the serialized value
+	 */
+	public LocalFragment(long fingerprint, String value) {
+		this.fingerprint = fingerprint;
+		this.targetNode = null;
+		this.value = value;
+	}
+	
+	// basic getters
+	public long getFingerprint() {
+		return fingerprint;
+	}
+	
+	/**
+	 * Returns the represented AuthorNode or <code>null</code> if this fragment represents an atomic value
+	 */
+	public AuthorNode getTargetNode() {
+		return targetNode;
+	}
+	
+	/**
+	 * Returns the represented atomic value or <code>null</code> if this fragment represents an AuthorNode
+	 */
+	public String getValue() {
+		return value;
+	}
+
+}
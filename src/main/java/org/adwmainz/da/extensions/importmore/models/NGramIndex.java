@@ -0,0 +1,193 @@
+/**
+ * NGramIndex.java - is a model class representing an index of the trigrams contained in a list of labels that is used to find all labels
+ *  containing a given search string without scanning each one of them as used within the ImportMoreXtension developed at the Digital Academy of the
+ *  Academy of Sciences and Literature | Mainz.
+ * @author Patrick D. Brookshire
+ * @version 1.0.0
+ */
+package org.adwmainz.da.extensions.importmore.models;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+public class NGramIndex {
+	
+	// constant
+	public static final int N = 3;
+	
+	// fields
+	protected final String[] labels;
+	
+	/**
+	 * An open addressing hash table of all trigrams (packed into the lower 48 bits, i.e. -1 marks empty slots) and their posting lists
+	 */
+	protected long[] trigrams = new long[1024];
+	protected int[][] postings = new int[1024][];
+	protected int[] postingSizes = new int[1024];
+	protected int numberOfTrigrams = 0;
+	
+	// constructor
+	/**
+	 * Creates a new NGramIndex
+	 * @param labels a List of labels
+	 */
+	public NGramIndex(List<String> labels) {
+		Arrays.fill(trigrams, -1);
+		this.labels = new String[labels.size()];
+		for (int i = 0; i < labels.size(); ++i) {
+			String label = normalize(labels.get(i));
+			this.labels[i] = label;
+			
+			// add each distinct trigram only once per label
+			for (int j = 0; j + N <= label.length(); ++j)
+				add(pack(label, j), i);
+		}
+		
+		// trim posting lists
+		for (int slot = 0; slot < trigrams.length; ++slot) {
+			if (trigrams[slot] != -1)
+				postings[slot] = Arrays.copyOf(postings[slot], postingSizes[slot]);
+		}
+		postingSizes = null;
+	}
+	
+	// main methods
+	/**
+	 * Returns the ascending indexes of all labels that contain the given search string (ignoring case)
+	 * @param searchString a search string
+	 */
+	public int[] search(String searchString) {
+		return search(searchString, null);
+	}
+	
+	/**
+	 * Returns the ascending indexes of all labels within the given candidates that contain the given search string (ignoring case)
+	 * @param searchString a search string
+	 * @param candidates the ascending indexes of the labels that should be checked or <code>null</code> if all labels should be checked
+	 */
+	public int[] search(String searchString, int[] candidates) {
+		String normalizedSearchString = normalize(searchString);
+		if (normalizedSearchString.isEmpty())
+			return (candidates != null) ? candidates : range(labels.length);
+		
+		// intersect the posting lists of all trigrams of the search string
+		if (normalizedSearchString.length() >= N) {
+			for (int j = 0; j + N <= normalizedSearchString.length(); ++j) {
+				int slot = findSlot(pack(normalizedSearchString, j));
+				if (trigrams[slot] == -1)
+					return new int[0];
+				int[] posting = postings[slot];
+				candidates = (candidates == null) ? posting : intersect(candidates, posting);
+			}
+		}
+		if (candidates == null)
+			candidates = range(labels.length);
+		
+		// verify candidates (trigrams may occur in a different order)
+		int[] results = new int[candidates.length];
+		int size = 0;
+		for (int candidate: candidates) {
+			if (labels[candidate].contains(normalizedSearchString))
+				results[size++] = candidate;
+		}
+		return Arrays.copyOf(results, size);
+	}
+	
+	public int size() {
+		return labels.length;
+	}
+	
+	// helper methods
+	protected static String normalize(String str) {
+		return (str == null) ? "" : str.toLowerCase(Locale.ROOT);
+	}
+	
+	protected static long pack(String str, int offset) {
+		return ((long) str.charAt(offset) << 32) | ((long) str.charAt(offset + 1) << 16) | str.charAt(offset + 2);
+	}
+	
+	/**
+	 * Returns the slot of the given trigram or the empty slot it should be stored in
+	 * @param trigram a packed trigram
+	 */
+	protected int findSlot(long trigram) {
+		int mask = trigrams.length - 1;
+		int slot = (int) (trigram ^ (trigram >>> 29)) * 0x9E3779B9 & mask;
+		while (trigrams[slot] != -1 && trigrams[slot] != trigram)
+			slot = (slot + 1) & mask;
+		return slot;
+	}
+	
+	/**
+	 * Adds the given label index to the posting list of the given trigram unless it has just been added
+	 * @param trigram a packed trigram
+	 * @param labelIndex the index of a label
+	 */
+	protected void add(long trigram, int labelIndex) {
+		int slot = findSlot(trigram);
+		if (trigrams[slot] == -1) {
+			if (2 * (numberOfTrigrams + 1) > trigrams.length) {
+				rehash();
+				slot = findSlot(trigram);
+			}
+			trigrams[slot] = trigram;
+			postings[slot] = new int[4];
+			++numberOfTrigrams;
+		}
+		
+		int size = postingSizes[slot];
+		if (size > 0 && postings[slot][size - 1] == labelIndex)
+			return;
+		if (size == postings[slot].length)
+			postings[slot] = Arrays.copyOf(postings[slot], size * 2);
+		postings[slot][size] = labelIndex;
+		postingSizes[slot] = size + 1;
+	}
+	
+	/**
+	 * Doubles the capacity of the hash table
+	 */
+	protected void rehash() {
+		long[] oldTrigrams = trigrams;
+		int[][] oldPostings = postings;
+		int[] oldPostingSizes = postingSizes;
+		trigrams = new long[oldTrigrams.length * 2];
+		Arrays.fill(trigrams, -1);
+		postings = new int[trigrams.length][];
+		postingSizes = new int[trigrams.length];
+		for (int oldSlot = 0; oldSlot < oldTrigrams.length; ++oldSlot) {
+			if (oldTrigrams[oldSlot] != -1) {
+				int slot = findSlot(oldTrigrams[oldSlot]);
+				trigrams[slot] = oldTrigrams[oldSlot];
+				postings[slot] = oldPostings[oldSlot];
+				postingSizes[slot] = oldPostingSizes[oldSlot];
+			}
+		}
+	}
+	
+	protected static int[] intersect(int[] first, int[] second) {
+		int[] result = new int[Math.min(first.length, second.length)];
+		int size = 0;
+		for (int i = 0, j = 0; i < first.length && j < second.length;) {
+			if (first[i] < second[j])
+				++i;
+			else if (first[i] > second[j])
+				++j;
+			else {
+				result[size++] = first[i];
+				++i;
+				++j;
+			}
+		}
+		return Arrays.copyOf(result, size);
+	}
+	
+	protected static int[] range(int length) {
+		int[] result = new int[length];
+		for (int i = 0; i < length; ++i)
+			result[i] = i;
+		return result;
+	}
+
+}
@@ -0,0 +1,119 @@
+/**
+ * NodeSnapshot.java - is a model class representing a node of a parsed external resource together with its key and label. Unless the node is
+ *  needed within its document, only a compact serialized copy of it is kept so that the document may be evicted or garbage-collected while the
+ *  snapshot is still in use (e.g. as an option of a selection dialog). The copy is only parsed again if the node itself is requested. It is used
+ *  within the ImportMoreXtension developed at the Digital Academy of the Academy of Sciences and Literature | Mainz.
+ * @author Patrick D. Brookshire
+ * @version 1.0.0
+ */
+package org.adwmainz.da.extensions.importmore.models;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.regex.Pattern;
+
+import org.adwmainz.da.extensions.importmore.exceptions.ImportMoreXMLException;
+import org.adwmainz.da.extensions.importmore.utils.SaxonUtils;
+
+import net.sf.saxon.s9api.Axis;
+import net.sf.saxon.s9api.XdmNode;
+import net.sf.saxon.s9api.XdmNodeKind;
+import net.sf.saxon.s9api.XdmSequenceIterator;
+
+public class NodeSnapshot {
+
+	// constant
+	protected static final Pattern DOCUMENT_DEPENDENT_EXPRESSION_PATTERN = Pattern.compile(
+			"\\b(lang|base-uri|document-uri|generate-id|path|root)\\s*\\(|(^|[(\\[,=<>|!+-]|\\b(return|then|else|and|or|in|satisfies|to|div|mod|eq|ne|"
+			+ "lt|le|gt|ge|is))\\s*/");
+
+	// fields
+	protected final XdmNode node; // null if detached
+	protected final byte[] serializedNode; // null if attached
+	protected final String key;
+	protected final String label;
+
+	// constructor
+	protected NodeSnapshot(XdmNode node, byte[] serializedNode, String key, String label) {
+		this.node = node;
+		this.serializedNode = serializedNode;
+		this.key = key;
+		this.label = label;
+	}
+
+	// factory methods
+	/**
+	 * Creates a new NodeSnapshot that keeps a reference to the node itself (and thereby to its whole document)
+	 * @param node a node
+	 * @param key the string value of the key of the node or <code>null</code> if there is no key
+	 * @param label the string value of the label of the node or <code>null</code> if there is no label
+	 */
+	public static NodeSnapshot attach(XdmNode node, String key, String label) {
+		return new NodeSnapshot(node, null, key, label);
+	}
+
+	/**
+	 * Creates a new NodeSnapshot that only keeps a serialized copy of the node if it is an element. Any other node is kept attached since it
+	 * cannot be parsed on its own.
+	 * @param node a node
+	 * @param key the string value of the key of the node or <code>null</code> if there is no key
+	 * @param label the string value of the label of the node or <code>null</code> if there is no label
+	 * @throws ImportMoreXMLException if the node cannot be serialized
+	 */
+	public static NodeSnapshot detach(XdmNode node, String key, String label) throws ImportMoreXMLException {
+		if (node.getNodeKind() != XdmNodeKind.ELEMENT)
+			return attach(node, key, label);
+		return new NodeSnapshot(null, SaxonUtils.serializeNode(node).getBytes(StandardCharsets.UTF_8), key, label);
+	}
+
+	/**
+	 * Checks whether the given XPath expressions return the same results for a detached copy of their context node, i.e. whether they neither
+	 * access anything outside of its subtree nor depend on its document (e.g. by absolute paths or by the root or path functions)
+	 * @param nodeExpressions all XPath expressions that will be evaluated using the node as context node or <code>null</code> if they are unknown
+	 */
+	public static boolean isDetachable(Collection<String> nodeExpressions) {
+		if (nodeExpressions == null || !DocumentProjection.isSelfContained(nodeExpressions))
+			return false;
+		for (String nodeExpression: nodeExpressions) {
+			if (nodeExpression != null && DOCUMENT_DEPENDENT_EXPRESSION_PATTERN.matcher(nodeExpression).find())
+				return false;
+		}
+		return true;
+	}
+
+	// basic getters
+	public String getKey() {
+		return key;
+	}
+
+	public String getLabel() {
+		return label;
+	}
+
+	/**
+	 * Checks whether this snapshot only keeps a serialized copy of its node
+	 */
+	public boolean isDetached() {
+		return node == null;
+	}
+
+	/**
+	 * Returns the node of this snapshot. If the snapshot is detached its copy is parsed again on each call, so the returned element is the only
+	 * child of a new document.
+	 * @throws ImportMoreXMLException if the copy cannot be parsed
+	 */
+	public XdmNode getNode() throws ImportMoreXMLException {
+		if (node != null)
+			return node;
+
+		XdmNode document = SaxonUtils.buildDocument(new String(serializedNode, StandardCharsets.UTF_8));
+		XdmSequenceIterator iterator = document.axisIterator(Axis.CHILD);
+		while (iterator.hasNext()) {
+			XdmNode child = (XdmNode) iterator.next();
+			if (child.getNodeKind() == XdmNodeKind.ELEMENT)
+				return child;
+		}
+		throw new ImportMoreXMLException("The snapshot of the node " + label + " does not contain an element");
+	}
+
+}
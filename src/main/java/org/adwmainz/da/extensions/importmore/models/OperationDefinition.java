@@ -0,0 +1,61 @@
+/**
+ * OperationDefinition.java - is a model class representing an operation of the ImportMoreXtension together with the argument values it has been
+ *  configured with by an action of a framework as used within the ImportMoreXtension developed at the Digital Academy of the Academy of Sciences
+ *  and Literature | Mainz.
+ * @author Patrick D. Brookshire
+ * @version 1.0.0
+ */
+package org.adwmainz.da.extensions.importmore.models;
+
+import java.io.File;
+import java.util.Collections;
+import java.util.Map;
+
+public class OperationDefinition {
+
+	// fields
+	protected final String operationId;
+	protected final Map<String, String> arguments;
+	protected final File frameworkDirectory;
+
+	// constructor
+	/**
+	 * Creates a new OperationDefinition
+	 * @param operationId the fully qualified class name of the operation
+	 * @param arguments a Map of argument names and their configured values
+	 * @param frameworkDirectory the directory of the framework the operation has been defined in
+	 */
+	public OperationDefinition(String operationId, Map<String, String> arguments, File frameworkDirectory) {
+		this.operationId = operationId;
+		this.arguments = Collections.unmodifiableMap(arguments);
+		this.frameworkDirectory = frameworkDirectory;
+	}
+
+	// basic getters
+	public String getOperationId() {
+		return operationId;
+	}
+
+	public Map<String, String> getArguments() {
+		return arguments;
+	}
+
+	public File getFrameworkDirectory() {
+		return frameworkDirectory;
+	}
+
+	/**
+	 * Returns the configured value of the given argument or <code>null</code> if it has not been configured
+	 * @param argumentName the name of an argument
+	 */
+	public String getArgument(String argumentName) {
+		return arguments.get(argumentName);
+	}
+
+	// overridden method
+	@Override
+	public String toString() {
+		return "OperationDefinition [operationId=" + operationId + ", arguments=" + arguments + ", frameworkDirectory=" + frameworkDirectory + "]";
+	}
+
+}
@@ -0,0 +1,85 @@
+/**
+ * ResourceVersion.java - is a model class representing the validators (i.e. modification date, size or HTTP entity tag) of an external resource
+ *  as used within the ImportMoreXtension developed at the Digital Academy of the Academy of Sciences and Literature | Mainz.
+ * @author Patrick D. Brookshire
+ * @version 1.0.0
+ */
+package org.adwmainz.da.extensions.importmore.models;
+
+import java.io.File;
+import java.util.Objects;
+
+public class ResourceVersion {
+	
+	// constant
+	public static final ResourceVersion UNKNOWN = new ResourceVersion(null, 0, -1);
+	
+	// fields
+	protected final String eTag;
+	protected final long lastModified;
+	protected final long length;
+	
+	// constructor
+	/**
+	 * Creates a new ResourceVersion
+	 * @param eTag the HTTP entity tag of the resource or <code>null</code>
+	 * @param lastModified the modification date of the resource in milliseconds or <code>0</code> if it is unknown
+	 * @param length the size of the resource in bytes or <code>-1</code> if it is unknown
+	 */
+	public ResourceVersion(String eTag, long lastModified, long length) {
+		this.eTag = eTag;
+		this.lastModified = lastModified;
+		this.length = length;
+	}
+	
+	// factory methods
+	/**
+	 * Creates the ResourceVersion of a local file
+	 * @param file a local file
+	 */
+	public static ResourceVersion of(File file) {
+		return new ResourceVersion(null, file.lastModified(), file.length());
+	}
+	
+	// basic getters
+	public String getETag() {
+		return eTag;
+	}
+	
+	public long getLastModified() {
+		return lastModified;
+	}
+	
+	public long getLength() {
+		return length;
+	}
+	
+	/**
+	 * Returns whether this ResourceVersion may be used to check if a resource has changed
+	 */
+	public boolean isValidatable() {
+		return eTag != null || lastModified > 0;
+	}
+
+	// overridden methods
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj)
+			return true;
+		if (!(obj instanceof ResourceVersion))
+			return false;
+		ResourceVersion other = (ResourceVersion) obj;
+		return isValidatable() && Objects.equals(eTag, other.eTag) && lastModified == other.lastModified && length == other.length;
+	}
+
+	@Override
+	public int hashCode() {
+		return Objects.hash(eTag, lastModified, length);
+	}
+
+	@Override
+	public String toString() {
+		return "ResourceVersion [eTag=" + eTag + ", lastModified=" + lastModified + ", length=" + length + "]";
+	}
+	
+}
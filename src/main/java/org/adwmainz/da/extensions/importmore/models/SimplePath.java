@@ -0,0 +1,323 @@
+/**
+ * SimplePath.java - is a model class representing an XPath expression that only consists of child and descendant steps with name tests (and
+ *  optional predicates on its last step) so that it may be matched against elements while streaming through a resource. It is used within the
+ *  ImportMoreXtension developed at the Digital Academy of the Academy of Sciences and Literature | Mainz.
+ * @author Patrick D. Brookshire
+ * @version 1.0.0
+ */
+package org.adwmainz.da.extensions.importmore.models;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+public class SimplePath {
+	
+	// constants
+	protected static final int MAX_STEPS = 62;
+	protected static final Pattern NAME_TEST_PATTERN = Pattern.compile("\\*:([\\p{L}_][\\w.\\-]*)|\\*|([\\p{L}_][\\w.\\-]*)(:([\\p{L}_][\\w.\\-]*|\\*))?");
+	protected static final Pattern PREDICATE_TOKEN_PATTERN = Pattern.compile(
+			"\\s+|\"[^\"]*\"|'[^']*'|\\d+(\\.\\d+)?|(\\*|[\\p{L}_][\\w.\\-]*)(:(\\*|[\\p{L}_][\\w.\\-]*))?|::|//|!=|<=|>=|\\.\\.|[@/()\\[\\],.=<>|]");
+	protected static final Pattern NAME_PATTERN = Pattern.compile("\\*|[\\p{L}_].*");
+	protected static final Set<String> CONTEXT_FREE_AXES = new HashSet<>(Arrays.asList("child", "attribute", "self", "descendant",
+			"descendant-or-self"));
+	protected static final Set<String> KIND_TESTS = new HashSet<>(Arrays.asList("node", "text", "comment", "processing-instruction", "element",
+			"attribute"));
+	protected static final Set<String> BOOLEAN_FUNCTIONS = new HashSet<>(Arrays.asList("not", "true", "false", "boolean", "exists", "empty",
+			"contains", "starts-with", "ends-with", "matches"));
+	protected static final Set<String> CONTEXT_FREE_FUNCTIONS = new HashSet<>(Arrays.asList("not", "true", "false", "boolean", "exists", "empty",
+			"contains", "starts-with", "ends-with", "matches", "string", "data", "normalize-space", "lower-case", "upper-case", "concat",
+			"substring", "substring-before", "substring-after", "translate", "replace", "string-length", "string-join", "count", "number", "sum",
+			"name", "local-name", "namespace-uri"));
+	protected static final Set<String> COMPARISON_OPERATORS = new HashSet<>(Arrays.asList("=", "!=", "<", "<=", ">", ">=", "eq", "ne", "lt",
+			"le", "gt", "ge", "and", "or"));
+	protected static final Set<String> ARITHMETIC_OPERATORS = new HashSet<>(Arrays.asList("*", "div", "idiv", "mod"));
+	
+	// fields
+	protected final boolean[] descendantSteps;
+	protected final String[] namespaceURIs;
+	protected final String[] localNames;
+	protected final String predicates;
+	
+	// constructor
+	protected SimplePath(List<Boolean> descendantSteps, List<String> namespaceURIs, List<String> localNames, String predicates) {
+		int numberOfSteps = descendantSteps.size();
+		this.descendantSteps = new boolean[numberOfSteps];
+		this.namespaceURIs = namespaceURIs.toArray(new String[numberOfSteps]);
+		this.localNames = localNames.toArray(new String[numberOfSteps]);
+		for (int i=0; i<numberOfSteps; ++i)
+			this.descendantSteps[i] = descendantSteps.get(i);
+		this.predicates = predicates;
+	}
+	
+	// factory method
+	/**
+	 * Tries to parse an XPath expression like <code>/TEI//tei:listPerson/tei:person[@xml:id='p1']</code> to a SimplePath
+	 * @param xPathExpression an XPath expression
+	 * @param namespaceMap a Map of namespace prefixes and their respective namespace URIs
+	 * @return a SimplePath or <code>null</code> if the expression is not a simple path (or its predicates may depend on anything other than the
+	 *  matched element and its descendants)
+	 */
+	public static SimplePath parse(String xPathExpression, Map<String, String> namespaceMap) {
+		List<Boolean> descendantSteps = new ArrayList<>();
+		List<String> namespaceURIs = new ArrayList<>();
+		List<String> localNames = new ArrayList<>();
+		StringBuilder predicates = new StringBuilder();
+		
+		String expression = xPathExpression.trim();
+		int index = 0;
+		while (index < expression.length()) {
+			// predicates are only supported on the last step
+			if (predicates.length() > 0)
+				return null;
+			
+			// parse axis
+			boolean isDescendantStep = false;
+			if (expression.startsWith("//", index)) {
+				isDescendantStep = true;
+				index += 2;
+			} else if (expression.startsWith("/", index)) {
+				index += 1;
+			} else if (index > 0) {
+				return null;
+			}
+			
+			// parse name test
+			Matcher matcher = NAME_TEST_PATTERN.matcher(expression);
+			matcher.region(index, expression.length());
+			if (!matcher.lookingAt())
+				return null;
+			index = matcher.end();
+			String nameTest = matcher.group();
+			String namespaceURI;
+			String localName;
+			if (nameTest.equals("*")) {
+				namespaceURI = null;
+				localName = null;
+			} else if (matcher.group(1) != null) {
+				namespaceURI = null;
+				localName = matcher.group(1);
+			} else if (matcher.group(4) != null) {
+				namespaceURI = namespaceMap.get(matcher.group(2));
+				if (namespaceURI == null)
+					return null;
+				localName = matcher.group(4).equals("*") ? null : matcher.group(4);
+			} else {
+				namespaceURI = "";
+				localName = matcher.group(2);
+			}
+			
+			// parse predicates
+			while (index < expression.length() && expression.charAt(index) == '[') {
+				int endIndex = findPredicateEnd(expression, index);
+				if (endIndex < 0)
+					return null;
+				String predicate = expression.substring(index + 1, endIndex);
+				if (!isContextFree(predicate))
+					return null;
+				predicates.append('[').append(predicate).append(']');
+				index = endIndex + 1;
+			}
+			
+			descendantSteps.add(isDescendantStep);
+			namespaceURIs.add(namespaceURI);
+			localNames.add(localName);
+			if (descendantSteps.size() > MAX_STEPS)
+				return null;
+		}
+		if (descendantSteps.isEmpty())
+			return null;
+		return new SimplePath(descendantSteps, namespaceURIs, localNames, predicates.toString());
+	}
+	
+	/**
+	 * Checks whether the given predicate only depends on the element it is applied to and its descendants. Since predicates are evaluated on
+	 * each matched element separately, only known forms are accepted: relative paths on child, attribute, self and descendant axes, literals,
+	 * comparisons and a set of functions without hidden dependencies. Predicates that may be numeric (and thereby compare positions) are
+	 * rejected unless they are compared to something.
+	 * @param predicate the content of a predicate (without brackets)
+	 */
+	protected static boolean isContextFree(String predicate) {
+		// split predicate into tokens and reject any unknown ones
+		List<String> tokens = new ArrayList<>();
+		Matcher matcher = PREDICATE_TOKEN_PATTERN.matcher(predicate);
+		int index = 0;
+		while (index < predicate.length()) {
+			matcher.region(index, predicate.length());
+			if (!matcher.lookingAt())
+				return false;
+			if (!matcher.group().trim().isEmpty())
+				tokens.add(matcher.group());
+			index = matcher.end();
+		}
+		if (tokens.isEmpty())
+			return false;
+		
+		// check each token while noting whether it follows an operand (which distinguishes operators from names)
+		boolean[] followsOperand = new boolean[tokens.size()];
+		boolean isAfterOperand = false;
+		for (int i=0; i<tokens.size(); ++i) {
+			String token = tokens.get(i);
+			String nextToken = (i + 1 < tokens.size()) ? tokens.get(i + 1) : "";
+			followsOperand[i] = isAfterOperand;
+			if (token.startsWith("\"") || token.startsWith("'") || Character.isDigit(token.charAt(0))) {
+				isAfterOperand = true;
+			} else if (isAfterOperand && (COMPARISON_OPERATORS.contains(token) || ARITHMETIC_OPERATORS.contains(token))) {
+				isAfterOperand = false;
+			} else if (NAME_PATTERN.matcher(token).matches()) {
+				// any other name following an operand is an unsupported operator (e.g. cast as, treat as or instance of)
+				if (isAfterOperand)
+					return false;
+				if (nextToken.equals("(")) {
+					if (!KIND_TESTS.contains(token) && !CONTEXT_FREE_FUNCTIONS.contains(token))
+						return false;
+					isAfterOperand = false;
+				} else if (nextToken.equals("::")) {
+					if (!CONTEXT_FREE_AXES.contains(token))
+						return false;
+					isAfterOperand = false;
+				} else {
+					isAfterOperand = true;
+				}
+			} else if (token.equals("..")) {
+				return false;
+			} else if (token.equals("/") || token.equals("//")) {
+				// absolute paths leave the matched element
+				if (!isAfterOperand)
+					return false;
+				isAfterOperand = false;
+			} else {
+				isAfterOperand = token.equals(")") || token.equals("]") || token.equals(".");
+			}
+		}
+		return isBooleanValued(tokens, followsOperand, 0, tokens.size());
+	}
+	
+	/**
+	 * Checks whether the given range of predicate tokens is a comparison, a call of a boolean function or a path (but no numeric value)
+	 * @param tokens the tokens of a predicate
+	 * @param followsOperand notes for each token whether it follows an operand
+	 * @param startIndex the index of the first token
+	 * @param endIndex the index after the last token
+	 */
+	protected static boolean isBooleanValued(List<String> tokens, boolean[] followsOperand, int startIndex, int endIndex) {
+		String firstToken = tokens.get(startIndex);
+		if (firstToken.equals("(") && findClosingToken(tokens, startIndex) == endIndex - 1)
+			return startIndex + 1 < endIndex - 1 && isBooleanValued(tokens, followsOperand, startIndex + 1, endIndex - 1);
+		if (BOOLEAN_FUNCTIONS.contains(firstToken) && startIndex + 1 < endIndex && tokens.get(startIndex + 1).equals("(")
+				&& findClosingToken(tokens, startIndex + 1) == endIndex - 1)
+			return true;
+		
+		int depth = 0;
+		boolean isPath = true;
+		for (int i=startIndex; i<endIndex; ++i) {
+			String token = tokens.get(i);
+			if (depth == 0) {
+				if (followsOperand[i] && COMPARISON_OPERATORS.contains(token))
+					return true;
+				if (token.startsWith("\"") || token.startsWith("'") || Character.isDigit(token.charAt(0))
+						|| (followsOperand[i] && ARITHMETIC_OPERATORS.contains(token))
+						|| (i + 1 < endIndex && tokens.get(i + 1).equals("(") && !KIND_TESTS.contains(token)))
+					isPath = false;
+			}
+			if (token.equals("(") || token.equals("["))
+				++depth;
+			else if (token.equals(")") || token.equals("]"))
+				--depth;
+		}
+		return isPath;
+	}
+	
+	protected static int findClosingToken(List<String> tokens, int startIndex) {
+		int depth = 0;
+		for (int i=startIndex; i<tokens.size(); ++i) {
+			String token = tokens.get(i);
+			if (token.equals("(") || token.equals("["))
+				++depth;
+			else if ((token.equals(")") || token.equals("]")) && --depth == 0)
+				return i;
+		}
+		return -1;
+	}
+	
+	protected static int findPredicateEnd(String expression, int startIndex) {
+		int depth = 0;
+		char quote = 0;
+		for (int i=startIndex; i<expression.length(); ++i) {
+			char c = expression.charAt(i);
+			if (quote != 0) {
+				if (c == quote)
+					quote = 0;
+			} else if (c == '"' || c == '\'') {
+				quote = c;
+			} else if (c == '[') {
+				++depth;
+			} else if (c == ']' && --depth == 0) {
+				return i;
+			}
+		}
+		return -1;
+	}
+	
+	// matching methods
+	/**
+	 * Returns the states of the document node (i.e. the bit mask of the number of matched steps)
+	 */
+	public long getInitialStates() {
+		return 1L;
+	}
+	
+	/**
+	 * Returns the states of an element
+	 * @param parentStates the states of the parent node
+	 * @param namespaceURI the namespace URI of the element
+	 * @param localName the local name of the element
+	 */
+	public long match(long parentStates, String namespaceURI, String localName) {
+		long states = 0L;
+		for (int step=0; step<localNames.length; ++step) {
+			if ((parentStates & (1L << step)) == 0)
+				continue;
+			if (descendantSteps[step])
+				states |= 1L << step; // the element may be skipped
+			if (matchesStep(step, namespaceURI, localName))
+				states |= 1L << (step + 1);
+		}
+		return states;
+	}
+	
+	/**
+	 * Checks whether the given states denote an element that matches all steps (not taking predicates into account)
+	 * @param states the states of an element
+	 */
+	public boolean isComplete(long states) {
+		return (states & (1L << localNames.length)) != 0;
+	}
+	
+	/**
+	 * Checks whether the given states allow matching any descendant element
+	 * @param states the states of an element
+	 */
+	public boolean isContinuable(long states) {
+		return (states & ~(1L << localNames.length)) != 0;
+	}
+	
+	protected boolean matchesStep(int step, String namespaceURI, String localName) {
+		return (localNames[step] == null || localNames[step].equals(localName))
+				&& (namespaceURIs[step] == null || namespaceURIs[step].equals(namespaceURI == null ? "" : namespaceURI));
+	}
+	
+	// basic getter
+	/**
+	 * Returns the predicates of the last step or an empty String
+	 */
+	public String getPredicates() {
+		return predicates;
+	}
+
+}
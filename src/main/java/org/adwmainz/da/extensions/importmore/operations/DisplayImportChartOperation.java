@@ -8,22 +8,26 @@
 package org.adwmainz.da.extensions.importmore.operations;
 
 import java.io.IOException;
-import java.util.HashSet;
+import java.io.InterruptedIOException;
 import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.ResourceBundle;
-import java.util.Set;
+
+import javax.swing.text.BadLocationException;
 
 import org.adwmainz.da.extensions.askmore.exceptions.InputDialogClosedException;
-import org.adwmainz.da.extensions.askmore.utils.APIAccessUtils;
 import org.adwmainz.da.extensions.askmore.utils.ArgumentParser;
 import org.adwmainz.da.extensions.askmore.utils.AskMoreArgumentProvider;
 import org.adwmainz.da.extensions.importmore.factories.FrameFactory;
 import org.adwmainz.da.extensions.importmore.exceptions.ImportMoreXMLException;
 import org.adwmainz.da.extensions.importmore.exceptions.ImportMoreXPathException;
 import org.adwmainz.da.extensions.importmore.factories.DatasetFactory;
+import org.adwmainz.da.extensions.importmore.models.FingerprintSet;
+import org.adwmainz.da.extensions.importmore.models.LocalFragment;
+import org.adwmainz.da.extensions.importmore.utils.FragmentCanonicalizer;
 import org.adwmainz.da.extensions.importmore.utils.ImportMoreArgumentParser;
 import org.adwmainz.da.extensions.importmore.utils.ImportMoreArgumentProvider;
+import org.adwmainz.da.extensions.importmore.utils.LocalDocumentIndex;
 import org.adwmainz.da.extensions.importmore.utils.ViewUtils;
 import org.adwmainz.da.extensions.importmore.utils.XMLImportService;
 import org.jfree.data.general.PieDataset;
@@ -55,6 +59,7 @@ public class DisplayImportChartOperation implements AuthorOperation {
 				ImportMoreArgumentProvider.getNamespacePrefixesArgumentDescriptor(),
 				ImportMoreArgumentProvider.getNamespaceUrisArgumentDescriptor(),
 				ImportMoreArgumentProvider.getLocalElementLocationArgumentDescriptor(),
+				ImportMoreArgumentProvider.getNormalizationsArgumentDescriptor(),
 				ImportMoreArgumentProvider.getDisplayPercentagesArgumentDescriptor(),
 				ImportMoreArgumentProvider.getPrecisionArgumentDescriptor(),
 				AskMoreArgumentProvider.getDialogTitleArgumentDescriptor(rb.getString("IMPORT_STATS"))
@@ -84,16 +89,21 @@ public class DisplayImportChartOperation implements AuthorOperation {
 		Map<String, String> namespaceMap = ImportMoreArgumentParser.getValidMap(args, ImportMoreArgumentProvider.ARGUMENT_NAMESPACE_PREFIXES, ImportMoreArgumentProvider.ARGUMENT_NAMESPACE_URIS);
 		String requestedElementLocation = ArgumentParser.getValidString(args, ImportMoreArgumentProvider.ARGUMENT_REQUESTED_ELEMENT_LOCATION);
 		String localElementLocation = ArgumentParser.getValidString(args, ImportMoreArgumentProvider.ARGUMENT_LOCAL_ELEMENT_LOCATION);
+		FragmentCanonicalizer canonicalizer = ImportMoreArgumentParser.getValidCanonicalizer(args, ImportMoreArgumentProvider.ARGUMENT_NORMALIZATIONS,
+				FragmentCanonicalizer.NORMALIZE_NOTHING);
 		boolean displayPercentages = ArgumentParser.getValidBoolean(args, ImportMoreArgumentProvider.ARGUMENT_DISPLAY_PERCENTAGES);
 		int precision = ArgumentParser.getValidInt(args, ImportMoreArgumentProvider.ARGUMENT_PRECISION, 0);
 		String dialogTitle = ArgumentParser.getValidString(args, AskMoreArgumentProvider.ARGUMENT_DIALOG_TITLE);
 		
-		// fetch all distinct fragments from resource
-		Set<String> originalFragments;
+		// fetch fingerprints of all distinct fragments from resource
+		FingerprintSet originalFragments;
 		try {
-			originalFragments = new HashSet<>(XMLImportService.fetchSerializedXPathResults(resourceName, requestedElementLocation, namespaceMap));
+			originalFragments = XMLImportService.fetchFingerprints(resourceName, requestedElementLocation, namespaceMap, canonicalizer);
 			if (originalFragments.isEmpty())
 				throw new AuthorOperationException(XMLImportService.getNoResultMessage(resourceName));
+		} catch (InterruptedIOException ex) {
+			// the user cancelled the import
+			return;
 		} catch (IOException | ImportMoreXMLException | ImportMoreXPathException ex) {
 			throw new IllegalArgumentException(ex);
 		}
@@ -103,9 +113,14 @@ public class DisplayImportChartOperation implements AuthorOperation {
 		
 		// calc number of imported fragments
 		int numberOfImportedElements = 0;
-		for (String localFragment: new HashSet<>(APIAccessUtils.getSerializedXPathResults(documentController, localElementLocation))) {
-			if (originalFragments.contains(localFragment))
-				++numberOfImportedElements;
+		try {
+			for (LocalFragment localFragment: LocalDocumentIndex.forController(documentController).getFingerprintedXPathResults(documentController,
+					localElementLocation, canonicalizer)) {
+				if (originalFragments.contains(localFragment.getFingerprint()))
+					++numberOfImportedElements;
+			}
+		} catch (BadLocationException ex) {
+			throw new IllegalArgumentException(ex);
 		}
 		
 		// calc number of missing fragments
@@ -9,6 +9,7 @@
 package org.adwmainz.da.extensions.importmore.operations;
 
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.util.Arrays;
 import java.util.Map;
 import java.util.ResourceBundle;
@@ -23,12 +24,12 @@ import org.adwmainz.da.extensions.askmore.utils.AskMoreArgumentProvider;
 import org.adwmainz.da.extensions.askmore.utils.InputDialogUtils;
 import org.adwmainz.da.extensions.importmore.exceptions.ImportMoreXMLException;
 import org.adwmainz.da.extensions.importmore.exceptions.ImportMoreXPathException;
+import org.adwmainz.da.extensions.importmore.models.NodeSnapshot;
 import org.adwmainz.da.extensions.importmore.utils.ImportMoreAnnotationParser;
 import org.adwmainz.da.extensions.importmore.utils.ImportMoreArgumentParser;
 import org.adwmainz.da.extensions.importmore.utils.ImportMoreArgumentProvider;
 import org.adwmainz.da.extensions.importmore.utils.XMLImportService;
 
-import net.sf.saxon.s9api.XdmNode;
 import ro.sync.ecss.extensions.api.ArgumentDescriptor;
 import ro.sync.ecss.extensions.api.ArgumentsMap;
 import ro.sync.ecss.extensions.api.AuthorAccess;
@@ -96,17 +97,21 @@ public class ImportAnnotatedFragmentOperation extends InsertOrReplaceAnnotatedFr
 		String selectionLabel = ArgumentParser.getValidString(args, AskMoreArgumentProvider.ARGUMENT_SELECTION_LABEL);
 
 		// fetch all options from resource
-		Set<SelectableOption<XdmNode>> options;
+		Set<SelectableOption<NodeSnapshot>> options;
 		try {
-			options = XMLImportService.fetchSelectableNodes(resourceName, requestedElementLocation, selectableNameExpression, namespaceMap);
+			options = XMLImportService.fetchSelectableSnapshots(resourceName, requestedElementLocation, selectableNameExpression, namespaceMap,
+					ImportMoreAnnotationParser.getXPathExpressions(fragment));
+		} catch (InterruptedIOException ex) {
+			// the user cancelled the import
+			return;
 		} catch (IOException | ImportMoreXMLException | ImportMoreXPathException ex) {
 			throw new IllegalArgumentException(ex);
 		}
 		
 		// get user selection
-		XdmNode selectedBaseNode;
+		NodeSnapshot selectedSnapshot;
 		try {
-			selectedBaseNode = InputDialogUtils.fetchSelectedOption(dialogTitle, selectionLabel, options).getRealValue();
+			selectedSnapshot = InputDialogUtils.fetchSelectedOption(dialogTitle, selectionLabel, options).getRealValue();
 		} catch (InputDialogClosedException ex) {
 			// abort action if user closes the dialog
 			throw new AuthorOperationException(ImportMoreArgumentProvider.getAbortedImportMessage());
@@ -114,7 +119,7 @@ public class ImportAnnotatedFragmentOperation extends InsertOrReplaceAnnotatedFr
 		
 		// build fragment
 		try {
-			fragment = ImportMoreAnnotationParser.replaceAnnotations(fragment, selectedBaseNode, namespaceMap);
+			fragment = ImportMoreAnnotationParser.replaceAnnotations(fragment, selectedSnapshot.getNode(), namespaceMap);
 		} catch (ImportMoreXMLException | ImportMoreXPathException ex) {
 			throw new IllegalArgumentException(ex);
 		}
@@ -8,13 +8,19 @@
 package org.adwmainz.da.extensions.importmore.operations;
 
 import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.lang.reflect.InvocationTargetException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.ResourceBundle;
 import java.util.Set;
 
+import javax.swing.SwingUtilities;
+
 import org.adwmainz.da.extensions.askmore.exceptions.InputDialogClosedException;
 import org.adwmainz.da.extensions.askmore.models.HashedArgumentsMap;
 import org.adwmainz.da.extensions.askmore.models.SelectableOption;
@@ -22,17 +28,21 @@ import org.adwmainz.da.extensions.askmore.utils.ArgumentParser;
 import org.adwmainz.da.extensions.askmore.utils.AskMoreArgumentProvider;
 import org.adwmainz.da.extensions.importmore.exceptions.ImportMoreXMLException;
 import org.adwmainz.da.extensions.importmore.exceptions.ImportMoreXPathException;
+import org.adwmainz.da.extensions.importmore.models.KeyIndex;
+import org.adwmainz.da.extensions.importmore.models.LoadingProgress;
+import org.adwmainz.da.extensions.importmore.models.NodeSnapshot;
 import org.adwmainz.da.extensions.importmore.utils.ImportMoreArgumentParser;
 import org.adwmainz.da.extensions.importmore.utils.ImportMoreArgumentProvider;
-import org.adwmainz.da.extensions.importmore.utils.SaxonUtils;
+import org.adwmainz.da.extensions.importmore.utils.ImportTask;
+import org.adwmainz.da.extensions.importmore.utils.LocalDocumentIndex;
 import org.adwmainz.da.extensions.importmore.utils.StringUtils;
 import org.adwmainz.da.extensions.importmore.utils.ViewUtils;
 import org.adwmainz.da.extensions.importmore.utils.XMLImportService;
 
-import net.sf.saxon.s9api.XdmNode;
 import ro.sync.ecss.extensions.api.ArgumentDescriptor;
 import ro.sync.ecss.extensions.api.ArgumentsMap;
 import ro.sync.ecss.extensions.api.AuthorAccess;
+import ro.sync.ecss.extensions.api.AuthorConstants;
 import ro.sync.ecss.extensions.api.AuthorDocumentController;
 import ro.sync.ecss.extensions.api.AuthorOperationException;
 import ro.sync.ecss.extensions.api.node.AuthorNode;
@@ -40,6 +50,12 @@ import ro.sync.ecss.extensions.commons.operations.InsertFragmentOperation;
 
 public class ImportElementsOperation extends InsertFragmentOperation {
 	
+	// constant
+	/**
+	 * The number of elements inserted at once before the progress is updated
+	 */
+	protected static final int INSERTION_CHUNK_SIZE = 100;
+	
 	// field
 	protected ArgumentDescriptor[] arguments;
 
@@ -100,74 +116,241 @@ public class ImportElementsOperation extends InsertFragmentOperation {
 		
 		String dialogTitle = ArgumentParser.getValidString(args, AskMoreArgumentProvider.ARGUMENT_DIALOG_TITLE);
 		
-		// fetch all options from resource
-		Map<String, XdmNode> allNodesWithKeys;
+		// collect keys of already imported elements
+		AuthorDocumentController documentController = authorAccess.getDocumentController();
+		Set<String> localKeys = LocalDocumentIndex.forController(documentController).getKeys(documentController, localElementLocation,
+				equalElementExpression);
+		
+		// fetch an index of all elements from resource by their keys together with their rendered values
+		List<NodeSnapshot> snapshots;
 		try {
-			allNodesWithKeys = XMLImportService.fetchNodesWithKeys(resourceName, requestedElementLocation, equalElementExpression, namespaceMap);
-			if (allNodesWithKeys.isEmpty())
+			KeyIndex keyIndex = XMLImportService.fetchKeyIndex(resourceName, requestedElementLocation, equalElementExpression,
+					selectableNameExpression, namespaceMap, Collections.<String>emptyList());
+			if (keyIndex.isEmpty())
 				throw new AuthorOperationException(XMLImportService.getNoResultMessage(resourceName));
+			
+			// create snapshots of all elements that are not yet imported
+			snapshots = XMLImportService.fetchSnapshots(keyIndex, localKeys, selectableNameExpression);
+		} catch (InterruptedIOException ex) {
+			// the user cancelled the import
+			return;
 		} catch (IOException | ImportMoreXMLException | ImportMoreXPathException ex) {
 			throw new IllegalArgumentException(ex);
 		}
 		
-		// remove already imported elements from options
-		AuthorDocumentController documentController = authorAccess.getDocumentController();
-		for (AuthorNode targetNode: documentController.findNodesByXPath(localElementLocation, false, true, true)) {
-			/*String localKey = documentController.evaluateXPath(equalElementExpression, targetNode, false, true, true, true)[0].toString();
-			if (allNodesWithKeys.containsKey(localKey))
-				allNodesWithKeys.remove(localKey);*/
-			// MEMO: alternative that avoids ArrayIndexOutOfBoundsExceptions
-			// TODO: throw exception like "The xpath " + xPathExpression + " returned an empty result set." (c.f. SaxonUtils)
-			Object[] localKeyElems = documentController.evaluateXPath(equalElementExpression, targetNode, false, true, true, true);
-			if (localKeyElems.length > 0) {
-				String localKey = localKeyElems[0].toString();
-				if (allNodesWithKeys.containsKey(localKey))
-					allNodesWithKeys.remove(localKey);
-			}			
-		}
-		
-		// build final options and add default namespace
-		Set<SelectableOption<String>> options = new LinkedHashSet<>();
-		for (String key: allNodesWithKeys.keySet()) {
-			XdmNode node = allNodesWithKeys.get(key);
-			
-			// build real value
-			String realValue = node.toString();
-			
-			// build rendered value
-			String renderedValue;
-			try {
-				renderedValue = SaxonUtils.getFirstXPathResult(node, selectableNameExpression, namespaceMap).getStringValue();
-				renderedValue = StringUtils.reduceLength(renderedValue, ViewUtils.MAX_SELECTABLE_ELEMENT_LENGTH);
-			} catch (ImportMoreXPathException ex) {
-				throw new IllegalArgumentException(ex);
-			}
-			
-			options.add(new SelectableOption<>(realValue, renderedValue));
+		// build final options backed by snapshots attached to the projected resource (which only contains the requested elements)
+		Set<SelectableOption<NodeSnapshot>> options = new LinkedHashSet<>();
+		for (NodeSnapshot snapshot: snapshots) {
+			String renderedValue = StringUtils.reduceLength(snapshot.getLabel(), ViewUtils.MAX_SELECTABLE_ELEMENT_LENGTH);
+			options.add(new SelectableOption<>(snapshot, renderedValue));
 		}
 		
-		// build fragment from selected options
-		String fragment = "";
+		// fetch selected options
+		List<SelectableOption<NodeSnapshot>> selectedOptions;
 		try {
-			for (SelectableOption<String> selectedOption: ViewUtils.fetchSelectedOption(dialogTitle, new ArrayList<>(options)))
-				fragment += selectedOption.getRealValue();
+			selectedOptions = ViewUtils.fetchSelectedOption(dialogTitle, new ArrayList<>(options));
 		} catch (InputDialogClosedException ex) {
 			// abort action if user closes the dialog
 			throw new AuthorOperationException(ImportMoreArgumentProvider.getAbortedImportMessage());
 		}
 		
+		// insert selected elements in chunks
+		int chunkSize = getChunkSize(args);
+		List<String> fragments;
+		try {
+			fragments = buildFragments(selectedOptions, chunkSize);
+		} catch (ImportMoreXMLException ex) {
+			throw new IllegalArgumentException(ex);
+		}
+		// undo already inserted chunks if the import is cancelled or fails
+		documentController.beginCompoundEdit();
+		boolean isInserted = false;
+		try {
+			insertFragments(authorAccess, args, fragments, chunkSize, selectedOptions.size());
+			isInserted = true;
+		} catch (InterruptedIOException ex) {
+			// the user cancelled the import
+			return;
+		} finally {
+			if (isInserted)
+				documentController.endCompoundEdit();
+			else
+				documentController.cancelCompoundEdit();
+		}
+	}
+	
+	// helper methods
+	/**
+	 * Returns the number of elements that may be inserted at once for the given arguments. Multiple chunks are only used if the insert location
+	 * is specified and it is not replaced.
+	 * @param args the arguments of this operation
+	 */
+	protected int getChunkSize(ArgumentsMap args) {
+		Object insertLocation = args.getArgumentValue(AskMoreArgumentProvider.ARGUMENT_INSERT_LOCATION);
+		Object insertPosition = args.getArgumentValue(AskMoreArgumentProvider.ARGUMENT_INSERT_POSITION);
+		if (insertLocation == null || insertLocation.toString().trim().isEmpty() || AuthorConstants.POSITION_REPLACE.equals(insertPosition))
+			return Integer.MAX_VALUE;
+		return INSERTION_CHUNK_SIZE;
+	}
+	
+	/**
+	 * Serializes the selected nodes and concatenates them to fragments of the given number of elements
+	 * @param selectedOptions the selected options
+	 * @param chunkSize the maximum number of elements per fragment
+	 * @throws ImportMoreXMLException if a snapshot cannot be parsed again
+	 */
+	protected List<String> buildFragments(List<SelectableOption<NodeSnapshot>> selectedOptions, int chunkSize) throws ImportMoreXMLException {
+		List<String> fragments = new ArrayList<>();
+		StringBuilder fragment = new StringBuilder();
+		int numberOfElements = 0;
+		for (SelectableOption<NodeSnapshot> selectedOption: selectedOptions) {
+			fragment.append(selectedOption.getRealValue().getNode().toString());
+			if (++numberOfElements == chunkSize) {
+				fragments.add(fragment.toString());
+				fragment.setLength(0);
+				numberOfElements = 0;
+			}
+		}
+		if (numberOfElements > 0)
+			fragments.add(fragment.toString());
+		return fragments;
+	}
+	
+	/**
+	 * Inserts the given fragments one after another while displaying their progress. The insert location is only resolved once and each fragment
+	 * is inserted behind the previous one so that the order of the elements is kept even if the location would match the inserted elements.
+	 * @param authorAccess the current AuthorAccess
+	 * @param args the arguments of this operation
+	 * @param fragments a List of serialized fragments
+	 * @param chunkSize the maximum number of elements per fragment
+	 * @param numberOfElements the total number of elements
+	 * @throws AuthorOperationException if a fragment cannot be inserted
+	 * @throws InterruptedIOException if the user cancelled the import
+	 */
+	protected void insertFragments(final AuthorAccess authorAccess, ArgumentsMap args, List<String> fragments, final int chunkSize,
+			final int numberOfElements) throws AuthorOperationException, InterruptedIOException {
+		// insert a single fragment as usual
+		final AuthorDocumentController documentController = authorAccess.getDocumentController();
+		int insertOffset = (fragments.size() > 1) ? getInsertOffset(documentController, args) : -1;
+		if (insertOffset < 0) {
+			super.doOperation(authorAccess, getFragmentArgs(args, String.join("", fragments), true));
+			return;
+		}
+		
+		// build the arguments of the super class for each fragment (which is inserted at the caret)
+		final List<ArgumentsMap> fragmentArgs = new ArrayList<>();
+		for (int i = 0; i < fragments.size(); ++i) {
+			HashedArgumentsMap parsedArgs = getFragmentArgs(args, fragments.get(i), i == fragments.size() - 1);
+			parsedArgs.put(AskMoreArgumentProvider.ARGUMENT_INSERT_LOCATION, "");
+			fragmentArgs.add(parsedArgs);
+		}
+		
+		// invoke main action from super class on the event dispatch thread while reporting the progress in the background
+		final int[] nextOffset = new int[] {insertOffset};
+		final AuthorOperationException[] insertionFailure = new AuthorOperationException[1];
+		try {
+			XMLImportService.runImportTask(new ImportTask<Void>() {
+				@Override
+				public Void run(LoadingProgress progress) throws IOException {
+					progress.setPhase(LoadingProgress.PHASE_INSERTING);
+					for (int i = 0; i < fragmentArgs.size(); ++i) {
+						final ArgumentsMap parsedArgs = fragmentArgs.get(i);
+						progress.checkCancelled();
+						invokeOnEventDispatchThread(new Runnable() {
+							@Override
+							public void run() {
+								try {
+									// move behind the previously inserted content by the length it added to the document
+									int documentLength = documentController.getAuthorDocumentNode().getEndOffset();
+									authorAccess.getEditorAccess().setCaretPosition(nextOffset[0]);
+									ImportElementsOperation.super.doOperation(authorAccess, parsedArgs);
+									nextOffset[0] += documentController.getAuthorDocumentNode().getEndOffset() - documentLength;
+								} catch (AuthorOperationException ex) {
+									insertionFailure[0] = ex;
+								}
+							}
+						});
+						if (insertionFailure[0] != null)
+							break;
+						progress.addMatchedNodes(Math.min(chunkSize, numberOfElements - i * chunkSize));
+					}
+					return null;
+				}
+			});
+		} catch (InterruptedIOException ex) {
+			throw ex;
+		} catch (IOException | ImportMoreXMLException | ImportMoreXPathException ex) {
+			throw new AuthorOperationException(ex.getMessage(), ex);
+		}
+		if (insertionFailure[0] != null)
+			throw insertionFailure[0];
+	}
+	
+	/**
+	 * Returns the offset the insert location of this operation refers to or -1 if it does not identify any node
+	 * @param documentController the AuthorDocumentController of the current document
+	 * @param args the arguments of this operation
+	 * @throws AuthorOperationException if the insert location cannot be evaluated
+	 */
+	protected static int getInsertOffset(AuthorDocumentController documentController, ArgumentsMap args) throws AuthorOperationException {
+		String insertLocation = ArgumentParser.getValidString(args, AskMoreArgumentProvider.ARGUMENT_INSERT_LOCATION);
+		AuthorNode[] anchorNodes = documentController.findNodesByXPath(insertLocation, true, true, true);
+		if (anchorNodes.length == 0)
+			return -1;
 		
-		// invoke main action from super class
+		// the super class inserts as first child per default
+		AuthorNode anchorNode = anchorNodes[0];
+		Object insertPosition = args.getArgumentValue(AskMoreArgumentProvider.ARGUMENT_INSERT_POSITION);
+		if (AuthorConstants.POSITION_BEFORE.equals(insertPosition))
+			return anchorNode.getStartOffset();
+		if (AuthorConstants.POSITION_AFTER.equals(insertPosition))
+			return anchorNode.getEndOffset() + 1;
+		if (AuthorConstants.POSITION_INSIDE_LAST.equals(insertPosition))
+			return anchorNode.getEndOffset();
+		return anchorNode.getStartOffset() + 1;
+	}
+	
+	/**
+	 * Returns the arguments of the super class for inserting the given fragment
+	 * @param args the arguments of this operation
+	 * @param fragment a serialized fragment
+	 * @param isLastFragment specifies whether no other fragment will be inserted afterwards
+	 */
+	protected static HashedArgumentsMap getFragmentArgs(ArgumentsMap args, String fragment, boolean isLastFragment) {
 		HashedArgumentsMap parsedArgs = new HashedArgumentsMap(args, Arrays.asList(
 				AskMoreArgumentProvider.ARGUMENT_INSERT_LOCATION, 
 				AskMoreArgumentProvider.ARGUMENT_INSERT_POSITION, 
 				AskMoreArgumentProvider.ARGUMENT_GO_TO_NEXT_EDITABLE_POSITION)
 		);
 		parsedArgs.put(AskMoreArgumentProvider.ARGUMENT_FRAGMENT, fragment);
-		
-		super.doOperation(authorAccess, parsedArgs);
+		if (!isLastFragment)
+			parsedArgs.put(AskMoreArgumentProvider.ARGUMENT_GO_TO_NEXT_EDITABLE_POSITION, AuthorConstants.ARG_VALUE_FALSE);
+		return parsedArgs;
+	}
+	
+	/**
+	 * Runs the given Runnable on the event dispatch thread and waits until it is done
+	 * @param runnable a Runnable
+	 * @throws InterruptedIOException if the current thread is interrupted while waiting
+	 */
+	protected static void invokeOnEventDispatchThread(Runnable runnable) throws InterruptedIOException {
+		if (SwingUtilities.isEventDispatchThread()) {
+			runnable.run();
+			return;
+		}
+		try {
+			SwingUtilities.invokeAndWait(runnable);
+		} catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException(ImportMoreArgumentProvider.getAbortedImportMessage());
+		} catch (InvocationTargetException ex) {
+			if (ex.getCause() instanceof RuntimeException)
+				throw (RuntimeException) ex.getCause();
+			throw new IllegalStateException(ex.getCause());
+		}
 	}
 	
+	// overridden method
 	@Override
 	public ArgumentDescriptor[] getArguments() {		
 		return arguments;
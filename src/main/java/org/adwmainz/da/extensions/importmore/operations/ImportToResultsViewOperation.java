@@ -9,6 +9,8 @@ package org.adwmainz.da.extensions.importmore.operations;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.ResourceBundle;
@@ -20,9 +22,14 @@ import org.adwmainz.da.extensions.askmore.utils.ArgumentParser;
 import org.adwmainz.da.extensions.askmore.utils.AskMoreArgumentProvider;
 import org.adwmainz.da.extensions.importmore.exceptions.ImportMoreXMLException;
 import org.adwmainz.da.extensions.importmore.exceptions.ImportMoreXPathException;
+import org.adwmainz.da.extensions.importmore.models.AnnotationTemplate;
+import org.adwmainz.da.extensions.importmore.models.LoadingProgress;
 import org.adwmainz.da.extensions.importmore.utils.ImportMoreAnnotationParser;
 import org.adwmainz.da.extensions.importmore.utils.ImportMoreArgumentParser;
 import org.adwmainz.da.extensions.importmore.utils.ImportMoreArgumentProvider;
+import org.adwmainz.da.extensions.importmore.utils.ImportTask;
+import org.adwmainz.da.extensions.importmore.utils.NodeMapper;
+import org.adwmainz.da.extensions.importmore.utils.ParallelEvaluator;
 import org.adwmainz.da.extensions.importmore.utils.XMLImportService;
 
 import net.sf.saxon.s9api.XdmNode;
@@ -92,7 +99,7 @@ public class ImportToResultsViewOperation extends DisplayInResultsViewOperation
 		String noResultMessage = ArgumentParser.getValidString(args, AskMoreArgumentProvider.ARGUMENT_NO_RESULT_MESSAGE);
 		String systemId = ArgumentParser.getValidString(args, ImportMoreArgumentProvider.ARGUMENT_SYSTEM_ID, "-");
 		String resultsTabName = ArgumentParser.getValidString(args, AskMoreArgumentProvider.ARGUMENT_RESULTS_TAB_NAME);
-		int severity = APIAccessUtils.getSeverity(ArgumentParser.getValidString(args, AskMoreArgumentProvider.ARGUMENT_SEVERITY, "Info"));
+		final int severity = APIAccessUtils.getSeverity(ArgumentParser.getValidString(args, AskMoreArgumentProvider.ARGUMENT_SEVERITY, "Info"));
 
 		// get controller
 		AuthorDocumentController controller = authorAccess.getDocumentController();
@@ -103,27 +110,56 @@ public class ImportToResultsViewOperation extends DisplayInResultsViewOperation
 		resultsTabName += " - " + new File(localSystemId).getName();
 		resManager.setResults(resultsTabName, null, null); // clear tab
 
-		// fetch all options from resource
-		List<XdmNode> importedNodes;
+		// fetch all options from resource (only the parts needed by the annotated arguments)
+		List<String> nodeExpressions = new ArrayList<>(ImportMoreAnnotationParser.getXPathExpressions(message));
+		nodeExpressions.addAll(ImportMoreAnnotationParser.getXPathExpressions(systemId));
+		final List<XdmNode> importedNodes;
 		try {
-			importedNodes = XMLImportService.fetchNodes(resourceName, requestedElementLocation, namespaceMap);
+			importedNodes = XMLImportService.fetchNodes(resourceName, requestedElementLocation, namespaceMap, nodeExpressions);
 			if (importedNodes.isEmpty())
 				throw new AuthorOperationException(noResultMessage);
+		} catch (InterruptedIOException ex) {
+			// the user cancelled the import
+			return;
 		} catch (IOException | ImportMoreXMLException | ImportMoreXPathException ex) {
 			throw new IllegalArgumentException(ex);
 		}
 		
-		// add results
-		for (XdmNode importedNode: importedNodes) {
-			try {
-				String resultMessage = ImportMoreAnnotationParser.replaceAnnotations(message, importedNode, namespaceMap);
-				String resultSystemId = ImportMoreAnnotationParser.replaceAnnotations(systemId, importedNode, namespaceMap);
-				DocumentPositionedInfo info = new DocumentPositionedInfo(severity, resultMessage, resultSystemId);
-				resManager.addResult(resultsTabName, info, ResultType.GENERIC, true, false);
-			} catch (ImportMoreXMLException | ImportMoreXPathException ex) {
-				throw new IllegalArgumentException(ex);
-			}
+		// compile annotated arguments only once
+		final AnnotationTemplate messageTemplate;
+		final AnnotationTemplate systemIdTemplate;
+		try {
+			messageTemplate = ImportMoreAnnotationParser.getTemplate(message, namespaceMap);
+			systemIdTemplate = ImportMoreAnnotationParser.getTemplate(systemId, namespaceMap);
+		} catch (ImportMoreXPathException ex) {
+			throw new IllegalArgumentException(ex);
+		}
+		
+		// render results (in parallel if there are many of them)
+		List<DocumentPositionedInfo> results;
+		try {
+			results = XMLImportService.runImportTask(new ImportTask<List<DocumentPositionedInfo>>() {
+				@Override
+				public List<DocumentPositionedInfo> run(LoadingProgress progress) throws IOException, ImportMoreXPathException {
+					progress.setPhase(LoadingProgress.PHASE_EVALUATING);
+					return ParallelEvaluator.map(importedNodes, new NodeMapper<DocumentPositionedInfo>() {
+						@Override
+						public DocumentPositionedInfo map(XdmNode importedNode) throws ImportMoreXPathException {
+							return new DocumentPositionedInfo(severity, messageTemplate.render(importedNode), systemIdTemplate.render(importedNode));
+						}
+					}, progress);
+				}
+			});
+		} catch (InterruptedIOException ex) {
+			// the user cancelled the import
+			return;
+		} catch (IOException | ImportMoreXMLException | ImportMoreXPathException ex) {
+			throw new IllegalArgumentException(ex);
 		}
+		
+		// add results
+		for (DocumentPositionedInfo info: results)
+			resManager.addResult(resultsTabName, info, ResultType.GENERIC, true, false);
 	}
 	
 	@Override
@@ -8,8 +8,8 @@
 package org.adwmainz.da.extensions.importmore.operations;
 
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.util.Arrays;
-import java.util.List;
 import java.util.Map;
 
 import org.adwmainz.da.extensions.askmore.exceptions.InputDialogClosedException;
@@ -84,10 +84,13 @@ public class InsertOrReplaceImportedElementOperation extends InsertOrReplaceFrag
 		// import first element
 		String serializedImportedNode;
 		try {
-			List<XdmNode> importedNodes = XMLImportService.fetchNodes(resourceName, requestedElementLocation, namespaceMap);
-			if (importedNodes.isEmpty())
+			XdmNode importedNode = XMLImportService.fetchFirstNode(resourceName, requestedElementLocation, namespaceMap);
+			if (importedNode == null)
 				throw new AuthorOperationException(XMLImportService.getNoResultMessage(resourceName));
-			serializedImportedNode = importedNodes.get(0).toString();
+			serializedImportedNode = importedNode.toString();
+		} catch (InterruptedIOException ex) {
+			// the user cancelled the import
+			return;
 		} catch (IOException | ImportMoreXMLException | ImportMoreXPathException ex) {
 			throw new IllegalArgumentException(ex);
 		}
@@ -9,7 +9,7 @@ package org.adwmainz.da.extensions.importmore.operations;
 
 import java.io.File;
 import java.io.IOException;
-import java.util.List;
+import java.io.InterruptedIOException;
 import java.util.Map;
 import java.util.ResourceBundle;
 
@@ -21,9 +21,13 @@ import org.adwmainz.da.extensions.askmore.utils.ArgumentParser;
 import org.adwmainz.da.extensions.askmore.utils.AskMoreArgumentProvider;
 import org.adwmainz.da.extensions.importmore.exceptions.ImportMoreXMLException;
 import org.adwmainz.da.extensions.importmore.exceptions.ImportMoreXPathException;
+import org.adwmainz.da.extensions.importmore.models.FingerprintSet;
+import org.adwmainz.da.extensions.importmore.models.LocalFragment;
 import org.adwmainz.da.extensions.importmore.utils.APIAccessUtils;
+import org.adwmainz.da.extensions.importmore.utils.FragmentCanonicalizer;
 import org.adwmainz.da.extensions.importmore.utils.ImportMoreArgumentParser;
 import org.adwmainz.da.extensions.importmore.utils.ImportMoreArgumentProvider;
+import org.adwmainz.da.extensions.importmore.utils.LocalDocumentIndex;
 import org.adwmainz.da.extensions.importmore.utils.XMLImportService;
 
 import ro.sync.document.DocumentPositionedInfo;
@@ -34,7 +38,6 @@ import ro.sync.ecss.extensions.api.AuthorAccess;
 import ro.sync.ecss.extensions.api.AuthorDocumentController;
 import ro.sync.ecss.extensions.api.AuthorOperation;
 import ro.sync.ecss.extensions.api.AuthorOperationException;
-import ro.sync.ecss.extensions.api.node.AuthorNode;
 import ro.sync.exml.workspace.api.PluginWorkspaceProvider;
 import ro.sync.exml.workspace.api.results.ResultsManager;
 import ro.sync.exml.workspace.api.results.ResultsManager.ResultType;
@@ -62,6 +65,7 @@ public class IsInListCheckOperation implements AuthorOperation {
 				ImportMoreArgumentProvider.getNamespacePrefixesArgumentDescriptor(),
 				ImportMoreArgumentProvider.getNamespaceUrisArgumentDescriptor(),
 				ImportMoreArgumentProvider.getLocalElementLocationArgumentDescriptor(),
+				ImportMoreArgumentProvider.getNormalizationsArgumentDescriptor(),
 				AskMoreArgumentProvider.getResultsTabNameArgumentDescriptor(rb.getString("DIFFS_FOUND")),
 				AskMoreArgumentProvider.getResultsViewMessageArgumentDescriptor(rb.getString("DIFF_FOUND")),
 				AskMoreArgumentProvider.getNoResultMessageArgumentDescriptor()
@@ -92,6 +96,8 @@ public class IsInListCheckOperation implements AuthorOperation {
 		Map<String, String> namespaceMap = ImportMoreArgumentParser.getValidMap(args, ImportMoreArgumentProvider.ARGUMENT_NAMESPACE_PREFIXES, ImportMoreArgumentProvider.ARGUMENT_NAMESPACE_URIS);
 		String requestedElementLocation = ArgumentParser.getValidString(args, ImportMoreArgumentProvider.ARGUMENT_REQUESTED_ELEMENT_LOCATION);
 		String localElementLocation = ArgumentParser.getValidString(args, ImportMoreArgumentProvider.ARGUMENT_LOCAL_ELEMENT_LOCATION);		
+		FragmentCanonicalizer canonicalizer = ImportMoreArgumentParser.getValidCanonicalizer(args, ImportMoreArgumentProvider.ARGUMENT_NORMALIZATIONS,
+				FragmentCanonicalizer.NORMALIZE_NOTHING);
 		String resultsTabName = ArgumentParser.getValidString(args, AskMoreArgumentProvider.ARGUMENT_RESULTS_TAB_NAME);
 		String resultMessage = ArgumentParser.getValidString(args, AskMoreArgumentProvider.ARGUMENT_MESSAGE);
 		String noResultMessage = ArgumentParser.getValidString(args, AskMoreArgumentProvider.ARGUMENT_NO_RESULT_MESSAGE);
@@ -105,35 +111,35 @@ public class IsInListCheckOperation implements AuthorOperation {
 		resultsTabName += " - " + new File(systemID).getName();
 		resultsManager.setResults(resultsTabName, null, null); 
 
-		// fetch all options from resource
-		List<String> originalFragments;
+		// fetch fingerprints of all fragments from resource
+		FingerprintSet originalFragments;
 		try {
-			originalFragments = XMLImportService.fetchSerializedXPathResults(resourceName, requestedElementLocation, namespaceMap);
+			originalFragments = XMLImportService.fetchFingerprints(resourceName, requestedElementLocation, namespaceMap, canonicalizer);
 			if (originalFragments.isEmpty())
 				throw new AuthorOperationException(noResultMessage);
+		} catch (InterruptedIOException ex) {
+			// the user cancelled the import
+			return;
 		} catch (IOException | ImportMoreXMLException | ImportMoreXPathException ex) {
 			throw new IllegalArgumentException(ex);
 		}
 		
-		// get local fragments with their respective target nodes
-		Map<String, AuthorNode> localFragmentsWithTargetNode;
+		// iterate over fingerprinted local fragments to find diffs
+		int numberOfDiffs = 0;
 		try {
-			localFragmentsWithTargetNode = APIAccessUtils.getSerializedXPathResultsWithTargetNode(documentController, localElementLocation);
+			for (LocalFragment localFragment: LocalDocumentIndex.forController(documentController).getFingerprintedXPathResults(documentController,
+					localElementLocation, canonicalizer)) {
+				// add fragments that cannot be found in the resource to ResultsView
+				if (!originalFragments.contains(localFragment.getFingerprint())) {
+					String message = resultMessage + " - " + APIAccessUtils.serializeFragment(documentController, localFragment);
+					AuthorDocumentPositionedInfo result = new AuthorDocumentPositionedInfo(DocumentPositionedInfo.SEVERITY_WARN, message, systemID, localFragment.getTargetNode());
+					resultsManager.addResult(resultsTabName, result, ResultType.PROBLEM, true, false);
+					++numberOfDiffs;
+				}
+			}
 		} catch (BadLocationException ex) {
 			throw new IllegalArgumentException(ex);
 		}
-
-		// iterate over author nodes to find diffs
-		int numberOfDiffs = 0;
-		for (String localFragment: localFragmentsWithTargetNode.keySet()) {
-			// add fragments that cannot be found in the resource to ResultsView
-			if (!originalFragments.contains(localFragment)) {
-				String message = resultMessage + " - " + localFragment;
-				AuthorDocumentPositionedInfo result = new AuthorDocumentPositionedInfo(DocumentPositionedInfo.SEVERITY_WARN, message, systemID, localFragmentsWithTargetNode.get(localFragment));
-				resultsManager.addResult(resultsTabName, result, ResultType.PROBLEM, true, false);
-				++numberOfDiffs;
-			}
-		}
 				
 		// try to exit early if there are no results
 		ResourceBundle rb = ResourceBundle.getBundle("org.adwmainz.da.extensions.importmore.resources.DialogTextBundle");
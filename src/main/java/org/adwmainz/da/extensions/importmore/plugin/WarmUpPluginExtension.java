@@ -0,0 +1,29 @@
+/**
+ * WarmUpPluginExtension.java - is a workspace access plugin extension that prepares the resources and XPath expressions used by the operations
+ *  configured within the installed frameworks right after oXygen has been started as used within the ImportMoreXtension developed at the
+ *  Digital Academy of the Academy of Sciences and Literature | Mainz.
+ * @author Patrick D. Brookshire
+ * @version 1.0.0
+ */
+package org.adwmainz.da.extensions.importmore.plugin;
+
+import org.adwmainz.da.extensions.importmore.utils.ImportMoreSettings;
+import org.adwmainz.da.extensions.importmore.utils.WarmUpService;
+
+import ro.sync.exml.plugin.workspace.WorkspaceAccessPluginExtension;
+import ro.sync.exml.workspace.api.standalone.StandalonePluginWorkspace;
+
+public class WarmUpPluginExtension implements WorkspaceAccessPluginExtension {
+
+	// overridden methods
+	@Override
+	public void applicationStarted(StandalonePluginWorkspace pluginWorkspace) {
+		WarmUpService.start(ImportMoreSettings.getWarmUpLocations());
+	}
+
+	@Override
+	public boolean applicationClosing() {
+		return true;
+	}
+
+}
@@ -6,11 +6,17 @@
  */
 package org.adwmainz.da.extensions.importmore.utils;
 
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import javax.swing.text.BadLocationException;
 
+import org.adwmainz.da.extensions.importmore.models.LocalFragment;
+
 import ro.sync.ecss.dom.wrappers.AuthorNodeDomWrapper;
 import ro.sync.ecss.extensions.api.AuthorDocumentController;
 import ro.sync.ecss.extensions.api.AuthorOperationException;
@@ -45,4 +51,83 @@ public class APIAccessUtils {
 		return results;
 	}
 	
+	/**
+	 * Returns a List of fingerprinted XPath results with distinct fingerprints for a given XPath expression without serializing them
+	 * @param documentController the current AuthorDocumentController
+	 * @param xPathExpression an XPath expression
+	 * @param canonicalizer the FragmentCanonicalizer used to compute the fingerprints
+	 * @throws AuthorOperationException
+	 * @throws BadLocationException
+	 */
+	public static List<LocalFragment> getFingerprintedXPathResults(AuthorDocumentController documentController, String xPathExpression,
+			FragmentCanonicalizer canonicalizer) throws AuthorOperationException, BadLocationException {
+		// get raw results
+		Object[] rawResults = documentController.evaluateXPath(xPathExpression, false, true, true);
+		
+		// fingerprint and deduplicate results (c.f. the keys of getSerializedXPathResultsWithTargetNode)
+		Map<Long, LocalFragment> results = new LinkedHashMap<>();
+		for (Object rawResult: rawResults) {
+			LocalFragment fragment;
+			if (rawResult instanceof AuthorNodeDomWrapper) {
+				AuthorNode targetNode = ((AuthorNodeDomWrapper) rawResult).getWrappedAuthorNode();
+				fragment = new LocalFragment(canonicalizer.fingerprint(documentController, targetNode), targetNode);
+			}
+			else {
+				fragment = new LocalFragment(canonicalizer.fingerprint(rawResult.toString()), rawResult.toString());
+			}
+			results.put(fragment.getFingerprint(), fragment);
+		}
+		return new ArrayList<>(results.values());
+	}
+	
+	/**
+	 * Serializes a fingerprinted XPath result
+	 * @param documentController the current AuthorDocumentController
+	 * @param fragment a LocalFragment
+	 * @throws BadLocationException
+	 */
+	public static String serializeFragment(AuthorDocumentController documentController, LocalFragment fragment) throws BadLocationException {
+		if (fragment.getTargetNode() == null)
+			return fragment.getValue();
+		return org.adwmainz.da.extensions.askmore.utils.APIAccessUtils.serializeAuthorNode(documentController, fragment.getTargetNode());
+	}
+	
+	/**
+	 * Returns the Set of keys of all nodes identified by a given XPath expression. The keys are extracted by a single XPath evaluation if possible
+	 * and by evaluating the key expression once per node otherwise. Nodes whose key expression returns an empty result set are skipped.
+	 * @param documentController the current AuthorDocumentController
+	 * @param xPathExpression an XPath expression identifying the nodes
+	 * @param keyExpression an XPath expression identifying the key using each node as context node
+	 * @throws AuthorOperationException if the XPath expression is erroneous
+	 */
+	public static Set<String> getKeys(AuthorDocumentController documentController, String xPathExpression, String keyExpression)
+			throws AuthorOperationException {
+		Set<String> keys = new HashSet<>();
+		try {
+			// process change markers like the evaluation per node below (using the node at the caret as context node)
+			for (Object key: documentController.evaluateXPath(getBulkKeyExpression(xPathExpression, keyExpression), null, false, true, true, true))
+				keys.add(key.toString());
+			return keys;
+		} catch (AuthorOperationException ex) {
+			// the combined expression may be rejected (e.g. if the XPath engine does not support the simple map operator)
+			keys.clear();
+		}
+		
+		for (AuthorNode targetNode: documentController.findNodesByXPath(xPathExpression, false, true, true)) {
+			Object[] localKeyElems = documentController.evaluateXPath(keyExpression, targetNode, false, true, true, true);
+			if (localKeyElems.length > 0)
+				keys.add(localKeyElems[0].toString());
+		}
+		return keys;
+	}
+	
+	/**
+	 * Returns the XPath expression evaluated by getKeys to extract the keys of all nodes at once
+	 * @param xPathExpression an XPath expression identifying the nodes
+	 * @param keyExpression an XPath expression identifying the key using each node as context node
+	 */
+	public static String getBulkKeyExpression(String xPathExpression, String keyExpression) {
+		return "for $n in (" + xPathExpression + "), $k in ($n ! (" + keyExpression + "))[1] return string($k)";
+	}
+	
 }
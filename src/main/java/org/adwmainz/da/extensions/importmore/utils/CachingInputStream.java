@@ -0,0 +1,123 @@
+/**
+ * CachingInputStream.java - is an extension of a java.io.FilterInputStream that copies all bytes read from an external resource into a temporary
+ *  file that is committed to the ResourceDiskCache if the resource has been read completely as used within the ImportMoreXtension developed at the
+ *  Digital Academy of the Academy of Sciences and Literature | Mainz.
+ * @author Patrick D. Brookshire
+ * @version 1.0.0
+ */
+package org.adwmainz.da.extensions.importmore.utils;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URL;
+
+import org.adwmainz.da.extensions.importmore.models.ResourceVersion;
+
+public class CachingInputStream extends FilterInputStream {
+	
+	// fields
+	protected final URL url;
+	protected final ResourceVersion version;
+	protected final File tempFile;
+	protected OutputStream copy;
+	protected boolean complete = false;
+
+	// constructor
+	/**
+	 * Creates a new CachingInputStream
+	 * @param in the underlying InputStream
+	 * @param url the URL the resource is fetched from
+	 * @param version the version of the fetched resource
+	 * @param tempFile the file the copy should be written to
+	 * @throws IOException if the temporary file cannot be created
+	 */
+	public CachingInputStream(InputStream in, URL url, ResourceVersion version, File tempFile) throws IOException {
+		super(in);
+		this.url = url;
+		this.version = version;
+		this.tempFile = tempFile;
+		this.copy = new FileOutputStream(tempFile);
+	}
+
+	// overridden methods
+	@Override
+	public int read() throws IOException {
+		int result = super.read();
+		if (result == -1)
+			complete = true;
+		else
+			write(new byte[] {(byte) result}, 0, 1);
+		return result;
+	}
+
+	@Override
+	public int read(byte[] b, int off, int len) throws IOException {
+		int result = super.read(b, off, len);
+		if (result == -1)
+			complete = true;
+		else
+			write(b, off, result);
+		return result;
+	}
+
+	@Override
+	public long skip(long n) throws IOException {
+		// skipped bytes have to be copied as well
+		byte[] buffer = new byte[(int) Math.min(n, 8192)];
+		int result = read(buffer, 0, buffer.length);
+		return Math.max(result, 0);
+	}
+
+	@Override
+	public boolean markSupported() {
+		return false;
+	}
+
+	/**
+	 * Closes the underlying stream and commits the copy to the ResourceDiskCache if the resource has been read completely
+	 */
+	@Override
+	public void close() throws IOException {
+		try {
+			super.close();
+		} finally {
+			if (copy != null) {
+				copy.close();
+				copy = null;
+				if (complete)
+					ResourceDiskCache.commit(url, version, tempFile);
+				else
+					tempFile.delete();
+			}
+		}
+	}
+	
+	// helper method
+	/**
+	 * Writes the given bytes to the copy and stops copying if the copy cannot be written
+	 * @param b a byte array
+	 * @param off the start offset
+	 * @param len the number of bytes
+	 */
+	protected void write(byte[] b, int off, int len) {
+		if (copy == null)
+			return;
+		try {
+			copy.write(b, off, len);
+		} catch (IOException ex) {
+			// reading the resource must not fail because of the cache
+			try {
+				copy.close();
+			} catch (IOException ex2) {
+				// the copy is discarded anyway
+			}
+			copy = null;
+			tempFile.delete();
+		}
+	}
+	
+}
@@ -0,0 +1,566 @@
+/**
+ * ChunkedXMLReader.java - is an implementation of an org.xml.sax.XMLReader that splits large resources (e.g. registers consisting of many sibling
+ *  records) into chunks at tag boundaries, parses these chunks by several threads at once and passes their events on as if the whole resource had
+ *  been parsed at once. Each chunk is made well-formed by repeating the start tags of all elements that are open at its beginning and closing all
+ *  elements that are open at its end. Resources that cannot be split safely (e.g. since they have a DTD) are parsed as usual. It is used within
+ *  the ImportMoreXtension developed at the Digital Academy of the Academy of Sciences and Literature | Mainz.
+ * @author Patrick D. Brookshire
+ * @version 1.0.0
+ */
+package org.adwmainz.da.extensions.importmore.utils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.SequenceInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+import org.adwmainz.da.extensions.importmore.models.LoadingProgress;
+
+import org.xml.sax.ContentHandler;
+import org.xml.sax.DTDHandler;
+import org.xml.sax.EntityResolver;
+import org.xml.sax.ErrorHandler;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.SAXNotRecognizedException;
+import org.xml.sax.SAXNotSupportedException;
+import org.xml.sax.XMLReader;
+import org.xml.sax.ext.LexicalHandler;
+import org.xml.sax.helpers.DefaultHandler;
+import org.xml.sax.helpers.LocatorImpl;
+
+public class ChunkedXMLReader implements XMLReader {
+
+	// constants
+	protected static final String LEXICAL_HANDLER_PROPERTY = "http://xml.org/sax/properties/lexical-handler";
+	protected static final String NAMESPACES_FEATURE = "http://xml.org/sax/features/namespaces";
+	protected static final int MIN_CHUNK_LENGTH = 4 * 1024 * 1024;
+	protected static final int CHUNKS_PER_THREAD = 2;
+	protected static final int INITIAL_DEPTH = 64;
+	protected static final byte[] XML_DECLARATION_START = "<?xml".getBytes(StandardCharsets.US_ASCII);
+	protected static final byte[] COMMENT_START = "<!--".getBytes(StandardCharsets.US_ASCII);
+	protected static final byte[] COMMENT_END = "-->".getBytes(StandardCharsets.US_ASCII);
+	protected static final byte[] CDATA_START = "<![CDATA[".getBytes(StandardCharsets.US_ASCII);
+	protected static final byte[] CDATA_END = "]]>".getBytes(StandardCharsets.US_ASCII);
+	protected static final byte[] PROCESSING_INSTRUCTION_END = "?>".getBytes(StandardCharsets.US_ASCII);
+
+	// fields
+	protected final int parallelism;
+	protected final LoadingProgress progress;
+	protected final Map<String, Boolean> features = new HashMap<>();
+	protected final Map<String, Object> properties = new HashMap<>();
+	protected ContentHandler contentHandler;
+	protected LexicalHandler lexicalHandler;
+	protected DTDHandler dtdHandler;
+	protected EntityResolver entityResolver;
+	protected ErrorHandler errorHandler;
+
+	// constructor
+	/**
+	 * Creates a new ChunkedXMLReader
+	 * @param parallelism the number of threads that may parse chunks at once
+	 */
+	public ChunkedXMLReader(int parallelism) {
+		this(parallelism, null);
+	}
+
+	/**
+	 * Creates a new ChunkedXMLReader that stops reading and parsing as soon as the cancellation of the given LoadingProgress has been requested
+	 * @param parallelism the number of threads that may parse chunks at once
+	 * @param progress a LoadingProgress or <code>null</code>
+	 */
+	public ChunkedXMLReader(int parallelism, LoadingProgress progress) {
+		this.parallelism = parallelism;
+		this.progress = progress;
+		features.put(NAMESPACES_FEATURE, true);
+	}
+
+	// parsing methods
+	@Override
+	public void parse(String systemId) throws IOException, SAXException {
+		parse(new InputSource(systemId));
+	}
+
+	@Override
+	public void parse(InputSource input) throws IOException, SAXException {
+		// character streams cannot be split at byte offsets
+		if (input.getByteStream() == null) {
+			newConfiguredXMLReader().parse(input);
+			return;
+		}
+
+		byte[] data = readFully(input.getByteStream());
+		List<SplitPoint> splitPoints = null;
+		int numberOfChunks = Math.min(parallelism * CHUNKS_PER_THREAD, data.length / MIN_CHUNK_LENGTH);
+		if (numberOfChunks > 1) {
+			checkCancelled();
+			splitPoints = findSplitPoints(data, numberOfChunks);
+		}
+		if (splitPoints == null) {
+			parseSequentially(data, input);
+			return;
+		}
+
+		List<SAXEventBuffer> buffers;
+		try {
+			buffers = parseChunks(data, splitPoints, input.getSystemId());
+		} catch (SAXException ex) {
+			// report errors with their positions within the whole resource
+			checkCancelled();
+			parseSequentially(data, input);
+			return;
+		}
+
+		// pass all events on as a single document
+		LocatorImpl locator = new LocatorImpl();
+		locator.setSystemId(input.getSystemId());
+		locator.setPublicId(input.getPublicId());
+		if (contentHandler != null) {
+			contentHandler.setDocumentLocator(locator);
+			contentHandler.startDocument();
+			for (SAXEventBuffer buffer: buffers) {
+				checkCancelled();
+				buffer.replay(contentHandler, lexicalHandler);
+			}
+			contentHandler.endDocument();
+		}
+	}
+
+	// feature and property methods
+	@Override
+	public boolean getFeature(String name) throws SAXNotRecognizedException, SAXNotSupportedException {
+		Boolean value = features.get(name);
+		return value != null && value;
+	}
+
+	@Override
+	public void setFeature(String name, boolean value) throws SAXNotRecognizedException, SAXNotSupportedException {
+		features.put(name, value);
+	}
+
+	@Override
+	public Object getProperty(String name) throws SAXNotRecognizedException, SAXNotSupportedException {
+		if (LEXICAL_HANDLER_PROPERTY.equals(name))
+			return lexicalHandler;
+		return properties.get(name);
+	}
+
+	@Override
+	public void setProperty(String name, Object value) throws SAXNotRecognizedException, SAXNotSupportedException {
+		if (LEXICAL_HANDLER_PROPERTY.equals(name))
+			lexicalHandler = (LexicalHandler) value;
+		else
+			properties.put(name, value);
+	}
+
+	// handler getters and setters
+	@Override
+	public ContentHandler getContentHandler() {
+		return contentHandler;
+	}
+
+	@Override
+	public void setContentHandler(ContentHandler handler) {
+		contentHandler = handler;
+	}
+
+	@Override
+	public DTDHandler getDTDHandler() {
+		return dtdHandler;
+	}
+
+	@Override
+	public void setDTDHandler(DTDHandler handler) {
+		dtdHandler = handler;
+	}
+
+	@Override
+	public EntityResolver getEntityResolver() {
+		return entityResolver;
+	}
+
+	@Override
+	public void setEntityResolver(EntityResolver resolver) {
+		entityResolver = resolver;
+	}
+
+	@Override
+	public ErrorHandler getErrorHandler() {
+		return errorHandler;
+	}
+
+	@Override
+	public void setErrorHandler(ErrorHandler handler) {
+		errorHandler = handler;
+	}
+
+	// splitting methods
+	/**
+	 * Searches the given resource for positions it may be split at so that it is divided into chunks of about the same length. Only the start
+	 * tags of elements within the root element are used as split points.
+	 * @param data the serialized resource
+	 * @param numberOfChunks the requested number of chunks
+	 * @return a List of SplitPoints or <code>null</code> if the resource cannot be split safely (i.e. if it has a DTD, is not encoded in an
+	 *  ASCII-compatible encoding or is not well-formed)
+	 */
+	protected static List<SplitPoint> findSplitPoints(byte[] data, int numberOfChunks) {
+		int index = getContentStart(data);
+		if (index < 0)
+			return null;
+
+		List<SplitPoint> splitPoints = new ArrayList<>();
+		int[] tagStarts = new int[INITIAL_DEPTH];
+		int[] tagEnds = new int[INITIAL_DEPTH];
+		int depth = 0;
+		long nextSplitPosition = (long) data.length / numberOfChunks;
+		while ((index = indexOf(data, (byte) '<', index)) >= 0) {
+			if (index + 1 >= data.length)
+				return null;
+			byte nextByte = data[index + 1];
+			if (nextByte == '!') {
+				// skip comments and CDATA sections but refuse document type declarations
+				if (startsWith(data, index, COMMENT_START))
+					index = skipTo(data, COMMENT_END, index + COMMENT_START.length);
+				else if (startsWith(data, index, CDATA_START))
+					index = skipTo(data, CDATA_END, index + CDATA_START.length);
+				else
+					return null;
+			} else if (nextByte == '?') {
+				index = skipTo(data, PROCESSING_INSTRUCTION_END, index + 2);
+			} else if (nextByte == '/') {
+				if (depth == 0)
+					return null;
+				--depth;
+				index = indexOf(data, (byte) '>', index + 2);
+				if (index < 0)
+					return null;
+				++index;
+			} else {
+				int tagEnd = findTagEnd(data, index + 1);
+				if (tagEnd < 0)
+					return null;
+				if (depth > 0 && index >= nextSplitPosition) {
+					splitPoints.add(new SplitPoint(index, Arrays.copyOf(tagStarts, depth), Arrays.copyOf(tagEnds, depth)));
+					if (splitPoints.size() == numberOfChunks - 1)
+						return splitPoints;
+					nextSplitPosition = (long) data.length * (splitPoints.size() + 1) / numberOfChunks;
+				}
+				if (data[tagEnd - 1] != '/') {
+					if (depth == tagStarts.length) {
+						tagStarts = Arrays.copyOf(tagStarts, depth * 2);
+						tagEnds = Arrays.copyOf(tagEnds, depth * 2);
+					}
+					tagStarts[depth] = index;
+					tagEnds[depth] = tagEnd + 1;
+					++depth;
+				}
+				index = tagEnd + 1;
+			}
+			if (index < 0)
+				return null;
+		}
+		return splitPoints.isEmpty() ? null : splitPoints;
+	}
+
+	/**
+	 * Returns the serialized chunk between the given split points as an InputStream
+	 * @param data the serialized resource
+	 * @param xmlDeclaration the XML declaration of the resource (which is repeated for all chunks but the first one)
+	 * @param start the SplitPoint the chunk starts at or <code>null</code> for the first chunk
+	 * @param end the SplitPoint the chunk ends at or <code>null</code> for the last chunk
+	 */
+	protected static InputStream getChunk(byte[] data, byte[] xmlDeclaration, SplitPoint start, SplitPoint end) {
+		List<InputStream> parts = new ArrayList<>();
+		int startPosition = 0;
+		if (start != null) {
+			// reopen all elements that are open at the beginning of the chunk
+			parts.add(new ByteArrayInputStream(xmlDeclaration));
+			for (int i=0; i<start.tagStarts.length; ++i)
+				parts.add(new ByteArrayInputStream(data, start.tagStarts[i], start.tagEnds[i] - start.tagStarts[i]));
+			startPosition = start.position;
+		}
+		int endPosition = (end == null) ? data.length : end.position;
+		parts.add(new ByteArrayInputStream(data, startPosition, endPosition - startPosition));
+		if (end != null) {
+			// close all elements that are still open at the end of the chunk (copying their names in the encoding of the resource)
+			ByteArrayOutputStream endTags = new ByteArrayOutputStream();
+			for (int i=end.tagStarts.length-1; i>=0; --i) {
+				int tagStart = end.tagStarts[i];
+				endTags.write('<');
+				endTags.write('/');
+				endTags.write(data, tagStart + 1, getNameLength(data, tagStart + 1));
+				endTags.write('>');
+			}
+			parts.add(new ByteArrayInputStream(endTags.toByteArray()));
+		}
+		return new SequenceInputStream(Collections.enumeration(parts));
+	}
+
+	// helper methods
+	/**
+	 * Parses all chunks by several threads and returns their recorded events in the order of the chunks
+	 * @param data the serialized resource
+	 * @param splitPoints the positions the resource should be split at
+	 * @param systemId the system ID of the resource
+	 * @throws InterruptedIOException if the parsing threads have been interrupted or the LoadingProgress has been cancelled
+	 * @throws SAXException if any chunk cannot be parsed
+	 */
+	protected List<SAXEventBuffer> parseChunks(byte[] data, List<SplitPoint> splitPoints, final String systemId)
+			throws InterruptedIOException, SAXException {
+		byte[] xmlDeclaration = getXMLDeclaration(data);
+		ForkJoinPool pool = ParallelEvaluator.getPool(parallelism);
+		List<Future<SAXEventBuffer>> futures = new ArrayList<>();
+		try {
+			for (int i=0; i<=splitPoints.size(); ++i) {
+				checkCancelled();
+				SplitPoint start = (i == 0) ? null : splitPoints.get(i - 1);
+				SplitPoint end = (i == splitPoints.size()) ? null : splitPoints.get(i);
+				final InputStream chunk = getCancellableStream(getChunk(data, xmlDeclaration, start, end));
+				final int chunkLength = ((end == null) ? data.length : end.position) - ((start == null) ? 0 : start.position);
+				final int skippedStartElements = (start == null) ? 0 : start.tagStarts.length;
+				final int skippedEndElements = (end == null) ? 0 : end.tagStarts.length;
+				final XMLReader chunkReader = SaxonUtils.newXMLReader();
+				futures.add(pool.submit(new Callable<SAXEventBuffer>() {
+					@Override
+					public SAXEventBuffer call() throws IOException, SAXException {
+						checkCancelled();
+						SAXEventBuffer buffer = new SAXEventBuffer(skippedStartElements, chunkLength);
+						chunkReader.setContentHandler(buffer);
+						chunkReader.setErrorHandler(new DefaultHandler()); // errors are reported by parsing the whole resource again
+						chunkReader.setProperty(LEXICAL_HANDLER_PROPERTY, buffer);
+						InputSource chunkSource = new InputSource(chunk);
+						chunkSource.setSystemId(systemId);
+						chunkReader.parse(chunkSource);
+						buffer.removeTrailingEndElements(skippedEndElements);
+						return buffer;
+					}
+				}));
+			}
+
+			List<SAXEventBuffer> buffers = new ArrayList<>();
+			for (Future<SAXEventBuffer> future: futures)
+				buffers.add(future.get());
+			return buffers;
+		} catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Parsing has been interrupted");
+		} catch (ExecutionException ex) {
+			Throwable cause = ex.getCause();
+			if (cause instanceof InterruptedIOException)
+				throw (InterruptedIOException) cause;
+			if (cause instanceof SAXException)
+				throw (SAXException) cause;
+			if (cause instanceof Exception)
+				throw new SAXException("Cannot parse a chunk of " + systemId, (Exception) cause);
+			throw (Error) cause;
+		} finally {
+			for (Future<SAXEventBuffer> future: futures)
+				future.cancel(true);
+		}
+	}
+
+	protected void parseSequentially(byte[] data, InputSource input) throws IOException, SAXException {
+		InputSource source = new InputSource(getCancellableStream(new ByteArrayInputStream(data)));
+		source.setSystemId(input.getSystemId());
+		source.setPublicId(input.getPublicId());
+		source.setEncoding(input.getEncoding());
+		newConfiguredXMLReader().parse(source);
+	}
+
+	/**
+	 * Returns a new XMLReader with all handlers, features and properties of this reader
+	 * @throws SAXException if no XMLReader can be created
+	 */
+	protected XMLReader newConfiguredXMLReader() throws SAXException {
+		XMLReader reader = SaxonUtils.newXMLReader();
+		for (Map.Entry<String, Boolean> feature: features.entrySet()) {
+			try {
+				reader.setFeature(feature.getKey(), feature.getValue());
+			} catch (SAXNotRecognizedException | SAXNotSupportedException ex) {
+				// keep the default of the underlying parser
+			}
+		}
+		for (Map.Entry<String, Object> property: properties.entrySet()) {
+			try {
+				reader.setProperty(property.getKey(), property.getValue());
+			} catch (SAXNotRecognizedException | SAXNotSupportedException ex) {
+				// keep the default of the underlying parser
+			}
+		}
+		if (lexicalHandler != null)
+			reader.setProperty(LEXICAL_HANDLER_PROPERTY, lexicalHandler);
+		if (contentHandler != null)
+			reader.setContentHandler(contentHandler);
+		if (dtdHandler != null)
+			reader.setDTDHandler(dtdHandler);
+		if (entityResolver != null)
+			reader.setEntityResolver(entityResolver);
+		if (errorHandler != null)
+			reader.setErrorHandler(errorHandler);
+		return reader;
+	}
+
+	/**
+	 * Reads the whole resource from the given InputStream (stopping as soon as the LoadingProgress has been cancelled)
+	 * @param stream an InputStream
+	 * @throws IOException if the resource cannot be read (or the LoadingProgress has been cancelled)
+	 */
+	protected byte[] readFully(InputStream stream) throws IOException {
+		byte[] data = new byte[MIN_CHUNK_LENGTH];
+		int length = 0;
+		int bytesRead;
+		while ((bytesRead = stream.read(data, length, data.length - length)) >= 0) {
+			checkCancelled();
+			length += bytesRead;
+			if (length == data.length)
+				data = Arrays.copyOf(data, data.length * 2);
+		}
+		return Arrays.copyOf(data, length);
+	}
+
+	/**
+	 * Returns an InputStream that stops reading the given buffered data as soon as the LoadingProgress has been cancelled
+	 * @param in an InputStream reading buffered data
+	 */
+	protected InputStream getCancellableStream(InputStream in) {
+		if (progress == null)
+			return in;
+		return new FilterInputStream(in) {
+			@Override
+			public int read() throws IOException {
+				checkCancelled();
+				return super.read();
+			}
+
+			@Override
+			public int read(byte[] b, int off, int len) throws IOException {
+				checkCancelled();
+				return super.read(b, off, len);
+			}
+		};
+	}
+
+	/**
+	 * Throws an InterruptedIOException if the cancellation of the LoadingProgress has been requested
+	 * @throws InterruptedIOException if the LoadingProgress has been cancelled
+	 */
+	protected void checkCancelled() throws InterruptedIOException {
+		if (progress != null)
+			progress.checkCancelled();
+	}
+
+	/**
+	 * Returns the position after the byte order mark of the given resource or <code>-1</code> if it is not encoded in an ASCII-compatible
+	 * encoding
+	 * @param data the serialized resource
+	 */
+	protected static int getContentStart(byte[] data) {
+		int start = 0;
+		if (data.length >= 3 && (data[0] & 0xFF) == 0xEF && (data[1] & 0xFF) == 0xBB && (data[2] & 0xFF) == 0xBF)
+			start = 3;
+		if (data.length < start + 2 || data[start] == 0 || data[start + 1] == 0 || (data[start] & 0xFF) >= 0xFE)
+			return -1;
+		return start;
+	}
+
+	protected static byte[] getXMLDeclaration(byte[] data) {
+		int start = getContentStart(data);
+		if (!startsWith(data, start, XML_DECLARATION_START) || data.length <= start + XML_DECLARATION_START.length
+				|| data[start + XML_DECLARATION_START.length] > ' ')
+			return new byte[0];
+		int end = skipTo(data, PROCESSING_INSTRUCTION_END, start);
+		return (end < 0) ? new byte[0] : Arrays.copyOfRange(data, start, end);
+	}
+
+	protected static int getNameLength(byte[] data, int nameStart) {
+		int nameEnd = nameStart;
+		while (nameEnd < data.length && data[nameEnd] != ' ' && data[nameEnd] != '\t' && data[nameEnd] != '\r' && data[nameEnd] != '\n'
+				&& data[nameEnd] != '/' && data[nameEnd] != '>')
+			++nameEnd;
+		return nameEnd - nameStart;
+	}
+
+	/**
+	 * Returns the position of the closing angle bracket of a tag (ignoring angle brackets within attribute values) or <code>-1</code> if there
+	 * is none
+	 */
+	protected static int findTagEnd(byte[] data, int index) {
+		byte quote = 0;
+		for (int i=index; i<data.length; ++i) {
+			byte currentByte = data[i];
+			if (quote != 0) {
+				if (currentByte == quote)
+					quote = 0;
+			} else if (currentByte == '"' || currentByte == '\'') {
+				quote = currentByte;
+			} else if (currentByte == '>') {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	protected static int indexOf(byte[] data, byte value, int fromIndex) {
+		for (int i=fromIndex; i<data.length; ++i) {
+			if (data[i] == value)
+				return i;
+		}
+		return -1;
+	}
+
+	/**
+	 * Returns the position after the next occurrence of the given sequence or <code>-1</code> if there is none
+	 */
+	protected static int skipTo(byte[] data, byte[] sequence, int fromIndex) {
+		for (int i=indexOf(data, sequence[0], fromIndex); i>=0; i=indexOf(data, sequence[0], i + 1)) {
+			if (startsWith(data, i, sequence))
+				return i + sequence.length;
+		}
+		return -1;
+	}
+
+	protected static boolean startsWith(byte[] data, int index, byte[] sequence) {
+		if (index < 0 || index + sequence.length > data.length)
+			return false;
+		for (int i=0; i<sequence.length; ++i) {
+			if (data[index + i] != sequence[i])
+				return false;
+		}
+		return true;
+	}
+
+	// nested class
+	/**
+	 * A position in front of a start tag together with the start tags of all elements that are open at this position
+	 */
+	protected static class SplitPoint {
+
+		// fields
+		protected final int position;
+		protected final int[] tagStarts;
+		protected final int[] tagEnds;
+
+		// constructor
+		protected SplitPoint(int position, int[] tagStarts, int[] tagEnds) {
+			this.position = position;
+			this.tagStarts = tagStarts;
+			this.tagEnds = tagEnds;
+		}
+
+	}
+
+}
@@ -0,0 +1,110 @@
+/**
+ * CircuitBreaker.java - is a helper class that stops sending requests to a host after several consecutive failures and only lets a single trial
+ *  request pass after a cooldown period as used within the ImportMoreXtension developed at the Digital Academy of the Academy of Sciences and
+ *  Literature | Mainz.
+ * @author Patrick D. Brookshire
+ * @version 1.0.0
+ */
+package org.adwmainz.da.extensions.importmore.utils;
+
+import java.util.HashMap;
+import java.util.Map;
+
+public class CircuitBreaker {
+	
+	// static field
+	protected static final Map<String, CircuitBreaker> circuitBreakers = new HashMap<>();
+	
+	// fields
+	protected final String host;
+	protected final int failureThreshold;
+	protected final long openDuration;
+	protected int consecutiveFailures = 0;
+	protected long openedAt = -1;
+	protected boolean trialRequestPending = false;
+	
+	// constructor
+	/**
+	 * Creates a new CircuitBreaker
+	 * @param host the name of the guarded host
+	 * @param failureThreshold the number of consecutive failures after which no more requests should be sent
+	 * @param openDuration the number of milliseconds no requests should be sent after the threshold has been reached
+	 */
+	public CircuitBreaker(String host, int failureThreshold, long openDuration) {
+		this.host = host;
+		this.failureThreshold = failureThreshold;
+		this.openDuration = openDuration;
+	}
+	
+	// factory method
+	/**
+	 * Returns the CircuitBreaker guarding the given host
+	 * @param host a host name
+	 */
+	public static CircuitBreaker forHost(String host) {
+		synchronized (circuitBreakers) {
+			CircuitBreaker circuitBreaker = circuitBreakers.get(host);
+			if (circuitBreaker == null) {
+				circuitBreaker = new CircuitBreaker(host, ImportMoreSettings.getCircuitBreakerThreshold(), ImportMoreSettings.getCircuitBreakerOpenDuration());
+				circuitBreakers.put(host, circuitBreaker);
+			}
+			return circuitBreaker;
+		}
+	}
+	
+	/**
+	 * Resets the CircuitBreakers of all hosts
+	 */
+	public static void resetAll() {
+		synchronized (circuitBreakers) {
+			circuitBreakers.clear();
+		}
+	}
+	
+	// main methods
+	/**
+	 * Checks whether a request may be sent to the guarded host, i.e. whether it did not fail too often or whether the cooldown period has passed
+	 * and no other trial request is pending
+	 */
+	public synchronized boolean allowsRequest() {
+		if (openedAt < 0)
+			return true;
+		if (System.currentTimeMillis() - openedAt < openDuration || trialRequestPending)
+			return false;
+		trialRequestPending = true;
+		return true;
+	}
+	
+	/**
+	 * Notes that a request to the guarded host succeeded
+	 */
+	public synchronized void recordSuccess() {
+		consecutiveFailures = 0;
+		openedAt = -1;
+		trialRequestPending = false;
+	}
+	
+	/**
+	 * Notes that a request to the guarded host failed
+	 */
+	public synchronized void recordFailure() {
+		++consecutiveFailures;
+		trialRequestPending = false;
+		if (consecutiveFailures >= failureThreshold)
+			openedAt = System.currentTimeMillis();
+	}
+	
+	// basic getters
+	public String getHost() {
+		return host;
+	}
+	
+	public synchronized int getConsecutiveFailures() {
+		return consecutiveFailures;
+	}
+	
+	public synchronized boolean isOpen() {
+		return openedAt >= 0;
+	}
+
+}
@@ -0,0 +1,73 @@
+/**
+ * CircuitBreakerInputStream.java - is an extension of a java.io.FilterInputStream that records failures while reading the response body of a
+ *  request with the CircuitBreaker of the requested host as used within the ImportMoreXtension developed at the Digital Academy of the Academy of
+ *  Sciences and Literature | Mainz.
+ * @author Patrick D. Brookshire
+ * @version 1.0.0
+ */
+package org.adwmainz.da.extensions.importmore.utils;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+public class CircuitBreakerInputStream extends FilterInputStream {
+
+	// fields
+	protected final CircuitBreaker circuitBreaker;
+	protected boolean failed = false;
+
+	// constructor
+	/**
+	 * Creates a new CircuitBreakerInputStream
+	 * @param in the response body of a request
+	 * @param circuitBreaker the CircuitBreaker of the requested host
+	 */
+	public CircuitBreakerInputStream(InputStream in, CircuitBreaker circuitBreaker) {
+		super(in);
+		this.circuitBreaker = circuitBreaker;
+	}
+
+	// overridden methods
+	@Override
+	public int read() throws IOException {
+		try {
+			return super.read();
+		} catch (IOException ex) {
+			recordFailure();
+			throw ex;
+		}
+	}
+
+	@Override
+	public int read(byte[] b, int off, int len) throws IOException {
+		try {
+			return super.read(b, off, len);
+		} catch (IOException ex) {
+			recordFailure();
+			throw ex;
+		}
+	}
+
+	@Override
+	public long skip(long n) throws IOException {
+		try {
+			return super.skip(n);
+		} catch (IOException ex) {
+			recordFailure();
+			throw ex;
+		}
+	}
+
+	// helper method
+	/**
+	 * Records a failure with the CircuitBreaker unless it has already been recorded for this response
+	 */
+	protected void recordFailure() {
+		if (!failed) {
+			failed = true;
+			circuitBreaker.recordFailure();
+		}
+	}
+
+}
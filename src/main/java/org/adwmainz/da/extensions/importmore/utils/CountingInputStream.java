@@ -0,0 +1,92 @@
+/**
+ * CountingInputStream.java - is an extension of a java.io.FilterInputStream that counts the number of bytes read from an external resource and
+ *  reports them to an optional LoadingProgress as used within the ImportMoreXtension developed at the Digital Academy of the Academy of Sciences and Literature | Mainz.
+ * @author Patrick D. Brookshire
+ * @version 1.0.0
+ */
+package org.adwmainz.da.extensions.importmore.utils;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.adwmainz.da.extensions.importmore.models.LoadingProgress;
+
+public class CountingInputStream extends FilterInputStream {
+	
+	// fields
+	protected volatile long byteCount = 0;
+	protected final LoadingProgress progress;
+
+	// constructors
+	/**
+	 * Creates a new CountingInputStream
+	 * @param in the underlying InputStream
+	 */
+	public CountingInputStream(InputStream in) {
+		this(in, null);
+	}
+	
+	/**
+	 * Creates a new CountingInputStream that reports the number of bytes read to the given LoadingProgress and stops reading as soon as its
+	 * cancellation has been requested
+	 * @param in the underlying InputStream
+	 * @param progress a LoadingProgress or <code>null</code>
+	 */
+	public CountingInputStream(InputStream in, LoadingProgress progress) {
+		super(in);
+		this.progress = progress;
+	}
+	
+	// basic getter
+	/**
+	 * Returns the number of bytes read so far
+	 */
+	public long getByteCount() {
+		return byteCount;
+	}
+
+	// overridden methods
+	@Override
+	public int read() throws IOException {
+		int result = super.read();
+		if (result != -1)
+			count(1);
+		return result;
+	}
+
+	@Override
+	public int read(byte[] b, int off, int len) throws IOException {
+		int result = super.read(b, off, len);
+		if (result > 0)
+			count(result);
+		return result;
+	}
+
+	@Override
+	public long skip(long n) throws IOException {
+		long result = super.skip(n);
+		count(result);
+		return result;
+	}
+
+	@Override
+	public boolean markSupported() {
+		return false;
+	}
+	
+	// helper method
+	/**
+	 * Adds the given number of bytes to the byte count and the LoadingProgress
+	 * @param numberOfBytes a number of bytes
+	 * @throws IOException if the cancellation of the LoadingProgress has been requested
+	 */
+	protected void count(long numberOfBytes) throws IOException {
+		byteCount += numberOfBytes;
+		if (progress != null) {
+			progress.addBytesRead(numberOfBytes);
+			progress.checkCancelled();
+		}
+	}
+	
+}
@@ -0,0 +1,159 @@
+/**
+ * FingerprintBuilder.java - is a helper class that incrementally computes a 64-bit fingerprint of a stream of XML tokens without building a
+ *  serialized String as used within the ImportMoreXtension developed at the Digital Academy of the Academy of Sciences and Literature | Mainz.
+ * @author Patrick D. Brookshire
+ * @version 1.0.0
+ */
+package org.adwmainz.da.extensions.importmore.utils;
+
+public class FingerprintBuilder {
+	
+	// token markers (i.e. chars that are not allowed in XML 1.0 documents)
+	protected static final char START_ELEMENT_MARKER = '\u0001';
+	protected static final char END_ELEMENT_MARKER = '\u0002';
+	protected static final char ATTRIBUTE_MARKER = '\u0003';
+	protected static final char SEPARATOR = '\u0004';
+	protected static final char COMMENT_MARKER = '\u0005';
+	protected static final char PROCESSING_INSTRUCTION_MARKER = '\u0006';
+	
+	// fields
+	protected final boolean normalizeWhitespace;
+	protected long hash = StringUtils.FNV_OFFSET_BASIS;
+	protected boolean hasTextContent = false;
+	protected boolean hasPendingSpace = false;
+	
+	// constructor
+	/**
+	 * Creates a new FingerprintBuilder
+	 * @param normalizeWhitespace specifies whether leading and trailing whitespace of text should be ignored while any other sequence of whitespace
+	 *  chars should be treated like a single space
+	 */
+	public FingerprintBuilder(boolean normalizeWhitespace) {
+		this.normalizeWhitespace = normalizeWhitespace;
+	}
+	
+	// main methods
+	/**
+	 * Appends the start of an element
+	 * @param name the (expanded or lexical) name of the element
+	 */
+	public void startElement(CharSequence name) {
+		endText();
+		appendChar(START_ELEMENT_MARKER);
+		appendChars(name);
+		appendChar(SEPARATOR);
+	}
+	
+	/**
+	 * Appends the end of the current element
+	 */
+	public void endElement() {
+		endText();
+		appendChar(END_ELEMENT_MARKER);
+	}
+	
+	/**
+	 * Appends an attribute
+	 * @param name the (expanded or lexical) name of the attribute
+	 * @param value the value of the attribute
+	 */
+	public void attribute(CharSequence name, CharSequence value) {
+		appendLong(hashAttribute(name, value));
+	}
+	
+	/**
+	 * Appends the hash value of one or more attributes computed by <code>hashAttribute</code> (e.g. the sum of the hash values of all attributes
+	 * of an element to ignore their order)
+	 * @param attributesHash a hash value
+	 */
+	public void appendLong(long attributesHash) {
+		appendChar(ATTRIBUTE_MARKER);
+		for (int shift=0; shift<64; shift+=16)
+			appendChar((char) (attributesHash >>> shift));
+	}
+	
+	/**
+	 * Appends character data. Please note that consecutive calls of this method are treated like a single text node.
+	 * @param text some character data
+	 */
+	public void text(CharSequence text) {
+		if (!normalizeWhitespace) {
+			appendChars(text);
+			return;
+		}
+		for (int i=0; i<text.length(); ++i) {
+			char c = text.charAt(i);
+			if (Character.isWhitespace(c)) {
+				hasPendingSpace = hasTextContent;
+			} else {
+				if (hasPendingSpace)
+					appendChar(' ');
+				appendChar(c);
+				hasTextContent = true;
+				hasPendingSpace = false;
+			}
+		}
+	}
+	
+	/**
+	 * Appends a comment
+	 * @param text the text of the comment
+	 */
+	public void comment(CharSequence text) {
+		endText();
+		appendChar(COMMENT_MARKER);
+		appendChars(text);
+		appendChar(SEPARATOR);
+	}
+	
+	/**
+	 * Appends a processing instruction
+	 * @param target the target of the processing instruction
+	 * @param data the data of the processing instruction (without leading whitespace)
+	 */
+	public void processingInstruction(CharSequence target, CharSequence data) {
+		endText();
+		appendChar(PROCESSING_INSTRUCTION_MARKER);
+		appendChars(target);
+		appendChar(SEPARATOR);
+		appendChars(data);
+		appendChar(SEPARATOR);
+	}
+	
+	/**
+	 * Returns the fingerprint of all tokens appended so far
+	 */
+	public long getFingerprint() {
+		return StringUtils.mix(hash);
+	}
+	
+	// helper methods
+	/**
+	 * Returns a hash value of a single attribute that is independent of any other token
+	 * @param name the (expanded or lexical) name of the attribute
+	 * @param value the value of the attribute
+	 */
+	public static long hashAttribute(CharSequence name, CharSequence value) {
+		FingerprintBuilder attributeBuilder = new FingerprintBuilder(false);
+		attributeBuilder.appendChars(name);
+		attributeBuilder.appendChar(SEPARATOR);
+		attributeBuilder.appendChars(value);
+		return attributeBuilder.getFingerprint();
+	}
+	
+	protected void endText() {
+		hasTextContent = false;
+		hasPendingSpace = false;
+	}
+	
+	protected void appendChars(CharSequence chars) {
+		for (int i=0; i<chars.length(); ++i)
+			appendChar(chars.charAt(i));
+	}
+	
+	protected void appendChar(char c) {
+		hash ^= c;
+		hash *= StringUtils.FNV_PRIME;
+	}
+
+}
@@ -0,0 +1,300 @@
+/**
+ * FragmentCanonicalizer.java - is a helper class that computes fingerprints of XML fragments from Saxon and Oxygen nodes alike which are equal for
+ *  fragments that only differ in ignorable ways (i.e. whitespace, attribute order, namespace prefixes or comments). It is used within the ImportMoreXtension
+ *  developed at the Digital Academy of the Academy of Sciences and Literature | Mainz.
+ * @author Patrick D. Brookshire
+ * @version 1.0.0
+ */
+package org.adwmainz.da.extensions.importmore.utils;
+
+import java.util.List;
+
+import javax.swing.text.BadLocationException;
+import javax.swing.text.Segment;
+
+import net.sf.saxon.s9api.Axis;
+import net.sf.saxon.s9api.QName;
+import net.sf.saxon.s9api.XdmItem;
+import net.sf.saxon.s9api.XdmNode;
+import net.sf.saxon.s9api.XdmSequenceIterator;
+import ro.sync.ecss.extensions.api.AuthorDocumentController;
+import ro.sync.ecss.extensions.api.node.AttrValue;
+import ro.sync.ecss.extensions.api.node.AuthorElement;
+import ro.sync.ecss.extensions.api.node.AuthorNode;
+import ro.sync.ecss.extensions.api.node.AuthorParentNode;
+
+public class FragmentCanonicalizer {
+	
+	// constant list of all normalizations
+	public static final String NORMALIZE_WHITESPACE = "whitespace";
+	public static final String NORMALIZE_ATTRIBUTE_ORDER = "attributeOrder";
+	public static final String NORMALIZE_PREFIXES = "prefixes";
+	public static final String NORMALIZE_COMMENTS = "comments";
+	public static final String NORMALIZE_NOTHING = "none";
+	
+	protected static final String XML_NAMESPACE = "http://www.w3.org/XML/1998/namespace";
+	
+	// fields
+	protected final boolean normalizeWhitespace;
+	protected final boolean normalizeAttributeOrder;
+	protected final boolean normalizePrefixes;
+	protected final boolean normalizeComments;
+	
+	// constructor
+	/**
+	 * Creates a new FragmentCanonicalizer
+	 * @param normalizeWhitespace specifies whether whitespace-only text and leading, trailing or repeated whitespace should be ignored
+	 * @param normalizeAttributeOrder specifies whether the order of attributes should be ignored
+	 * @param normalizePrefixes specifies whether names should only be compared by their namespace URIs instead of their namespace URIs and prefixes
+	 * @param normalizeComments specifies whether comments and processing instructions should be ignored
+	 */
+	public FragmentCanonicalizer(boolean normalizeWhitespace, boolean normalizeAttributeOrder, boolean normalizePrefixes, boolean normalizeComments) {
+		this.normalizeWhitespace = normalizeWhitespace;
+		this.normalizeAttributeOrder = normalizeAttributeOrder;
+		this.normalizePrefixes = normalizePrefixes;
+		this.normalizeComments = normalizeComments;
+	}
+	
+	// factory method
+	/**
+	 * Creates a new FragmentCanonicalizer from a List of normalization names
+	 * @param normalizations a List containing any of the Strings <code>whitespace</code>, <code>attributeOrder</code>, <code>prefixes</code>
+	 *  and <code>comments</code> or only the String <code>none</code>
+	 * @throws IllegalArgumentException if the list contains an unknown normalization
+	 */
+	public static FragmentCanonicalizer create(List<String> normalizations) throws IllegalArgumentException {
+		for (String normalization: normalizations) {
+			if (!normalization.isEmpty() && !normalization.equals(NORMALIZE_NOTHING) && !normalization.equals(NORMALIZE_WHITESPACE)
+					&& !normalization.equals(NORMALIZE_ATTRIBUTE_ORDER) && !normalization.equals(NORMALIZE_PREFIXES)
+					&& !normalization.equals(NORMALIZE_COMMENTS))
+				throw new IllegalArgumentException("Unknown normalization '" + normalization + "'");
+		}
+		return new FragmentCanonicalizer(normalizations.contains(NORMALIZE_WHITESPACE), normalizations.contains(NORMALIZE_ATTRIBUTE_ORDER),
+				normalizations.contains(NORMALIZE_PREFIXES), normalizations.contains(NORMALIZE_COMMENTS));
+	}
+	
+	/**
+	 * Returns a String identifying the normalizations applied by this FragmentCanonicalizer (e.g. to cache fingerprints)
+	 */
+	public String getSignature() {
+		return (normalizeWhitespace ? "w" : "-") + (normalizeAttributeOrder ? "a" : "-") + (normalizePrefixes ? "p" : "-")
+				+ (normalizeComments ? "c" : "-");
+	}
+	
+	// methods for Saxon nodes
+	/**
+	 * Returns the fingerprint of an XPath result
+	 * @param item an XdmItem
+	 */
+	public long fingerprint(XdmItem item) {
+		FingerprintBuilder builder = new FingerprintBuilder(normalizeWhitespace);
+		if (item instanceof XdmNode)
+			appendNode((XdmNode) item, builder);
+		else
+			builder.text(item.getStringValue());
+		return builder.getFingerprint();
+	}
+	
+	protected void appendNode(XdmNode node, FingerprintBuilder builder) {
+		switch (node.getNodeKind()) {
+		case DOCUMENT:
+			appendChildren(node, builder);
+			break;
+		case ELEMENT:
+			builder.startElement(getName(node.getNodeName()));
+			appendAttributes(node, builder);
+			appendChildren(node, builder);
+			builder.endElement();
+			break;
+		case ATTRIBUTE:
+			builder.attribute(getName(node.getNodeName()), node.getStringValue());
+			break;
+		case TEXT:
+			builder.text(node.getStringValue());
+			break;
+		case COMMENT:
+			if (!normalizeComments)
+				builder.comment(node.getStringValue());
+			break;
+		case PROCESSING_INSTRUCTION:
+			if (!normalizeComments)
+				builder.processingInstruction(node.getNodeName().getLocalName(), node.getStringValue());
+			break;
+		default:
+			// ignore namespace nodes
+			break;
+		}
+	}
+	
+	protected void appendChildren(XdmNode node, FingerprintBuilder builder) {
+		XdmSequenceIterator iterator = node.axisIterator(Axis.CHILD);
+		while (iterator.hasNext())
+			appendNode((XdmNode) iterator.next(), builder);
+	}
+	
+	protected void appendAttributes(XdmNode element, FingerprintBuilder builder) {
+		long attributesHash = 0;
+		XdmSequenceIterator iterator = element.axisIterator(Axis.ATTRIBUTE);
+		while (iterator.hasNext()) {
+			XdmNode attribute = (XdmNode) iterator.next();
+			if (normalizeAttributeOrder)
+				attributesHash += FingerprintBuilder.hashAttribute(getName(attribute.getNodeName()), attribute.getStringValue());
+			else
+				builder.attribute(getName(attribute.getNodeName()), attribute.getStringValue());
+		}
+		if (normalizeAttributeOrder)
+			builder.appendLong(attributesHash);
+	}
+	
+	protected String getName(QName name) {
+		return getName(name.getNamespaceURI(), name.toString());
+	}
+	
+	// methods for Oxygen nodes
+	/**
+	 * Returns the fingerprint of a node of the document currently opened in Oxygen
+	 * @param documentController the current AuthorDocumentController
+	 * @param node an AuthorNode
+	 * @throws BadLocationException if the content of the node cannot be accessed
+	 */
+	public long fingerprint(AuthorDocumentController documentController, AuthorNode node) throws BadLocationException {
+		FingerprintBuilder builder = new FingerprintBuilder(normalizeWhitespace);
+		appendNode(documentController, node, builder, new Segment());
+		return builder.getFingerprint();
+	}
+	
+	/**
+	 * Returns the fingerprint of an atomic value
+	 * @param value a String
+	 */
+	public long fingerprint(String value) {
+		FingerprintBuilder builder = new FingerprintBuilder(normalizeWhitespace);
+		builder.text(value);
+		return builder.getFingerprint();
+	}
+	
+	protected void appendNode(AuthorDocumentController documentController, AuthorNode node, FingerprintBuilder builder, Segment segment)
+			throws BadLocationException {
+		switch (node.getType()) {
+		case AuthorNode.NODE_TYPE_DOCUMENT:
+			for (AuthorNode child: ((AuthorParentNode) node).getContentNodes())
+				appendNode(documentController, child, builder, segment);
+			break;
+		case AuthorNode.NODE_TYPE_REFERENCE:
+			// walk into entity references and XIncludes like their expanded content
+			appendContent(documentController, (AuthorParentNode) node, builder, segment);
+			break;
+		case AuthorNode.NODE_TYPE_ELEMENT:
+			AuthorElement element = (AuthorElement) node;
+			builder.startElement(getName(element));
+			appendAttributes(element, builder);
+			appendContent(documentController, element, builder, segment);
+			builder.endElement();
+			break;
+		case AuthorNode.NODE_TYPE_CDATA:
+			appendText(documentController, node.getStartOffset() + 1, node.getEndOffset(), builder, segment);
+			break;
+		case AuthorNode.NODE_TYPE_COMMENT:
+			if (!normalizeComments)
+				builder.comment(getContent(documentController, node, segment));
+			break;
+		case AuthorNode.NODE_TYPE_PI:
+			if (!normalizeComments) {
+				// the content consists of the target and the data separated by whitespace
+				String content = getContent(documentController, node, segment);
+				int separatorIndex = 0;
+				while (separatorIndex < content.length() && !Character.isWhitespace(content.charAt(separatorIndex)))
+					++separatorIndex;
+				int dataIndex = separatorIndex;
+				while (dataIndex < content.length() && Character.isWhitespace(content.charAt(dataIndex)))
+					++dataIndex;
+				builder.processingInstruction(content.substring(0, separatorIndex), content.substring(dataIndex));
+			}
+			break;
+		default:
+			// text is handled by appendContent
+			break;
+		}
+	}
+	
+	protected void appendContent(AuthorDocumentController documentController, AuthorParentNode parentNode, FingerprintBuilder builder,
+			Segment segment) throws BadLocationException {
+		// text is not represented by nodes but located between the offsets of the content nodes
+		int offset = parentNode.getStartOffset() + 1;
+		for (AuthorNode child: parentNode.getContentNodes()) {
+			appendText(documentController, offset, child.getStartOffset(), builder, segment);
+			appendNode(documentController, child, builder, segment);
+			offset = child.getEndOffset() + 1;
+		}
+		appendText(documentController, offset, parentNode.getEndOffset(), builder, segment);
+	}
+	
+	protected String getContent(AuthorDocumentController documentController, AuthorNode node, Segment segment) throws BadLocationException {
+		int length = node.getEndOffset() - node.getStartOffset() - 1;
+		if (length <= 0)
+			return "";
+		documentController.getChars(node.getStartOffset() + 1, length, segment);
+		return segment.toString();
+	}
+	
+	protected void appendText(AuthorDocumentController documentController, int startOffset, int endOffset, FingerprintBuilder builder, Segment segment)
+			throws BadLocationException {
+		if (endOffset <= startOffset)
+			return;
+		documentController.getChars(startOffset, endOffset - startOffset, segment);
+		builder.text(segment);
+	}
+	
+	protected void appendAttributes(AuthorElement element, FingerprintBuilder builder) {
+		long attributesHash = 0;
+		for (int i=0; i<element.getAttributesCount(); ++i) {
+			String attributeName = element.getAttributeAtIndex(i);
+			AttrValue attributeValue = element.getAttribute(attributeName);
+			
+			// skip namespace declarations and default values
+			if (attributeName.equals("xmlns") || attributeName.startsWith("xmlns:") || attributeValue == null || !attributeValue.isSpecified())
+				continue;
+			
+			String name = getAttributeName(element, attributeName);
+			if (normalizeAttributeOrder)
+				attributesHash += FingerprintBuilder.hashAttribute(name, attributeValue.getValue());
+			else
+				builder.attribute(name, attributeValue.getValue());
+		}
+		if (normalizeAttributeOrder)
+			builder.appendLong(attributesHash);
+	}
+	
+	protected String getName(AuthorElement element) {
+		return getName(element.getNamespace(), element.getName());
+	}
+	
+	protected String getAttributeName(AuthorElement element, String qualifiedName) {
+		int separatorIndex = qualifiedName.indexOf(':');
+		if (separatorIndex < 0)
+			return qualifiedName;
+		
+		// resolve prefix by looking for the nearest namespace declaration
+		String prefix = qualifiedName.substring(0, separatorIndex);
+		String namespace = prefix.equals("xml") ? XML_NAMESPACE : null;
+		for (AuthorNode node = element; namespace == null && node instanceof AuthorElement; node = node.getParent()) {
+			AttrValue declaration = ((AuthorElement) node).getAttribute("xmlns:" + prefix);
+			if (declaration != null)
+				namespace = declaration.getValue();
+		}
+		return getName(namespace == null ? prefix : namespace, qualifiedName);
+	}
+	
+	// helper method
+	/**
+	 * Returns the name used for fingerprints which always contains the namespace URI (e.g. to distinguish default namespaces) and the prefix
+	 * unless prefixes are normalized
+	 * @param namespace a namespace URI or <code>null</code>
+	 * @param qualifiedName a qualified name
+	 */
+	protected String getName(String namespace, String qualifiedName) {
+		String name = normalizePrefixes ? qualifiedName.substring(qualifiedName.indexOf(':') + 1) : qualifiedName;
+		return (namespace == null || namespace.isEmpty()) ? name : "{" + namespace + "}" + name;
+	}
+
+}
@@ -7,22 +7,40 @@
 package org.adwmainz.da.extensions.importmore.utils;
 
 import java.util.ArrayList;
-import java.util.HashSet;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 import org.adwmainz.da.extensions.askmore.utils.RegexUtils;
 import org.adwmainz.da.extensions.importmore.exceptions.ImportMoreXMLException;
 import org.adwmainz.da.extensions.importmore.exceptions.ImportMoreXPathException;
+import org.adwmainz.da.extensions.importmore.models.AnnotationTemplate;
 
+import net.sf.saxon.s9api.SaxonApiException;
+import net.sf.saxon.s9api.XPathExecutable;
 import net.sf.saxon.s9api.XdmNode;
 
 public class ImportMoreAnnotationParser {
 	
 	// relevant regex pattern
 	protected static final String IMPORT_MORE_ANNOTATION_PATTERN = "\\$\\$IMPORT" + "\\(" + "(.*?)" /* XPath */ + "\\)" + "(!.*)?" /* Flags */ + "\\$\\$";
+	protected static final Pattern COMPILED_IMPORT_MORE_ANNOTATION_PATTERN = Pattern.compile(IMPORT_MORE_ANNOTATION_PATTERN);
 	protected static final String FLAG_SEPARATOR = "!";
 	
+	// template cache
+	protected static final Map<List<Object>, AnnotationTemplate> templateCache = new LinkedHashMap<List<Object>, AnnotationTemplate>(16, 0.75f, true) {
+		private static final long serialVersionUID = -3120954772931046135L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<List<Object>, AnnotationTemplate> eldest) {
+			return size() > ImportMoreSettings.getXPathCacheSize();
+		}
+	};
+	
 	/**
 	 * Replaces all ImportMoreAnnotations in a given String with XPath results from the given context node
 	 * @param annotatedText a String that may contain serialized annotations
@@ -33,25 +51,66 @@ public class ImportMoreAnnotationParser {
 	 */
 	public static String replaceAnnotations(String annotatedText, XdmNode contextNode, Map<String, String> namespaceMap)
 			throws ImportMoreXMLException, ImportMoreXPathException {
-		for (String importMoreAnnotation: new HashSet<>(ImportMoreAnnotationParser.findAnnotations(annotatedText))) {
-			String xPathExpression = RegexUtils.getFirstMatch(importMoreAnnotation, IMPORT_MORE_ANNOTATION_PATTERN, 1);
-			List<String> flags = getFlags(importMoreAnnotation);
-			
-			String importedFragment = "";
-			if (flags.contains("XML"))
-				// concat all result items
-				importedFragment = String.join("", SaxonUtils.getSerializedXPathResults(contextNode, xPathExpression, namespaceMap));
-			else
-				// get only the text value of the first result item
-				importedFragment = SaxonUtils.getFirstXPathResult(contextNode, xPathExpression, namespaceMap).getStringValue();			
-			annotatedText = annotatedText.replace(importMoreAnnotation, importedFragment);
+		return getTemplate(annotatedText, namespaceMap).render(contextNode);
+	}
+	
+	/**
+	 * Returns an AnnotationTemplate of a given String which is only compiled once for each combination of annotated text and namespaces. Use this
+	 * method instead of <code>replaceAnnotations</code> to render the same text for many context nodes.
+	 * @param annotatedText a String that may contain serialized annotations
+	 * @param namespaceMap a Map of namespace prefixes and their respective namespace URIs
+	 * @throws ImportMoreXPathException if an XPath parsing error occurs
+	 */
+	public static AnnotationTemplate getTemplate(String annotatedText, Map<String, String> namespaceMap) throws ImportMoreXPathException {
+		List<Object> key = Arrays.asList(annotatedText, namespaceMap);
+		AnnotationTemplate template;
+		synchronized (templateCache) {
+			template = templateCache.get(key);
+		}
+		if (template != null)
+			return template;
+		
+		template = compileTemplate(annotatedText, namespaceMap);
+		
+		// store a copy of the namespaces to prevent later modifications of the key
+		synchronized (templateCache) {
+			templateCache.put(Arrays.asList(annotatedText, new HashMap<>(namespaceMap)), template);
+		}
+		return template;
+	}
+	
+	/**
+	 * Splits a given String into literal segments and compiled ImportMoreAnnotations
+	 * @param annotatedText a String that may contain serialized annotations
+	 * @param namespaceMap a Map of namespace prefixes and their respective namespace URIs
+	 * @throws ImportMoreXPathException if an XPath parsing error occurs
+	 */
+	protected static AnnotationTemplate compileTemplate(String annotatedText, Map<String, String> namespaceMap) throws ImportMoreXPathException {
+		List<String> literals = new ArrayList<>();
+		List<String> xPathExpressions = new ArrayList<>();
+		List<XPathExecutable> executables = new ArrayList<>();
+		List<Boolean> serializeAllResults = new ArrayList<>();
+		
+		Matcher matcher = COMPILED_IMPORT_MORE_ANNOTATION_PATTERN.matcher(annotatedText);
+		int literalStart = 0;
+		while (matcher.find()) {
+			String xPathExpression = matcher.group(1);
+			literals.add(annotatedText.substring(literalStart, matcher.start()));
+			xPathExpressions.add(xPathExpression);
+			try {
+				executables.add(SaxonUtils.getXPathExecutable(xPathExpression, namespaceMap));
+			} catch (SaxonApiException ex) {
+				throw new ImportMoreXPathException("Cannot compile the xpath " + xPathExpression, ex);
+			}
+			serializeAllResults.add(getFlags(matcher.group(2)).contains("XML"));
+			literalStart = matcher.end();
 		}
-		return annotatedText;
+		literals.add(annotatedText.substring(literalStart));
+		return new AnnotationTemplate(literals, xPathExpressions, executables, serializeAllResults);
 	}
 	
-	protected static List<String> getFlags(String importMoreAnnotation) {
+	protected static List<String> getFlags(String serializedFlags) {
 		List<String> flags = new ArrayList<>();
-		String serializedFlags = RegexUtils.getFirstMatch(importMoreAnnotation, IMPORT_MORE_ANNOTATION_PATTERN, 2);
 		if (serializedFlags != null) {
 			for (String flag: serializedFlags.split(FLAG_SEPARATOR))
 				flags.add(flag);
@@ -67,6 +126,18 @@ public class ImportMoreAnnotationParser {
 		return RegexUtils.getMatches(annotatedText, IMPORT_MORE_ANNOTATION_PATTERN);
 	}
 	
+	/**
+	 * Returns a List of the XPath expressions of all ImportMoreAnnotations from an annotated String
+	 * @param annotatedText a String that may contain serialized annotations
+	 */
+	public static List<String> getXPathExpressions(String annotatedText) {
+		List<String> xPathExpressions = new ArrayList<>();
+		Matcher matcher = COMPILED_IMPORT_MORE_ANNOTATION_PATTERN.matcher(annotatedText);
+		while (matcher.find())
+			xPathExpressions.add(matcher.group(1));
+		return xPathExpressions;
+	}
+	
 	/**
 	 * Describes how to use ImportMoreAnnotations
 	 */
@@ -7,6 +7,7 @@
 package org.adwmainz.da.extensions.importmore.utils;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
@@ -82,5 +83,18 @@ public class ImportMoreArgumentParser {
 	public static Map<String,String> getValidMap(ArgumentsMap args, String keyArgumentName, String valueArgumentName) throws IllegalArgumentException {
 		return getValidMap(args, keyArgumentName, valueArgumentName, "\n");
 	}
+	
+	/**
+	 * Returns a FragmentCanonicalizer configured by a space-separated List argument value of an AuthorOperation
+	 * @param args the ArgumentMap of the operation
+	 * @param argumentName the name of the argument
+	 * @param defaultValue the space-separated normalizations used if the argument is not specified
+	 * @throws IllegalArgumentException if the given argument contains an unknown normalization or is otherwise invalid
+	 */
+	public static FragmentCanonicalizer getValidCanonicalizer(ArgumentsMap args, String argumentName, String defaultValue) throws IllegalArgumentException {
+		if (args.getArgumentValue(argumentName) == null)
+			return FragmentCanonicalizer.create(Arrays.asList(defaultValue.split("\\s+")));
+		return FragmentCanonicalizer.create(getValidList(args, argumentName, "\\s+"));
+	}
 
 }
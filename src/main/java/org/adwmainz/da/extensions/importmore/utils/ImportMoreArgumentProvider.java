@@ -29,6 +29,7 @@ public class ImportMoreArgumentProvider {
 	public static final String ARGUMENT_LOCAL_IDENTIFIER_LOCATION = "localIdentifierLocation";
 	public static final String ARGUMENT_NAMESPACE_PREFIXES = "namespacePrefixes";
 	public static final String ARGUMENT_NAMESPACE_URIS = "namespaceUris";
+	public static final String ARGUMENT_NORMALIZATIONS = "normalizations";
 	public static final String ARGUMENT_PRECISION = "presicion";
 	public static final String ARGUMENT_REMOVE_IF_EMPTY = "removeIfEmpty";
 	public static final String ARGUMENT_RESOURCE_LOCATION = "resourceLocation";
@@ -112,6 +113,20 @@ public class ImportMoreArgumentProvider {
 				+ "\n(This list must contain as many values as the one of "+ARGUMENT_NAMESPACE_PREFIXES+")");
 	}
 	
+	public static ArgumentDescriptor getNormalizationsArgumentDescriptor() {
+		return new ArgumentDescriptor(
+				ARGUMENT_NORMALIZATIONS, 
+				ArgumentDescriptor.TYPE_STRING, 
+				"The differences that should be ignored when comparing local elements with the ones of the " + ARGUMENT_RESOURCE_LOCATION + ", separated by"
+						+ " spaces.\n"
+						+ "Use '" + FragmentCanonicalizer.NORMALIZE_WHITESPACE + "' to ignore whitespace-only text as well as leading, trailing or repeated"
+						+ " whitespace, '" + FragmentCanonicalizer.NORMALIZE_ATTRIBUTE_ORDER + "' to ignore the order of attributes, '"
+						+ FragmentCanonicalizer.NORMALIZE_PREFIXES + "' to only compare namespace URIs instead of namespace URIs and prefixes, '"
+						+ FragmentCanonicalizer.NORMALIZE_COMMENTS + "' to ignore comments and processing instructions or '"
+						+ FragmentCanonicalizer.NORMALIZE_NOTHING + "' to compare elements exactly (default).",
+				FragmentCanonicalizer.NORMALIZE_NOTHING);
+	}
+	
 	public static ArgumentDescriptor getPrecisionArgumentDescriptor() {
 		return new ArgumentDescriptor(
 				ARGUMENT_PRECISION,
@@ -0,0 +1,217 @@
+/**
+ * ImportMoreSettings.java - is a helper class providing access to the global settings (i.e. Java system properties) as used within the
+ *  ImportMoreXtension developed at the Digital Academy of the Academy of Sciences and Literature | Mainz.
+ * @author Patrick D. Brookshire
+ * @version 1.0.0
+ */
+package org.adwmainz.da.extensions.importmore.utils;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import ro.sync.exml.workspace.api.PluginWorkspace;
+import ro.sync.exml.workspace.api.PluginWorkspaceProvider;
+
+public class ImportMoreSettings {
+	
+	// constant list of all property names used within this ImportMoreXtension
+	public static final String PROPERTY_CACHE_MEMORY_BUDGET = "importmore.cache.memoryBudget";
+	public static final String PROPERTY_XPATH_CACHE_SIZE = "importmore.xpath.cacheSize";
+	public static final String PROPERTY_LOADING_FRAME_DELAY = "importmore.loadingFrame.delay";
+	public static final String PROPERTY_DISK_CACHE_DIRECTORY = "importmore.diskCache.directory";
+	public static final String PROPERTY_DISK_CACHE_SIZE = "importmore.diskCache.size";
+	public static final String PROPERTY_OFFLINE = "importmore.offline";
+	public static final String PROPERTY_CONNECT_TIMEOUT = "importmore.http.connectTimeout";
+	public static final String PROPERTY_READ_TIMEOUT = "importmore.http.readTimeout";
+	public static final String PROPERTY_CIRCUIT_BREAKER_THRESHOLD = "importmore.http.failureThreshold";
+	public static final String PROPERTY_CIRCUIT_BREAKER_OPEN_DURATION = "importmore.http.retryAfter";
+	public static final String PROPERTY_CACHE_MAX_AGE = "importmore.cache.maxAge";
+	public static final String PROPERTY_PARALLELISM = "importmore.parallelism";
+	public static final String PROPERTY_PARALLEL_THRESHOLD = "importmore.parallel.threshold";
+	public static final String PROPERTY_PROJECTION = "importmore.projection";
+	public static final String PROPERTY_PARALLEL_PARSING = "importmore.parallel.parsing";
+	public static final String PROPERTY_SNAPSHOTS = "importmore.snapshots";
+	public static final String PROPERTY_WARM_UP_LOCATIONS = "importmore.warmUp.locations";
+	
+	// default values
+	public static final int DEFAULT_CACHE_MEMORY_SHARE = 4;
+	public static final int DEFAULT_XPATH_CACHE_SIZE = 256;
+	public static final int DEFAULT_LOADING_FRAME_DELAY = 300;
+	public static final String DEFAULT_DISK_CACHE_DIRECTORY_NAME = "importmore-cache";
+	public static final long DEFAULT_DISK_CACHE_SIZE = 512;
+	public static final int DEFAULT_CONNECT_TIMEOUT = 5000;
+	public static final int DEFAULT_READ_TIMEOUT = 30000;
+	public static final int DEFAULT_CIRCUIT_BREAKER_THRESHOLD = 3;
+	public static final long DEFAULT_CIRCUIT_BREAKER_OPEN_DURATION = 60;
+	public static final long DEFAULT_CACHE_MAX_AGE = 60;
+	public static final int DEFAULT_PARALLEL_THRESHOLD = 1000;
+	public static final String DEFAULT_WARM_UP_LOCATION = "${frameworksDir}";
+	
+	/**
+	 * Returns the maximum number of bytes that may be occupied by cached XML resources. This value may be set in megabytes by using the system
+	 * property <code>importmore.cache.memoryBudget</code> and defaults to a quarter of the maximum heap size.
+	 */
+	public static long getCacheMemoryBudget() {
+		long budgetInMegabytes = Long.getLong(PROPERTY_CACHE_MEMORY_BUDGET, -1);
+		if (budgetInMegabytes < 0)
+			return Runtime.getRuntime().maxMemory() / DEFAULT_CACHE_MEMORY_SHARE;
+		return budgetInMegabytes * 1024 * 1024;
+	}
+	
+	/**
+	 * Returns the maximum number of compiled XPath expressions that should be kept in memory. This value may be set by using the system property
+	 * <code>importmore.xpath.cacheSize</code>.
+	 */
+	public static int getXPathCacheSize() {
+		return Integer.getInteger(PROPERTY_XPATH_CACHE_SIZE, DEFAULT_XPATH_CACHE_SIZE);
+	}
+	
+	/**
+	 * Returns the number of milliseconds a resource may be loading before a LoadingFrame is displayed. This value may be set by using the system
+	 * property <code>importmore.loadingFrame.delay</code>.
+	 */
+	public static int getLoadingFrameDelay() {
+		return Integer.getInteger(PROPERTY_LOADING_FRAME_DELAY, DEFAULT_LOADING_FRAME_DELAY);
+	}
+	
+	/**
+	 * Returns the directory copies of remote resources should be stored in or <code>null</code> if they should not be stored. This directory may
+	 * be set by using the system property <code>importmore.diskCache.directory</code> and defaults to a subdirectory of the preferences
+	 * directory of oXygen.
+	 */
+	public static File getDiskCacheDirectory() {
+		String path = System.getProperty(PROPERTY_DISK_CACHE_DIRECTORY);
+		if (path != null)
+			return path.isEmpty() ? null : new File(path);
+		
+		PluginWorkspace pluginWorkspace = PluginWorkspaceProvider.getPluginWorkspace();
+		if (pluginWorkspace == null || pluginWorkspace.getPreferencesDirectory() == null)
+			return null;
+		return new File(pluginWorkspace.getPreferencesDirectory(), DEFAULT_DISK_CACHE_DIRECTORY_NAME);
+	}
+	
+	/**
+	 * Returns the maximum number of bytes that may be occupied by copies of remote resources stored on disk. This value may be set in megabytes
+	 * by using the system property <code>importmore.diskCache.size</code>.
+	 */
+	public static long getDiskCacheSize() {
+		return Long.getLong(PROPERTY_DISK_CACHE_SIZE, DEFAULT_DISK_CACHE_SIZE) * 1024 * 1024;
+	}
+	
+	/**
+	 * Checks whether remote resources should only be served from the copies stored on disk. This mode may be enabled by setting the system
+	 * property <code>importmore.offline</code> to <code>true</code>.
+	 */
+	public static boolean isOfflineMode() {
+		return Boolean.getBoolean(PROPERTY_OFFLINE);
+	}
+	
+	/**
+	 * Returns the number of milliseconds to wait for a connection to a remote server. This value may be set by using the system property
+	 * <code>importmore.http.connectTimeout</code>.
+	 */
+	public static int getConnectTimeout() {
+		return Integer.getInteger(PROPERTY_CONNECT_TIMEOUT, DEFAULT_CONNECT_TIMEOUT);
+	}
+	
+	/**
+	 * Returns the number of milliseconds to wait for data from a remote server. This value may be set by using the system property
+	 * <code>importmore.http.readTimeout</code>.
+	 */
+	public static int getReadTimeout() {
+		return Integer.getInteger(PROPERTY_READ_TIMEOUT, DEFAULT_READ_TIMEOUT);
+	}
+	
+	/**
+	 * Returns the number of consecutive failures after which no more requests are sent to a host for a while. This value may be set by using
+	 * the system property <code>importmore.http.failureThreshold</code>.
+	 */
+	public static int getCircuitBreakerThreshold() {
+		return Integer.getInteger(PROPERTY_CIRCUIT_BREAKER_THRESHOLD, DEFAULT_CIRCUIT_BREAKER_THRESHOLD);
+	}
+	
+	/**
+	 * Returns the number of milliseconds no requests are sent to a host that failed too often. This value may be set in seconds by using the
+	 * system property <code>importmore.http.retryAfter</code>.
+	 */
+	public static long getCircuitBreakerOpenDuration() {
+		return Long.getLong(PROPERTY_CIRCUIT_BREAKER_OPEN_DURATION, DEFAULT_CIRCUIT_BREAKER_OPEN_DURATION) * 1000;
+	}
+	
+	/**
+	 * Returns the number of milliseconds a cached remote resource is used without revalidation. Older copies are still used but refreshed in the
+	 * background. This value may be set in seconds by using the system property <code>importmore.cache.maxAge</code>.
+	 */
+	public static long getCacheMaxAge() {
+		return Long.getLong(PROPERTY_CACHE_MAX_AGE, DEFAULT_CACHE_MAX_AGE) * 1000;
+	}
+	
+	/**
+	 * Returns the number of threads that may be used for evaluating XPath expressions on many nodes at once. This value may be set by using the
+	 * system property <code>importmore.parallelism</code> and defaults to the number of available processors. A value of 1 disables parallel
+	 * evaluation.
+	 */
+	public static int getParallelism() {
+		return Math.max(1, Integer.getInteger(PROPERTY_PARALLELISM, Runtime.getRuntime().availableProcessors()));
+	}
+	
+	/**
+	 * Returns the minimum number of nodes XPath expressions need to be evaluated on before the evaluation is split among several threads. This
+	 * value may be set by using the system property <code>importmore.parallel.threshold</code>.
+	 */
+	public static int getParallelThreshold() {
+		return Integer.getInteger(PROPERTY_PARALLEL_THRESHOLD, DEFAULT_PARALLEL_THRESHOLD);
+	}
+	
+	/**
+	 * Checks whether external resources may be projected to the parts needed by an operation instead of always being built completely. This
+	 * value may be set by using the system property <code>importmore.projection</code> and defaults to <code>true</code>.
+	 */
+	public static boolean isProjectionEnabled() {
+		return Boolean.parseBoolean(System.getProperty(PROPERTY_PROJECTION, "true"));
+	}
+	
+	/**
+	 * Checks whether large external resources should be split into chunks that are parsed by several threads at once. This value may be set by
+	 * using the system property <code>importmore.parallel.parsing</code> and defaults to <code>false</code>.
+	 */
+	public static boolean isParallelParsingEnabled() {
+		return Boolean.getBoolean(PROPERTY_PARALLEL_PARSING);
+	}
+	
+	/**
+	 * Checks whether binary snapshots of parsed external resources should be stored within the disk cache directory so that they need not be
+	 * parsed again after a restart. This value may be set by using the system property <code>importmore.snapshots</code> and defaults to
+	 * <code>true</code>.
+	 */
+	public static boolean isSnapshotEnabled() {
+		return Boolean.parseBoolean(System.getProperty(PROPERTY_SNAPSHOTS, "true"));
+	}
+	
+	/**
+	 * Returns the framework directories or files whose ImportMore operations should be prepared in the background when oXygen is started. This
+	 * value may be set as a list of paths separated by the platform's path separator by using the system property
+	 * <code>importmore.warmUp.locations</code> and defaults to the frameworks directory of oXygen. An empty value disables the warm-up.
+	 */
+	public static List<File> getWarmUpLocations() {
+		List<File> locations = new ArrayList<>();
+		String paths = System.getProperty(PROPERTY_WARM_UP_LOCATIONS);
+		if (paths != null) {
+			for (String path: paths.split(File.pathSeparator)) {
+				if (!path.trim().isEmpty())
+					locations.add(new File(path.trim()));
+			}
+			return locations;
+		}
+		
+		PluginWorkspace pluginWorkspace = PluginWorkspaceProvider.getPluginWorkspace();
+		if (pluginWorkspace == null || pluginWorkspace.getUtilAccess() == null)
+			return locations;
+		String frameworksDirectory = pluginWorkspace.getUtilAccess().expandEditorVariables(DEFAULT_WARM_UP_LOCATION, null);
+		if (frameworksDirectory != null && !frameworksDirectory.contains("${"))
+			locations.add(new File(frameworksDirectory));
+		return locations;
+	}
+	
+}
@@ -0,0 +1,27 @@
+/**
+ * ImportTask.java - is an interface representing work on an external resource (i.e. fetching, parsing and querying it) that may be run in the
+ *  background as used within the ImportMoreXtension developed at the Digital Academy of the Academy of Sciences and Literature | Mainz.
+ * @author Patrick D. Brookshire
+ * @version 1.0.0
+ * @param <T> the type of the result
+ */
+package org.adwmainz.da.extensions.importmore.utils;
+
+import java.io.IOException;
+
+import org.adwmainz.da.extensions.importmore.exceptions.ImportMoreXMLException;
+import org.adwmainz.da.extensions.importmore.exceptions.ImportMoreXPathException;
+import org.adwmainz.da.extensions.importmore.models.LoadingProgress;
+
+public interface ImportTask<T> {
+	
+	/**
+	 * Runs this task
+	 * @param progress the LoadingProgress that should be updated and checked for cancellation requests
+	 * @throws IOException
+	 * @throws ImportMoreXMLException if the resource cannot be parsed
+	 * @throws ImportMoreXPathException if an XPath expression is erroneous
+	 */
+	T run(LoadingProgress progress) throws IOException, ImportMoreXMLException, ImportMoreXPathException;
+
+}
@@ -0,0 +1,216 @@
+/**
+ * LocalDocumentIndex.java - is a helper class that keeps the keys and fingerprints computed for the document opened in an Author editor and
+ *  updates them from the changes reported to an AuthorListener so that repeated operations do not need to walk the whole document again. It is
+ *  used within the ImportMoreXtension developed at the Digital Academy of the Academy of Sciences and Literature | Mainz.
+ * @author Patrick D. Brookshire
+ * @version 1.0.0
+ */
+package org.adwmainz.da.extensions.importmore.utils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+
+import javax.swing.text.BadLocationException;
+
+import org.adwmainz.da.extensions.importmore.models.LocalFragment;
+
+import ro.sync.ecss.dom.wrappers.AuthorNodeDomWrapper;
+import ro.sync.ecss.extensions.api.AttributeChangedEvent;
+import ro.sync.ecss.extensions.api.AuthorDocumentController;
+import ro.sync.ecss.extensions.api.AuthorListenerAdapter;
+import ro.sync.ecss.extensions.api.AuthorOperationException;
+import ro.sync.ecss.extensions.api.DocumentContentDeletedEvent;
+import ro.sync.ecss.extensions.api.DocumentContentInsertedEvent;
+import ro.sync.ecss.extensions.api.node.AuthorDocument;
+import ro.sync.ecss.extensions.api.node.AuthorNode;
+
+public class LocalDocumentIndex {
+	
+	// static field
+	protected static final Map<AuthorDocumentController, LocalDocumentIndex> indexes = new WeakHashMap<>();
+	
+	// fields
+	/**
+	 * The number of changes of the document so far (query results are only reused if it did not change since they have been computed)
+	 */
+	protected long generation = 0;
+	protected final Map<List<String>, Long> resultGenerations = new HashMap<>();
+	protected final Map<List<String>, Set<String>> keys = new HashMap<>();
+	protected final Map<List<String>, List<LocalFragment>> fragments = new HashMap<>();
+	
+	/**
+	 * The fingerprints of single nodes for each FragmentCanonicalizer signature which are kept as long as the nodes are not modified
+	 */
+	protected final Map<String, Map<AuthorNode, Long>> nodeFingerprints = new HashMap<>();
+	
+	// constructor
+	/**
+	 * Creates a new LocalDocumentIndex and registers it as listener of the given AuthorDocumentController
+	 * @param documentController an AuthorDocumentController
+	 */
+	protected LocalDocumentIndex(AuthorDocumentController documentController) {
+		// MEMO: this index must not reference the controller since the index map only holds it weakly
+		documentController.addAuthorListener(new AuthorListenerAdapter() {
+			@Override
+			public void contentInserted(DocumentContentInsertedEvent e) {
+				nodeChanged(e.getParentNode());
+			}
+			
+			@Override
+			public void contentDeleted(DocumentContentDeletedEvent e) {
+				nodeChanged(e.getParentNode());
+			}
+			
+			@Override
+			public void attributeChanged(AttributeChangedEvent e) {
+				// namespace declarations affect the fingerprints of all descendants
+				if (e.getAttributeName() != null && e.getAttributeName().startsWith("xmlns"))
+					documentReplaced();
+				else
+					nodeChanged(e.getOwnerAuthorNode());
+			}
+			
+			@Override
+			public void authorNodeNameChanged(AuthorNode authorNode) {
+				nodeChanged(authorNode);
+			}
+			
+			@Override
+			public void authorNodeStructureChanged(AuthorNode authorNode) {
+				nodeChanged(authorNode);
+			}
+			
+			@Override
+			public void documentChanged(AuthorDocument oldDocument, AuthorDocument newDocument) {
+				documentReplaced();
+			}
+			
+			@Override
+			public void doctypeChanged() {
+				documentReplaced();
+			}
+		});
+	}
+	
+	// factory method
+	/**
+	 * Returns the LocalDocumentIndex of the given AuthorDocumentController which is created on first use
+	 * @param documentController an AuthorDocumentController
+	 */
+	public static LocalDocumentIndex forController(AuthorDocumentController documentController) {
+		synchronized (indexes) {
+			LocalDocumentIndex index = indexes.get(documentController);
+			if (index == null) {
+				index = new LocalDocumentIndex(documentController);
+				indexes.put(documentController, index);
+			}
+			return index;
+		}
+	}
+	
+	// main methods
+	/**
+	 * Returns the Set of keys of all nodes identified by a given XPath expression (c.f. APIAccessUtils.getKeys) which is only computed again if
+	 * the document has been modified
+	 * @param documentController the AuthorDocumentController of this index
+	 * @param xPathExpression an XPath expression identifying the nodes
+	 * @param keyExpression an XPath expression identifying the key using each node as context node
+	 * @throws AuthorOperationException if the XPath expression is erroneous
+	 */
+	public synchronized Set<String> getKeys(AuthorDocumentController documentController, String xPathExpression, String keyExpression)
+			throws AuthorOperationException {
+		List<String> signature = Arrays.asList("keys", xPathExpression, keyExpression);
+		Set<String> result = keys.get(signature);
+		if (result == null || !isCurrent(signature)) {
+			result = Collections.unmodifiableSet(APIAccessUtils.getKeys(documentController, xPathExpression, keyExpression));
+			keys.put(signature, result);
+			resultGenerations.put(signature, generation);
+		}
+		return result;
+	}
+	
+	/**
+	 * Returns a List of fingerprinted XPath results with distinct fingerprints for a given XPath expression (c.f.
+	 * APIAccessUtils.getFingerprintedXPathResults). If the document has been modified the XPath expression is evaluated again but only the
+	 * fingerprints of modified nodes are computed again.
+	 * @param documentController the AuthorDocumentController of this index
+	 * @param xPathExpression an XPath expression
+	 * @param canonicalizer the FragmentCanonicalizer used to compute the fingerprints
+	 * @throws AuthorOperationException if the XPath expression is erroneous
+	 * @throws BadLocationException
+	 */
+	public synchronized List<LocalFragment> getFingerprintedXPathResults(AuthorDocumentController documentController, String xPathExpression,
+			FragmentCanonicalizer canonicalizer) throws AuthorOperationException, BadLocationException {
+		List<String> signature = Arrays.asList("fragments", xPathExpression, canonicalizer.getSignature());
+		List<LocalFragment> result = fragments.get(signature);
+		if (result != null && isCurrent(signature))
+			return result;
+		
+		// reuse the fingerprints of unmodified nodes
+		Map<AuthorNode, Long> fingerprints = nodeFingerprints.get(canonicalizer.getSignature());
+		if (fingerprints == null) {
+			fingerprints = new WeakHashMap<>();
+			nodeFingerprints.put(canonicalizer.getSignature(), fingerprints);
+		}
+		Map<Long, LocalFragment> results = new LinkedHashMap<>();
+		for (Object rawResult: documentController.evaluateXPath(xPathExpression, false, true, true)) {
+			LocalFragment fragment;
+			if (rawResult instanceof AuthorNodeDomWrapper) {
+				AuthorNode targetNode = ((AuthorNodeDomWrapper) rawResult).getWrappedAuthorNode();
+				Long fingerprint = fingerprints.get(targetNode);
+				if (fingerprint == null) {
+					fingerprint = canonicalizer.fingerprint(documentController, targetNode);
+					fingerprints.put(targetNode, fingerprint);
+				}
+				fragment = new LocalFragment(fingerprint, targetNode);
+			}
+			else {
+				fragment = new LocalFragment(canonicalizer.fingerprint(rawResult.toString()), rawResult.toString());
+			}
+			results.put(fragment.getFingerprint(), fragment);
+		}
+		result = Collections.unmodifiableList(new ArrayList<>(results.values()));
+		fragments.put(signature, result);
+		resultGenerations.put(signature, generation);
+		return result;
+	}
+	
+	// update methods
+	/**
+	 * Discards all results as well as the fingerprints of the given node and its ancestors since their content has been modified
+	 * @param authorNode a modified AuthorNode or <code>null</code>
+	 */
+	protected synchronized void nodeChanged(AuthorNode authorNode) {
+		++generation;
+		for (Map<AuthorNode, Long> fingerprints: nodeFingerprints.values()) {
+			for (AuthorNode node = authorNode; node != null; node = node.getParent())
+				fingerprints.remove(node);
+		}
+	}
+	
+	/**
+	 * Discards all results and fingerprints
+	 */
+	protected synchronized void documentReplaced() {
+		++generation;
+		nodeFingerprints.clear();
+	}
+	
+	// helper method
+	/**
+	 * Checks whether the result with the given signature has been computed since the last modification of the document
+	 * @param signature the signature of a result
+	 */
+	protected boolean isCurrent(List<String> signature) {
+		Long resultGeneration = resultGenerations.get(signature);
+		return resultGeneration != null && resultGeneration == generation;
+	}
+
+}
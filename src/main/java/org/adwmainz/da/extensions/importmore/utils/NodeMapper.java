@@ -0,0 +1,25 @@
+/**
+ * NodeMapper.java - is an interface representing a computation on a single node of a parsed external resource (e.g. evaluating an XPath
+ *  expression on it) that may be applied to many nodes at once by a ParallelEvaluator as used within the ImportMoreXtension developed at the
+ *  Digital Academy of the Academy of Sciences and Literature | Mainz.
+ * @author Patrick D. Brookshire
+ * @version 1.0.0
+ * @param <R> the type of the result
+ */
+package org.adwmainz.da.extensions.importmore.utils;
+
+import org.adwmainz.da.extensions.importmore.exceptions.ImportMoreXPathException;
+
+import net.sf.saxon.s9api.XdmNode;
+
+public interface NodeMapper<R> {
+
+	/**
+	 * Computes the result for the given node. Since this method may be called from several threads at once, implementations must not share
+	 * mutable state such as XPathSelectors between calls.
+	 * @param node a node of a parsed resource
+	 * @throws ImportMoreXPathException if an XPath expression cannot be evaluated
+	 */
+	R map(XdmNode node) throws ImportMoreXPathException;
+
+}
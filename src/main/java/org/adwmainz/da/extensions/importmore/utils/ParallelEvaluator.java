@@ -0,0 +1,237 @@
+/**
+ * ParallelEvaluator.java - is a helper class that applies computations like XPath evaluations to many nodes of an immutable parsed resource by
+ *  splitting them among the threads of a ForkJoinPool while preserving the order of the results as used within the ImportMoreXtension developed
+ *  at the Digital Academy of the Academy of Sciences and Literature | Mainz.
+ * @author Patrick D. Brookshire
+ * @version 1.0.0
+ */
+package org.adwmainz.da.extensions.importmore.utils;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.RecursiveAction;
+
+import org.adwmainz.da.extensions.importmore.exceptions.ImportMoreXPathException;
+import org.adwmainz.da.extensions.importmore.models.LoadingProgress;
+
+import net.sf.saxon.s9api.QName;
+import net.sf.saxon.s9api.SaxonApiException;
+import net.sf.saxon.s9api.SaxonApiUncheckedException;
+import net.sf.saxon.s9api.XPathExecutable;
+import net.sf.saxon.s9api.XPathSelector;
+import net.sf.saxon.s9api.XdmItem;
+import net.sf.saxon.s9api.XdmNode;
+import net.sf.saxon.s9api.XdmValue;
+
+public class ParallelEvaluator {
+
+	// constants
+	protected static final int MIN_CHUNK_SIZE = 256;
+	protected static final int CHUNKS_PER_THREAD = 4;
+
+	// static field
+	protected static ForkJoinPool pool;
+
+	// main methods
+	/**
+	 * Applies the given NodeMapper to each node and returns the results in the order of the nodes. The nodes are split among several threads if
+	 * there are at least as many as configured by <code>importmore.parallel.threshold</code>.
+	 * @param <R> the type of the results
+	 * @param nodes a List of nodes
+	 * @param mapper a NodeMapper that may be called from several threads at once
+	 * @param progress a LoadingProgress that should be updated and checked for cancellation requests or <code>null</code>
+	 * @throws IOException if the LoadingProgress has been cancelled
+	 * @throws ImportMoreXPathException if the NodeMapper fails for any node
+	 */
+	public static <R> List<R> map(List<XdmNode> nodes, final NodeMapper<R> mapper, LoadingProgress progress) throws IOException, ImportMoreXPathException {
+		return evaluate(nodes, new ChunkMapperFactory<R>() {
+			@Override
+			public NodeMapper<R> newChunkMapper() {
+				return mapper;
+			}
+		}, progress);
+	}
+
+	/**
+	 * Evaluates the given XPath expression once for each chunk of nodes, which is bound to the given variable, and returns the results of all
+	 * chunks in the order of the nodes. The nodes are split among several threads if there are at least as many as configured by
+	 * <code>importmore.parallel.threshold</code> and are evaluated as a single chunk otherwise.
+	 * @param nodes a List of nodes
+	 * @param variableName the name of the variable each chunk is bound to
+	 * @param xPathExpression an XPath expression
+	 * @param executable the compiled XPath expression (declaring the variable)
+	 * @param progress a LoadingProgress that should be checked for cancellation requests or <code>null</code>
+	 * @throws IOException if the LoadingProgress has been cancelled
+	 * @throws ImportMoreXPathException if the XPath expression cannot be evaluated
+	 */
+	public static List<XdmItem> evaluateChunks(List<XdmNode> nodes, final QName variableName, final String xPathExpression,
+			final XPathExecutable executable, final LoadingProgress progress) throws IOException, ImportMoreXPathException {
+		int parallelism = ImportMoreSettings.getParallelism();
+		if (parallelism == 1 || nodes.size() < ImportMoreSettings.getParallelThreshold())
+			return evaluateChunk(nodes, variableName, xPathExpression, executable, progress);
+
+		int chunkSize = Math.max(MIN_CHUNK_SIZE, nodes.size() / (parallelism * CHUNKS_PER_THREAD));
+		List<Callable<List<XdmItem>>> tasks = new ArrayList<>();
+		for (int from=0; from<nodes.size(); from+=chunkSize) {
+			final List<XdmNode> chunk = nodes.subList(from, Math.min(from + chunkSize, nodes.size()));
+			tasks.add(new Callable<List<XdmItem>>() {
+				@Override
+				public List<XdmItem> call() throws IOException, ImportMoreXPathException {
+					return evaluateChunk(chunk, variableName, xPathExpression, executable, progress);
+				}
+			});
+		}
+		List<XdmItem> results = new ArrayList<>();
+		try {
+			for (Future<List<XdmItem>> future: getPool(parallelism).invokeAll(tasks))
+				results.addAll(future.get());
+		} catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Evaluation has been interrupted");
+		} catch (ExecutionException ex) {
+			Throwable cause = ex.getCause();
+			if (cause instanceof IOException)
+				throw (IOException) cause;
+			if (cause instanceof ImportMoreXPathException)
+				throw (ImportMoreXPathException) cause;
+			if (cause instanceof RuntimeException)
+				throw (RuntimeException) cause;
+			throw (Error) cause;
+		}
+		return results;
+	}
+
+	// helper methods
+	@SuppressWarnings("unchecked")
+	protected static <R> List<R> evaluate(List<XdmNode> nodes, ChunkMapperFactory<R> factory, LoadingProgress progress)
+			throws IOException, ImportMoreXPathException {
+		XdmNode[] nodeArray = nodes.toArray(new XdmNode[nodes.size()]);
+		Object[] results = new Object[nodeArray.length];
+		int parallelism = ImportMoreSettings.getParallelism();
+
+		if (parallelism == 1 || nodeArray.length < ImportMoreSettings.getParallelThreshold()) {
+			// evaluate within the calling thread
+			new ChunkTask<>(nodeArray, results, 0, nodeArray.length, nodeArray.length, factory, progress).evaluateChunk();
+		} else {
+			int chunkSize = Math.max(MIN_CHUNK_SIZE, nodeArray.length / (parallelism * CHUNKS_PER_THREAD));
+			try {
+				getPool(parallelism).invoke(new ChunkTask<>(nodeArray, results, 0, nodeArray.length, chunkSize, factory, progress));
+			} catch (ChunkFailure failure) {
+				// the ForkJoinPool may have wrapped the original failure
+				Throwable cause = failure;
+				while (cause instanceof ChunkFailure)
+					cause = cause.getCause();
+				if (cause instanceof IOException)
+					throw (IOException) cause;
+				throw (ImportMoreXPathException) cause;
+			}
+		}
+		return (List<R>) Arrays.asList(results);
+	}
+
+	/**
+	 * Evaluates the given XPath expression once with the given chunk of nodes bound to the given variable
+	 */
+	protected static List<XdmItem> evaluateChunk(List<XdmNode> chunk, QName variableName, String xPathExpression, XPathExecutable executable,
+			LoadingProgress progress) throws IOException, ImportMoreXPathException {
+		List<XdmItem> results = new ArrayList<>();
+		try {
+			XPathSelector selector = executable.load();
+			selector.setVariable(variableName, new XdmValue(chunk));
+			for (XdmItem item: selector) {
+				results.add(item);
+				if (progress != null)
+					progress.checkCancelled();
+			}
+		} catch (SaxonApiException | SaxonApiUncheckedException ex) {
+			throw new ImportMoreXPathException("Cannot evaluate the xpath " + xPathExpression, ex);
+		}
+		return results;
+	}
+
+	protected static synchronized ForkJoinPool getPool(int parallelism) {
+		if (pool == null || pool.getParallelism() != parallelism)
+			pool = new ForkJoinPool(parallelism);
+		return pool;
+	}
+
+	// helper classes
+	/**
+	 * Creates a NodeMapper for each chunk of nodes so that non-thread-safe objects like XPathSelectors may be reused within a chunk
+	 */
+	protected interface ChunkMapperFactory<R> {
+		NodeMapper<R> newChunkMapper();
+	}
+
+	/**
+	 * Transports checked exceptions out of a ForkJoinTask
+	 */
+	protected static class ChunkFailure extends RuntimeException {
+		private static final long serialVersionUID = -6435512338046932318L;
+
+		public ChunkFailure(Throwable cause) {
+			super(cause);
+		}
+	}
+
+	/**
+	 * Evaluates a range of nodes and writes the results to the same range of the result array
+	 */
+	protected static class ChunkTask<R> extends RecursiveAction {
+		private static final long serialVersionUID = 5009207232716930155L;
+
+		// fields
+		protected final XdmNode[] nodes;
+		protected final Object[] results;
+		protected final int from;
+		protected final int to;
+		protected final int chunkSize;
+		protected final ChunkMapperFactory<R> factory;
+		protected final LoadingProgress progress;
+
+		// constructor
+		public ChunkTask(XdmNode[] nodes, Object[] results, int from, int to, int chunkSize, ChunkMapperFactory<R> factory, LoadingProgress progress) {
+			this.nodes = nodes;
+			this.results = results;
+			this.from = from;
+			this.to = to;
+			this.chunkSize = chunkSize;
+			this.factory = factory;
+			this.progress = progress;
+		}
+
+		@Override
+		protected void compute() {
+			if (to - from <= chunkSize) {
+				try {
+					evaluateChunk();
+				} catch (IOException | ImportMoreXPathException ex) {
+					throw new ChunkFailure(ex);
+				}
+			} else {
+				int middle = (from + to) >>> 1;
+				invokeAll(new ChunkTask<>(nodes, results, from, middle, chunkSize, factory, progress),
+						new ChunkTask<>(nodes, results, middle, to, chunkSize, factory, progress));
+			}
+		}
+
+		protected void evaluateChunk() throws IOException, ImportMoreXPathException {
+			NodeMapper<R> mapper = factory.newChunkMapper();
+			for (int i=from; i<to; ++i) {
+				results[i] = mapper.map(nodes[i]);
+				if (progress != null) {
+					progress.checkCancelled();
+					progress.addMatchedNodes(1);
+				}
+			}
+		}
+	}
+
+}
@@ -0,0 +1,223 @@
+/**
+ * ProjectionFilter.java - is an extension of an org.xml.sax.helpers.XMLFilterImpl that only passes on the parts of a parsed resource described by
+ *  a DocumentProjection (i.e. the elements matching its SimplePath with all their descendants and their ancestors without any siblings) so that
+ *  no tree needs to be built for the rest as used within the ImportMoreXtension developed at the Digital Academy of the Academy of Sciences and
+ *  Literature | Mainz.
+ * @author Patrick D. Brookshire
+ * @version 1.0.0
+ */
+package org.adwmainz.da.extensions.importmore.utils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.adwmainz.da.extensions.importmore.models.SimplePath;
+import org.xml.sax.Attributes;
+import org.xml.sax.SAXException;
+import org.xml.sax.SAXNotRecognizedException;
+import org.xml.sax.SAXNotSupportedException;
+import org.xml.sax.ext.LexicalHandler;
+import org.xml.sax.helpers.XMLFilterImpl;
+
+public class ProjectionFilter extends XMLFilterImpl implements LexicalHandler {
+
+	// constants
+	protected static final String LEXICAL_HANDLER_PROPERTY = "http://xml.org/sax/properties/lexical-handler";
+	protected static final int INITIAL_DEPTH = 64;
+
+	// fields
+	protected final SimplePath path;
+	protected LexicalHandler lexicalHandler;
+
+	protected long[] stateStack = new long[INITIAL_DEPTH];
+	protected boolean[] passedElements = new boolean[INITIAL_DEPTH];
+	protected int depth = 0;
+	protected int skippedDepth = 0; // depth within an element that is neither needed nor an ancestor of a needed one
+	protected int keptDepth = 0; // depth within an element matching the SimplePath
+	protected final List<String[]> pendingPrefixMappings = new ArrayList<>();
+	protected long passedCharacters = 0;
+
+	// constructor
+	/**
+	 * Creates a new ProjectionFilter whose parent XMLReader still needs to be set
+	 * @param path the SimplePath identifying the elements that should be kept
+	 */
+	public ProjectionFilter(SimplePath path) {
+		super();
+		this.path = path;
+		stateStack[0] = path.getInitialStates();
+	}
+
+	// basic getter
+	/**
+	 * Returns the number of characters of text, names and attribute values that have been passed on (e.g. to estimate the size of the tree)
+	 */
+	public long getPassedCharacters() {
+		return passedCharacters;
+	}
+
+	// lexical handler registration
+	@Override
+	public void setProperty(String name, Object value) throws SAXNotRecognizedException, SAXNotSupportedException {
+		if (LEXICAL_HANDLER_PROPERTY.equals(name)) {
+			// intercept comments, CDATA sections and entities
+			lexicalHandler = (LexicalHandler) value;
+			super.setProperty(name, this);
+		} else {
+			super.setProperty(name, value);
+		}
+	}
+
+	@Override
+	public Object getProperty(String name) throws SAXNotRecognizedException, SAXNotSupportedException {
+		if (LEXICAL_HANDLER_PROPERTY.equals(name))
+			return lexicalHandler;
+		return super.getProperty(name);
+	}
+
+	// content handler methods
+	@Override
+	public void startPrefixMapping(String prefix, String uri) throws SAXException {
+		if (keptDepth > 0)
+			super.startPrefixMapping(prefix, uri);
+		else if (skippedDepth == 0)
+			pendingPrefixMappings.add(new String[] {prefix, uri}); // only passed on if the element is passed on
+	}
+
+	@Override
+	public void endPrefixMapping(String prefix) throws SAXException {
+		// passed on after the end of the element they have been declared on
+		if (keptDepth > 0 || (skippedDepth == 0 && passedElements[depth + 1]))
+			super.endPrefixMapping(prefix);
+	}
+
+	@Override
+	public void startElement(String uri, String localName, String qName, Attributes atts) throws SAXException {
+		if (keptDepth > 0) {
+			++keptDepth;
+			pass(uri, localName, qName, atts);
+			return;
+		}
+		if (skippedDepth > 0) {
+			++skippedDepth;
+			return;
+		}
+
+		long states = path.match(stateStack[depth], uri, localName);
+		ensureCapacity(depth + 2);
+		++depth;
+		stateStack[depth] = states;
+		if (path.isComplete(states)) {
+			keptDepth = 1;
+		} else if (!path.isContinuable(states)) {
+			passedElements[depth] = false;
+			pendingPrefixMappings.clear();
+			skippedDepth = 1;
+			return;
+		}
+		passedElements[depth] = true;
+		for (String[] prefixMapping: pendingPrefixMappings)
+			super.startPrefixMapping(prefixMapping[0], prefixMapping[1]);
+		pendingPrefixMappings.clear();
+		pass(uri, localName, qName, atts);
+	}
+
+	@Override
+	public void endElement(String uri, String localName, String qName) throws SAXException {
+		if (keptDepth > 0) {
+			super.endElement(uri, localName, qName);
+			if (--keptDepth > 0)
+				return;
+		} else if (skippedDepth > 0) {
+			if (--skippedDepth > 0)
+				return;
+		} else {
+			super.endElement(uri, localName, qName);
+		}
+		--depth;
+	}
+
+	@Override
+	public void characters(char[] ch, int start, int length) throws SAXException {
+		if (keptDepth > 0) {
+			passedCharacters += length;
+			super.characters(ch, start, length);
+		}
+	}
+
+	@Override
+	public void ignorableWhitespace(char[] ch, int start, int length) throws SAXException {
+		if (keptDepth > 0)
+			super.ignorableWhitespace(ch, start, length);
+	}
+
+	@Override
+	public void processingInstruction(String target, String data) throws SAXException {
+		if (keptDepth > 0)
+			super.processingInstruction(target, data);
+	}
+
+	// lexical handler methods
+	@Override
+	public void startDTD(String name, String publicId, String systemId) throws SAXException {
+		if (lexicalHandler != null)
+			lexicalHandler.startDTD(name, publicId, systemId);
+	}
+
+	@Override
+	public void endDTD() throws SAXException {
+		if (lexicalHandler != null)
+			lexicalHandler.endDTD();
+	}
+
+	@Override
+	public void startEntity(String name) throws SAXException {
+		if (lexicalHandler != null && keptDepth > 0)
+			lexicalHandler.startEntity(name);
+	}
+
+	@Override
+	public void endEntity(String name) throws SAXException {
+		if (lexicalHandler != null && keptDepth > 0)
+			lexicalHandler.endEntity(name);
+	}
+
+	@Override
+	public void startCDATA() throws SAXException {
+		if (lexicalHandler != null && keptDepth > 0)
+			lexicalHandler.startCDATA();
+	}
+
+	@Override
+	public void endCDATA() throws SAXException {
+		if (lexicalHandler != null && keptDepth > 0)
+			lexicalHandler.endCDATA();
+	}
+
+	@Override
+	public void comment(char[] ch, int start, int length) throws SAXException {
+		if (lexicalHandler != null && keptDepth > 0)
+			lexicalHandler.comment(ch, start, length);
+	}
+
+	// helper methods
+	protected void pass(String uri, String localName, String qName, Attributes atts) throws SAXException {
+		passedCharacters += qName.length();
+		for (int i=0; i<atts.getLength(); ++i)
+			passedCharacters += atts.getQName(i).length() + atts.getValue(i).length();
+		super.startElement(uri, localName, qName, atts);
+	}
+
+	protected void ensureCapacity(int capacity) {
+		if (capacity <= stateStack.length)
+			return;
+		int newLength = Math.max(capacity, stateStack.length * 2);
+		long[] newStateStack = new long[newLength];
+		boolean[] newPassedElements = new boolean[newLength];
+		System.arraycopy(stateStack, 0, newStateStack, 0, stateStack.length);
+		System.arraycopy(passedElements, 0, newPassedElements, 0, passedElements.length);
+		stateStack = newStateStack;
+		passedElements = newPassedElements;
+	}
+
+}
@@ -0,0 +1,376 @@
+/**
+ * ResourceDiskCache.java - is a helper class that keeps copies of remote XML resources on disk together with the validators they have been served
+ *  with so that they only need to be downloaded again if they have been modified. Binary snapshots of parsed (remote or local) resources are kept
+ *  alongside so that they need not be parsed again after a restart. It is one of the main classes within the ImportMoreXtension developed at the
+ *  Digital Academy of the Academy of Sciences and Literature | Mainz.
+ * @author Patrick D. Brookshire
+ * @version 1.0.0
+ */
+package org.adwmainz.da.extensions.importmore.utils;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URL;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Properties;
+
+import org.adwmainz.da.extensions.importmore.models.DiskCacheEntry;
+import org.adwmainz.da.extensions.importmore.models.ResourceVersion;
+
+public class ResourceDiskCache {
+	
+	// constant list of all file suffixes and metadata keys
+	protected static final String DATA_SUFFIX = ".xml";
+	protected static final String METADATA_SUFFIX = ".properties";
+	protected static final String TEMP_SUFFIX = ".tmp";
+	protected static final String SNAPSHOT_SUFFIX = ".snapshot";
+	protected static final String KEY_URL = "url";
+	protected static final String KEY_ETAG = "eTag";
+	protected static final String KEY_LAST_MODIFIED = "lastModified";
+	protected static final String KEY_LENGTH = "length";
+	
+	// static fields
+	protected static File directory = null;
+	protected static boolean directoryResolved = false;
+	protected static long sizeLimit = ImportMoreSettings.getDiskCacheSize();
+	protected static boolean offlineMode = ImportMoreSettings.isOfflineMode();
+
+	// configuration methods
+	/**
+	 * Returns the directory the copies are stored in or <code>null</code> if the ResourceDiskCache is disabled. Unless specified otherwise the
+	 * directory is located within the preferences directory of oXygen.
+	 */
+	public static synchronized File getDirectory() {
+		if (!directoryResolved) {
+			directory = ImportMoreSettings.getDiskCacheDirectory();
+			directoryResolved = true;
+		}
+		return directory;
+	}
+	
+	/**
+	 * Sets the directory the copies should be stored in (e.g. a temporary directory when running against a local stand-in server)
+	 * @param directory a directory or <code>null</code> if the ResourceDiskCache should be disabled
+	 */
+	public static synchronized void setDirectory(File directory) {
+		ResourceDiskCache.directory = directory;
+		directoryResolved = true;
+	}
+	
+	public static synchronized long getSizeLimit() {
+		return sizeLimit;
+	}
+	
+	/**
+	 * Sets the maximum number of bytes that may be occupied by stored copies
+	 * @param sizeLimit a number of bytes
+	 */
+	public static synchronized void setSizeLimit(long sizeLimit) {
+		ResourceDiskCache.sizeLimit = sizeLimit;
+		trim();
+	}
+	
+	public static boolean isOfflineMode() {
+		return offlineMode;
+	}
+	
+	/**
+	 * Sets whether remote resources should only be served from the stored copies without contacting their servers
+	 * @param offlineMode <code>true</code> if no connections should be opened
+	 */
+	public static void setOfflineMode(boolean offlineMode) {
+		ResourceDiskCache.offlineMode = offlineMode;
+	}
+
+	// main methods
+	/**
+	 * Returns the stored copy of the resource with the given URL or <code>null</code> if there is none
+	 * @param url a URL
+	 */
+	public static synchronized DiskCacheEntry get(URL url) {
+		File dir = getDirectory();
+		if (dir == null)
+			return null;
+		
+		String baseName = getBaseName(url);
+		File metadataFile = new File(dir, baseName + METADATA_SUFFIX);
+		File dataFile = new File(dir, baseName + DATA_SUFFIX);
+		if (!metadataFile.isFile() || !dataFile.isFile())
+			return null;
+		
+		Properties metadata = new Properties();
+		try (InputStream in = new FileInputStream(metadataFile)) {
+			metadata.load(in);
+			if (!url.toExternalForm().equals(metadata.getProperty(KEY_URL)))
+				return null; // hash collision
+			ResourceVersion version = new ResourceVersion(metadata.getProperty(KEY_ETAG), Long.parseLong(metadata.getProperty(KEY_LAST_MODIFIED, "0")),
+					Long.parseLong(metadata.getProperty(KEY_LENGTH, "-1")));
+			return new DiskCacheEntry(url.toExternalForm(), version, dataFile, metadataFile);
+		} catch (IOException | NumberFormatException ex) {
+			return null;
+		}
+	}
+	
+	/**
+	 * Opens the stored copy represented by the given DiskCacheEntry and marks it as recently used (and validated)
+	 * @param entry a DiskCacheEntry
+	 * @throws IOException if the stored copy cannot be opened
+	 */
+	public static InputStream open(DiskCacheEntry entry) throws IOException {
+		touch(entry);
+		return new FileInputStream(entry.getDataFile());
+	}
+	
+	/**
+	 * Marks the stored copy represented by the given DiskCacheEntry as recently used (and validated)
+	 * @param entry a DiskCacheEntry
+	 */
+	public static void touch(DiskCacheEntry entry) {
+		entry.getMetadataFile().setLastModified(System.currentTimeMillis());
+	}
+	
+	/**
+	 * Returns an InputStream that stores a copy of the given stream as soon as it has been read completely
+	 * @param url the URL the resource is fetched from
+	 * @param version the version of the fetched resource
+	 * @param in the InputStream of the fetched resource
+	 */
+	public static InputStream store(URL url, ResourceVersion version, InputStream in) {
+		File dir = getDirectory();
+		if (dir == null || (!dir.isDirectory() && !dir.mkdirs()))
+			return in;
+		try {
+			File tempFile = File.createTempFile(getBaseName(url), TEMP_SUFFIX, dir);
+			return new CachingInputStream(in, url, version, tempFile);
+		} catch (IOException ex) {
+			return in;
+		}
+	}
+	
+	/**
+	 * Replaces the stored copy of the resource with the given URL by the specified file. The metadata is written to a temporary file as well and
+	 * the old metadata is removed before both files are moved into place so that an interrupted commit never pairs data and metadata of
+	 * different versions.
+	 * @param url a URL
+	 * @param version the version of the new copy
+	 * @param tempFile a file containing the new copy
+	 */
+	protected static synchronized void commit(URL url, ResourceVersion version, File tempFile) {
+		File dir = getDirectory();
+		if (dir == null || tempFile.length() > sizeLimit) {
+			tempFile.delete();
+			return;
+		}
+		
+		String baseName = getBaseName(url);
+		Properties metadata = new Properties();
+		metadata.setProperty(KEY_URL, url.toExternalForm());
+		if (version.getETag() != null)
+			metadata.setProperty(KEY_ETAG, version.getETag());
+		metadata.setProperty(KEY_LAST_MODIFIED, Long.toString(version.getLastModified()));
+		metadata.setProperty(KEY_LENGTH, Long.toString(version.getLength()));
+		File tempMetadataFile = null;
+		try {
+			tempMetadataFile = File.createTempFile(baseName, TEMP_SUFFIX, dir);
+			try (OutputStream out = new FileOutputStream(tempMetadataFile)) {
+				metadata.store(out, null);
+			}
+			
+			// a copy without metadata is never returned
+			File metadataFile = new File(dir, baseName + METADATA_SUFFIX);
+			Files.deleteIfExists(metadataFile.toPath());
+			move(tempFile, new File(dir, baseName + DATA_SUFFIX));
+			move(tempMetadataFile, metadataFile);
+		} catch (IOException ex) {
+			tempFile.delete();
+			if (tempMetadataFile != null)
+				tempMetadataFile.delete();
+			remove(url);
+			return;
+		}
+		trim();
+	}
+	
+	/**
+	 * Returns the stored snapshot of the parsed resource with the given URL or <code>null</code> if there is none
+	 * @param url a URL
+	 */
+	public static synchronized File getSnapshot(URL url) {
+		File dir = getDirectory();
+		if (dir == null)
+			return null;
+		File snapshotFile = new File(dir, getBaseName(url) + SNAPSHOT_SUFFIX);
+		return snapshotFile.isFile() ? snapshotFile : null;
+	}
+	
+	/**
+	 * Opens the given snapshot and marks it as recently used
+	 * @param snapshotFile a snapshot
+	 * @throws IOException if the snapshot cannot be opened
+	 */
+	public static InputStream openSnapshot(File snapshotFile) throws IOException {
+		snapshotFile.setLastModified(System.currentTimeMillis());
+		return new FileInputStream(snapshotFile);
+	}
+	
+	/**
+	 * Returns a SnapshotWriter that stores a snapshot of the parsed resource as soon as it has been parsed completely
+	 * @param url the URL the resource is fetched from
+	 * @param version the version of the fetched resource
+	 * @return a SnapshotWriter or <code>null</code> if the snapshot cannot be stored
+	 */
+	public static SnapshotWriter storeSnapshot(URL url, ResourceVersion version) {
+		File dir = getDirectory();
+		if (dir == null || !version.isValidatable() || (!dir.isDirectory() && !dir.mkdirs()))
+			return null;
+		try {
+			File tempFile = File.createTempFile(getBaseName(url), TEMP_SUFFIX, dir);
+			return new SnapshotWriter(url, version, tempFile);
+		} catch (IOException ex) {
+			return null;
+		}
+	}
+	
+	/**
+	 * Replaces the stored snapshot of the resource with the given URL by the specified file
+	 * @param url a URL
+	 * @param tempFile a file containing the new snapshot
+	 */
+	protected static synchronized void commitSnapshot(URL url, File tempFile) {
+		File dir = getDirectory();
+		if (dir == null || tempFile.length() > sizeLimit) {
+			tempFile.delete();
+			return;
+		}
+		try {
+			move(tempFile, new File(dir, getBaseName(url) + SNAPSHOT_SUFFIX));
+		} catch (IOException ex) {
+			tempFile.delete();
+			return;
+		}
+		trim();
+	}
+	
+	/**
+	 * Removes the stored snapshot of the resource with the given URL (e.g. since it cannot be read)
+	 * @param url a URL
+	 */
+	public static synchronized void removeSnapshot(URL url) {
+		File dir = getDirectory();
+		if (dir != null)
+			new File(dir, getBaseName(url) + SNAPSHOT_SUFFIX).delete();
+	}
+	
+	/**
+	 * Removes the stored copy of the resource with the given URL
+	 * @param url a URL
+	 */
+	public static synchronized void remove(URL url) {
+		File dir = getDirectory();
+		if (dir == null)
+			return;
+		String baseName = getBaseName(url);
+		new File(dir, baseName + METADATA_SUFFIX).delete();
+		new File(dir, baseName + DATA_SUFFIX).delete();
+	}
+	
+	/**
+	 * Removes all stored copies and snapshots
+	 */
+	public static synchronized void clear() {
+		File dir = getDirectory();
+		if (dir == null || !dir.isDirectory())
+			return;
+		for (File file: dir.listFiles()) {
+			if (file.getName().endsWith(DATA_SUFFIX) || file.getName().endsWith(METADATA_SUFFIX) || file.getName().endsWith(TEMP_SUFFIX)
+					|| file.getName().endsWith(SNAPSHOT_SUFFIX))
+				file.delete();
+		}
+	}
+	
+	// helper methods
+	/**
+	 * Returns the name (without suffix) of the files used to store the resource with the given URL
+	 * @param url a URL
+	 */
+	protected static String getBaseName(URL url) {
+		return String.format("%016x", StringUtils.fingerprint(url.toExternalForm()));
+	}
+	
+	/**
+	 * Moves the given file to the given target atomically (if supported by the file system) and replaces any existing target
+	 * @param source a file
+	 * @param target the new location of the file
+	 * @throws IOException if the file cannot be moved
+	 */
+	protected static void move(File source, File target) throws IOException {
+		try {
+			Files.move(source.toPath(), target.toPath(), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+		} catch (AtomicMoveNotSupportedException ex) {
+			Files.move(source.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+		}
+	}
+	
+	/**
+	 * Removes the least recently used copies and snapshots until they do not exceed the size limit
+	 */
+	protected static synchronized void trim() {
+		File dir = getDirectory();
+		if (dir == null || !dir.isDirectory())
+			return;
+		
+		// collect all stored copies (represented by their metadata files) and snapshots
+		List<File> storedFiles = new ArrayList<>();
+		long usedSize = 0;
+		for (File file: dir.listFiles()) {
+			if (file.getName().endsWith(METADATA_SUFFIX)) {
+				storedFiles.add(file);
+				usedSize += getDataFile(file).length();
+			} else if (file.getName().endsWith(SNAPSHOT_SUFFIX)) {
+				storedFiles.add(file);
+				usedSize += file.length();
+			}
+		}
+		
+		// remove least recently used copies and snapshots first
+		Collections.sort(storedFiles, new Comparator<File>() {
+			@Override
+			public int compare(File file1, File file2) {
+				return Long.compare(file1.lastModified(), file2.lastModified());
+			}
+		});
+		for (File storedFile: storedFiles) {
+			if (usedSize <= sizeLimit)
+				break;
+			if (storedFile.getName().endsWith(SNAPSHOT_SUFFIX)) {
+				usedSize -= storedFile.length();
+				storedFile.delete();
+			} else {
+				File dataFile = getDataFile(storedFile);
+				usedSize -= dataFile.length();
+				dataFile.delete();
+				storedFile.delete();
+			}
+		}
+	}
+	
+	/**
+	 * Returns the data file belonging to the given metadata file
+	 * @param metadataFile a metadata file
+	 */
+	protected static File getDataFile(File metadataFile) {
+		String name = metadataFile.getName();
+		return new File(metadataFile.getParentFile(), name.substring(0, name.length() - METADATA_SUFFIX.length()) + DATA_SUFFIX);
+	}
+
+}
@@ -0,0 +1,162 @@
+/**
+ * ResourceFetcher.java - is a helper class that opens external resources while checking whether a previously fetched version or a copy stored by
+ *  the ResourceDiskCache is still up to date as used within the ImportMoreXtension developed at the Digital Academy of the Academy of Sciences and Literature | Mainz.
+ * @author Patrick D. Brookshire
+ * @version 1.0.0
+ */
+package org.adwmainz.da.extensions.importmore.utils;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLConnection;
+
+import org.adwmainz.da.extensions.importmore.models.DiskCacheEntry;
+import org.adwmainz.da.extensions.importmore.models.FetchedResource;
+import org.adwmainz.da.extensions.importmore.models.ResourceVersion;
+
+public class ResourceFetcher {
+	
+	/**
+	 * Fetches the resource at the given URL unless it has not been modified since the given version
+	 * @param url a URL
+	 * @param knownVersion the version of a previously fetched copy of the resource or <code>null</code>
+	 * @throws IOException if the resource cannot be accessed
+	 */
+	public static FetchedResource fetch(URL url, ResourceVersion knownVersion) throws IOException {
+		// check local files without opening them
+		File file = toFile(url);
+		if (file != null) {
+			ResourceVersion currentVersion = ResourceVersion.of(file);
+			if (currentVersion.equals(knownVersion))
+				return FetchedResource.notModified(knownVersion);
+			// a plain FileInputStream benefits most from read-ahead (parsing, not reading, dominates the loading time of local files)
+			return new FetchedResource(new FileInputStream(file), currentVersion);
+		}
+		
+		// serve stored copies of remote resources in offline mode
+		DiskCacheEntry storedEntry = ResourceDiskCache.get(url);
+		if (ResourceDiskCache.isOfflineMode()) {
+			if (storedEntry == null)
+				throw new IOException("Cannot fetch " + url + " in offline mode since no copy of it has been stored");
+			return fetchStaleCopy(storedEntry, knownVersion);
+		}
+		
+		// send conditional requests to HTTP servers
+		URLConnection connection = url.openConnection();
+		connection.setConnectTimeout(ImportMoreSettings.getConnectTimeout());
+		connection.setReadTimeout(ImportMoreSettings.getReadTimeout());
+		if (connection instanceof HttpURLConnection) {
+			HttpURLConnection httpConnection = (HttpURLConnection) connection;
+			ResourceVersion validatedVersion = (storedEntry != null) ? storedEntry.getVersion() : knownVersion;
+			if (validatedVersion != null && validatedVersion.isValidatable()) {
+				if (validatedVersion.getETag() != null)
+					httpConnection.setRequestProperty("If-None-Match", validatedVersion.getETag());
+				if (validatedVersion.getLastModified() > 0)
+					httpConnection.setIfModifiedSince(validatedVersion.getLastModified());
+			}
+			
+			// fall back to the stored copy if the server is unavailable
+			CircuitBreaker circuitBreaker = CircuitBreaker.forHost(url.getHost());
+			int responseCode = -1;
+			IOException failure = null;
+			if (circuitBreaker.allowsRequest()) {
+				boolean succeeded = false;
+				try {
+					responseCode = httpConnection.getResponseCode();
+					if (responseCode >= HttpURLConnection.HTTP_INTERNAL_ERROR)
+						throw new IOException("Server returned HTTP response code " + responseCode + " for " + url);
+					succeeded = true;
+				} catch (IOException ex) {
+					failure = ex;
+				} finally {
+					// an outcome has to be recorded in any case since a pending trial request blocks all other requests
+					if (succeeded)
+						circuitBreaker.recordSuccess();
+					else
+						circuitBreaker.recordFailure();
+				}
+			} else {
+				failure = new IOException("Skipped request to " + url + " after " + circuitBreaker.getConsecutiveFailures() + " consecutive failures of "
+						+ circuitBreaker.getHost());
+			}
+			if (failure != null) {
+				httpConnection.disconnect();
+				if (storedEntry == null)
+					throw failure;
+				return fetchStaleCopy(storedEntry, knownVersion);
+			}
+			
+			// a client error is a definite answer of a working server (which has already been recorded as such)
+			if (responseCode >= HttpURLConnection.HTTP_BAD_REQUEST) {
+				httpConnection.disconnect();
+				throw new IOException("Server returned HTTP response code " + responseCode + " for " + url);
+			}
+			
+			if (responseCode == HttpURLConnection.HTTP_NOT_MODIFIED) {
+				httpConnection.disconnect();
+				if (storedEntry != null)
+					return fetchStoredCopy(storedEntry, knownVersion);
+				return FetchedResource.notModified(knownVersion);
+			}
+			ResourceVersion currentVersion = new ResourceVersion(httpConnection.getHeaderField("ETag"), httpConnection.getLastModified(), -1);
+			InputStream body;
+			try {
+				body = new CircuitBreakerInputStream(httpConnection.getInputStream(), circuitBreaker);
+			} catch (IOException ex) {
+				circuitBreaker.recordFailure();
+				throw ex;
+			}
+			return new FetchedResource(ResourceDiskCache.store(url, currentVersion, body), currentVersion);
+		}
+		
+		// fetch any other resource without validation
+		return new FetchedResource(connection.getInputStream(), ResourceVersion.UNKNOWN);
+	}
+	
+	/**
+	 * Opens the given stored copy unless it is the known version and marks it as validated
+	 * @param storedEntry a DiskCacheEntry
+	 * @param knownVersion the version of a previously fetched copy of the resource or <code>null</code>
+	 * @throws IOException if the stored copy cannot be opened
+	 */
+	protected static FetchedResource fetchStoredCopy(DiskCacheEntry storedEntry, ResourceVersion knownVersion) throws IOException {
+		if (storedEntry.getVersion().equals(knownVersion)) {
+			ResourceDiskCache.touch(storedEntry);
+			return FetchedResource.notModified(knownVersion);
+		}
+		return new FetchedResource(ResourceDiskCache.open(storedEntry), storedEntry.getVersion());
+	}
+	
+	/**
+	 * Opens the given stored copy that could not be validated unless it is the known version
+	 * @param storedEntry a DiskCacheEntry
+	 * @param knownVersion the version of a previously fetched copy of the resource or <code>null</code>
+	 * @throws IOException if the stored copy cannot be opened
+	 */
+	protected static FetchedResource fetchStaleCopy(DiskCacheEntry storedEntry, ResourceVersion knownVersion) throws IOException {
+		if (storedEntry.getVersion().equals(knownVersion))
+			return FetchedResource.stale(null, knownVersion, storedEntry.getLastValidated());
+		return FetchedResource.stale(new FileInputStream(storedEntry.getDataFile()), storedEntry.getVersion(), storedEntry.getLastValidated());
+	}
+	
+	/**
+	 * Returns the local file identified by the given URL or <code>null</code> if it does not denote a local file
+	 * @param url a URL
+	 */
+	public static File toFile(URL url) {
+		if (!"file".equalsIgnoreCase(url.getProtocol()))
+			return null;
+		try {
+			File file = new File(url.toURI());
+			return file.isFile() ? file : null;
+		} catch (URISyntaxException | IllegalArgumentException ex) {
+			return null;
+		}
+	}
+
+}
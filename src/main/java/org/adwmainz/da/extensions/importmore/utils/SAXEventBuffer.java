@@ -0,0 +1,273 @@
+/**
+ * SAXEventBuffer.java - is a helper class that records the SAX events of a parsed chunk of an external resource in compact arrays so that they
+ *  may be replayed later on (e.g. after several chunks have been parsed at once). Document events are not recorded since a chunk is only a part
+ *  of a document. It is used within the ImportMoreXtension developed at the Digital Academy of the Academy of Sciences and Literature | Mainz.
+ * @author Patrick D. Brookshire
+ * @version 1.0.0
+ */
+package org.adwmainz.da.extensions.importmore.utils;
+
+import java.util.Arrays;
+
+import org.xml.sax.Attributes;
+import org.xml.sax.ContentHandler;
+import org.xml.sax.Locator;
+import org.xml.sax.SAXException;
+import org.xml.sax.ext.LexicalHandler;
+import org.xml.sax.helpers.AttributesImpl;
+
+public class SAXEventBuffer implements ContentHandler, LexicalHandler {
+
+	// event types
+	protected static final byte START_ELEMENT = 0;
+	protected static final byte END_ELEMENT = 1;
+	protected static final byte START_PREFIX_MAPPING = 2;
+	protected static final byte END_PREFIX_MAPPING = 3;
+	protected static final byte CHARACTERS = 4;
+	protected static final byte IGNORABLE_WHITESPACE = 5;
+	protected static final byte PROCESSING_INSTRUCTION = 6;
+	protected static final byte COMMENT = 7;
+	protected static final byte START_CDATA = 8;
+	protected static final byte END_CDATA = 9;
+
+	// number of objects and character sequences stored for each event type
+	protected static final int[] OBJECTS_PER_EVENT = {4, 3, 2, 1, 0, 0, 2, 0, 0, 0};
+	protected static final int[] CHARACTER_SEQUENCES_PER_EVENT = {0, 0, 0, 0, 1, 1, 0, 1, 0, 0};
+
+	// constants
+	protected static final int MIN_CAPACITY = 1024;
+	protected static final int BYTES_PER_EVENT = 16; // a rough estimate for initial capacities
+	protected static final Attributes NO_ATTRIBUTES = new AttributesImpl();
+
+	// fields
+	protected byte[] types;
+	protected int size = 0;
+	protected Object[] objects;
+	protected int objectCount = 0;
+	protected int[] characterLengths;
+	protected int characterSequenceCount = 0;
+	protected char[] characters;
+	protected int characterCount = 0;
+
+	protected final int skippedStartElements;
+	protected int startElementCount = 0;
+
+	// constructor
+	/**
+	 * Creates a new SAXEventBuffer
+	 * @param skippedStartElements the number of leading start elements (together with their prefix mappings) that should not be recorded, e.g.
+	 *  since they have only been added to make a chunk well-formed
+	 * @param expectedLength the number of bytes the recorded events are expected to be parsed from (used to avoid resizing the buffer)
+	 */
+	public SAXEventBuffer(int skippedStartElements, int expectedLength) {
+		this.skippedStartElements = skippedStartElements;
+		int expectedEvents = Math.max(MIN_CAPACITY, expectedLength / BYTES_PER_EVENT);
+		types = new byte[expectedEvents];
+		objects = new Object[expectedEvents * 2];
+		characterLengths = new int[expectedEvents];
+		characters = new char[Math.max(MIN_CAPACITY, expectedLength / 2)];
+	}
+
+	// main methods
+	/**
+	 * Removes the given number of trailing end elements together with all events following the first of them
+	 * @param count the number of end elements to be removed, e.g. since they have only been added to make a chunk well-formed
+	 */
+	public void removeTrailingEndElements(int count) {
+		int removedEndElements = 0;
+		for (int i=size-1; i>=0 && removedEndElements<count; --i) {
+			byte type = types[i];
+			objectCount -= OBJECTS_PER_EVENT[type];
+			if (CHARACTER_SEQUENCES_PER_EVENT[type] > 0)
+				characterCount -= characterLengths[--characterSequenceCount];
+			if (type == END_ELEMENT)
+				++removedEndElements;
+			size = i;
+		}
+		Arrays.fill(objects, objectCount, objects.length, null);
+	}
+
+	/**
+	 * Passes all recorded events on to the given handlers in the order they have been recorded
+	 * @param contentHandler a ContentHandler
+	 * @param lexicalHandler a LexicalHandler or <code>null</code> if comments and CDATA sections should be ignored
+	 * @throws SAXException if any of the handlers throws one
+	 */
+	public void replay(ContentHandler contentHandler, LexicalHandler lexicalHandler) throws SAXException {
+		int objectIndex = 0;
+		int characterSequenceIndex = 0;
+		int characterIndex = 0;
+		for (int i=0; i<size; ++i) {
+			byte type = types[i];
+			int length = (CHARACTER_SEQUENCES_PER_EVENT[type] > 0) ? characterLengths[characterSequenceIndex++] : 0;
+			switch (type) {
+			case START_ELEMENT:
+				contentHandler.startElement((String) objects[objectIndex], (String) objects[objectIndex + 1], (String) objects[objectIndex + 2],
+						(Attributes) objects[objectIndex + 3]);
+				break;
+			case END_ELEMENT:
+				contentHandler.endElement((String) objects[objectIndex], (String) objects[objectIndex + 1], (String) objects[objectIndex + 2]);
+				break;
+			case START_PREFIX_MAPPING:
+				contentHandler.startPrefixMapping((String) objects[objectIndex], (String) objects[objectIndex + 1]);
+				break;
+			case END_PREFIX_MAPPING:
+				contentHandler.endPrefixMapping((String) objects[objectIndex]);
+				break;
+			case CHARACTERS:
+				contentHandler.characters(characters, characterIndex, length);
+				break;
+			case IGNORABLE_WHITESPACE:
+				contentHandler.ignorableWhitespace(characters, characterIndex, length);
+				break;
+			case PROCESSING_INSTRUCTION:
+				contentHandler.processingInstruction((String) objects[objectIndex], (String) objects[objectIndex + 1]);
+				break;
+			case COMMENT:
+				if (lexicalHandler != null)
+					lexicalHandler.comment(characters, characterIndex, length);
+				break;
+			case START_CDATA:
+				if (lexicalHandler != null)
+					lexicalHandler.startCDATA();
+				break;
+			case END_CDATA:
+				if (lexicalHandler != null)
+					lexicalHandler.endCDATA();
+				break;
+			}
+			objectIndex += OBJECTS_PER_EVENT[type];
+			characterIndex += length;
+		}
+	}
+
+	// content handler methods
+	@Override
+	public void setDocumentLocator(Locator locator) {
+		// positions within a chunk are meaningless for the whole document
+	}
+
+	@Override
+	public void startDocument() throws SAXException {
+		// a chunk is only a part of a document
+	}
+
+	@Override
+	public void endDocument() throws SAXException {
+		// a chunk is only a part of a document
+	}
+
+	@Override
+	public void startPrefixMapping(String prefix, String uri) throws SAXException {
+		if (startElementCount >= skippedStartElements)
+			add(START_PREFIX_MAPPING, prefix, uri, null, null);
+	}
+
+	@Override
+	public void endPrefixMapping(String prefix) throws SAXException {
+		add(END_PREFIX_MAPPING, prefix, null, null, null);
+	}
+
+	@Override
+	public void startElement(String uri, String localName, String qName, Attributes atts) throws SAXException {
+		if (startElementCount++ >= skippedStartElements)
+			add(START_ELEMENT, uri, localName, qName, (atts.getLength() == 0) ? NO_ATTRIBUTES : new AttributesImpl(atts));
+	}
+
+	@Override
+	public void endElement(String uri, String localName, String qName) throws SAXException {
+		add(END_ELEMENT, uri, localName, qName, null);
+	}
+
+	@Override
+	public void characters(char[] ch, int start, int length) throws SAXException {
+		add(CHARACTERS, ch, start, length);
+	}
+
+	@Override
+	public void ignorableWhitespace(char[] ch, int start, int length) throws SAXException {
+		add(IGNORABLE_WHITESPACE, ch, start, length);
+	}
+
+	@Override
+	public void processingInstruction(String target, String data) throws SAXException {
+		add(PROCESSING_INSTRUCTION, target, data, null, null);
+	}
+
+	@Override
+	public void skippedEntity(String name) throws SAXException {
+		// only reported for documents with a DTD which are never split into chunks
+	}
+
+	// lexical handler methods
+	@Override
+	public void startDTD(String name, String publicId, String systemId) throws SAXException {
+		// documents with a DTD are never split into chunks
+	}
+
+	@Override
+	public void endDTD() throws SAXException {
+		// documents with a DTD are never split into chunks
+	}
+
+	@Override
+	public void startEntity(String name) throws SAXException {
+		// only reported for documents with a DTD which are never split into chunks
+	}
+
+	@Override
+	public void endEntity(String name) throws SAXException {
+		// only reported for documents with a DTD which are never split into chunks
+	}
+
+	@Override
+	public void startCDATA() throws SAXException {
+		addType(START_CDATA);
+	}
+
+	@Override
+	public void endCDATA() throws SAXException {
+		addType(END_CDATA);
+	}
+
+	@Override
+	public void comment(char[] ch, int start, int length) throws SAXException {
+		add(COMMENT, ch, start, length);
+	}
+
+	// helper methods
+	/**
+	 * Records an event with the given objects of which only as many are stored as needed by its type
+	 */
+	protected void add(byte type, Object first, Object second, Object third, Object fourth) {
+		addType(type);
+		int numberOfObjects = OBJECTS_PER_EVENT[type];
+		if (objectCount + numberOfObjects > objects.length)
+			objects = Arrays.copyOf(objects, objects.length * 2);
+		objects[objectCount++] = first;
+		if (numberOfObjects > 1)
+			objects[objectCount++] = second;
+		if (numberOfObjects > 2)
+			objects[objectCount++] = third;
+		if (numberOfObjects > 3)
+			objects[objectCount++] = fourth;
+	}
+
+	protected void add(byte type, char[] ch, int start, int length) {
+		addType(type);
+		if (characterSequenceCount == characterLengths.length)
+			characterLengths = Arrays.copyOf(characterLengths, characterLengths.length * 2);
+		characterLengths[characterSequenceCount++] = length;
+		if (characterCount + length > characters.length)
+			characters = Arrays.copyOf(characters, Math.max(characterCount + length, characters.length * 2));
+		System.arraycopy(ch, start, characters, characterCount, length);
+		characterCount += length;
+	}
+
+	protected void addType(byte type) {
+		if (size == types.length)
+			types = Arrays.copyOf(types, types.length * 2);
+		types[size++] = type;
+	}
+
+}
@@ -11,27 +11,65 @@ import java.io.InputStream;
 import java.io.StringReader;
 import java.net.URL;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.parsers.SAXParserFactory;
+import javax.xml.transform.sax.SAXSource;
 import javax.xml.transform.stream.StreamSource;
 
 import org.adwmainz.da.extensions.importmore.exceptions.ImportMoreXMLException;
 import org.adwmainz.da.extensions.importmore.exceptions.ImportMoreXPathException;
+import org.adwmainz.da.extensions.importmore.models.ExtractedNode;
+import org.adwmainz.da.extensions.importmore.models.FetchedResource;
+import org.adwmainz.da.extensions.importmore.models.LoadingProgress;
+import org.adwmainz.da.extensions.importmore.models.SimplePath;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
 
 import net.sf.saxon.s9api.DocumentBuilder;
 import net.sf.saxon.s9api.Processor;
+import net.sf.saxon.s9api.QName;
 import net.sf.saxon.s9api.SaxonApiException;
+import net.sf.saxon.s9api.SaxonApiUncheckedException;
+import net.sf.saxon.s9api.Serializer;
 import net.sf.saxon.s9api.XPathCompiler;
+import net.sf.saxon.s9api.XPathExecutable;
 import net.sf.saxon.s9api.XPathSelector;
+import net.sf.saxon.s9api.XdmAtomicValue;
 import net.sf.saxon.s9api.XdmItem;
 import net.sf.saxon.s9api.XdmNode;
 
 public class SaxonUtils {
 	
-	// static field
-	protected static Processor processor = new Processor(false);
+	// constants
+	/**
+	 * The variable each chunk of nodes is bound to if the combined extraction expression is evaluated by several threads
+	 */
+	protected static final QName NODES_VARIABLE = new QName("nodes");
+	protected static final String NODES_VARIABLE_REFERENCE = "$nodes";
+	
+	// static fields
+	/**
+	 * The Processor shared by all threads. A Processor and its compiled XPathExecutables are thread-safe, whereas DocumentBuilders, Serializers,
+	 * XPathCompilers and XPathSelectors are not and must therefore be created for each use. Built documents are immutable and may be read by
+	 * several threads at once.
+	 */
+	protected static final Processor processor = new Processor(false);
+	protected static final Map<List<Object>, XPathExecutable> executableCache = new LinkedHashMap<List<Object>, XPathExecutable>(16, 0.75f, true) {
+		private static final long serialVersionUID = 2718055153941934937L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<List<Object>, XPathExecutable> eldest) {
+			return size() > ImportMoreSettings.getXPathCacheSize();
+		}
+	};
 	
 	// methods
 	/**
@@ -49,31 +87,181 @@ public class SaxonUtils {
 	}
 	
 	/**
-	 * Fetches an XML resource from the given URL
+	 * Fetches an XML resource from the given URL. The resource is shared with the XMLResourceCache so that it is neither fetched again while it is
+	 * unmodified nor fetched twice by concurrent calls.
 	 * @param url a URL
 	 * @throws IOException
 	 * @throws ImportMoreXMLException if the resource cannot be parsed
 	 */
 	public static XdmNode fetchXMLResource(URL url) throws IOException, ImportMoreXMLException {
-		try (InputStream stream = url.openStream()) {
-			DocumentBuilder builder = processor.newDocumentBuilder();
-			try {
-				return builder.build(new StreamSource(stream));
-			} catch (SaxonApiException ex) {
-				throw new ImportMoreXMLException("Cannot parse XML from " + url.toString(), ex);
+		return XMLResourceCache.getDocument(url);
+	}
+	
+	/**
+	 * Parses a Document node from the given InputStream
+	 * @param stream an InputStream providing serialized XML
+	 * @param systemId the system ID of the parsed resource
+	 * @throws ImportMoreXMLException if the resource cannot be parsed
+	 */
+	public static XdmNode buildDocument(InputStream stream, String systemId) throws ImportMoreXMLException {
+		DocumentBuilder builder = processor.newDocumentBuilder();
+		try {
+			return builder.build(new StreamSource(stream, systemId));
+		} catch (SaxonApiException ex) {
+			throw new ImportMoreXMLException("Cannot parse XML from " + systemId, ex);
+		}
+	}
+
+	/**
+	 * Parses a Document node from the given InputStream by using the given XMLReader (e.g. a ProjectionFilter, a ChunkedXMLReader or a SnapshotReader)
+	 * @param stream an InputStream providing serialized XML
+	 * @param systemId the system ID of the parsed resource
+	 * @param reader an XMLReader
+	 * @throws ImportMoreXMLException if the resource cannot be parsed
+	 */
+	public static XdmNode buildDocument(InputStream stream, String systemId, XMLReader reader) throws ImportMoreXMLException {
+		DocumentBuilder builder = processor.newDocumentBuilder();
+		try {
+			InputSource inputSource = new InputSource(stream);
+			inputSource.setSystemId(systemId);
+			return builder.build(new SAXSource(reader, inputSource));
+		} catch (SaxonApiException ex) {
+			throw new ImportMoreXMLException("Cannot parse XML from " + systemId, ex);
+		}
+	}
+	
+	/**
+	 * Returns a new namespace aware XMLReader of the default XML parser
+	 * @throws SAXException if no XMLReader can be created
+	 */
+	public static XMLReader newXMLReader() throws SAXException {
+		try {
+			SAXParserFactory parserFactory = SAXParserFactory.newInstance();
+			parserFactory.setNamespaceAware(true);
+			return parserFactory.newSAXParser().getXMLReader();
+		} catch (ParserConfigurationException ex) {
+			throw new SAXException("Cannot create an XML parser", ex);
+		}
+	}
+
+	/**
+	 * Serializes the given node exactly as it is (i.e. without indentation or an XML declaration) so that it may be parsed again by
+	 * <code>buildDocument</code>
+	 * @param node a node
+	 * @throws ImportMoreXMLException if the node cannot be serialized
+	 */
+	public static String serializeNode(XdmNode node) throws ImportMoreXMLException {
+		Serializer serializer = processor.newSerializer();
+		serializer.setOutputProperty(Serializer.Property.METHOD, "xml");
+		serializer.setOutputProperty(Serializer.Property.INDENT, "no");
+		serializer.setOutputProperty(Serializer.Property.OMIT_XML_DECLARATION, "yes");
+		try {
+			return serializer.serializeNodeToString(node);
+		} catch (SaxonApiException ex) {
+			throw new ImportMoreXMLException("Cannot serialize the node " + node.getNodeName(), ex);
+		}
+	}
+
+	/**
+	 * Fetches the first node identified by a given XPath expression from the given URL. If the XPath expression is a SimplePath the resource is
+	 * only parsed until the first matching element is complete.
+	 * @param url a URL
+	 * @param xPathExpression an XPath expression
+	 * @param namespaceMap a Map of namespace prefixes and their respective namespace URIs
+	 * @return the first node or <code>null</code> if the XPath expression does not identify any nodes
+	 * @throws IOException
+	 * @throws ImportMoreXMLException if the resource cannot be parsed
+	 * @throws ImportMoreXPathException if the XPath expression does not identify nodes or is erroneous
+	 */
+	public static XdmNode fetchFirstNode(URL url, String xPathExpression, Map<String, String> namespaceMap)
+			throws IOException, ImportMoreXMLException, ImportMoreXPathException {
+		return fetchFirstNode(url, xPathExpression, namespaceMap, null);
+	}
+	
+	/**
+	 * Fetches the first node identified by a given XPath expression from the given URL. If the XPath expression is a SimplePath the resource is
+	 * only parsed until the first matching element is complete.
+	 * @param url a URL
+	 * @param xPathExpression an XPath expression
+	 * @param namespaceMap a Map of namespace prefixes and their respective namespace URIs
+	 * @param progress a LoadingProgress that should be updated while loading the resource or <code>null</code>
+	 * @return the first node or <code>null</code> if the XPath expression does not identify any nodes
+	 * @throws IOException if the resource cannot be read or the LoadingProgress has been cancelled
+	 * @throws ImportMoreXMLException if the resource cannot be parsed
+	 * @throws ImportMoreXPathException if the XPath expression does not identify nodes or is erroneous
+	 */
+	public static XdmNode fetchFirstNode(URL url, String xPathExpression, Map<String, String> namespaceMap, LoadingProgress progress)
+			throws IOException, ImportMoreXMLException, ImportMoreXPathException {
+		// stream through the resource unless a parsed copy is already available
+		SimplePath path = SimplePath.parse(xPathExpression, namespaceMap);
+		if (path != null && !XMLResourceCache.isCached(url)) {
+			try (FetchedResource fetchedResource = ResourceFetcher.fetch(url, null)) {
+				if (progress != null) {
+					progress.setPhase(LoadingProgress.PHASE_PARSING);
+					if (fetchedResource.isStale())
+						progress.markStale(fetchedResource.getStaleSince());
+				}
+				InputStream stream = new CountingInputStream(fetchedResource.getStream(), progress);
+				XdmNode firstNode = StreamingNodeFinder.findFirstNode(stream, url.toString(), path, namespaceMap);
+				if (firstNode != null)
+					return firstNode;
 			}
 		}
+		
+		// evaluate the expression on the whole resource otherwise
+		XdmNode doc = XMLResourceCache.getDocument(url, progress);
+		if (progress != null)
+			progress.setPhase(LoadingProgress.PHASE_EVALUATING);
+		List<XdmNode> nodes = getNodes(doc, xPathExpression, namespaceMap);
+		return nodes.isEmpty() ? null : nodes.get(0);
 	}
 
-	// XPath methods	
-	protected static XPathSelector getXPathSelector(XdmNode contextNode, String xPathExpression, Map<String, String> namespaceMap) throws SaxonApiException {
+	// XPath methods
+	/**
+	 * Returns the compiled form of the given XPath expression which is only compiled once for each combination of expression and namespaces
+	 * @param xPathExpression an XPath expression
+	 * @param namespaceMap a Map of namespace prefixes and their respective namespace URIs
+	 * @throws SaxonApiException if the XPath expression is erroneous
+	 */
+	public static XPathExecutable getXPathExecutable(String xPathExpression, Map<String, String> namespaceMap) throws SaxonApiException {
+		return getXPathExecutable(xPathExpression, namespaceMap, null);
+	}
+	
+	/**
+	 * Returns the compiled form of the given XPath expression which is only compiled once for each combination of expression, namespaces and
+	 * declared variable
+	 * @param xPathExpression an XPath expression
+	 * @param namespaceMap a Map of namespace prefixes and their respective namespace URIs
+	 * @param variableName the name of an external variable used by the XPath expression or <code>null</code>
+	 * @throws SaxonApiException if the XPath expression is erroneous
+	 */
+	public static XPathExecutable getXPathExecutable(String xPathExpression, Map<String, String> namespaceMap, QName variableName)
+			throws SaxonApiException {
+		List<Object> key = Arrays.asList(xPathExpression, namespaceMap, variableName);
+		XPathExecutable executable;
+		synchronized (executableCache) {
+			executable = executableCache.get(key);
+		}
+		if (executable != null)
+			return executable;
+		
 		// init compiler and declare namespaces
 		XPathCompiler compiler = processor.newXPathCompiler();
 		for (Map.Entry<String, String> entry : namespaceMap.entrySet())
 			compiler.declareNamespace(entry.getKey(), entry.getValue());
+		if (variableName != null)
+			compiler.declareVariable(variableName);
+		executable = compiler.compile(xPathExpression);
 		
-		// get selector
-	    XPathSelector selector = compiler.compile(xPathExpression).load();
+		// store a copy of the namespaces to prevent later modifications of the key
+		synchronized (executableCache) {
+			executableCache.put(Arrays.<Object>asList(xPathExpression, new HashMap<>(namespaceMap), variableName), executable);
+		}
+		return executable;
+	}
+	
+	protected static XPathSelector getXPathSelector(XdmNode contextNode, String xPathExpression, Map<String, String> namespaceMap) throws SaxonApiException {
+	    XPathSelector selector = getXPathExecutable(xPathExpression, namespaceMap).load();
 		selector.setContextItem(contextNode);
 		return selector;
 	}
@@ -88,12 +276,9 @@ public class SaxonUtils {
 	public static List<String> getSerializedXPathResults(XdmNode contextNode, String xPathExpression, Map<String, String> namespaceMap)
 			throws ImportMoreXPathException {
 	    List<String> results = new ArrayList<>();
-	    try {
-			for (XdmItem item: getXPathSelector(contextNode, xPathExpression, namespaceMap).evaluate())
-				results.add(item.toString());
-		} catch (SaxonApiException ex) {
-			throw new ImportMoreXPathException("Cannot compile the xpath " + xPathExpression, ex);
-		}
+	    XPathResultIterator<XdmItem> iterator = iterateXPathResults(contextNode, xPathExpression, namespaceMap);
+	    while (iterator.hasNext())
+	    	results.add(iterator.next().toString());
 	    return results;
 	}
 	
@@ -106,16 +291,65 @@ public class SaxonUtils {
 	 */
 	public static List<XdmNode> getNodes(XdmNode contextNode, String xPathExpression, Map<String, String> namespaceMap) throws ImportMoreXPathException {
 	    List<XdmNode> results = new ArrayList<>();
-	    try {
-			for (XdmItem item: getXPathSelector(contextNode, xPathExpression, namespaceMap).evaluate()) {
-				if (!(item instanceof XdmNode))
-					throw new ImportMoreXPathException("The XPath "+xPathExpression+" does not identify any nodes");
-				results.add((XdmNode) item);
-			}
+	    XPathResultIterator<XdmNode> iterator = iterateNodes(contextNode, xPathExpression, namespaceMap);
+	    while (iterator.hasNext())
+	    	results.add(iterator.next());
+	    return results;
+	}
+	
+	/**
+	 * Returns an XPathResultIterator over the items identified by a given XPath expression which are evaluated lazily instead of being collected
+	 * in advance
+	 * @param contextNode the context node the XPath expression should be evaluated from
+	 * @param xPathExpression an XPath expression
+	 * @param namespaceMap a Map of namespace prefixes and their respective namespace URIs
+	 * @throws ImportMoreXPathException if the XPath expression is erroneous
+	 */
+	public static XPathResultIterator<XdmItem> iterateXPathResults(XdmNode contextNode, String xPathExpression, Map<String, String> namespaceMap)
+			throws ImportMoreXPathException {
+		return iterate(contextNode, xPathExpression, namespaceMap, XdmItem.class);
+	}
+	
+	/**
+	 * Returns an XPathResultIterator over the nodes identified by a given XPath expression which are evaluated lazily instead of being collected
+	 * in advance
+	 * @param contextNode the context node the XPath expression should be evaluated from
+	 * @param xPathExpression an XPath expression
+	 * @param namespaceMap a Map of namespace prefixes and their respective namespace URIs
+	 * @throws ImportMoreXPathException if the XPath expression is erroneous (the XPathResultIterator throws an ImportMoreXPathException as soon as
+	 * it reaches an item that is not a node)
+	 */
+	public static XPathResultIterator<XdmNode> iterateNodes(XdmNode contextNode, String xPathExpression, Map<String, String> namespaceMap)
+			throws ImportMoreXPathException {
+		return iterate(contextNode, xPathExpression, namespaceMap, XdmNode.class);
+	}
+	
+	protected static String getFirstItemExpression(String xPathExpression) {
+		if (xPathExpression == null)
+			return "()";
+		return "(" + xPathExpression + ")[1]";
+	}
+	
+	/**
+	 * Returns the string value of the given item of a combined extraction expression or <code>null</code> if it marks an empty result set
+	 * @param extractedItem an atomic item
+	 */
+	protected static String getExtractedValue(XdmItem extractedItem) {
+		// an empty result set has been marked by false()
+		if (((XdmAtomicValue) extractedItem).getValue() instanceof Boolean)
+			return null;
+		return extractedItem.getStringValue();
+	}
+	
+	protected static <T extends XdmItem> XPathResultIterator<T> iterate(XdmNode contextNode, String xPathExpression, Map<String, String> namespaceMap,
+			Class<T> itemClass) throws ImportMoreXPathException {
+		try {
+			return new XPathResultIterator<>(getXPathSelector(contextNode, xPathExpression, namespaceMap).iterator(), xPathExpression, itemClass);
 		} catch (SaxonApiException ex) {
 			throw new ImportMoreXPathException("Cannot compile the xpath " + xPathExpression, ex);
+		} catch (SaxonApiUncheckedException ex) {
+			throw new ImportMoreXPathException("Cannot evaluate the xpath " + xPathExpression, ex);
 		}
-	    return results;
 	}
 	
 	/**
@@ -136,5 +370,87 @@ public class SaxonUtils {
 	    	return firstResult.get();
 	    throw new ImportMoreXPathException("The xpath " + xPathExpression + " returned an empty result set.");
 	}
+	
+	/**
+	 * Extracts the nodes identified by a given XPath expression together with the string values of the first results of a key and a label
+	 * expression. All of them are yielded by a single combined XPath expression (i.e. a flat sequence of node, key and label for each node)
+	 * instead of one expression per node. If nodes are extracted by several threads the combined expression is evaluated once for each chunk of
+	 * nodes (bound to the variable <code>$nodes</code>) instead.
+	 * @param contextNode the context node the XPath expression should be evaluated from
+	 * @param xPathExpression an XPath expression identifying the nodes to be extracted
+	 * @param keyExpression an XPath expression identifying the key using each node as context node or <code>null</code> if no key is needed
+	 * @param labelExpression an XPath expression identifying the label using each node as context node or <code>null</code> if no label is needed
+	 * @param namespaceMap a Map of namespace prefixes and their respective namespace URIs
+	 * @param progress a LoadingProgress that should be updated while extracting the nodes or <code>null</code>
+	 * @return a List of ExtractedNodes whose labels are <code>null</code> if the label expression returns an empty result set for them
+	 * @throws IOException if the LoadingProgress has been cancelled
+	 * @throws ImportMoreXPathException if an XPath expression is erroneous, does not identify nodes or the key expression returns an empty result
+	 * set
+	 */
+	public static List<ExtractedNode> extractNodes(XdmNode contextNode, String xPathExpression, String keyExpression, String labelExpression,
+			Map<String, String> namespaceMap, LoadingProgress progress) throws IOException, ImportMoreXPathException {
+		XPathResultIterator<XdmItem> iterator;
+		if (ImportMoreSettings.getParallelism() == 1) {
+			iterator = iterateXPathResults(contextNode, getExtractionExpression(xPathExpression, keyExpression, labelExpression), namespaceMap);
+		} else {
+			// evaluate the combined expression on chunks of nodes (in parallel if there are many of them)
+			String chunkExpression = getExtractionExpression(NODES_VARIABLE_REFERENCE, keyExpression, labelExpression);
+			XPathExecutable chunkExecutable;
+			try {
+				chunkExecutable = getXPathExecutable(chunkExpression, namespaceMap, NODES_VARIABLE);
+			} catch (SaxonApiException ex) {
+				throw new ImportMoreXPathException("Cannot compile the xpath " + chunkExpression, ex);
+			}
+			List<XdmNode> nodes = getNodes(contextNode, xPathExpression, namespaceMap);
+			List<XdmItem> extractedItems = ParallelEvaluator.evaluateChunks(nodes, NODES_VARIABLE, chunkExpression, chunkExecutable, progress);
+			iterator = new XPathResultIterator<>(extractedItems.iterator(), chunkExpression, XdmItem.class);
+		}
+		
+		List<ExtractedNode> results = new ArrayList<>();
+		while (iterator.hasNext()) {
+			XdmItem node = iterator.next();
+			if (!(node instanceof XdmNode))
+				throw new ImportMoreXPathException("The XPath "+xPathExpression+" does not identify any nodes");
+			String key = getExtractedValue(iterator.next());
+			if (key == null && keyExpression != null)
+				throw new ImportMoreXPathException("The xpath " + keyExpression + " returned an empty result set.");
+			String label = getExtractedValue(iterator.next());
+			results.add(new ExtractedNode((XdmNode) node, key, label));
+			
+			if (progress != null) {
+				progress.checkCancelled();
+				progress.addMatchedNodes(1);
+			}
+		}
+		return results;
+	}
+	
+	/**
+	 * Returns the compiled XPath expression extractNodes evaluates with the current settings (so that it may be compiled in advance)
+	 * @param xPathExpression an XPath expression identifying the nodes to be extracted
+	 * @param keyExpression an XPath expression identifying the key using each node as context node or <code>null</code> if no key is needed
+	 * @param labelExpression an XPath expression identifying the label using each node as context node or <code>null</code> if no label is needed
+	 * @param namespaceMap a Map of namespace prefixes and their respective namespace URIs
+	 * @throws SaxonApiException if an XPath expression is erroneous
+	 */
+	public static XPathExecutable getExtractionExecutable(String xPathExpression, String keyExpression, String labelExpression,
+			Map<String, String> namespaceMap) throws SaxonApiException {
+		if (ImportMoreSettings.getParallelism() == 1)
+			return getXPathExecutable(getExtractionExpression(xPathExpression, keyExpression, labelExpression), namespaceMap);
+		return getXPathExecutable(getExtractionExpression(NODES_VARIABLE_REFERENCE, keyExpression, labelExpression), namespaceMap, NODES_VARIABLE);
+	}
+	
+	/**
+	 * Returns the combined extraction expression, i.e. a flat sequence of each node together with the string values of the first results of the
+	 * given key and label expressions, where <code>false()</code> marks an empty result set
+	 * @param xPathExpression an XPath expression identifying the nodes to be extracted
+	 * @param keyExpression an XPath expression identifying the key using each node as context node or <code>null</code> if no key is needed
+	 * @param labelExpression an XPath expression identifying the label using each node as context node or <code>null</code> if no label is needed
+	 */
+	protected static String getExtractionExpression(String xPathExpression, String keyExpression, String labelExpression) {
+		return "(" + xPathExpression + ") ! (let $key := " + getFirstItemExpression(keyExpression) + ", $label := "
+				+ getFirstItemExpression(labelExpression) + " return (., if (exists($key)) then string($key) else false(), "
+				+ "if (exists($label)) then string($label) else false()))";
+	}
 
 }
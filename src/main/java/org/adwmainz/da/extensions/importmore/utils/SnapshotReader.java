@@ -0,0 +1,384 @@
+/**
+ * SnapshotReader.java - is an implementation of an org.xml.sax.XMLReader that reads the binary snapshots written by a SnapshotWriter instead of
+ *  serialized XML and passes their events on as if the original resource had been parsed as used within the ImportMoreXtension developed at the
+ *  Digital Academy of the Academy of Sciences and Literature | Mainz.
+ * @author Patrick D. Brookshire
+ * @version 1.0.0
+ */
+package org.adwmainz.da.extensions.importmore.utils;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.adwmainz.da.extensions.importmore.models.ResourceVersion;
+import org.xml.sax.ContentHandler;
+import org.xml.sax.DTDHandler;
+import org.xml.sax.EntityResolver;
+import org.xml.sax.ErrorHandler;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.SAXNotRecognizedException;
+import org.xml.sax.SAXNotSupportedException;
+import org.xml.sax.XMLReader;
+import org.xml.sax.ext.LexicalHandler;
+import org.xml.sax.helpers.AttributesImpl;
+import org.xml.sax.helpers.DefaultHandler;
+import org.xml.sax.helpers.LocatorImpl;
+
+public class SnapshotReader implements XMLReader {
+
+	// constants
+	protected static final String LEXICAL_HANDLER_PROPERTY = "http://xml.org/sax/properties/lexical-handler";
+	protected static final String NAMESPACES_FEATURE = "http://xml.org/sax/features/namespaces";
+	protected static final int INITIAL_DEPTH = 64;
+
+	// fields
+	protected final Map<String, Boolean> features = new HashMap<>();
+	protected final Map<String, Object> properties = new HashMap<>();
+	protected ContentHandler contentHandler;
+	protected LexicalHandler lexicalHandler;
+	protected DTDHandler dtdHandler;
+	protected EntityResolver entityResolver;
+	protected ErrorHandler errorHandler;
+
+	protected InputStream in;
+	protected final byte[] buffer = new byte[SnapshotWriter.BUFFER_SIZE];
+	protected int position = 0;
+	protected int limit = 0;
+	protected char[] characters = new char[1024];
+	protected final List<String> names = new ArrayList<>();
+	protected String url;
+	protected ResourceVersion version;
+
+	// constructor
+	/**
+	 * Creates a new SnapshotReader
+	 */
+	public SnapshotReader() {
+		features.put(NAMESPACES_FEATURE, true);
+	}
+
+	// static method
+	/**
+	 * Returns the version of the resource the given snapshot has been written for or <code>null</code> if it is not a readable snapshot of the
+	 * resource with the given URL
+	 * @param snapshotFile a snapshot or <code>null</code>
+	 * @param url a URL
+	 */
+	public static ResourceVersion readVersion(File snapshotFile, URL url) {
+		if (snapshotFile == null)
+			return null;
+		try (InputStream in = new FileInputStream(snapshotFile)) {
+			SnapshotReader reader = new SnapshotReader();
+			reader.in = in;
+			if (!reader.readHeader() || !url.toExternalForm().equals(reader.url))
+				return null;
+			return reader.version;
+		} catch (IOException ex) {
+			return null;
+		}
+	}
+
+	// parsing methods
+	@Override
+	public void parse(String systemId) throws IOException, SAXException {
+		parse(new InputSource(systemId));
+	}
+
+	@Override
+	public void parse(InputSource input) throws IOException, SAXException {
+		if (input.getByteStream() == null)
+			throw new SAXException("Snapshots can only be read from byte streams");
+		in = input.getByteStream();
+		position = 0;
+		limit = 0;
+		names.clear();
+		if (!readHeader())
+			throw new SAXException(input.getSystemId() + " is not a snapshot of a supported format");
+
+		ContentHandler handler = (contentHandler != null) ? contentHandler : new DefaultHandler();
+		LocatorImpl locator = new LocatorImpl();
+		locator.setSystemId(input.getSystemId());
+		locator.setPublicId(input.getPublicId());
+		handler.setDocumentLocator(locator);
+		handler.startDocument();
+		readEvents(handler);
+		handler.endDocument();
+	}
+
+	// feature and property methods
+	@Override
+	public boolean getFeature(String name) throws SAXNotRecognizedException, SAXNotSupportedException {
+		Boolean value = features.get(name);
+		return value != null && value;
+	}
+
+	@Override
+	public void setFeature(String name, boolean value) throws SAXNotRecognizedException, SAXNotSupportedException {
+		features.put(name, value);
+	}
+
+	@Override
+	public Object getProperty(String name) throws SAXNotRecognizedException, SAXNotSupportedException {
+		if (LEXICAL_HANDLER_PROPERTY.equals(name))
+			return lexicalHandler;
+		return properties.get(name);
+	}
+
+	@Override
+	public void setProperty(String name, Object value) throws SAXNotRecognizedException, SAXNotSupportedException {
+		if (LEXICAL_HANDLER_PROPERTY.equals(name))
+			lexicalHandler = (LexicalHandler) value;
+		else
+			properties.put(name, value);
+	}
+
+	// handler getters and setters
+	@Override
+	public ContentHandler getContentHandler() {
+		return contentHandler;
+	}
+
+	@Override
+	public void setContentHandler(ContentHandler handler) {
+		contentHandler = handler;
+	}
+
+	@Override
+	public DTDHandler getDTDHandler() {
+		return dtdHandler;
+	}
+
+	@Override
+	public void setDTDHandler(DTDHandler handler) {
+		dtdHandler = handler;
+	}
+
+	@Override
+	public EntityResolver getEntityResolver() {
+		return entityResolver;
+	}
+
+	@Override
+	public void setEntityResolver(EntityResolver resolver) {
+		entityResolver = resolver;
+	}
+
+	@Override
+	public ErrorHandler getErrorHandler() {
+		return errorHandler;
+	}
+
+	@Override
+	public void setErrorHandler(ErrorHandler handler) {
+		errorHandler = handler;
+	}
+
+	// helper methods
+	/**
+	 * Reads the URL and the version of the resource from the beginning of the snapshot
+	 * @return <code>false</code> if the snapshot has not been written in the current format
+	 * @throws IOException if the snapshot cannot be read
+	 */
+	protected boolean readHeader() throws IOException {
+		if (readInt() != SnapshotWriter.MAGIC_NUMBER || readInt() != SnapshotWriter.FORMAT_VERSION)
+			return false;
+		url = readString();
+		String eTag = readString();
+		long lastModified = readLong();
+		long length = readLong();
+		version = new ResourceVersion(eTag.isEmpty() ? null : eTag, lastModified, length);
+		return true;
+	}
+
+	/**
+	 * Passes all events of the snapshot on to the given ContentHandler (and the LexicalHandler, if any)
+	 * @throws IOException if the snapshot cannot be read or ends unexpectedly
+	 * @throws SAXException if the snapshot is corrupt or any of the handlers throws one
+	 */
+	protected void readEvents(ContentHandler handler) throws IOException, SAXException {
+		AttributesImpl atts = new AttributesImpl();
+		String[] openElements = new String[INITIAL_DEPTH * 3]; // namespace URI, local name and qualified name of each open element
+		int depth = 0;
+		while (true) {
+			byte type = readByte();
+			switch (type) {
+			case SnapshotWriter.END_OF_DOCUMENT:
+				if (depth > 0)
+					throw new SAXException("The snapshot ends within an element");
+				return;
+			case SnapshotWriter.START_ELEMENT:
+				if ((depth + 1) * 3 > openElements.length)
+					openElements = Arrays.copyOf(openElements, openElements.length * 2);
+				String uri = readName();
+				String localName = readName();
+				String qName = readName();
+				openElements[depth * 3] = uri;
+				openElements[depth * 3 + 1] = localName;
+				openElements[depth * 3 + 2] = qName;
+				++depth;
+				atts.clear();
+				int numberOfAttributes = readVarInt();
+				for (int i=0; i<numberOfAttributes; ++i)
+					atts.addAttribute(readName(), readName(), readName(), readName(), readString());
+				handler.startElement(uri, localName, qName, atts);
+				break;
+			case SnapshotWriter.END_ELEMENT:
+				if (depth == 0)
+					throw new SAXException("The snapshot contains an end tag without a start tag");
+				--depth;
+				handler.endElement(openElements[depth * 3], openElements[depth * 3 + 1], openElements[depth * 3 + 2]);
+				break;
+			case SnapshotWriter.START_PREFIX_MAPPING:
+				handler.startPrefixMapping(readName(), readName());
+				break;
+			case SnapshotWriter.END_PREFIX_MAPPING:
+				handler.endPrefixMapping(readName());
+				break;
+			case SnapshotWriter.CHARACTERS:
+				// the character buffer may be replaced while reading
+				int textLength = readCharacters();
+				handler.characters(characters, 0, textLength);
+				break;
+			case SnapshotWriter.IGNORABLE_WHITESPACE:
+				int whitespaceLength = readCharacters();
+				handler.ignorableWhitespace(characters, 0, whitespaceLength);
+				break;
+			case SnapshotWriter.PROCESSING_INSTRUCTION:
+				handler.processingInstruction(readName(), readString());
+				break;
+			case SnapshotWriter.COMMENT:
+				int length = readCharacters();
+				if (lexicalHandler != null)
+					lexicalHandler.comment(characters, 0, length);
+				break;
+			case SnapshotWriter.START_CDATA:
+				if (lexicalHandler != null)
+					lexicalHandler.startCDATA();
+				break;
+			case SnapshotWriter.END_CDATA:
+				if (lexicalHandler != null)
+					lexicalHandler.endCDATA();
+				break;
+			default:
+				throw new SAXException("The snapshot contains an unknown event type " + type);
+			}
+		}
+	}
+
+	protected String readName() throws IOException {
+		int index = readVarInt();
+		if (index == 0) {
+			String name = readString();
+			names.add(name);
+			return name;
+		}
+		if (index > names.size())
+			throw new IOException("The snapshot refers to an unknown name");
+		return names.get(index - 1);
+	}
+
+	protected String readString() throws IOException {
+		int length = readCharacters();
+		return new String(characters, 0, length);
+	}
+
+	/**
+	 * Reads a sequence of characters written by a SnapshotWriter into the character buffer
+	 * @return the number of characters read
+	 */
+	protected int readCharacters() throws IOException {
+		int length = readVarInt();
+		if (characters.length < length)
+			characters = new char[Math.max(length, characters.length * 2)];
+		char[] chars = characters;
+		byte[] bytes = buffer;
+		int i = 0;
+		while (i < length) {
+			if (limit - position < SnapshotWriter.MAX_BYTES_PER_CHAR && !fill()) {
+				// decode the last characters of the snapshot one by one
+				int b = readByte() & 0xFF;
+				if (b < 0x80)
+					chars[i++] = (char) b;
+				else if (b < 0xE0)
+					chars[i++] = (char) (((b & 0x1F) << 6) | (readByte() & 0x3F));
+				else
+					chars[i++] = (char) (((b & 0x0F) << 12) | ((readByte() & 0x3F) << 6) | (readByte() & 0x3F));
+				continue;
+			}
+			
+			// decode as many characters as are completely contained in the buffer
+			int pos = position;
+			int end = limit - SnapshotWriter.MAX_BYTES_PER_CHAR;
+			while (i < length && pos <= end) {
+				int b = bytes[pos] & 0xFF;
+				if (b < 0x80) {
+					chars[i++] = (char) b;
+					++pos;
+				} else if (b < 0xE0) {
+					chars[i++] = (char) (((b & 0x1F) << 6) | (bytes[pos + 1] & 0x3F));
+					pos += 2;
+				} else {
+					chars[i++] = (char) (((b & 0x0F) << 12) | ((bytes[pos + 1] & 0x3F) << 6) | (bytes[pos + 2] & 0x3F));
+					pos += 3;
+				}
+			}
+			position = pos;
+		}
+		return length;
+	}
+
+	protected int readVarInt() throws IOException {
+		int value = 0;
+		for (int shift=0; shift<32; shift+=7) {
+			byte b = readByte();
+			value |= (b & 0x7F) << shift;
+			if (b >= 0)
+				return value;
+		}
+		throw new IOException("The snapshot contains a malformed number");
+	}
+
+	protected int readInt() throws IOException {
+		int value = 0;
+		for (int i=0; i<4; ++i)
+			value = (value << 8) | (readByte() & 0xFF);
+		return value;
+	}
+
+	protected long readLong() throws IOException {
+		return ((long) readInt() << 32) | (readInt() & 0xFFFFFFFFL);
+	}
+
+	protected byte readByte() throws IOException {
+		if (position == limit && !fill())
+			throw new EOFException("The snapshot ends unexpectedly");
+		return buffer[position++];
+	}
+
+	/**
+	 * Moves the unread bytes to the beginning of the buffer and reads as many bytes as fit behind them
+	 * @return <code>false</code> if the end of the snapshot has been reached
+	 */
+	protected boolean fill() throws IOException {
+		int remaining = limit - position;
+		System.arraycopy(buffer, position, buffer, 0, remaining);
+		position = 0;
+		limit = remaining;
+		int bytesRead = in.read(buffer, remaining, buffer.length - remaining);
+		if (bytesRead <= 0)
+			return false;
+		limit += bytesRead;
+		return true;
+	}
+
+}
@@ -0,0 +1,429 @@
+/**
+ * SnapshotWriter.java - is an extension of an org.xml.sax.helpers.XMLFilterImpl that passes on all events of a parsed resource while writing them
+ *  to a compact binary snapshot (i.e. names are only written once and end tags are written without names) which is committed to the
+ *  ResourceDiskCache if the resource has been parsed completely. A SnapshotReader may pass these events on again much faster than the resource
+ *  can be parsed. It is used within the ImportMoreXtension developed at the Digital Academy of the Academy of Sciences and Literature | Mainz.
+ * @author Patrick D. Brookshire
+ * @version 1.0.0
+ */
+package org.adwmainz.da.extensions.importmore.utils;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URL;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.adwmainz.da.extensions.importmore.models.ResourceVersion;
+import org.xml.sax.Attributes;
+import org.xml.sax.SAXException;
+import org.xml.sax.SAXNotRecognizedException;
+import org.xml.sax.SAXNotSupportedException;
+import org.xml.sax.ext.LexicalHandler;
+import org.xml.sax.helpers.XMLFilterImpl;
+
+public class SnapshotWriter extends XMLFilterImpl implements LexicalHandler, Closeable {
+
+	// constants
+	protected static final String LEXICAL_HANDLER_PROPERTY = "http://xml.org/sax/properties/lexical-handler";
+	protected static final int MAGIC_NUMBER = 0x494D5853;
+	protected static final int FORMAT_VERSION = 1;
+	protected static final int BUFFER_SIZE = 64 * 1024;
+	protected static final int MAX_BYTES_PER_CHAR = 3;
+	protected static final int RECENT_NAMES = 256; // a power of two
+
+	// event types
+	protected static final byte END_OF_DOCUMENT = 0;
+	protected static final byte START_ELEMENT = 1;
+	protected static final byte END_ELEMENT = 2;
+	protected static final byte START_PREFIX_MAPPING = 3;
+	protected static final byte END_PREFIX_MAPPING = 4;
+	protected static final byte CHARACTERS = 5;
+	protected static final byte IGNORABLE_WHITESPACE = 6;
+	protected static final byte PROCESSING_INSTRUCTION = 7;
+	protected static final byte COMMENT = 8;
+	protected static final byte START_CDATA = 9;
+	protected static final byte END_CDATA = 10;
+
+	// fields
+	protected final URL url;
+	protected final File tempFile;
+	protected OutputStream out;
+	protected final byte[] buffer = new byte[BUFFER_SIZE];
+	protected int position = 0;
+	protected char[] characters = new char[1024];
+	protected final Map<String, Integer> names = new HashMap<>();
+	protected final String[] recentNames = new String[RECENT_NAMES];
+	protected final int[] recentNameIndexes = new int[RECENT_NAMES];
+	protected LexicalHandler lexicalHandler;
+	protected boolean complete = false;
+
+	// constructor
+	/**
+	 * Creates a new SnapshotWriter whose parent XMLReader still needs to be set
+	 * @param url the URL the resource is fetched from
+	 * @param version the version of the fetched resource
+	 * @param tempFile the file the snapshot should be written to
+	 * @throws IOException if the temporary file cannot be written
+	 */
+	public SnapshotWriter(URL url, ResourceVersion version, File tempFile) throws IOException {
+		super();
+		this.url = url;
+		this.tempFile = tempFile;
+		this.out = new FileOutputStream(tempFile);
+		try {
+			writeInt(MAGIC_NUMBER);
+			writeInt(FORMAT_VERSION);
+			writeString(url.toExternalForm());
+			writeString((version.getETag() == null) ? "" : version.getETag());
+			writeLong(version.getLastModified());
+			writeLong(version.getLength());
+		} catch (IOException ex) {
+			discard();
+			throw ex;
+		}
+	}
+
+	// lexical handler registration
+	@Override
+	public void setProperty(String name, Object value) throws SAXNotRecognizedException, SAXNotSupportedException {
+		if (LEXICAL_HANDLER_PROPERTY.equals(name)) {
+			// intercept comments, CDATA sections and document type declarations
+			lexicalHandler = (LexicalHandler) value;
+			super.setProperty(name, this);
+		} else {
+			super.setProperty(name, value);
+		}
+	}
+
+	@Override
+	public Object getProperty(String name) throws SAXNotRecognizedException, SAXNotSupportedException {
+		if (LEXICAL_HANDLER_PROPERTY.equals(name))
+			return lexicalHandler;
+		return super.getProperty(name);
+	}
+
+	// content handler methods
+	@Override
+	public void endDocument() throws SAXException {
+		if (out != null) {
+			try {
+				writeType(END_OF_DOCUMENT);
+				complete = true;
+			} catch (IOException ex) {
+				discard();
+			}
+		}
+		super.endDocument();
+	}
+
+	@Override
+	public void startPrefixMapping(String prefix, String uri) throws SAXException {
+		if (out != null) {
+			try {
+				writeType(START_PREFIX_MAPPING);
+				writeName(prefix);
+				writeName(uri);
+			} catch (IOException ex) {
+				discard();
+			}
+		}
+		super.startPrefixMapping(prefix, uri);
+	}
+
+	@Override
+	public void endPrefixMapping(String prefix) throws SAXException {
+		if (out != null) {
+			try {
+				writeType(END_PREFIX_MAPPING);
+				writeName(prefix);
+			} catch (IOException ex) {
+				discard();
+			}
+		}
+		super.endPrefixMapping(prefix);
+	}
+
+	@Override
+	public void startElement(String uri, String localName, String qName, Attributes atts) throws SAXException {
+		if (out != null) {
+			try {
+				writeType(START_ELEMENT);
+				writeName(uri);
+				writeName(localName);
+				writeName(qName);
+				writeVarInt(atts.getLength());
+				for (int i=0; i<atts.getLength(); ++i) {
+					writeName(atts.getURI(i));
+					writeName(atts.getLocalName(i));
+					writeName(atts.getQName(i));
+					writeName(atts.getType(i));
+					writeString(atts.getValue(i));
+				}
+			} catch (IOException ex) {
+				discard();
+			}
+		}
+		super.startElement(uri, localName, qName, atts);
+	}
+
+	@Override
+	public void endElement(String uri, String localName, String qName) throws SAXException {
+		if (out != null) {
+			try {
+				writeType(END_ELEMENT);
+			} catch (IOException ex) {
+				discard();
+			}
+		}
+		super.endElement(uri, localName, qName);
+	}
+
+	@Override
+	public void characters(char[] ch, int start, int length) throws SAXException {
+		write(CHARACTERS, ch, start, length);
+		super.characters(ch, start, length);
+	}
+
+	@Override
+	public void ignorableWhitespace(char[] ch, int start, int length) throws SAXException {
+		write(IGNORABLE_WHITESPACE, ch, start, length);
+		super.ignorableWhitespace(ch, start, length);
+	}
+
+	@Override
+	public void processingInstruction(String target, String data) throws SAXException {
+		if (out != null) {
+			try {
+				writeType(PROCESSING_INSTRUCTION);
+				writeName(target);
+				writeString((data == null) ? "" : data);
+			} catch (IOException ex) {
+				discard();
+			}
+		}
+		super.processingInstruction(target, data);
+	}
+
+	@Override
+	public void skippedEntity(String name) throws SAXException {
+		// the replacement text of the entity would be missing from the snapshot
+		discard();
+		super.skippedEntity(name);
+	}
+
+	// lexical handler methods
+	@Override
+	public void startDTD(String name, String publicId, String systemId) throws SAXException {
+		// attribute defaults, entities and IDs declared by a DTD cannot be restored from the snapshot
+		discard();
+		if (lexicalHandler != null)
+			lexicalHandler.startDTD(name, publicId, systemId);
+	}
+
+	@Override
+	public void endDTD() throws SAXException {
+		if (lexicalHandler != null)
+			lexicalHandler.endDTD();
+	}
+
+	@Override
+	public void startEntity(String name) throws SAXException {
+		if (lexicalHandler != null)
+			lexicalHandler.startEntity(name);
+	}
+
+	@Override
+	public void endEntity(String name) throws SAXException {
+		if (lexicalHandler != null)
+			lexicalHandler.endEntity(name);
+	}
+
+	@Override
+	public void startCDATA() throws SAXException {
+		if (out != null) {
+			try {
+				writeType(START_CDATA);
+			} catch (IOException ex) {
+				discard();
+			}
+		}
+		if (lexicalHandler != null)
+			lexicalHandler.startCDATA();
+	}
+
+	@Override
+	public void endCDATA() throws SAXException {
+		if (out != null) {
+			try {
+				writeType(END_CDATA);
+			} catch (IOException ex) {
+				discard();
+			}
+		}
+		if (lexicalHandler != null)
+			lexicalHandler.endCDATA();
+	}
+
+	@Override
+	public void comment(char[] ch, int start, int length) throws SAXException {
+		write(COMMENT, ch, start, length);
+		if (lexicalHandler != null)
+			lexicalHandler.comment(ch, start, length);
+	}
+
+	// implemented method
+	/**
+	 * Closes the snapshot and commits it to the ResourceDiskCache if the resource has been parsed completely
+	 */
+	@Override
+	public void close() {
+		if (out == null)
+			return;
+		try {
+			flush();
+			out.close();
+			out = null;
+		} catch (IOException ex) {
+			discard();
+			return;
+		}
+		if (complete)
+			ResourceDiskCache.commitSnapshot(url, tempFile);
+		else
+			tempFile.delete();
+	}
+
+	// helper methods
+	/**
+	 * Stops writing the snapshot and deletes it (e.g. since it cannot be written or would not be a faithful copy of the resource)
+	 */
+	protected void discard() {
+		if (out != null) {
+			try {
+				out.close();
+			} catch (IOException ex) {
+				// the snapshot is discarded anyway
+			}
+			out = null;
+		}
+		tempFile.delete();
+	}
+
+	protected void write(byte type, char[] ch, int start, int length) {
+		if (out == null)
+			return;
+		try {
+			writeType(type);
+			writeCharacters(ch, start, length);
+		} catch (IOException ex) {
+			// parsing the resource must not fail because of the snapshot
+			discard();
+		}
+	}
+
+	protected void writeType(byte type) throws IOException {
+		if (position == buffer.length)
+			flush();
+		buffer[position++] = type;
+	}
+
+	/**
+	 * Writes the index of the given name (e.g. a namespace URI, a prefix or a local name) followed by the name itself if it is written for
+	 * the first time
+	 */
+	protected void writeName(String name) throws IOException {
+		// most parsers pass the same String instances for recurring names
+		int slot = System.identityHashCode(name) & (RECENT_NAMES - 1);
+		if (recentNames[slot] == name) {
+			writeVarInt(recentNameIndexes[slot] + 1);
+			return;
+		}
+		
+		Integer index = names.get(name);
+		if (index == null) {
+			index = names.size();
+			writeVarInt(0);
+			writeString(name);
+			names.put(name, index);
+		} else {
+			writeVarInt(index + 1);
+		}
+		recentNames[slot] = name;
+		recentNameIndexes[slot] = index;
+	}
+
+	protected void writeString(String value) throws IOException {
+		int length = value.length();
+		if (characters.length < length)
+			characters = new char[Math.max(length, characters.length * 2)];
+		value.getChars(0, length, characters, 0);
+		writeCharacters(characters, 0, length);
+	}
+
+	/**
+	 * Writes the number of the given characters followed by their UTF-8 encoding (encoding each half of a surrogate pair separately)
+	 */
+	protected void writeCharacters(char[] ch, int start, int length) throws IOException {
+		writeVarInt(length);
+		int end = start + length;
+		int i = start;
+		while (i < end) {
+			if (buffer.length - position < MAX_BYTES_PER_CHAR)
+				flush();
+			
+			// encode as many characters as fit into the buffer in any case
+			int chunkEnd = Math.min(end, i + (buffer.length - position) / MAX_BYTES_PER_CHAR);
+			byte[] bytes = buffer;
+			int pos = position;
+			for (; i<chunkEnd; ++i) {
+				char c = ch[i];
+				if (c < 0x80) {
+					bytes[pos++] = (byte) c;
+				} else if (c < 0x800) {
+					bytes[pos++] = (byte) (0xC0 | (c >> 6));
+					bytes[pos++] = (byte) (0x80 | (c & 0x3F));
+				} else {
+					bytes[pos++] = (byte) (0xE0 | (c >> 12));
+					bytes[pos++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+					bytes[pos++] = (byte) (0x80 | (c & 0x3F));
+				}
+			}
+			position = pos;
+		}
+	}
+
+	/**
+	 * Writes the given non-negative number using seven bits per byte
+	 */
+	protected void writeVarInt(int value) throws IOException {
+		if (position + 5 > buffer.length)
+			flush();
+		while (value >= 0x80) {
+			buffer[position++] = (byte) (0x80 | (value & 0x7F));
+			value >>>= 7;
+		}
+		buffer[position++] = (byte) value;
+	}
+
+	protected void writeInt(int value) throws IOException {
+		if (position + 4 > buffer.length)
+			flush();
+		for (int shift=24; shift>=0; shift-=8)
+			buffer[position++] = (byte) (value >>> shift);
+	}
+
+	protected void writeLong(long value) throws IOException {
+		writeInt((int) (value >>> 32));
+		writeInt((int) value);
+	}
+
+	protected void flush() throws IOException {
+		out.write(buffer, 0, position);
+		position = 0;
+	}
+
+}
@@ -0,0 +1,229 @@
+/**
+ * StreamingNodeFinder.java - is a helper class that finds the first element matching a SimplePath while parsing a resource and stops as soon as
+ *  this element is complete. It is used within the ImportMoreXtension developed at the Digital Academy of the Academy of Sciences and Literature |
+ *  Mainz.
+ * @author Patrick D. Brookshire
+ * @version 1.0.0
+ */
+package org.adwmainz.da.extensions.importmore.utils;
+
+import java.io.InputStream;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.adwmainz.da.extensions.importmore.exceptions.ImportMoreXMLException;
+import org.adwmainz.da.extensions.importmore.exceptions.ImportMoreXPathException;
+import org.adwmainz.da.extensions.importmore.models.SimplePath;
+import org.xml.sax.SAXException;
+import org.xml.sax.ext.LexicalHandler;
+import org.xml.sax.helpers.AttributesImpl;
+
+import net.sf.saxon.s9api.Axis;
+import net.sf.saxon.s9api.BuildingContentHandler;
+import net.sf.saxon.s9api.SaxonApiException;
+import net.sf.saxon.s9api.XdmNode;
+import net.sf.saxon.s9api.XdmNodeKind;
+import net.sf.saxon.s9api.XdmSequenceIterator;
+
+public class StreamingNodeFinder {
+	
+	// static field
+	protected static final XMLInputFactory inputFactory = XMLInputFactory.newInstance();
+	
+	/**
+	 * Returns the first element within the given resource that matches the given SimplePath (including its predicates) without parsing the rest
+	 * of the resource
+	 * @param stream an InputStream providing serialized XML
+	 * @param systemId the system ID of the parsed resource
+	 * @param path a SimplePath
+	 * @param namespaceMap a Map of namespace prefixes and their respective namespace URIs used to evaluate the predicates of the SimplePath
+	 * @return the first matching element or <code>null</code> if there is no match
+	 * @throws ImportMoreXMLException if the resource cannot be parsed
+	 * @throws ImportMoreXPathException if the predicates of the SimplePath are erroneous
+	 */
+	public static XdmNode findFirstNode(InputStream stream, String systemId, SimplePath path, Map<String, String> namespaceMap)
+			throws ImportMoreXMLException, ImportMoreXPathException {
+		XMLStreamReader reader = null;
+		try {
+			reader = inputFactory.createXMLStreamReader(systemId, stream);
+			
+			Deque<Long> stateStack = new ArrayDeque<>();
+			List<String[]> namespaceBindings = new ArrayList<>();
+			Deque<Integer> namespaceCounts = new ArrayDeque<>();
+			long states = path.getInitialStates();
+			while (reader.hasNext()) {
+				int event = reader.next();
+				if (event == XMLStreamConstants.START_ELEMENT) {
+					pushNamespaces(reader, namespaceBindings, namespaceCounts);
+					long elementStates = path.match(states, reader.getNamespaceURI(), reader.getLocalName());
+					if (path.isComplete(elementStates)) {
+						XdmNode candidate = buildElement(reader, getInScopeNamespaces(namespaceBindings));
+						popNamespaces(namespaceBindings, namespaceCounts);
+						if (accepts(candidate, path, namespaceMap))
+							return candidate;
+						
+						// search for matches nested within the rejected element
+						if (path.isContinuable(elementStates)) {
+							XdmNode nestedMatch = findInSubtree(candidate, elementStates, path, namespaceMap);
+							if (nestedMatch != null)
+								return nestedMatch;
+						}
+						continue;
+					}
+					stateStack.push(states);
+					states = elementStates;
+				} else if (event == XMLStreamConstants.END_ELEMENT) {
+					states = stateStack.pop();
+					popNamespaces(namespaceBindings, namespaceCounts);
+				}
+			}
+			return null;
+		} catch (XMLStreamException | SAXException | SaxonApiException ex) {
+			throw new ImportMoreXMLException("Cannot parse XML from " + systemId, ex);
+		} finally {
+			if (reader != null) {
+				try {
+					reader.close();
+				} catch (XMLStreamException ex) {
+					// the underlying stream is closed by the caller
+				}
+			}
+		}
+	}
+	
+	// helper methods
+	protected static XdmNode findInSubtree(XdmNode element, long elementStates, SimplePath path, Map<String, String> namespaceMap)
+			throws ImportMoreXPathException {
+		XdmSequenceIterator iterator = element.axisIterator(Axis.CHILD);
+		while (iterator.hasNext()) {
+			XdmNode child = (XdmNode) iterator.next();
+			if (child.getNodeKind() != XdmNodeKind.ELEMENT)
+				continue;
+			long childStates = path.match(elementStates, child.getNodeName().getNamespaceURI(), child.getNodeName().getLocalName());
+			if (path.isComplete(childStates) && accepts(child, path, namespaceMap))
+				return child;
+			if (path.isContinuable(childStates)) {
+				XdmNode nestedMatch = findInSubtree(child, childStates, path, namespaceMap);
+				if (nestedMatch != null)
+					return nestedMatch;
+			}
+		}
+		return null;
+	}
+	
+	protected static boolean accepts(XdmNode candidate, SimplePath path, Map<String, String> namespaceMap) throws ImportMoreXPathException {
+		if (path.getPredicates().isEmpty())
+			return true;
+		try {
+			return SaxonUtils.getXPathSelector(candidate, "." + path.getPredicates(), namespaceMap).effectiveBooleanValue();
+		} catch (SaxonApiException ex) {
+			throw new ImportMoreXPathException("Cannot compile the xpath ." + path.getPredicates(), ex);
+		}
+	}
+	
+	protected static void pushNamespaces(XMLStreamReader reader, List<String[]> namespaceBindings, Deque<Integer> namespaceCounts) {
+		int count = reader.getNamespaceCount();
+		for (int i=0; i<count; ++i) {
+			String prefix = reader.getNamespacePrefix(i);
+			String namespaceURI = reader.getNamespaceURI(i);
+			namespaceBindings.add(new String[] {(prefix == null) ? "" : prefix, (namespaceURI == null) ? "" : namespaceURI});
+		}
+		namespaceCounts.push(count);
+	}
+	
+	protected static void popNamespaces(List<String[]> namespaceBindings, Deque<Integer> namespaceCounts) {
+		for (int i=namespaceCounts.pop(); i>0; --i)
+			namespaceBindings.remove(namespaceBindings.size() - 1);
+	}
+	
+	protected static Map<String, String> getInScopeNamespaces(List<String[]> namespaceBindings) {
+		// keep the order of declarations while inner declarations override outer ones
+		Map<String, String> inScopeNamespaces = new LinkedHashMap<>();
+		for (String[] binding: namespaceBindings)
+			inScopeNamespaces.put(binding[0], binding[1]);
+		return inScopeNamespaces;
+	}
+	
+	/**
+	 * Builds the element the reader is currently positioned at and moves the reader to its end tag
+	 */
+	protected static XdmNode buildElement(XMLStreamReader reader, Map<String, String> inScopeNamespaces)
+			throws XMLStreamException, SAXException, SaxonApiException {
+		BuildingContentHandler handler = SaxonUtils.processor.newDocumentBuilder().newBuildingContentHandler();
+		LexicalHandler lexicalHandler = (handler instanceof LexicalHandler) ? (LexicalHandler) handler : null;
+		handler.startDocument();
+		
+		// declare all namespaces in scope on the root element
+		for (Map.Entry<String, String> binding: inScopeNamespaces.entrySet())
+			handler.startPrefixMapping(binding.getKey(), binding.getValue());
+		startElement(reader, handler);
+		
+		int depth = 1;
+		while (depth > 0) {
+			switch (reader.next()) {
+			case XMLStreamConstants.START_ELEMENT:
+				for (int i=0; i<reader.getNamespaceCount(); ++i)
+					handler.startPrefixMapping(emptyIfNull(reader.getNamespacePrefix(i)), emptyIfNull(reader.getNamespaceURI(i)));
+				startElement(reader, handler);
+				++depth;
+				break;
+			case XMLStreamConstants.END_ELEMENT:
+				handler.endElement(emptyIfNull(reader.getNamespaceURI()), reader.getLocalName(), getQName(reader.getPrefix(), reader.getLocalName()));
+				--depth;
+				break;
+			case XMLStreamConstants.CHARACTERS:
+			case XMLStreamConstants.CDATA:
+			case XMLStreamConstants.SPACE:
+				handler.characters(reader.getTextCharacters(), reader.getTextStart(), reader.getTextLength());
+				break;
+			case XMLStreamConstants.COMMENT:
+				if (lexicalHandler != null)
+					lexicalHandler.comment(reader.getTextCharacters(), reader.getTextStart(), reader.getTextLength());
+				break;
+			case XMLStreamConstants.PROCESSING_INSTRUCTION:
+				handler.processingInstruction(reader.getPITarget(), reader.getPIData());
+				break;
+			default:
+				break;
+			}
+		}
+		handler.endDocument();
+		
+		// return root element instead of document node
+		XdmSequenceIterator iterator = handler.getDocumentNode().axisIterator(Axis.CHILD);
+		while (iterator.hasNext()) {
+			XdmNode child = (XdmNode) iterator.next();
+			if (child.getNodeKind() == XdmNodeKind.ELEMENT)
+				return child;
+		}
+		return null;
+	}
+	
+	protected static void startElement(XMLStreamReader reader, BuildingContentHandler handler) throws SAXException {
+		AttributesImpl attributes = new AttributesImpl();
+		for (int i=0; i<reader.getAttributeCount(); ++i) {
+			String localName = reader.getAttributeLocalName(i);
+			attributes.addAttribute(emptyIfNull(reader.getAttributeNamespace(i)), localName, getQName(reader.getAttributePrefix(i), localName),
+					"CDATA", reader.getAttributeValue(i));
+		}
+		handler.startElement(emptyIfNull(reader.getNamespaceURI()), reader.getLocalName(), getQName(reader.getPrefix(), reader.getLocalName()), attributes);
+	}
+	
+	protected static String getQName(String prefix, String localName) {
+		return (prefix == null || prefix.isEmpty()) ? localName : prefix + ":" + localName;
+	}
+	
+	protected static String emptyIfNull(String str) {
+		return (str == null) ? "" : str;
+	}
+
+}
@@ -8,6 +8,10 @@ package org.adwmainz.da.extensions.importmore.utils;
 
 public class StringUtils {
 	
+	// constants used for fingerprinting
+	public static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+	public static final long FNV_PRIME = 0x100000001b3L;
+	
 	/**
 	 * Reduces the length of a String to be less than or equal to the specified newLength by replacing additional chars with <code>…</code>
 	 * @param str some String
@@ -23,4 +27,30 @@ public class StringUtils {
 		return str;
 	}
 	
+	/**
+	 * Returns a 64-bit fingerprint (i.e. a FNV-1a hash with an additional avalanche step) of the given char sequence
+	 * @param str some CharSequence
+	 */
+	public static long fingerprint(CharSequence str) {
+		long hash = FNV_OFFSET_BASIS;
+		for (int i=0; i<str.length(); ++i) {
+			hash ^= str.charAt(i);
+			hash *= FNV_PRIME;
+		}
+		return mix(hash);
+	}
+	
+	/**
+	 * Spreads the bits of a hash value (c.f. the finalization step of MurmurHash3)
+	 * @param hash a 64-bit hash value
+	 */
+	public static long mix(long hash) {
+		hash ^= hash >>> 33;
+		hash *= 0xff51afd7ed558ccdL;
+		hash ^= hash >>> 33;
+		hash *= 0xc4ceb9fe1a85ec53L;
+		hash ^= hash >>> 33;
+		return hash;
+	}
+	
 }
@@ -0,0 +1,315 @@
+/**
+ * WarmUpService.java - is a helper class that collects all operations of the ImportMoreXtension configured by the actions of the installed
+ *  frameworks and prepares the resources and XPath expressions they use in the background (e.g. right after oXygen has been started) so that
+ *  their first execution need not wait for them. It is used within the ImportMoreXtension developed at the Digital Academy of the Academy of
+ *  Sciences and Literature | Mainz.
+ * @author Patrick D. Brookshire
+ * @version 1.0.0
+ */
+package org.adwmainz.da.extensions.importmore.utils;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+import org.adwmainz.da.extensions.askmore.utils.AskMoreArgumentProvider;
+import org.adwmainz.da.extensions.importmore.exceptions.ImportMoreXMLException;
+import org.adwmainz.da.extensions.importmore.exceptions.ImportMoreXPathException;
+import org.adwmainz.da.extensions.importmore.factories.URLFactory;
+import org.adwmainz.da.extensions.importmore.models.OperationDefinition;
+
+import net.sf.saxon.s9api.SaxonApiException;
+import net.sf.saxon.s9api.XdmItem;
+import net.sf.saxon.s9api.XdmNode;
+import ro.sync.exml.workspace.api.PluginWorkspace;
+import ro.sync.exml.workspace.api.PluginWorkspaceProvider;
+
+public class WarmUpService {
+
+	// constants
+	protected static final String OPERATION_PACKAGE = "org.adwmainz.da.extensions.importmore.";
+	protected static final String FRAMEWORK_SUFFIX = ".framework";
+	protected static final String EXTENSION_SCRIPT_SUFFIX = ".exf";
+	protected static final String XML_SUFFIX = ".xml";
+	protected static final String EXTERNAL_ACTIONS_DIRECTORY_NAME = "externalAuthorActions";
+	protected static final String FRAMEWORK_VARIABLE = "${framework}";
+	protected static final String FRAMEWORK_DIRECTORY_VARIABLE = "${frameworkDir}";
+	protected static final String VARIABLE_START = "${";
+
+	// XPath expressions locating operations and their arguments within serialized frameworks (i.e. action modes)
+	protected static final String FRAMEWORK_OPERATION_EXPRESSION = "//*[field[@name = 'operationId']/String[starts-with(., '" + OPERATION_PACKAGE
+			+ "')]]";
+	protected static final String FRAMEWORK_OPERATION_ID_EXPRESSION = "string(field[@name = 'operationId']/String)";
+	protected static final String FRAMEWORK_ARGUMENT_EXPRESSION = "field[@name = 'argValues']//entry[count(*) = 2]";
+	protected static final String FRAMEWORK_ARGUMENT_NAME_EXPRESSION = "string(*[1])";
+	protected static final String FRAMEWORK_ARGUMENT_VALUE_EXPRESSION = "string(*[2])";
+
+	// XPath expressions locating operations and their arguments within externalized actions and extension scripts
+	protected static final String EXTERNAL_OPERATION_EXPRESSION = "//*:operation[starts-with(@id, '" + OPERATION_PACKAGE + "')]";
+	protected static final String EXTERNAL_OPERATION_ID_EXPRESSION = "string(@id)";
+	protected static final String EXTERNAL_ARGUMENT_EXPRESSION = "*:arguments/*:argument";
+	protected static final String EXTERNAL_ARGUMENT_NAME_EXPRESSION = "string(@name)";
+	protected static final String EXTERNAL_ARGUMENT_VALUE_EXPRESSION = "string(.)";
+
+	/**
+	 * The names of all arguments containing XPath expressions that are evaluated on external resources
+	 */
+	protected static final List<String> XPATH_ARGUMENTS = Arrays.asList(ImportMoreArgumentProvider.ARGUMENT_REQUESTED_ELEMENT_LOCATION,
+			ImportMoreArgumentProvider.ARGUMENT_EQUAL_ELEMENT_EXPRESSION, ImportMoreArgumentProvider.ARGUMENT_SELECTABLE_NAME_EXPRESSION,
+			ImportMoreArgumentProvider.ARGUMENT_ATTR_VALUE_EXPRESSION);
+
+	// static fields
+	protected static final ExecutorService warmUpExecutor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+		@Override
+		public Thread newThread(Runnable runnable) {
+			Thread thread = new Thread(runnable, "ImportMore warm-up");
+			thread.setDaemon(true);
+			thread.setPriority(Thread.MIN_PRIORITY);
+			return thread;
+		}
+	});
+
+	// main methods
+	/**
+	 * Collects all operations configured within the given locations and prepares their resources and XPath expressions by a low-priority
+	 * background thread
+	 * @param locations framework directories or single framework files
+	 */
+	public static void start(final Collection<File> locations) {
+		if (locations.isEmpty())
+			return;
+		warmUpExecutor.execute(new Runnable() {
+			@Override
+			public void run() {
+				warmUp(findOperationDefinitions(locations));
+			}
+		});
+	}
+
+	/**
+	 * Compiles all XPath expressions used by the given operations and fetches and parses the resources they import from. Resources that cannot
+	 * be resolved without an edited document or user input (e.g. since they refer to the current file) are skipped.
+	 * @param operationDefinitions a List of OperationDefinitions
+	 */
+	public static void warmUp(List<OperationDefinition> operationDefinitions) {
+		// compile all XPath expressions first since this is much faster than parsing any resource
+		Set<String> resourceLocations = new LinkedHashSet<>();
+		for (OperationDefinition operationDefinition: operationDefinitions) {
+			Map<String, String> namespaceMap = getNamespaceMap(operationDefinition);
+			if (namespaceMap == null)
+				continue;
+			for (String xPathExpression: getXPathExpressions(operationDefinition)) {
+				try {
+					SaxonUtils.getXPathExecutable(xPathExpression, namespaceMap);
+				} catch (SaxonApiException | RuntimeException ex) {
+					// erroneous expressions are reported when the operation is executed
+				}
+			}
+			
+			// nodes are extracted from external resources together with their keys and labels by a combined expression
+			String requestedElementLocation = getXPathArgument(operationDefinition, ImportMoreArgumentProvider.ARGUMENT_REQUESTED_ELEMENT_LOCATION);
+			String labelExpression = getXPathArgument(operationDefinition, ImportMoreArgumentProvider.ARGUMENT_SELECTABLE_NAME_EXPRESSION);
+			if (requestedElementLocation != null && labelExpression != null) {
+				try {
+					SaxonUtils.getExtractionExecutable(requestedElementLocation, getXPathArgument(operationDefinition,
+							ImportMoreArgumentProvider.ARGUMENT_EQUAL_ELEMENT_EXPRESSION), labelExpression, namespaceMap);
+				} catch (SaxonApiException | RuntimeException ex) {
+					// erroneous expressions are reported when the operation is executed
+				}
+			}
+			String resourceLocation = resolve(operationDefinition.getArgument(ImportMoreArgumentProvider.ARGUMENT_RESOURCE_LOCATION),
+					operationDefinition.getFrameworkDirectory());
+			if (resourceLocation != null)
+				resourceLocations.add(resourceLocation);
+		}
+
+		// fetch and parse each resource once
+		for (String resourceLocation: resourceLocations) {
+			try {
+				URL url = URLFactory.create(resourceLocation);
+				XMLResourceCache.getDocument(url);
+			} catch (IOException | ImportMoreXMLException | RuntimeException ex) {
+				// unavailable resources are reported when the operation is executed
+			}
+		}
+	}
+
+	/**
+	 * Collects all operations of the ImportMoreXtension configured within the given locations, i.e. within serialized frameworks
+	 * (<code>.framework</code>), extension scripts (<code>.exf</code>) and externalized actions (XML files within a directory called
+	 * <code>externalAuthorActions</code>)
+	 * @param locations framework directories (which are searched recursively) or single framework files
+	 */
+	public static List<OperationDefinition> findOperationDefinitions(Collection<File> locations) {
+		List<File> definitionFiles = new ArrayList<>();
+		for (File location: locations)
+			collectDefinitionFiles(location, definitionFiles);
+
+		List<OperationDefinition> operationDefinitions = new ArrayList<>();
+		for (File definitionFile: definitionFiles) {
+			try {
+				if (!containsOperations(definitionFile))
+					continue;
+				XdmNode document;
+				try (InputStream stream = new FileInputStream(definitionFile)) {
+					document = SaxonUtils.buildDocument(stream, definitionFile.toURI().toString());
+				}
+				if (definitionFile.getName().endsWith(FRAMEWORK_SUFFIX))
+					operationDefinitions.addAll(extractOperationDefinitions(document, getFrameworkDirectory(definitionFile), FRAMEWORK_OPERATION_EXPRESSION,
+							FRAMEWORK_OPERATION_ID_EXPRESSION, FRAMEWORK_ARGUMENT_EXPRESSION, FRAMEWORK_ARGUMENT_NAME_EXPRESSION,
+							FRAMEWORK_ARGUMENT_VALUE_EXPRESSION));
+				else
+					operationDefinitions.addAll(extractOperationDefinitions(document, getFrameworkDirectory(definitionFile), EXTERNAL_OPERATION_EXPRESSION,
+							EXTERNAL_OPERATION_ID_EXPRESSION, EXTERNAL_ARGUMENT_EXPRESSION, EXTERNAL_ARGUMENT_NAME_EXPRESSION,
+							EXTERNAL_ARGUMENT_VALUE_EXPRESSION));
+			} catch (IOException | ImportMoreXMLException | ImportMoreXPathException ex) {
+				// skip unreadable definitions
+			}
+		}
+		return operationDefinitions;
+	}
+
+	// helper methods
+	protected static void collectDefinitionFiles(File location, List<File> definitionFiles) {
+		if (location.isFile()) {
+			if (isDefinitionFile(location))
+				definitionFiles.add(location);
+			return;
+		}
+		File[] children = location.listFiles();
+		if (children == null)
+			return;
+		for (File child: children)
+			collectDefinitionFiles(child, definitionFiles);
+	}
+
+	protected static boolean isDefinitionFile(File file) {
+		String name = file.getName();
+		if (name.endsWith(FRAMEWORK_SUFFIX) || name.endsWith(EXTENSION_SCRIPT_SUFFIX))
+			return true;
+		File parent = file.getParentFile();
+		return name.endsWith(XML_SUFFIX) && parent != null && EXTERNAL_ACTIONS_DIRECTORY_NAME.equals(parent.getName());
+	}
+
+	/**
+	 * Checks whether the given file mentions any operation of the ImportMoreXtension without parsing it
+	 */
+	protected static boolean containsOperations(File definitionFile) throws IOException {
+		return new String(Files.readAllBytes(definitionFile.toPath()), StandardCharsets.ISO_8859_1).contains(OPERATION_PACKAGE);
+	}
+
+	/**
+	 * Returns the directory of the framework the given definition file belongs to
+	 */
+	protected static File getFrameworkDirectory(File definitionFile) {
+		File directory = definitionFile.getAbsoluteFile().getParentFile();
+		if (directory != null && EXTERNAL_ACTIONS_DIRECTORY_NAME.equals(directory.getName()) && directory.getParentFile() != null)
+			return directory.getParentFile();
+		return directory;
+	}
+
+	protected static List<OperationDefinition> extractOperationDefinitions(XdmNode document, File frameworkDirectory, String operationExpression,
+			String operationIdExpression, String argumentExpression, String argumentNameExpression, String argumentValueExpression)
+			throws ImportMoreXPathException {
+		Map<String, String> noNamespaces = Collections.emptyMap();
+		List<OperationDefinition> operationDefinitions = new ArrayList<>();
+		for (XdmNode operation: SaxonUtils.getNodes(document, operationExpression, noNamespaces)) {
+			Map<String, String> arguments = new LinkedHashMap<>();
+			for (XdmNode argument: SaxonUtils.getNodes(operation, argumentExpression, noNamespaces))
+				arguments.put(getStringValue(argument, argumentNameExpression), getStringValue(argument, argumentValueExpression));
+			operationDefinitions.add(new OperationDefinition(getStringValue(operation, operationIdExpression), arguments, frameworkDirectory));
+		}
+		return operationDefinitions;
+	}
+
+	protected static String getStringValue(XdmNode contextNode, String xPathExpression) throws ImportMoreXPathException {
+		XdmItem result = SaxonUtils.getFirstXPathResult(contextNode, xPathExpression, Collections.<String, String>emptyMap());
+		return (result == null) ? "" : result.getStringValue();
+	}
+
+	/**
+	 * Returns the namespaces declared by the given operation or <code>null</code> if they are declared erroneously
+	 */
+	protected static Map<String, String> getNamespaceMap(OperationDefinition operationDefinition) {
+		List<String> prefixes = getList(operationDefinition.getArgument(ImportMoreArgumentProvider.ARGUMENT_NAMESPACE_PREFIXES));
+		List<String> uris = getList(operationDefinition.getArgument(ImportMoreArgumentProvider.ARGUMENT_NAMESPACE_URIS));
+		if (prefixes.size() != uris.size())
+			return null;
+		Map<String, String> namespaceMap = new LinkedHashMap<>();
+		for (int i=0; i<prefixes.size(); ++i)
+			namespaceMap.put(prefixes.get(i), uris.get(i));
+		return namespaceMap;
+	}
+
+	/**
+	 * Returns all XPath expressions the given operation compiles, i.e. its arguments (the combined extraction expression is compiled by
+	 * SaxonUtils.getExtractionExecutable)
+	 */
+	protected static List<String> getXPathExpressions(OperationDefinition operationDefinition) {
+		List<String> xPathExpressions = new ArrayList<>();
+		for (String argumentName: XPATH_ARGUMENTS) {
+			String xPathExpression = getXPathArgument(operationDefinition, argumentName);
+			if (xPathExpression != null)
+				xPathExpressions.add(xPathExpression);
+		}
+		
+		String fragment = operationDefinition.getArgument(AskMoreArgumentProvider.ARGUMENT_FRAGMENT);
+		if (fragment != null)
+			xPathExpressions.addAll(ImportMoreAnnotationParser.getXPathExpressions(fragment));
+		return xPathExpressions;
+	}
+
+	/**
+	 * Returns the XPath expression passed as the given argument or <code>null</code> if it is missing or contains editor variables
+	 */
+	protected static String getXPathArgument(OperationDefinition operationDefinition, String argumentName) {
+		String xPathExpression = operationDefinition.getArgument(argumentName);
+		if (xPathExpression == null || xPathExpression.trim().isEmpty() || xPathExpression.contains(VARIABLE_START))
+			return null;
+		return xPathExpression;
+	}
+	
+	/**
+	 * Expands all editor variables within the given resource location that do not depend on an edited document
+	 * @param resourceLocation the configured resource location or <code>null</code>
+	 * @param frameworkDirectory the directory of the framework the resource location has been configured in
+	 * @return the expanded resource location or <code>null</code> if it cannot be expanded completely
+	 */
+	protected static String resolve(String resourceLocation, File frameworkDirectory) {
+		if (resourceLocation == null || resourceLocation.trim().isEmpty())
+			return null;
+		String resolvedLocation = resourceLocation.trim();
+		if (frameworkDirectory != null) {
+			String frameworkURL = frameworkDirectory.toURI().toString();
+			resolvedLocation = resolvedLocation.replace(FRAMEWORK_VARIABLE, frameworkURL.substring(0, frameworkURL.length() - 1))
+					.replace(FRAMEWORK_DIRECTORY_VARIABLE, frameworkDirectory.getPath());
+		}
+		PluginWorkspace pluginWorkspace = PluginWorkspaceProvider.getPluginWorkspace();
+		if (resolvedLocation.contains(VARIABLE_START) && pluginWorkspace != null && pluginWorkspace.getUtilAccess() != null)
+			resolvedLocation = pluginWorkspace.getUtilAccess().expandEditorVariables(resolvedLocation, null);
+		return (resolvedLocation == null || resolvedLocation.contains(VARIABLE_START)) ? null : resolvedLocation;
+	}
+
+	protected static List<String> getList(String argumentValue) {
+		if (argumentValue == null || argumentValue.isEmpty())
+			return new ArrayList<>();
+		return new ArrayList<>(Arrays.asList(argumentValue.split("\n")));
+	}
+
+}
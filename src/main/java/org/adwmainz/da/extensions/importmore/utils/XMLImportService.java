@@ -6,44 +6,125 @@
  */
 package org.adwmainz.da.extensions.importmore.utils;
 
+import java.awt.SecondaryLoop;
+import java.awt.Toolkit;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
 import java.io.IOException;
-import java.util.LinkedHashMap;
+import java.io.InterruptedIOException;
+import java.text.DateFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.ResourceBundle;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+import javax.swing.SwingUtilities;
+import javax.swing.Timer;
 
 import org.adwmainz.da.extensions.askmore.models.SelectableOption;
 import org.adwmainz.da.extensions.importmore.exceptions.ImportMoreXMLException;
 import org.adwmainz.da.extensions.importmore.exceptions.ImportMoreXPathException;
 import org.adwmainz.da.extensions.importmore.factories.FrameFactory;
 import org.adwmainz.da.extensions.importmore.factories.URLFactory;
-import org.adwmainz.da.extensions.importmore.views.BasicFrame;
+import org.adwmainz.da.extensions.importmore.models.DocumentProjection;
+import org.adwmainz.da.extensions.importmore.models.ExtractedNode;
+import org.adwmainz.da.extensions.importmore.models.FingerprintSet;
+import org.adwmainz.da.extensions.importmore.models.KeyIndex;
+import org.adwmainz.da.extensions.importmore.models.LoadingProgress;
+import org.adwmainz.da.extensions.importmore.models.NodeSnapshot;
+import org.adwmainz.da.extensions.importmore.views.LoadingFrame;
 
+import net.sf.saxon.s9api.XdmItem;
 import net.sf.saxon.s9api.XdmNode;
+import ro.sync.exml.workspace.api.PluginWorkspace;
+import ro.sync.exml.workspace.api.PluginWorkspaceProvider;
 
 public class XMLImportService {
 
+	// constant
+	protected static final int CANCELLATION_CHECK_INTERVAL = 100;
+	
+	// static field
+	protected static final ExecutorService executor = Executors.newCachedThreadPool(new ThreadFactory() {
+		@Override
+		public Thread newThread(Runnable runnable) {
+			Thread thread = new Thread(runnable, "ImportMore resource loader");
+			thread.setDaemon(true);
+			return thread;
+		}
+	});
+
 	// main methods
 	/**
 	 * Fetches a List of serialized XPath results from the given resource while displaying a loading dialog
 	 * @param resourcePath the path to a resource
 	 * @param xPathExpression an XPath expression
 	 * @param namespaceMap a Map of namespace prefixes and their respective namespace URIs
-	 * @throws IOException
+	 * @throws IOException if the resource cannot be read or the user cancelled the import
 	 * @throws ImportMoreXMLException if the resource cannot be parsed
 	 * @throws ImportMoreXPathException if the XPath expression is erroneous
 	 */
-	public static List<String> fetchSerializedXPathResults(String resourcePath, String xPathExpression, Map<String, String> namespaceMap)
+	public static List<String> fetchSerializedXPathResults(final String resourcePath, final String xPathExpression, final Map<String, String> namespaceMap)
 			throws IOException, ImportMoreXMLException, ImportMoreXPathException {
-		BasicFrame loadingFrame = FrameFactory.createLoadingFrame();
-		ViewUtils.showFrame(loadingFrame);
-		try {
-			XdmNode doc = SaxonUtils.fetchXMLResource(URLFactory.create(resourcePath));
-			return SaxonUtils.getSerializedXPathResults(doc, xPathExpression, namespaceMap);
-		} finally {
-			loadingFrame.dispose();
-		}
+		return runImportTask(new ImportTask<List<String>>() {
+			@Override
+			public List<String> run(LoadingProgress progress) throws IOException, ImportMoreXMLException, ImportMoreXPathException {
+				XdmNode doc = XMLResourceCache.getDocument(URLFactory.create(resourcePath), getProjection(xPathExpression,
+						Collections.<String>emptyList(), namespaceMap), progress);
+				progress.setPhase(LoadingProgress.PHASE_EVALUATING);
+				List<String> results = new ArrayList<>();
+				XPathResultIterator<XdmItem> iterator = SaxonUtils.iterateXPathResults(doc, xPathExpression, namespaceMap);
+				while (iterator.hasNext()) {
+					progress.checkCancelled();
+					results.add(iterator.next().toString());
+					progress.addMatchedNodes(1);
+				}
+				return results;
+			}
+		});
+	}
+
+	/**
+	 * Fetches the fingerprints of all XPath results from the given resource while displaying a loading dialog
+	 * @param resourcePath the path to a resource
+	 * @param xPathExpression an XPath expression
+	 * @param namespaceMap a Map of namespace prefixes and their respective namespace URIs
+	 * @param canonicalizer the FragmentCanonicalizer used to compute the fingerprints
+	 * @throws IOException if the resource cannot be read or the user cancelled the import
+	 * @throws ImportMoreXMLException if the resource cannot be parsed
+	 * @throws ImportMoreXPathException if the XPath expression is erroneous
+	 */
+	public static FingerprintSet fetchFingerprints(final String resourcePath, final String xPathExpression, final Map<String, String> namespaceMap,
+			final FragmentCanonicalizer canonicalizer) throws IOException, ImportMoreXMLException, ImportMoreXPathException {
+		return runImportTask(new ImportTask<FingerprintSet>() {
+			@Override
+			public FingerprintSet run(LoadingProgress progress) throws IOException, ImportMoreXMLException, ImportMoreXPathException {
+				XdmNode doc = XMLResourceCache.getDocument(URLFactory.create(resourcePath), getProjection(xPathExpression,
+						Collections.<String>emptyList(), namespaceMap), progress);
+				progress.setPhase(LoadingProgress.PHASE_EVALUATING);
+				FingerprintSet fingerprints = new FingerprintSet();
+				XPathResultIterator<XdmItem> iterator = SaxonUtils.iterateXPathResults(doc, xPathExpression, namespaceMap);
+				while (iterator.hasNext()) {
+					progress.checkCancelled();
+					fingerprints.add(canonicalizer.fingerprint(iterator.next()));
+					progress.addMatchedNodes(1);
+				}
+				return fingerprints;
+			}
+		});
 	}
 
 	/**
@@ -51,20 +132,67 @@ public class XMLImportService {
 	 * @param resourcePath the path to a resource
 	 * @param xPathExpression an XPath expression
 	 * @param namespaceMap a Map of namespace prefixes and their respective namespace URIs
-	 * @throws IOException
+	 * @throws IOException if the resource cannot be read or the user cancelled the import
 	 * @throws ImportMoreXMLException if the resource cannot be parsed
 	 * @throws ImportMoreXPathException if the XPath expression does not identify nodes or is erroneous
 	 */
-	public static List<XdmNode> fetchNodes(String resourcePath, String xPathExpression, Map<String, String> namespaceMap)
+	public static List<XdmNode> fetchNodes(final String resourcePath, final String xPathExpression, final Map<String, String> namespaceMap)
 			throws IOException, ImportMoreXMLException, ImportMoreXPathException {
-		BasicFrame loadingFrame = FrameFactory.createLoadingFrame();
-		ViewUtils.showFrame(loadingFrame);
-		try {
-			XdmNode doc = SaxonUtils.fetchXMLResource(URLFactory.create(resourcePath));
-			return SaxonUtils.getNodes(doc, xPathExpression, namespaceMap);
-		} finally {
-			loadingFrame.dispose();
-		}
+		return fetchNodes(resourcePath, xPathExpression, namespaceMap, null);
+	}
+	
+	/**
+	 * Fetches a List of nodes identified by a given XPath expression from the given resource while displaying a loading dialog. If all XPath
+	 * expressions that will be evaluated on the nodes are known, the resource may be projected to the parts needed by them.
+	 * @param resourcePath the path to a resource
+	 * @param xPathExpression an XPath expression
+	 * @param namespaceMap a Map of namespace prefixes and their respective namespace URIs
+	 * @param nodeExpressions all XPath expressions that will be evaluated using the returned nodes as context nodes or <code>null</code> if they
+	 *  are unknown
+	 * @throws IOException if the resource cannot be read or the user cancelled the import
+	 * @throws ImportMoreXMLException if the resource cannot be parsed
+	 * @throws ImportMoreXPathException if the XPath expression does not identify nodes or is erroneous
+	 */
+	public static List<XdmNode> fetchNodes(final String resourcePath, final String xPathExpression, final Map<String, String> namespaceMap,
+			final Collection<String> nodeExpressions) throws IOException, ImportMoreXMLException, ImportMoreXPathException {
+		return runImportTask(new ImportTask<List<XdmNode>>() {
+			@Override
+			public List<XdmNode> run(LoadingProgress progress) throws IOException, ImportMoreXMLException, ImportMoreXPathException {
+				XdmNode doc = XMLResourceCache.getDocument(URLFactory.create(resourcePath), getProjection(xPathExpression, nodeExpressions,
+						namespaceMap), progress);
+				progress.setPhase(LoadingProgress.PHASE_EVALUATING);
+				List<XdmNode> nodes = new ArrayList<>();
+				XPathResultIterator<XdmNode> iterator = SaxonUtils.iterateNodes(doc, xPathExpression, namespaceMap);
+				while (iterator.hasNext()) {
+					progress.checkCancelled();
+					nodes.add(iterator.next());
+					progress.addMatchedNodes(1);
+				}
+				return nodes;
+			}
+		});
+	}
+	
+	/**
+	 * Fetches the first node identified by a given XPath expression from the given resource while displaying a loading dialog. Please note that
+	 * the resource will only be parsed up to the first matching element if the XPath expression is a simple path like
+	 * <code>//tei:person[@xml:id='p1']</code>.
+	 * @param resourcePath the path to a resource
+	 * @param xPathExpression an XPath expression
+	 * @param namespaceMap a Map of namespace prefixes and their respective namespace URIs
+	 * @return the first node or <code>null</code> if the XPath expression does not identify any nodes
+	 * @throws IOException if the resource cannot be read or the user cancelled the import
+	 * @throws ImportMoreXMLException if the resource cannot be parsed
+	 * @throws ImportMoreXPathException if the XPath expression does not identify nodes or is erroneous
+	 */
+	public static XdmNode fetchFirstNode(final String resourcePath, final String xPathExpression, final Map<String, String> namespaceMap)
+			throws IOException, ImportMoreXMLException, ImportMoreXPathException {
+		return runImportTask(new ImportTask<XdmNode>() {
+			@Override
+			public XdmNode run(LoadingProgress progress) throws IOException, ImportMoreXMLException, ImportMoreXPathException {
+				return SaxonUtils.fetchFirstNode(URLFactory.create(resourcePath), xPathExpression, namespaceMap, progress);
+			}
+		});
 	}
 	
 	/**
@@ -73,58 +201,347 @@ public class XMLImportService {
 	 * @param xPathExpression an XPath expression identifying the real values of each SelectableOption to be created
 	 * @param renderedValueExpression an XPath expression identifying the rendered value of each SelectableOption to be created using the real value as context node
 	 * @param namespaceMap a Map of namespace prefixes and their respective namespace URIs
-	 * @throws IOException
+	 * @throws IOException if the resource cannot be read or the user cancelled the import
+	 * @throws ImportMoreXMLException if the resource cannot be parsed
+	 * @throws ImportMoreXPathException if the XPath expression does not identify nodes or is erroneous
+	 */
+	public static Set<SelectableOption<XdmNode>> fetchSelectableNodes(final String resourceName, final String xPathExpression,
+			final String renderedValueExpression, final Map<String, String> namespaceMap) throws IOException, ImportMoreXMLException, ImportMoreXPathException {
+		return fetchSelectableNodes(resourceName, xPathExpression, renderedValueExpression, namespaceMap, null);
+	}
+	
+	/**
+	 * Fetches a Set of nodes as SelectableOptions from the given resource while displaying a loading dialog. If all XPath expressions that will
+	 * be evaluated on the nodes are known, the resource may be projected to the parts needed by them.
+	 * @param resourceName the path to a resource
+	 * @param xPathExpression an XPath expression identifying the real values of each SelectableOption to be created
+	 * @param renderedValueExpression an XPath expression identifying the rendered value of each SelectableOption to be created using the real value as context node
+	 * @param namespaceMap a Map of namespace prefixes and their respective namespace URIs
+	 * @param nodeExpressions all XPath expressions that will be evaluated using the real values as context nodes (except for the
+	 *  renderedValueExpression) or <code>null</code> if they are unknown
+	 * @throws IOException if the resource cannot be read or the user cancelled the import
 	 * @throws ImportMoreXMLException if the resource cannot be parsed
 	 * @throws ImportMoreXPathException if the XPath expression does not identify nodes or is erroneous
 	 */
-	public static Set<SelectableOption<XdmNode>> fetchSelectableNodes(String resourceName, String xPathExpression, String renderedValueExpression, Map<String, String> namespaceMap)
+	public static Set<SelectableOption<XdmNode>> fetchSelectableNodes(final String resourceName, final String xPathExpression,
+			final String renderedValueExpression, final Map<String, String> namespaceMap, final Collection<String> nodeExpressions)
 			throws IOException, ImportMoreXMLException, ImportMoreXPathException {
-		BasicFrame loadingFrame = FrameFactory.createLoadingFrame();
-		ViewUtils.showFrame(loadingFrame);
-		try {
-			// fetch resource
-			XdmNode doc = SaxonUtils.fetchXMLResource(URLFactory.create(resourceName));
-			
-			// iterate over base nodes to build map
-			Set<SelectableOption<XdmNode>> resultOptions = new LinkedHashSet<>();
-			for (XdmNode node: SaxonUtils.getNodes(doc, xPathExpression, namespaceMap)) {
-				String renderedValue = SaxonUtils.getFirstXPathResult(node, renderedValueExpression, namespaceMap).getStringValue();
-				resultOptions.add(new SelectableOption<>(node, StringUtils.reduceLength(renderedValue, ViewUtils.MAX_SELECTABLE_ELEMENT_LENGTH)));
+		return runImportTask(new ImportTask<Set<SelectableOption<XdmNode>>>() {
+			@Override
+			public Set<SelectableOption<XdmNode>> run(LoadingProgress progress) throws IOException, ImportMoreXMLException, ImportMoreXPathException {
+				// extract all base nodes together with their rendered values at once
+				DocumentProjection projection = null;
+				if (nodeExpressions != null) {
+					List<String> allNodeExpressions = new ArrayList<>(nodeExpressions);
+					allNodeExpressions.add(renderedValueExpression);
+					projection = getProjection(xPathExpression, allNodeExpressions, namespaceMap);
+				}
+				List<ExtractedNode> extractedNodes = XMLResourceCache.getExtractedNodes(URLFactory.create(resourceName), xPathExpression, null,
+						renderedValueExpression, namespaceMap, projection, progress);
+				
+				// build options in the order of the base nodes
+				Set<SelectableOption<XdmNode>> resultOptions = new LinkedHashSet<>();
+				for (ExtractedNode extractedNode: extractedNodes) {
+					resultOptions.add(new SelectableOption<>(extractedNode.getNode(), StringUtils.reduceLength(getLabel(extractedNode,
+							renderedValueExpression), ViewUtils.MAX_SELECTABLE_ELEMENT_LENGTH)));
+				}
+				return resultOptions;
 			}
-			return resultOptions;
-		} finally {
-			loadingFrame.dispose();
-		}
+		});
 	}
 	
 	/**
-	 * Fetches a List of nodes with keys from the given resource while displaying a loading dialog
+	 * Creates snapshots of the indexed nodes whose keys are not excluded while displaying a loading dialog. The KeyIndex is probed for each excluded
+	 * key, and labels are only required for the remaining nodes. The snapshots stay attached to the nodes (which is cheap if the KeyIndex has
+	 * been built from a projected resource that only contains these nodes) so that no node is serialized before it is actually imported.
+	 * @param keyIndex a KeyIndex of labelled nodes (e.g. as returned by fetchKeyIndex)
+	 * @param excludedKeys a Set of keys whose nodes should be skipped (e.g. since they have already been imported)
+	 * @param labelExpression the XPath expression the labels have been extracted with
+	 * @throws IOException if the user cancelled the import
+	 * @throws ImportMoreXPathException if the label expression returned an empty result set for any of the remaining nodes
+	 */
+	public static List<NodeSnapshot> fetchSnapshots(final KeyIndex keyIndex, final Set<String> excludedKeys, final String labelExpression)
+			throws IOException, ImportMoreXMLException, ImportMoreXPathException {
+		return runImportTask(new ImportTask<List<NodeSnapshot>>() {
+			@Override
+			public List<NodeSnapshot> run(LoadingProgress progress) throws IOException, ImportMoreXMLException, ImportMoreXPathException {
+				return createSnapshots(keyIndex.getValuesWithout(excludedKeys), labelExpression, false, progress);
+			}
+		});
+	}
+	
+	/**
+	 * Fetches a Set of node snapshots as SelectableOptions from the given resource while displaying a loading dialog. If the given XPath
+	 * expressions only access the nodes themselves, the snapshots only keep serialized copies of them so that they do not prevent the resource
+	 * from being evicted while the user is selecting.
+	 * @param resourceName the path to a resource
+	 * @param xPathExpression an XPath expression identifying the real values of each SelectableOption to be created
+	 * @param renderedValueExpression an XPath expression identifying the rendered value of each SelectableOption to be created using the real value as context node
+	 * @param namespaceMap a Map of namespace prefixes and their respective namespace URIs
+	 * @param nodeExpressions all XPath expressions that will be evaluated using the real values as context nodes (except for the
+	 *  renderedValueExpression) or <code>null</code> if they are unknown
+	 * @throws IOException if the resource cannot be read or the user cancelled the import
+	 * @throws ImportMoreXMLException if the resource cannot be parsed or a node cannot be serialized
+	 * @throws ImportMoreXPathException if the XPath expression does not identify nodes or is erroneous
+	 */
+	public static Set<SelectableOption<NodeSnapshot>> fetchSelectableSnapshots(final String resourceName, final String xPathExpression,
+			final String renderedValueExpression, final Map<String, String> namespaceMap, final Collection<String> nodeExpressions)
+			throws IOException, ImportMoreXMLException, ImportMoreXPathException {
+		return runImportTask(new ImportTask<Set<SelectableOption<NodeSnapshot>>>() {
+			@Override
+			public Set<SelectableOption<NodeSnapshot>> run(LoadingProgress progress) throws IOException, ImportMoreXMLException, ImportMoreXPathException {
+				// extract all base nodes together with their rendered values at once
+				DocumentProjection projection = null;
+				if (nodeExpressions != null) {
+					List<String> allNodeExpressions = new ArrayList<>(nodeExpressions);
+					allNodeExpressions.add(renderedValueExpression);
+					projection = getProjection(xPathExpression, allNodeExpressions, namespaceMap);
+				}
+				List<ExtractedNode> extractedNodes = XMLResourceCache.getExtractedNodes(URLFactory.create(resourceName), xPathExpression, null,
+						renderedValueExpression, namespaceMap, projection, progress);
+				
+				// build options in the order of the base nodes
+				Set<SelectableOption<NodeSnapshot>> resultOptions = new LinkedHashSet<>();
+				for (NodeSnapshot snapshot: createSnapshots(extractedNodes, renderedValueExpression, NodeSnapshot.isDetachable(nodeExpressions),
+						progress)) {
+					resultOptions.add(new SelectableOption<>(snapshot, StringUtils.reduceLength(snapshot.getLabel(),
+							ViewUtils.MAX_SELECTABLE_ELEMENT_LENGTH)));
+				}
+				return resultOptions;
+			}
+		});
+	}
+	
+	/**
+	 * Fetches a Map of nodes with keys from the given resource while displaying a loading dialog
 	 * @param resourceName the path to a resource
 	 * @param xPathExpression an XPath expression
 	 * @param keyExpression an XPath expression identifying the Map key using its value as context node
 	 * @param namespaceMap a Map of namespace prefixes and their respective namespace URIs
-	 * @throws IOException
+	 * @throws IOException if the resource cannot be read or the user cancelled the import
 	 * @throws ImportMoreXMLException if the resource cannot be parsed
 	 * @throws ImportMoreXPathException if the XPath expression does not identify nodes or is erroneous
 	 */
-	public static Map<String, XdmNode> fetchNodesWithKeys(String resourceName, String xPathExpression, String keyExpression, Map<String, String> namespaceMap)
+	public static Map<String, XdmNode> fetchNodesWithKeys(String resourceName, String xPathExpression, String keyExpression,
+			Map<String, String> namespaceMap) throws IOException, ImportMoreXMLException, ImportMoreXPathException {
+		return fetchKeyIndex(resourceName, xPathExpression, keyExpression, null, namespaceMap, null).toNodeMap();
+	}
+	
+	/**
+	 * Fetches a KeyIndex of the nodes identified by a given XPath expression from the given resource while displaying a loading dialog. The
+	 * KeyIndex is kept with the cached resource so that repeated lookups do not need to evaluate the key expression again.
+	 * @param resourceName the path to a resource
+	 * @param xPathExpression an XPath expression
+	 * @param keyExpression an XPath expression identifying the key using each node as context node
+	 * @param labelExpression an XPath expression identifying the label using each node as context node or <code>null</code> if no label is needed
+	 * @param namespaceMap a Map of namespace prefixes and their respective namespace URIs
+	 * @param nodeExpressions all XPath expressions that will be evaluated using the indexed nodes as context nodes (except for the key and label
+	 *  expressions) or <code>null</code> if they are unknown
+	 * @throws IOException if the resource cannot be read or the user cancelled the import
+	 * @throws ImportMoreXMLException if the resource cannot be parsed
+	 * @throws ImportMoreXPathException if an XPath expression is erroneous, does not identify nodes or the key or label expression returns an
+	 * empty result set
+	 */
+	public static KeyIndex fetchKeyIndex(final String resourceName, final String xPathExpression, final String keyExpression,
+			final String labelExpression, final Map<String, String> namespaceMap, final Collection<String> nodeExpressions)
 			throws IOException, ImportMoreXMLException, ImportMoreXPathException {
-		BasicFrame loadingFrame = FrameFactory.createLoadingFrame();
-		ViewUtils.showFrame(loadingFrame);
-		try {
-			// fetch resource
-			XdmNode doc = SaxonUtils.fetchXMLResource(URLFactory.create(resourceName));
-			
-			// iterate over base nodes to build map
-			Map<String, XdmNode> resultMap = new LinkedHashMap<>();
-			for (XdmNode node: SaxonUtils.getNodes(doc, xPathExpression, namespaceMap)) {
-				String key = SaxonUtils.getFirstXPathResult(node, keyExpression, namespaceMap).getStringValue();
-				resultMap.put(key, node);
+		return runImportTask(new ImportTask<KeyIndex>() {
+			@Override
+			public KeyIndex run(LoadingProgress progress) throws IOException, ImportMoreXMLException, ImportMoreXPathException {
+				DocumentProjection projection = null;
+				if (nodeExpressions != null) {
+					List<String> allNodeExpressions = new ArrayList<>(nodeExpressions);
+					allNodeExpressions.add(keyExpression);
+					if (labelExpression != null)
+						allNodeExpressions.add(labelExpression);
+					projection = getProjection(xPathExpression, allNodeExpressions, namespaceMap);
+				}
+				return XMLResourceCache.getKeyIndex(URLFactory.create(resourceName), xPathExpression, keyExpression, labelExpression,
+						namespaceMap, projection, progress);
 			}
-			return resultMap;
+		});
+	}
+	
+	// helper methods
+	/**
+	 * Returns a DocumentProjection to the nodes identified by a given XPath expression or <code>null</code> if the whole resource is needed
+	 * @param xPathExpression an XPath expression
+	 * @param nodeExpressions all XPath expressions that will be evaluated using the nodes as context nodes or <code>null</code> if they are unknown
+	 * @param namespaceMap a Map of namespace prefixes and their respective namespace URIs
+	 */
+	protected static DocumentProjection getProjection(String xPathExpression, Collection<String> nodeExpressions, Map<String, String> namespaceMap) {
+		if (nodeExpressions == null)
+			return null;
+		return DocumentProjection.analyze(xPathExpression, nodeExpressions, namespaceMap);
+	}
+	
+	/**
+	 * Creates a NodeSnapshot of each of the given ExtractedNodes
+	 * @param extractedNodes a List of ExtractedNodes
+	 * @param labelExpression the XPath expression the labels have been extracted with
+	 * @param detach specifies whether the snapshots should only keep serialized copies of the nodes
+	 * @param progress the LoadingProgress of the current import
+	 * @throws IOException if the user cancelled the import
+	 * @throws ImportMoreXMLException if a node cannot be serialized
+	 * @throws ImportMoreXPathException if the label expression returned an empty result set for any node
+	 */
+	protected static List<NodeSnapshot> createSnapshots(List<ExtractedNode> extractedNodes, String labelExpression, boolean detach,
+			LoadingProgress progress) throws IOException, ImportMoreXMLException, ImportMoreXPathException {
+		List<NodeSnapshot> snapshots = new ArrayList<>(extractedNodes.size());
+		for (ExtractedNode extractedNode: extractedNodes) {
+			progress.checkCancelled();
+			String label = getLabel(extractedNode, labelExpression);
+			if (detach)
+				snapshots.add(NodeSnapshot.detach(extractedNode.getNode(), extractedNode.getKey(), label));
+			else
+				snapshots.add(NodeSnapshot.attach(extractedNode.getNode(), extractedNode.getKey(), label));
+		}
+		return snapshots;
+	}
+	
+	/**
+	 * Returns the label of the given ExtractedNode
+	 * @param extractedNode an ExtractedNode
+	 * @param labelExpression the XPath expression the label has been extracted with
+	 * @throws ImportMoreXPathException if the label expression returned an empty result set for the node
+	 */
+	protected static String getLabel(ExtractedNode extractedNode, String labelExpression) throws ImportMoreXPathException {
+		if (extractedNode.getLabel() == null)
+			throw new ImportMoreXPathException("The xpath " + labelExpression + " returned an empty result set.");
+		return extractedNode.getLabel();
+	}
+	
+	// background execution methods
+	/**
+	 * Runs the given ImportTask and returns its result. If called from the event dispatch thread the task is run in the background while the user
+	 * interface keeps being repainted and a cancellable LoadingFrame is displayed as soon as the task takes longer than the configured delay.
+	 * @param <T> the type of the result
+	 * @param task an ImportTask
+	 * @throws IOException if the resource cannot be read or the user cancelled the import
+	 * @throws ImportMoreXMLException if the resource cannot be parsed
+	 * @throws ImportMoreXPathException if an XPath expression is erroneous
+	 */
+	public static <T> T runImportTask(final ImportTask<T> task) throws IOException, ImportMoreXMLException, ImportMoreXPathException {
+		final LoadingProgress progress = new LoadingProgress();
+		if (!SwingUtilities.isEventDispatchThread()) {
+			T result = task.run(progress);
+			showStalenessNotice(progress);
+			return result;
+		}
+		
+		// start task and leave the secondary loop as soon as it is done
+		final SecondaryLoop loop = Toolkit.getDefaultToolkit().getSystemEventQueue().createSecondaryLoop();
+		final Future<T> future = executor.submit(new Callable<T>() {
+			@Override
+			public T call() throws Exception {
+				try {
+					return task.run(progress);
+				} finally {
+					SwingUtilities.invokeLater(new Runnable() {
+						@Override
+						public void run() {
+							loop.exit();
+						}
+					});
+				}
+			}
+		});
+		
+		// display a LoadingFrame after a short delay and react to cancellation requests
+		final LoadingFrame loadingFrame = FrameFactory.createLoadingFrame(progress);
+		Timer frameTimer = new Timer(ImportMoreSettings.getLoadingFrameDelay(), new ActionListener() {
+			@Override
+			public void actionPerformed(ActionEvent e) {
+				if (!future.isDone())
+					ViewUtils.showFrame(loadingFrame);
+			}
+		});
+		frameTimer.setRepeats(false);
+		Timer cancellationTimer = new Timer(CANCELLATION_CHECK_INTERVAL, new ActionListener() {
+			@Override
+			public void actionPerformed(ActionEvent e) {
+				if (progress.isCancelled()) {
+					future.cancel(true);
+					loop.exit();
+				}
+			}
+		});
+		
+		frameTimer.start();
+		cancellationTimer.start();
+		try {
+			loop.enter();
 		} finally {
+			frameTimer.stop();
+			cancellationTimer.stop();
 			loadingFrame.dispose();
+			
+			// never leave the task running in the background
+			if (!future.isDone()) {
+				progress.cancel();
+				future.cancel(true);
+			}
 		}
+		T result = getResult(future, progress);
+		showStalenessNotice(progress);
+		return result;
+	}
+	
+	/**
+	 * Returns the result of the given Future rethrowing the exceptions of the underlying ImportTask
+	 * @param <T> the type of the result
+	 * @param future the Future of an ImportTask
+	 * @param progress the LoadingProgress of the ImportTask
+	 * @throws IOException if the resource cannot be read or the user cancelled the import
+	 * @throws ImportMoreXMLException if the resource cannot be parsed
+	 * @throws ImportMoreXPathException if an XPath expression is erroneous
+	 */
+	protected static <T> T getResult(Future<T> future, LoadingProgress progress) throws IOException, ImportMoreXMLException, ImportMoreXPathException {
+		try {
+			return future.get();
+		} catch (CancellationException ex) {
+			throw new InterruptedIOException(ImportMoreArgumentProvider.getAbortedImportMessage());
+		} catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException(ImportMoreArgumentProvider.getAbortedImportMessage());
+		} catch (ExecutionException ex) {
+			// parsers wrap the exception thrown after a cancellation
+			if (progress.isCancelled())
+				throw new InterruptedIOException(ImportMoreArgumentProvider.getAbortedImportMessage());
+			
+			Throwable cause = ex.getCause();
+			if (cause instanceof IOException)
+				throw (IOException) cause;
+			if (cause instanceof ImportMoreXMLException)
+				throw (ImportMoreXMLException) cause;
+			if (cause instanceof ImportMoreXPathException)
+				throw (ImportMoreXPathException) cause;
+			if (cause instanceof RuntimeException)
+				throw (RuntimeException) cause;
+			if (cause instanceof Error)
+				throw (Error) cause;
+			throw new IllegalStateException(cause);
+		}
+	}
+	
+	/**
+	 * Displays a note in the status bar of oXygen if the given LoadingProgress used a cached copy that could not be validated
+	 * @param progress a LoadingProgress
+	 */
+	protected static void showStalenessNotice(LoadingProgress progress) {
+		final PluginWorkspace pluginWorkspace = PluginWorkspaceProvider.getPluginWorkspace();
+		if (!progress.isStale() || pluginWorkspace == null)
+			return;
+		
+		ResourceBundle rb = ResourceBundle.getBundle("org.adwmainz.da.extensions.importmore.resources.DialogTextBundle");
+		String lastValidated = DateFormat.getDateTimeInstance(DateFormat.MEDIUM, DateFormat.SHORT).format(new Date(progress.getStaleSince()));
+		final String message = String.format(rb.getString("USED_CACHED_COPY_X"), lastValidated);
+		SwingUtilities.invokeLater(new Runnable() {
+			@Override
+			public void run() {
+				pluginWorkspace.showStatusMessage(message);
+			}
+		});
 	}
 	
 	// helper methods
@@ -0,0 +1,726 @@
+/**
+ * XMLResourceCache.java - is a helper class that keeps parsed external XML resources in memory so that they may be shared by all operations as
+ *  long as they have not been modified. It is one of the main classes within the ImportMoreXtension developed at the Digital Academy of the Academy
+ *  of Sciences and Literature | Mainz.
+ * @author Patrick D. Brookshire
+ * @version 1.0.0
+ */
+package org.adwmainz.da.extensions.importmore.utils;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.net.URL;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.adwmainz.da.extensions.importmore.exceptions.ImportMoreXMLException;
+import org.adwmainz.da.extensions.importmore.exceptions.ImportMoreXPathException;
+import org.adwmainz.da.extensions.importmore.models.CachedResource;
+import org.adwmainz.da.extensions.importmore.models.DocumentProjection;
+import org.adwmainz.da.extensions.importmore.models.ExtractedNode;
+import org.adwmainz.da.extensions.importmore.models.FetchedResource;
+import org.adwmainz.da.extensions.importmore.models.KeyIndex;
+import org.adwmainz.da.extensions.importmore.models.LoadingProgress;
+import org.adwmainz.da.extensions.importmore.models.ResourceVersion;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+
+import net.sf.saxon.s9api.XdmNode;
+
+public class XMLResourceCache {
+	
+	// constants
+	/**
+	 * The factor used to estimate the memory occupied by a parsed document from the number of bytes it has been parsed from
+	 * (i.e. UTF-16 character data plus node tables)
+	 */
+	protected static final int TREE_SIZE_FACTOR = 3;
+	protected static final long EXTRACTED_NODE_SIZE = 32; // object header and references of an ExtractedNode
+	protected static final long STRING_SIZE = 40; // String and char array headers
+	protected static final long KEY_INDEX_ENTRY_SIZE = 48; // entry and table slot of a LinkedHashMap
+	protected static final String PROJECTION_SEPARATOR = " "; // cannot be part of the external form of a URL
+	protected static final long PENDING_LOAD_POLL_INTERVAL = 100; // milliseconds between checks whether a waiting load has been cancelled
+	
+	// static fields
+	protected static final Map<String, CachedResource> entries = new LinkedHashMap<>(16, 0.75f, true); // access order for LRU eviction
+	protected static long memoryBudget = ImportMoreSettings.getCacheMemoryBudget();
+	protected static long usedMemory = 0;
+	
+	protected static final AtomicLong hitCount = new AtomicLong();
+	protected static final AtomicLong missCount = new AtomicLong();
+	protected static final AtomicLong evictionCount = new AtomicLong();
+	protected static final AtomicLong snapshotCount = new AtomicLong();
+	protected static final AtomicLong sharedLoadCount = new AtomicLong();
+	
+	protected static final ConcurrentHashMap<String, PendingLoad> pendingLoads = new ConcurrentHashMap<>();
+	protected static final Set<String> refreshedResources = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+	protected static final ExecutorService refreshExecutor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+		@Override
+		public Thread newThread(Runnable runnable) {
+			Thread thread = new Thread(runnable, "ImportMore resource refresher");
+			thread.setDaemon(true);
+			return thread;
+		}
+	});
+
+	// main methods
+	/**
+	 * Returns the parsed XML resource from the given URL which is only fetched and parsed again if it has been modified since it was cached
+	 * @param url a URL
+	 * @throws IOException
+	 * @throws ImportMoreXMLException if the resource cannot be parsed
+	 */
+	public static XdmNode getDocument(URL url) throws IOException, ImportMoreXMLException {
+		return getDocument(url, null);
+	}
+	
+	/**
+	 * Returns the parsed XML resource from the given URL which is only fetched and parsed again if it has been modified since it was cached.
+	 * Cached remote resources are returned immediately and refreshed in the background if they have not been validated for a while.
+	 * @param url a URL
+	 * @param progress a LoadingProgress that should be updated while loading the resource or <code>null</code>
+	 * @throws IOException if the resource cannot be read or the LoadingProgress has been cancelled
+	 * @throws ImportMoreXMLException if the resource cannot be parsed
+	 */
+	public static XdmNode getDocument(URL url, LoadingProgress progress) throws IOException, ImportMoreXMLException {
+		return getDocument(url, null, progress);
+	}
+	
+	/**
+	 * Returns the parsed XML resource from the given URL which is only fetched and parsed again if it has been modified since it was cached.
+	 * If a DocumentProjection is given only the projected parts of the resource are built (unless the whole resource is cached anyway) and kept
+	 * separately from the whole resource.
+	 * @param url a URL
+	 * @param projection a DocumentProjection or <code>null</code> if the whole resource is needed
+	 * @param progress a LoadingProgress that should be updated while loading the resource or <code>null</code>
+	 * @throws IOException if the resource cannot be read or the LoadingProgress has been cancelled
+	 * @throws ImportMoreXMLException if the resource cannot be parsed
+	 */
+	public static XdmNode getDocument(URL url, DocumentProjection projection, LoadingProgress progress) throws IOException, ImportMoreXMLException {
+		projection = resolveProjection(url, projection);
+		CachedResource cachedResource;
+		synchronized (entries) {
+			cachedResource = entries.get(getKey(url, projection));
+		}
+		
+		// answer from cached remote resources immediately and refresh outdated ones in the background
+		if (cachedResource != null && isRemote(url)) {
+			hitCount.incrementAndGet();
+			if (System.currentTimeMillis() - cachedResource.getLastValidated() > ImportMoreSettings.getCacheMaxAge()) {
+				if (progress != null)
+					progress.markStale(cachedResource.getLastValidated());
+				refreshInBackground(url, projection, cachedResource);
+			}
+			return cachedResource.getDocument();
+		}
+		return loadOnce(url, projection, cachedResource, progress);
+	}
+	
+	/**
+	 * Returns the nodes identified by a given XPath expression within the parsed XML resource from the given URL together with their keys and
+	 * labels. They are only extracted once for each version of the resource and combination of expressions and namespaces.
+	 * @param url a URL
+	 * @param xPathExpression an XPath expression identifying the nodes to be extracted
+	 * @param keyExpression an XPath expression identifying the key using each node as context node or <code>null</code>
+	 * @param labelExpression an XPath expression identifying the label using each node as context node or <code>null</code>
+	 * @param namespaceMap a Map of namespace prefixes and their respective namespace URIs
+	 * @param projection a DocumentProjection or <code>null</code> if the whole resource is needed
+	 * @param progress a LoadingProgress that should be updated while loading the resource or <code>null</code>
+	 * @throws IOException if the resource cannot be read or the LoadingProgress has been cancelled
+	 * @throws ImportMoreXMLException if the resource cannot be parsed
+	 * @throws ImportMoreXPathException if an XPath expression is erroneous or the key or label expression returns an empty result set
+	 */
+	public static List<ExtractedNode> getExtractedNodes(URL url, String xPathExpression, String keyExpression, String labelExpression,
+			Map<String, String> namespaceMap, DocumentProjection projection, LoadingProgress progress)
+			throws IOException, ImportMoreXMLException, ImportMoreXPathException {
+		projection = resolveProjection(url, projection);
+		XdmNode document = getDocument(url, projection, progress);
+		if (progress != null)
+			progress.setPhase(LoadingProgress.PHASE_EVALUATING);
+		String key = getKey(url, projection);
+		CachedResource cachedResource = getCachedResource(key, document);
+		if (cachedResource == null)
+			return SaxonUtils.extractNodes(document, xPathExpression, keyExpression, labelExpression, namespaceMap, progress);
+		
+		// reuse extractions of the cached document
+		List<Object> signature = Arrays.<Object>asList(xPathExpression, keyExpression, labelExpression, new HashMap<>(namespaceMap));
+		return getExtractedNodes(key, cachedResource, signature, xPathExpression, keyExpression, labelExpression, namespaceMap, progress);
+	}
+	
+	/**
+	 * Returns a KeyIndex of the nodes identified by a given XPath expression within the parsed XML resource from the given URL. The KeyIndex is
+	 * only built once for each version of the resource and combination of expressions and namespaces so that repeated lookups and set
+	 * differences only need a constant time probe per key.
+	 * @param url a URL
+	 * @param xPathExpression an XPath expression identifying the nodes to be indexed
+	 * @param keyExpression an XPath expression identifying the key using each node as context node
+	 * @param labelExpression an XPath expression identifying the label using each node as context node or <code>null</code>
+	 * @param namespaceMap a Map of namespace prefixes and their respective namespace URIs
+	 * @param projection a DocumentProjection or <code>null</code> if the whole resource is needed
+	 * @param progress a LoadingProgress that should be updated while loading the resource or <code>null</code>
+	 * @throws IOException if the resource cannot be read or the LoadingProgress has been cancelled
+	 * @throws ImportMoreXMLException if the resource cannot be parsed
+	 * @throws ImportMoreXPathException if an XPath expression is erroneous or the key or label expression returns an empty result set
+	 */
+	public static KeyIndex getKeyIndex(URL url, String xPathExpression, String keyExpression, String labelExpression,
+			Map<String, String> namespaceMap, DocumentProjection projection, LoadingProgress progress)
+			throws IOException, ImportMoreXMLException, ImportMoreXPathException {
+		projection = resolveProjection(url, projection);
+		XdmNode document = getDocument(url, projection, progress);
+		if (progress != null)
+			progress.setPhase(LoadingProgress.PHASE_EVALUATING);
+		String key = getKey(url, projection);
+		CachedResource cachedResource = getCachedResource(key, document);
+		if (cachedResource == null)
+			return new KeyIndex(SaxonUtils.extractNodes(document, xPathExpression, keyExpression, labelExpression, namespaceMap, progress));
+		
+		// reuse indexes of the cached document
+		List<Object> signature = Arrays.<Object>asList(xPathExpression, keyExpression, labelExpression, new HashMap<>(namespaceMap));
+		KeyIndex keyIndex = cachedResource.getKeyIndex(signature);
+		if (keyIndex == null) {
+			keyIndex = new KeyIndex(getExtractedNodes(key, cachedResource, signature, xPathExpression, keyExpression, labelExpression,
+					namespaceMap, progress));
+			putKeyIndex(key, cachedResource, signature, keyIndex);
+		} else if (progress != null) {
+			progress.addMatchedNodes(keyIndex.size());
+		}
+		return keyIndex;
+	}
+	
+	/**
+	 * Checks whether a (possibly outdated) copy of the resource with the given URL is cached
+	 * @param url a URL
+	 */
+	public static boolean isCached(URL url) {
+		synchronized (entries) {
+			return entries.containsKey(url.toExternalForm());
+		}
+	}
+	
+	// helper methods
+	/**
+	 * Loads the resource from the given URL unless it is already being loaded by another thread, in which case the pending load is awaited and
+	 * its result is shared. If the pending load is cancelled by the LoadingProgress of its loader the resource is loaded again.
+	 * @param url a URL
+	 * @param projection a DocumentProjection or <code>null</code> if the whole resource is needed
+	 * @param cachedResource a cached copy of the resource or <code>null</code>
+	 * @param progress a LoadingProgress that should be updated while loading the resource or <code>null</code>
+	 * @throws IOException if the resource cannot be read or the LoadingProgress has been cancelled
+	 * @throws ImportMoreXMLException if the resource cannot be parsed
+	 */
+	protected static XdmNode loadOnce(final URL url, final DocumentProjection projection, final CachedResource cachedResource,
+			final LoadingProgress progress) throws IOException, ImportMoreXMLException {
+		String key = getKey(url, projection);
+		while (true) {
+			PendingLoad load = new PendingLoad(new Callable<XdmNode>() {
+				@Override
+				public XdmNode call() throws Exception {
+					return load(url, projection, cachedResource, progress);
+				}
+			}, progress);
+			PendingLoad pendingLoad = pendingLoads.putIfAbsent(key, load);
+			
+			// load the resource within the current thread
+			if (pendingLoad == null) {
+				try {
+					load.run();
+				} finally {
+					pendingLoads.remove(key, load);
+				}
+				return awaitPendingLoad(load, null);
+			}
+			
+			// share the result of the pending load
+			try {
+				XdmNode document = awaitPendingLoad(pendingLoad, progress);
+				hitCount.incrementAndGet();
+				sharedLoadCount.incrementAndGet();
+				return document;
+			} catch (IOException | ImportMoreXMLException ex) {
+				// load the resource again if only the pending load has been cancelled
+				if (progress != null)
+					progress.checkCancelled();
+				if (!pendingLoad.isCancelledByLoader() || Thread.currentThread().isInterrupted())
+					throw ex;
+			}
+		}
+	}
+	
+	/**
+	 * Waits for the given pending load while checking whether the given LoadingProgress has been cancelled
+	 * @throws IOException if the resource cannot be read or either load has been cancelled
+	 * @throws ImportMoreXMLException if the resource cannot be parsed
+	 */
+	protected static XdmNode awaitPendingLoad(PendingLoad pendingLoad, LoadingProgress progress) throws IOException, ImportMoreXMLException {
+		while (true) {
+			try {
+				return pendingLoad.get(PENDING_LOAD_POLL_INTERVAL, TimeUnit.MILLISECONDS);
+			} catch (TimeoutException ex) {
+				if (progress != null)
+					progress.checkCancelled();
+			} catch (InterruptedException ex) {
+				Thread.currentThread().interrupt();
+				throw new InterruptedIOException(ex.getMessage());
+			} catch (ExecutionException ex) {
+				throw rethrow(ex);
+			}
+		}
+	}
+	
+	/**
+	 * Rethrows the cause of the given ExecutionException of a load
+	 * @throws IOException if the resource could not be read or the load has been cancelled
+	 * @throws ImportMoreXMLException if the resource could not be parsed
+	 */
+	protected static RuntimeException rethrow(ExecutionException ex) throws IOException, ImportMoreXMLException {
+		Throwable cause = ex.getCause();
+		if (cause instanceof IOException)
+			throw (IOException) cause;
+		if (cause instanceof ImportMoreXMLException)
+			throw (ImportMoreXMLException) cause;
+		if (cause instanceof RuntimeException)
+			throw (RuntimeException) cause;
+		if (cause instanceof Error)
+			throw (Error) cause;
+		return new IllegalStateException(cause);
+	}
+	
+	/**
+	 * Validates the given cached copy (or the stored snapshot if there is none) and fetches and parses the resource from the given URL if it has
+	 * been modified
+	 * @param url a URL
+	 * @param cachedResource a cached copy of the resource or <code>null</code>
+	 * @param progress a LoadingProgress that should be updated while loading the resource or <code>null</code>
+	 * @throws IOException if the resource cannot be read or the LoadingProgress has been cancelled
+	 * @throws ImportMoreXMLException if the resource cannot be parsed
+	 */
+	protected static XdmNode load(URL url, DocumentProjection projection, CachedResource cachedResource, LoadingProgress progress)
+			throws IOException, ImportMoreXMLException {
+		File snapshotFile = null;
+		ResourceVersion knownVersion = null;
+		if (cachedResource != null) {
+			knownVersion = cachedResource.getVersion();
+		} else if (ImportMoreSettings.isSnapshotEnabled()) {
+			snapshotFile = ResourceDiskCache.getSnapshot(url);
+			knownVersion = SnapshotReader.readVersion(snapshotFile, url);
+		}
+		
+		try (FetchedResource fetchedResource = ResourceFetcher.fetch(url, knownVersion)) {
+			long lastValidated = fetchedResource.isStale() ? fetchedResource.getStaleSince() : System.currentTimeMillis();
+			if (fetchedResource.isStale() && progress != null)
+				progress.markStale(lastValidated);
+			if (fetchedResource.isModified())
+				return parse(url, projection, fetchedResource, lastValidated, progress);
+			
+			// keep unmodified copies
+			if (cachedResource != null) {
+				hitCount.incrementAndGet();
+				cachedResource.setLastValidated(lastValidated);
+				return cachedResource.getDocument();
+			}
+			
+			// read unmodified snapshots instead of parsing the resource
+			try (InputStream snapshotStream = ResourceDiskCache.openSnapshot(snapshotFile)) {
+				return parseSnapshot(url, projection, snapshotStream, knownVersion, lastValidated, progress);
+			} catch (IOException | ImportMoreXMLException | RuntimeException ex) {
+				// corrupt snapshots may also cause runtime exceptions within the parser
+				if (progress != null)
+					progress.checkCancelled();
+				ResourceDiskCache.removeSnapshot(url);
+			}
+		}
+		
+		// fetch the resource again if its snapshot cannot be read
+		try (FetchedResource fetchedResource = ResourceFetcher.fetch(url, null)) {
+			long lastValidated = fetchedResource.isStale() ? fetchedResource.getStaleSince() : System.currentTimeMillis();
+			return parse(url, projection, fetchedResource, lastValidated, progress);
+		}
+	}
+	
+	/**
+	 * Parses the given fetched resource, stores a snapshot of it (if enabled) and caches it
+	 * @param url the URL the resource has been fetched from
+	 * @param projection a DocumentProjection or <code>null</code> if the whole resource is needed
+	 * @param fetchedResource a modified FetchedResource
+	 * @param lastValidated the point in time (in milliseconds) the resource has been validated
+	 * @param progress a LoadingProgress that should be updated while loading the resource or <code>null</code>
+	 * @throws ImportMoreXMLException if the resource cannot be parsed (or the LoadingProgress has been cancelled)
+	 */
+	protected static XdmNode parse(URL url, DocumentProjection projection, FetchedResource fetchedResource, long lastValidated,
+			LoadingProgress progress) throws ImportMoreXMLException {
+		missCount.incrementAndGet();
+		if (progress != null)
+			progress.setPhase(LoadingProgress.PHASE_PARSING);
+		CountingInputStream stream = new CountingInputStream(fetchedResource.getStream(), progress);
+		SnapshotWriter snapshotWriter = ImportMoreSettings.isSnapshotEnabled() ? ResourceDiskCache.storeSnapshot(url, fetchedResource.getVersion())
+				: null;
+		try {
+			XdmNode document;
+			long estimatedSize;
+			if (projection == null && snapshotWriter == null && !ImportMoreSettings.isParallelParsingEnabled()) {
+				document = SaxonUtils.buildDocument(stream, url.toExternalForm());
+				estimatedSize = stream.getByteCount() * TREE_SIZE_FACTOR;
+			} else {
+				XMLReader reader = newXMLReader(progress);
+				if (snapshotWriter != null) {
+					// record the whole resource even if only a projection is built
+					snapshotWriter.setParent(reader);
+					reader = snapshotWriter;
+				}
+				if (projection == null) {
+					document = SaxonUtils.buildDocument(stream, url.toExternalForm(), reader);
+					estimatedSize = stream.getByteCount() * TREE_SIZE_FACTOR;
+				} else {
+					ProjectionFilter filter = new ProjectionFilter(projection.getPath());
+					filter.setParent(reader);
+					document = SaxonUtils.buildDocument(stream, url.toExternalForm(), filter);
+					estimatedSize = filter.getPassedCharacters() * TREE_SIZE_FACTOR;
+				}
+			}
+			put(getKey(url, projection), new CachedResource(document, fetchedResource.getVersion(), estimatedSize, lastValidated));
+			return document;
+		} finally {
+			if (snapshotWriter != null)
+				snapshotWriter.close();
+		}
+	}
+	
+	/**
+	 * Builds the resource from the given snapshot and caches it
+	 * @param url the URL the resource has been fetched from
+	 * @param projection a DocumentProjection or <code>null</code> if the whole resource is needed
+	 * @param snapshotStream the content of a snapshot of the resource
+	 * @param version the version of the resource the snapshot has been written for
+	 * @param lastValidated the point in time (in milliseconds) the resource has been validated
+	 * @param progress a LoadingProgress that should be updated while loading the resource or <code>null</code>
+	 * @throws ImportMoreXMLException if the snapshot cannot be read (or the LoadingProgress has been cancelled)
+	 */
+	protected static XdmNode parseSnapshot(URL url, DocumentProjection projection, InputStream snapshotStream, ResourceVersion version,
+			long lastValidated, LoadingProgress progress) throws ImportMoreXMLException {
+		if (progress != null)
+			progress.setPhase(LoadingProgress.PHASE_PARSING);
+		CountingInputStream stream = new CountingInputStream(snapshotStream, progress);
+		XdmNode document;
+		long estimatedSize;
+		if (projection == null) {
+			document = SaxonUtils.buildDocument(stream, url.toExternalForm(), new SnapshotReader());
+			estimatedSize = stream.getByteCount() * TREE_SIZE_FACTOR;
+		} else {
+			ProjectionFilter filter = new ProjectionFilter(projection.getPath());
+			filter.setParent(new SnapshotReader());
+			document = SaxonUtils.buildDocument(stream, url.toExternalForm(), filter);
+			estimatedSize = filter.getPassedCharacters() * TREE_SIZE_FACTOR;
+		}
+		missCount.incrementAndGet();
+		snapshotCount.incrementAndGet();
+		put(getKey(url, projection), new CachedResource(document, version, estimatedSize, lastValidated));
+		return document;
+	}
+	
+	/**
+	 * Validates the given cached copy and reloads the resource from the given URL in the background unless it is already being refreshed
+	 * @param url a URL
+	 * @param cachedResource a cached copy of the resource
+	 */
+	protected static void refreshInBackground(final URL url, final DocumentProjection projection, final CachedResource cachedResource) {
+		final String key = getKey(url, projection);
+		if (!refreshedResources.add(key))
+			return;
+		refreshExecutor.execute(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					loadOnce(url, projection, cachedResource, null);
+				} catch (IOException | ImportMoreXMLException | RuntimeException ex) {
+					// keep using the cached copy until the resource is available again
+				} finally {
+					refreshedResources.remove(key);
+				}
+			}
+		});
+	}
+	
+	/**
+	 * Returns <code>null</code> if the whole resource should be used instead of the given DocumentProjection (i.e. if projections are disabled
+	 * or the whole resource is cached or being loaded anyway)
+	 */
+	protected static DocumentProjection resolveProjection(URL url, DocumentProjection projection) {
+		if (projection == null || !ImportMoreSettings.isProjectionEnabled() || isCached(url) || pendingLoads.containsKey(url.toExternalForm()))
+			return null;
+		return projection;
+	}
+	
+	/**
+	 * Returns a new XMLReader for parsing resources, i.e. a ChunkedXMLReader if parallel parsing is enabled
+	 * @param progress a LoadingProgress whose cancellation should stop parsing or <code>null</code>
+	 * @throws ImportMoreXMLException if no XMLReader can be created
+	 */
+	protected static XMLReader newXMLReader(LoadingProgress progress) throws ImportMoreXMLException {
+		int parallelism = ImportMoreSettings.getParallelism();
+		if (ImportMoreSettings.isParallelParsingEnabled() && parallelism > 1)
+			return new ChunkedXMLReader(parallelism, progress);
+		try {
+			return SaxonUtils.newXMLReader();
+		} catch (SAXException ex) {
+			throw new ImportMoreXMLException("Cannot create an XML parser", ex);
+		}
+	}
+	
+	protected static String getKey(URL url, DocumentProjection projection) {
+		if (projection == null)
+			return url.toExternalForm();
+		return url.toExternalForm() + PROJECTION_SEPARATOR + projection.getSignature();
+	}
+	
+	/**
+	 * Checks whether the given URL denotes a resource on a remote server
+	 * @param url a URL
+	 */
+	protected static boolean isRemote(URL url) {
+		return "http".equalsIgnoreCase(url.getProtocol()) || "https".equalsIgnoreCase(url.getProtocol());
+	}
+	
+	/**
+	 * Returns the cached resource with the given key if it still holds the given document or <code>null</code> otherwise
+	 * @param key the key the resource is cached with
+	 * @param document a parsed document
+	 */
+	protected static CachedResource getCachedResource(String key, XdmNode document) {
+		CachedResource cachedResource;
+		synchronized (entries) {
+			cachedResource = entries.get(key);
+		}
+		if (cachedResource == null || cachedResource.getDocument() != document)
+			return null;
+		return cachedResource;
+	}
+	
+	/**
+	 * Returns the nodes extracted with the given signature from the given cached resource and extracts them only if they are not stored yet
+	 * @param key the key the resource is cached with
+	 * @param cachedResource a cached resource
+	 * @param signature a List of the XPath expressions and namespaces the nodes are extracted with
+	 * @param xPathExpression an XPath expression identifying the nodes to be extracted
+	 * @param keyExpression an XPath expression identifying the key using each node as context node or <code>null</code>
+	 * @param labelExpression an XPath expression identifying the label using each node as context node or <code>null</code>
+	 * @param namespaceMap a Map of namespace prefixes and their respective namespace URIs
+	 * @param progress a LoadingProgress that should be updated while extracting the nodes or <code>null</code>
+	 * @throws IOException if the LoadingProgress has been cancelled
+	 * @throws ImportMoreXPathException if an XPath expression is erroneous or the key or label expression returns an empty result set
+	 */
+	protected static List<ExtractedNode> getExtractedNodes(String key, CachedResource cachedResource, List<Object> signature,
+			String xPathExpression, String keyExpression, String labelExpression, Map<String, String> namespaceMap, LoadingProgress progress)
+			throws IOException, ImportMoreXPathException {
+		List<ExtractedNode> extractedNodes = cachedResource.getExtractedNodes(signature);
+		if (extractedNodes == null) {
+			extractedNodes = SaxonUtils.extractNodes(cachedResource.getDocument(), xPathExpression, keyExpression, labelExpression, namespaceMap,
+					progress);
+			putExtractedNodes(key, cachedResource, signature, extractedNodes);
+		} else if (progress != null) {
+			progress.addMatchedNodes(extractedNodes.size());
+		}
+		return extractedNodes;
+	}
+	
+	/**
+	 * Stores the given ExtractedNodes with the given cached resource and adds their estimated size to the memory occupied by it
+	 * @param key the key the resource is cached with
+	 * @param cachedResource a cached resource
+	 * @param signature a List of the XPath expressions and namespaces the nodes have been extracted with
+	 * @param extractedNodes the nodes extracted from the cached document
+	 */
+	protected static void putExtractedNodes(String key, CachedResource cachedResource, List<Object> signature, List<ExtractedNode> extractedNodes) {
+		long extractionSize = EXTRACTED_NODE_SIZE * extractedNodes.size();
+		for (ExtractedNode extractedNode: extractedNodes)
+			extractionSize += getStringSize(extractedNode.getKey()) + getStringSize(extractedNode.getLabel());
+		synchronized (entries) {
+			if (cachedResource.putExtractedNodes(signature, extractedNodes))
+				addEstimatedSize(key, cachedResource, extractionSize);
+		}
+	}
+	
+	/**
+	 * Stores the given KeyIndex with the given cached resource and adds its estimated size to the memory occupied by it
+	 * @param key the key the resource is cached with
+	 * @param cachedResource a cached resource
+	 * @param signature a List of the XPath expressions and namespaces the indexed nodes have been extracted with
+	 * @param keyIndex a KeyIndex of nodes of the cached document
+	 */
+	protected static void putKeyIndex(String key, CachedResource cachedResource, List<Object> signature, KeyIndex keyIndex) {
+		synchronized (entries) {
+			if (cachedResource.putKeyIndex(signature, keyIndex))
+				addEstimatedSize(key, cachedResource, KEY_INDEX_ENTRY_SIZE * keyIndex.size());
+		}
+	}
+	
+	/**
+	 * Adds the given number of bytes to the estimated size of the given cached resource and to the memory used by the cache if the resource is
+	 * still cached. Please note that this method must only be called while the entries are locked.
+	 * @param key the key the resource is cached with
+	 * @param cachedResource a cached resource
+	 * @param numberOfBytes the estimated number of additional bytes
+	 */
+	protected static void addEstimatedSize(String key, CachedResource cachedResource, long numberOfBytes) {
+		cachedResource.addEstimatedSize(numberOfBytes);
+		if (entries.get(key) == cachedResource) {
+			usedMemory += numberOfBytes;
+			evict(cachedResource);
+		}
+	}
+	
+	protected static long getStringSize(String value) {
+		return (value == null) ? 0 : STRING_SIZE + 2L * value.length();
+	}
+	
+	protected static void put(String key, CachedResource resource) {
+		synchronized (entries) {
+			CachedResource replacedResource = entries.remove(key);
+			if (replacedResource != null)
+				usedMemory -= replacedResource.getEstimatedSize();
+			
+			// skip resources that cannot be validated or would exceed the whole budget
+			ResourceVersion version = resource.getVersion();
+			if (!version.isValidatable() || resource.getEstimatedSize() > memoryBudget)
+				return;
+			
+			entries.put(key, resource);
+			usedMemory += resource.getEstimatedSize();
+			evict(resource);
+		}
+	}
+	
+	/**
+	 * Evicts least recently used resources (except for the given one) until the memory budget is kept. Please note that this method must only be
+	 * called while the entries are locked.
+	 * @param keptResource the resource that has just been used
+	 */
+	protected static void evict(CachedResource keptResource) {
+		Iterator<CachedResource> iterator = entries.values().iterator();
+		while (usedMemory > memoryBudget && iterator.hasNext()) {
+			CachedResource eldestResource = iterator.next();
+			if (eldestResource == keptResource)
+				break;
+			iterator.remove();
+			usedMemory -= eldestResource.getEstimatedSize();
+			evictionCount.incrementAndGet();
+		}
+	}
+	
+	/**
+	 * Removes the resource with the given URL from the cache
+	 * @param url a URL
+	 */
+	public static void invalidate(URL url) {
+		String key = url.toExternalForm();
+		synchronized (entries) {
+			// remove the whole resource and all of its projections
+			Iterator<Map.Entry<String, CachedResource>> iterator = entries.entrySet().iterator();
+			while (iterator.hasNext()) {
+				Map.Entry<String, CachedResource> entry = iterator.next();
+				if (entry.getKey().equals(key) || entry.getKey().startsWith(key + PROJECTION_SEPARATOR)) {
+					iterator.remove();
+					usedMemory -= entry.getValue().getEstimatedSize();
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Removes all resources from the cache
+	 */
+	public static void clear() {
+		synchronized (entries) {
+			entries.clear();
+			usedMemory = 0;
+		}
+	}
+	
+	// statistics
+	public static long getHitCount() {
+		return hitCount.get();
+	}
+	
+	public static long getMissCount() {
+		return missCount.get();
+	}
+	
+	public static long getEvictionCount() {
+		return evictionCount.get();
+	}
+	
+	/**
+	 * Returns the number of misses that have been answered by reading a stored snapshot instead of parsing the resource
+	 */
+	public static long getSnapshotCount() {
+		return snapshotCount.get();
+	}
+	
+	/**
+	 * Returns the number of hits that have been answered by waiting for another thread loading the same resource
+	 */
+	public static long getSharedLoadCount() {
+		return sharedLoadCount.get();
+	}
+	
+	/**
+	 * Returns the estimated number of bytes occupied by all cached resources
+	 */
+	public static long getUsedMemory() {
+		synchronized (entries) {
+			return usedMemory;
+		}
+	}
+	
+	/**
+	 * Returns a short summary of the current cache statistics
+	 */
+	public static String getStatistics() {
+		synchronized (entries) {
+			return String.format("%d cached resources (~%d MB of %d MB), %d hits (%d shared with pending loads), %d misses (%d read from snapshots), "
+					+ "%d evictions", entries.size(), usedMemory / (1024 * 1024), memoryBudget / (1024 * 1024), getHitCount(), getSharedLoadCount(),
+					getMissCount(), getSnapshotCount(), getEvictionCount());
+		}
+	}
+
+	// nested class
+	/**
+	 * A load of a resource that may be awaited by other threads requesting the same resource
+	 */
+	protected static class PendingLoad extends FutureTask<XdmNode> {
+
+		// fields
+		protected final LoadingProgress progress;
+
+		// constructor
+		protected PendingLoad(Callable<XdmNode> loader, LoadingProgress progress) {
+			super(loader);
+			this.progress = progress;
+		}
+
+		/**
+		 * Checks whether the load has been cancelled by the LoadingProgress of the thread loading the resource
+		 */
+		protected boolean isCancelledByLoader() {
+			return progress != null && progress.isCancelled();
+		}
+	}
+
+}
@@ -0,0 +1,69 @@
+/**
+ * XPathResultIterator.java - is a helper class that iterates over the results of an XPath expression while they are being evaluated (i.e. without
+ *  materializing the whole result sequence) and reports evaluation errors as ImportMoreXPathExceptions as used within the ImportMoreXtension
+ *  developed at the Digital Academy of the Academy of Sciences and Literature | Mainz.
+ * @author Patrick D. Brookshire
+ * @version 1.0.0
+ * @param <T> the type of the result items
+ */
+package org.adwmainz.da.extensions.importmore.utils;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import org.adwmainz.da.extensions.importmore.exceptions.ImportMoreXPathException;
+
+import net.sf.saxon.s9api.SaxonApiUncheckedException;
+import net.sf.saxon.s9api.XdmItem;
+
+public class XPathResultIterator<T extends XdmItem> {
+
+	// fields
+	protected final Iterator<XdmItem> iterator;
+	protected final String xPathExpression;
+	protected final Class<T> itemClass;
+
+	// constructor
+	/**
+	 * Creates a new XPathResultIterator
+	 * @param iterator an Iterator over the results of an XPath expression (e.g. as returned by <code>XPathSelector.iterator()</code>)
+	 * @param xPathExpression the XPath expression
+	 * @param itemClass the class all result items are expected to be instances of
+	 */
+	public XPathResultIterator(Iterator<XdmItem> iterator, String xPathExpression, Class<T> itemClass) {
+		this.iterator = iterator;
+		this.xPathExpression = xPathExpression;
+		this.itemClass = itemClass;
+	}
+
+	// iteration methods
+	/**
+	 * Checks whether there are more results
+	 * @throws ImportMoreXPathException if the XPath expression cannot be evaluated
+	 */
+	public boolean hasNext() throws ImportMoreXPathException {
+		try {
+			return iterator.hasNext();
+		} catch (SaxonApiUncheckedException ex) {
+			throw new ImportMoreXPathException("Cannot evaluate the xpath " + xPathExpression, ex);
+		}
+	}
+
+	/**
+	 * Returns the next result
+	 * @throws ImportMoreXPathException if the XPath expression cannot be evaluated or returns an item of an unexpected type
+	 * @throws NoSuchElementException if there are no more results
+	 */
+	public T next() throws ImportMoreXPathException {
+		XdmItem item;
+		try {
+			item = iterator.next();
+		} catch (SaxonApiUncheckedException ex) {
+			throw new ImportMoreXPathException("Cannot evaluate the xpath " + xPathExpression, ex);
+		}
+		if (!itemClass.isInstance(item))
+			throw new ImportMoreXPathException("The XPath "+xPathExpression+" does not identify any nodes");
+		return itemClass.cast(item);
+	}
+
+}
@@ -6,21 +6,51 @@
  */
 package org.adwmainz.da.extensions.importmore.views;
 
-import java.awt.Dimension;
+import java.awt.BorderLayout;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
 import java.util.ResourceBundle;
 
+import javax.swing.BorderFactory;
+import javax.swing.JButton;
+import javax.swing.JLabel;
+import javax.swing.JPanel;
+import javax.swing.JProgressBar;
+import javax.swing.Timer;
+
+import org.adwmainz.da.extensions.importmore.models.LoadingProgress;
+
 public class LoadingFrame extends BasicFrame {
 
-	// constant
+	// constants
 	private static final long serialVersionUID = 1219618731752785793L;
-
+	protected static final int UPDATE_INTERVAL = 250;
+	
+	// field
+	protected LoadingProgress progress;
+	
+	// accessible components
+	protected JLabel progressLabel;
+	protected JButton cancelButton;
+	protected Timer updateTimer;
 	
-	// constructor
+	// constructors
 	/**
 	 * Creates a new LoadingFrame
 	 */
 	public LoadingFrame() {
+		this(null);
+	}
+	
+	/**
+	 * Creates a new LoadingFrame that displays the given LoadingProgress and lets the user cancel it
+	 * @param progress a LoadingProgress or <code>null</code> if no progress should be displayed
+	 */
+	public LoadingFrame(LoadingProgress progress) {
 		super();
+		this.progress = progress;
 	}
 
 	// implemented method
@@ -35,8 +65,63 @@ public class LoadingFrame extends BasicFrame {
 		String message = rb.getString("PLEASE_WAIT");
 		setTitle(message);
 		
-		getContentPane().setPreferredSize(new Dimension(2 * message.length() * message.length(), message.length()));
+		// add progress components
+		JPanel contentPanel = new JPanel(new BorderLayout(8, 8));
+		contentPanel.setBorder(BorderFactory.createEmptyBorder(12, 12, 12, 12));
+		JProgressBar progressBar = new JProgressBar();
+		progressBar.setIndeterminate(true);
+		contentPanel.add(progressBar, BorderLayout.NORTH);
+		
+		if (progress != null) {
+			progressLabel = new JLabel(progress.getDescription());
+			contentPanel.add(progressLabel, BorderLayout.CENTER);
+			
+			cancelButton = new JButton(rb.getString("CANCEL"));
+			cancelButton.addActionListener(new ActionListener() {
+				@Override
+				public void actionPerformed(ActionEvent e) {
+					cancelButtonActionPerformed();
+				}
+			});
+			JPanel buttonPanel = new JPanel();
+			buttonPanel.add(cancelButton);
+			contentPanel.add(buttonPanel, BorderLayout.SOUTH);
+			
+			// treat closing this frame as a cancellation request
+			addWindowListener(new WindowAdapter() {
+				@Override
+				public void windowClosing(WindowEvent e) {
+					progress.cancel();
+				}
+			});
+			
+			// refresh progress periodically
+			updateTimer = new Timer(UPDATE_INTERVAL, new ActionListener() {
+				@Override
+				public void actionPerformed(ActionEvent e) {
+					progressLabel.setText(progress.getDescription());
+				}
+			});
+			updateTimer.start();
+		}
+		setContentPane(contentPanel);
 		pack();
 	}
+	
+	/**
+	 * Requests the cancellation of the displayed LoadingProgress
+	 */
+	protected void cancelButtonActionPerformed() {
+		progress.cancel();
+		cancelButton.setEnabled(false);
+	}
+	
+	// overridden method
+	@Override
+	public void dispose() {
+		if (updateTimer != null)
+			updateTimer.stop();
+		super.dispose();
+	}
 
 }
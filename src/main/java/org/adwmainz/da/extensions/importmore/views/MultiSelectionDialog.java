@@ -12,16 +12,24 @@ import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.util.List;
 import java.util.ResourceBundle;
-import java.util.Vector;
 
 import javax.swing.GroupLayout.Alignment;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import javax.swing.event.ListSelectionEvent;
+import javax.swing.event.ListSelectionListener;
 
 import org.adwmainz.da.extensions.askmore.exceptions.InputDialogClosedException;
 import org.adwmainz.da.extensions.askmore.views.BasicInputDialog;
+import org.adwmainz.da.extensions.importmore.models.FilterableListModel;
 
+import javax.swing.BoxLayout;
 import javax.swing.JButton;
+import javax.swing.JLabel;
 import javax.swing.JList;
+import javax.swing.JPanel;
 import javax.swing.JScrollPane;
+import javax.swing.JTextField;
 import javax.swing.ListCellRenderer;
 
 public class MultiSelectionDialog<T> extends BasicInputDialog<List<T>> {
@@ -31,12 +39,16 @@ public class MultiSelectionDialog<T> extends BasicInputDialog<List<T>> {
 
 	// accessible component
 	protected JList<T> list;
+	protected FilterableListModel<T> model;
+	protected boolean isSyncingSelection = false;
 	
+	protected JTextField filterField;
 	protected JButton selectAllButton;
 	protected JButton deselectAllButton;
 
 	// component identifier
 	protected String labelText;
+	protected String filterLabelText;
 	protected String selectAllButtonText;
 	protected String deselectAllButtonText;
 	
@@ -51,7 +63,8 @@ public class MultiSelectionDialog<T> extends BasicInputDialog<List<T>> {
 	 */
 	public MultiSelectionDialog(Window owner, boolean isModal, List<T> options) {
 		super(owner, isModal, Alignment.CENTER, Alignment.BASELINE, Alignment.TRAILING);
-		list = new JList<>(new Vector<>(options));
+		list = new JList<>(model = new FilterableListModel<>(options));
+		list.setPrototypeCellValue(getLongestOption(options));
 	}
 	
 	/**
@@ -69,7 +82,8 @@ public class MultiSelectionDialog<T> extends BasicInputDialog<List<T>> {
 	public MultiSelectionDialog(Window owner, boolean isModal, Alignment horizontalAlignment,
 			Alignment verticalAlignment, List<T> options) {
 		super(owner, isModal, horizontalAlignment, verticalAlignment);
-		list = new JList<>(new Vector<>(options));
+		list = new JList<>(model = new FilterableListModel<>(options));
+		list.setPrototypeCellValue(getLongestOption(options));
 	}
 	
 	/**
@@ -90,7 +104,8 @@ public class MultiSelectionDialog<T> extends BasicInputDialog<List<T>> {
 	public MultiSelectionDialog(Window owner, boolean isModal, Alignment horizontalFormGroupAlignment,
 			Alignment verticalAlignment, Alignment horizontalOkCancelBtnAlignment, List<T> options) {
 		super(owner, isModal, horizontalFormGroupAlignment, verticalAlignment, horizontalOkCancelBtnAlignment);
-		list = new JList<>(new Vector<>(options));
+		list = new JList<>(model = new FilterableListModel<>(options));
+		list.setPrototypeCellValue(getLongestOption(options));
 	}
 
 	// basic getter and setters
@@ -119,11 +134,20 @@ public class MultiSelectionDialog<T> extends BasicInputDialog<List<T>> {
 		ResourceBundle rb = ResourceBundle.getBundle("org.adwmainz.da.extensions.importmore.resources.DialogTextBundle");
 		selectAllButtonText = rb.getString("SELECT_ALL");
 		deselectAllButtonText = rb.getString("DESELECT_ALL");
+		filterLabelText = rb.getString("FILTER");
 		
 		
 		// init default components and layout
 		super.initComponents();
 		
+		// add filter field
+		filterField = new JTextField();
+		JPanel filterPanel = new JPanel();
+		filterPanel.setLayout(new BoxLayout(filterPanel, BoxLayout.LINE_AXIS));
+		filterPanel.add(new JLabel(filterLabelText + ": "));
+		filterPanel.add(filterField);
+		addFormElement(filterPanel);
+		
 		// add option list
 		addFormElement(new JScrollPane(list));
 		
@@ -136,6 +160,26 @@ public class MultiSelectionDialog<T> extends BasicInputDialog<List<T>> {
 		addFormElement(deselectAllButton);
 		
 		// add actions
+		filterField.getDocument().addDocumentListener(new DocumentListener() {
+			@Override
+			public void insertUpdate(DocumentEvent e) {
+				filterFieldChanged();
+			}
+			@Override
+			public void removeUpdate(DocumentEvent e) {
+				filterFieldChanged();
+			}
+			@Override
+			public void changedUpdate(DocumentEvent e) {
+				filterFieldChanged();
+			}
+		});
+		list.addListSelectionListener(new ListSelectionListener() {
+			@Override
+			public void valueChanged(ListSelectionEvent e) {
+				listSelectionChanged(e);
+			}
+		});
 		selectAllButton.addActionListener(new ActionListener() {
 			@Override
 			public void actionPerformed(ActionEvent e) {
@@ -157,22 +201,63 @@ public class MultiSelectionDialog<T> extends BasicInputDialog<List<T>> {
 	 */
 	@Override
 	protected void okButtonActionPerformed(ActionEvent e) {
-		userInput = list.getSelectedValuesList();
+		userInput = model.getSelectedOptions();
 	}
 	
 	/**
-	 * Selects all values
+	 * Selects all visible values
 	 */
 	protected void selectAllButtonActionPerfomed() {
-		list.setSelectionInterval(0, list.getModel().getSize()-1);
+		if (model.getSize() > 0)
+			list.setSelectionInterval(0, model.getSize()-1);
 	}
 	
 	/**
-	 * Clears the current selection
+	 * Clears the selection of all visible values
 	 */
 	protected void deselectAllButtonActionPerfomed() {
 		list.clearSelection();
 	}
+	
+	/**
+	 * Applies the current content of the filter field and restores the selection of the remaining values
+	 */
+	protected void filterFieldChanged() {
+		isSyncingSelection = true;
+		try {
+			list.clearSelection();
+			model.setFilter(filterField.getText());
+			
+			// select runs of selected rows at once
+			int row = 0;
+			int size = model.getSize();
+			while (row < size) {
+				if (model.isSelected(row)) {
+					int end = row;
+					while (end + 1 < size && model.isSelected(end + 1))
+						++end;
+					list.addSelectionInterval(row, end);
+					row = end + 1;
+				} else {
+					++row;
+				}
+			}
+		} finally {
+			isSyncingSelection = false;
+		}
+	}
+	
+	/**
+	 * Stores the selection state of all changed rows in the model
+	 * @param e a ListSelectionEvent
+	 */
+	protected void listSelectionChanged(ListSelectionEvent e) {
+		if (isSyncingSelection)
+			return;
+		int lastIndex = Math.min(e.getLastIndex(), model.getSize() - 1);
+		for (int row = e.getFirstIndex(); row <= lastIndex; ++row)
+			model.setSelected(row, list.isSelectedIndex(row));
+	}
 
 	/**
 	 * Defines how many selectable elements should be visible without scrolling
@@ -186,5 +271,24 @@ public class MultiSelectionDialog<T> extends BasicInputDialog<List<T>> {
 	public boolean hasLabels() {
 		return false;
 	}
+	
+	// helper methods
+	/**
+	 * Returns the option with the longest String representation so that the list may use a fixed cell size
+	 * instead of measuring every single option
+	 * @param options a list of options
+	 */
+	protected static <T> T getLongestOption(List<T> options) {
+		T longestOption = null;
+		int maxLength = -1;
+		for (T option: options) {
+			int length = String.valueOf(option).length();
+			if (length > maxLength) {
+				longestOption = option;
+				maxLength = length;
+			}
+		}
+		return longestOption;
+	}
 
 }
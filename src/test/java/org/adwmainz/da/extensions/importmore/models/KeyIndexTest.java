@@ -0,0 +1,59 @@
+/**
+ * KeyIndexTest.java - is a test class checking the lookups and set differences of a KeyIndex as used within the ImportMoreXtension developed at the
+ *  Digital Academy of the Academy of Sciences and Literature | Mainz.
+ * @author Patrick D. Brookshire
+ * @version 1.0.0
+ */
+package org.adwmainz.da.extensions.importmore.models;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+
+import org.junit.Test;
+
+public class KeyIndexTest {
+
+	// tests
+	@Test
+	public void testLookups() {
+		KeyIndex keyIndex = new KeyIndex(Arrays.asList(extract("p1", "first"), extract("p2", "second"), extract("p1", "third")));
+		assertEquals(2, keyIndex.size());
+		assertTrue(keyIndex.containsKey("p1"));
+		assertFalse(keyIndex.containsKey("p3"));
+		assertNull(keyIndex.get("p3"));
+
+		// the last of several nodes sharing a key is indexed at the position the key first appears at
+		assertEquals("third", keyIndex.get("p1").getLabel());
+		assertEquals(Arrays.asList("p1", "p2"), Arrays.asList(keyIndex.keySet().toArray()));
+	}
+
+	@Test
+	public void testValuesWithout() {
+		KeyIndex keyIndex = new KeyIndex(Arrays.asList(extract("p1", "first"), extract("p2", "second"), extract("p3", "third")));
+		List<ExtractedNode> remainingNodes = keyIndex.getValuesWithout(new HashSet<>(Arrays.asList("p2", "p4")));
+		assertEquals(2, remainingNodes.size());
+		assertEquals("first", remainingNodes.get(0).getLabel());
+		assertEquals("third", remainingNodes.get(1).getLabel());
+		assertEquals(3, keyIndex.getValuesWithout(Collections.<String>emptySet()).size());
+	}
+
+	@Test
+	public void testEmptyIndex() {
+		KeyIndex keyIndex = new KeyIndex(Collections.<ExtractedNode>emptyList());
+		assertTrue(keyIndex.isEmpty());
+		assertTrue(keyIndex.toNodeMap().isEmpty());
+	}
+
+	// helper method
+	protected static ExtractedNode extract(String key, String label) {
+		return new ExtractedNode(null, key, label);
+	}
+
+}
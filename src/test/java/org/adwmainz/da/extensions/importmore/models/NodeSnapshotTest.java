@@ -0,0 +1,59 @@
+/**
+ * NodeSnapshotTest.java - is a test class checking for which XPath expressions nodes may be replaced by detached snapshots as used within the
+ *  ImportMoreXtension developed at the Digital Academy of the Academy of Sciences and Literature | Mainz.
+ * @author Patrick D. Brookshire
+ * @version 1.0.0
+ */
+package org.adwmainz.da.extensions.importmore.models;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+public class NodeSnapshotTest {
+
+	// tests
+	@Test
+	public void testDetachableExpressions() {
+		assertDetachable("@xml:id");
+		assertDetachable("tei:persName[1]/text()");
+		assertDetachable("./tei:persName/tei:forename");
+		assertDetachable("concat(tei:forename, ' ', tei:surname)");
+		assertDetachable("string-join(tei:persName/*/text(), ' ')");
+		assertDetachable("if (@type = 'main') then tei:persName else tei:addName");
+	}
+
+	@Test
+	public void testDocumentDependentExpressions() {
+		assertNotDetachable("path(.)");
+		assertNotDetachable("root(.)//tei:title");
+		assertNotDetachable("root()");
+		assertNotDetachable("/tei:TEI/@xml:id");
+		assertNotDetachable("//tei:title");
+		assertNotDetachable("concat(@xml:id, /tei:TEI/@n)");
+		assertNotDetachable("@corresp = //tei:person/@xml:id");
+		assertNotDetachable("if (@n) then /tei:TEI else ()");
+		assertNotDetachable("lang('de')");
+		assertNotDetachable("base-uri(.)");
+		assertNotDetachable("generate-id()");
+		assertNotDetachable("../@xml:id");
+	}
+
+	@Test
+	public void testUnknownExpressions() {
+		assertFalse(NodeSnapshot.isDetachable(null));
+	}
+
+	// helper methods
+	protected void assertDetachable(String nodeExpression) {
+		assertTrue(nodeExpression, NodeSnapshot.isDetachable(Arrays.asList(nodeExpression)));
+	}
+
+	protected void assertNotDetachable(String nodeExpression) {
+		assertFalse(nodeExpression, NodeSnapshot.isDetachable(Arrays.asList(nodeExpression)));
+	}
+
+}
@@ -0,0 +1,82 @@
+/**
+ * SimplePathTest.java - is a test class checking which XPath expressions are parsed to SimplePaths (i.e. may be matched while streaming through a
+ *  resource) as used within the ImportMoreXtension developed at the Digital Academy of the Academy of Sciences and Literature | Mainz.
+ * @author Patrick D. Brookshire
+ * @version 1.0.0
+ */
+package org.adwmainz.da.extensions.importmore.models;
+
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.util.Collections;
+import java.util.Map;
+
+import org.junit.Test;
+
+public class SimplePathTest {
+
+	// constants
+	protected static final Map<String, String> NAMESPACE_MAP = Collections.singletonMap("tei", "http://www.tei-c.org/ns/1.0");
+
+	// tests
+	@Test
+	public void testContextFreePredicates() {
+		assertSimplePath("//tei:person");
+		assertSimplePath("/tei:TEI//tei:listPerson/tei:person[@xml:id='p1']");
+		assertSimplePath("//tei:person[@xml:id]");
+		assertSimplePath("//tei:person[tei:persName]");
+		assertSimplePath("//tei:person[tei:persName/@type = 'main' and not(@ana)]");
+		assertSimplePath("//tei:person[starts-with(@xml:id, 'p')]");
+		assertSimplePath("//tei:person[count(tei:persName) > 1]");
+		assertSimplePath("//tei:person[string-length(.) >= 3]");
+		assertSimplePath("//tei:person[tei:persName[1]/text() = \"Goethe\"]");
+		assertSimplePath("//tei:person[(@sex = '1' or @sex = '2')]");
+		assertSimplePath("//tei:person[descendant::tei:date[@when]]");
+	}
+
+	@Test
+	public void testContextDependentPredicates() {
+		assertNoSimplePath("//tei:person[1]");
+		assertNoSimplePath("//tei:person[$n]");
+		assertNoSimplePath("//tei:person[position() < 3]");
+		assertNoSimplePath("//tei:person[last()]");
+		assertNoSimplePath("//tei:person[lang('de')]");
+		assertNoSimplePath("//tei:person[id('p1')]");
+		assertNoSimplePath("//tei:person[base-uri(.) = 'x']");
+		assertNoSimplePath("//tei:person[path(.) = 'x']");
+		assertNoSimplePath("//tei:person[root(.)//tei:title]");
+		assertNoSimplePath("//tei:person[/tei:TEI]");
+		assertNoSimplePath("//tei:person[@xml:id = //tei:ref/@target]");
+		assertNoSimplePath("//tei:person[../tei:head]");
+		assertNoSimplePath("//tei:person[parent::tei:listPerson]");
+		assertNoSimplePath("//tei:person[preceding-sibling::tei:person]");
+		assertNoSimplePath("//tei:person[following::tei:note]");
+		assertNoSimplePath("//tei:person[ancestor::tei:body]");
+		assertNoSimplePath("//tei:person[doc('x.xml')]");
+	}
+
+	@Test
+	public void testNumericPredicates() {
+		assertNoSimplePath("//tei:person[count(tei:persName)]");
+		assertNoSimplePath("//tei:person[string-length(.)]");
+		assertNoSimplePath("//tei:person[number(@n)]");
+		assertNoSimplePath("//tei:person[(2)]");
+		assertNoSimplePath("//tei:person[@n * 2]");
+		assertNoSimplePath("//tei:person[@n - 1]");
+		assertNoSimplePath("//tei:person[@xml:id][1]");
+		assertNoSimplePath("//tei:person[@n cast as xs:integer]");
+		assertNoSimplePath("//tei:person[@n treat as xs:integer]");
+		assertNoSimplePath("//tei:person[(@n) cast as xs:integer]");
+	}
+
+	// helper methods
+	protected void assertSimplePath(String xPathExpression) {
+		assertNotNull(xPathExpression, SimplePath.parse(xPathExpression, NAMESPACE_MAP));
+	}
+
+	protected void assertNoSimplePath(String xPathExpression) {
+		assertNull(xPathExpression, SimplePath.parse(xPathExpression, NAMESPACE_MAP));
+	}
+
+}
@@ -0,0 +1,61 @@
+/**
+ * APIAccessUtilsTest.java - is a test class checking that the keys extracted by the combined key expression match those extracted per node as
+ *  used within the ImportMoreXtension developed at the Digital Academy of the Academy of Sciences and Literature | Mainz.
+ * @author Patrick D. Brookshire
+ * @version 1.0.0
+ */
+package org.adwmainz.da.extensions.importmore.utils;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+import net.sf.saxon.s9api.XdmItem;
+import net.sf.saxon.s9api.XdmNode;
+
+public class APIAccessUtilsTest {
+
+	// constants
+	protected static final Map<String, String> NAMESPACE_MAP = Collections.singletonMap("tei", "http://www.tei-c.org/ns/1.0");
+	protected static final String REGISTER = "<listPerson xmlns='http://www.tei-c.org/ns/1.0'>"
+			+ "<person xml:id='p1'><idno>A</idno></person>"
+			+ "<person xml:id='p2'/>"
+			+ "<person xml:id='p3'><idno>C</idno><idno>D</idno></person>"
+			+ "</listPerson>";
+
+	// tests
+	@Test
+	public void testSingleStepKey() throws Exception {
+		assertBulkKeys("//tei:person", "@xml:id", Arrays.asList("p1", "p2", "p3"));
+	}
+
+	@Test
+	public void testMultiStepKey() throws Exception {
+		// the order of the key expression must be kept (instead of returning the attribute first as it precedes the child in document order)
+		assertBulkKeys("//tei:person", "(tei:idno, @xml:id)", Arrays.asList("A", "p2", "C"));
+	}
+
+	// helper method
+	protected void assertBulkKeys(String xPathExpression, String keyExpression, List<String> expectedKeys) throws Exception {
+		XdmNode document = SaxonUtils.buildDocument(REGISTER);
+		
+		// evaluate the key expression per node
+		List<String> keys = new ArrayList<>();
+		for (XdmNode node: SaxonUtils.getNodes(document, xPathExpression, NAMESPACE_MAP)) {
+			XdmItem key = SaxonUtils.getFirstXPathResult(node, keyExpression, NAMESPACE_MAP);
+			keys.add(key.getStringValue());
+		}
+		assertEquals(expectedKeys, keys);
+		
+		// evaluate the combined key expression
+		assertEquals(keys, SaxonUtils.getSerializedXPathResults(document, APIAccessUtils.getBulkKeyExpression(xPathExpression, keyExpression),
+				NAMESPACE_MAP));
+	}
+
+}
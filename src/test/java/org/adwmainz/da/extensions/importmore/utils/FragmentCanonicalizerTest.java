@@ -0,0 +1,44 @@
+/**
+ * FragmentCanonicalizerTest.java - is a test class checking which differences between fragments are ignored by the fingerprints of a
+ *  FragmentCanonicalizer as used within the ImportMoreXtension developed at the Digital Academy of the Academy of Sciences and Literature | Mainz.
+ * @author Patrick D. Brookshire
+ * @version 1.0.0
+ */
+package org.adwmainz.da.extensions.importmore.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+public class FragmentCanonicalizerTest {
+
+	// tests
+	@Test
+	public void testComments() throws Exception {
+		assertNotEquals(fingerprint("<a>text</a>", "none"), fingerprint("<a>te<!-- comment -->xt</a>", "none"));
+		assertNotEquals(fingerprint("<a>text</a>", "none"), fingerprint("<a>text<?pi data?></a>", "none"));
+		assertEquals(fingerprint("<a>text</a>", "comments"), fingerprint("<a>te<!-- comment -->xt<?pi data?></a>", "comments"));
+	}
+
+	@Test
+	public void testDefaultNamespaces() throws Exception {
+		assertNotEquals(fingerprint("<a xmlns='urn:x'/>", "none"), fingerprint("<a xmlns='urn:y'/>", "none"));
+		assertNotEquals(fingerprint("<a xmlns='urn:x'/>", "prefixes"), fingerprint("<a/>", "prefixes"));
+	}
+
+	@Test
+	public void testPrefixes() throws Exception {
+		assertNotEquals(fingerprint("<x:a xmlns:x='urn:x'/>", "none"), fingerprint("<y:a xmlns:y='urn:x'/>", "none"));
+		assertEquals(fingerprint("<x:a xmlns:x='urn:x' x:b='1'/>", "prefixes"), fingerprint("<a xmlns='urn:x' xmlns:y='urn:x' y:b='1'/>",
+				"prefixes"));
+	}
+
+	// helper method
+	protected static long fingerprint(String fragment, String normalization) throws Exception {
+		return FragmentCanonicalizer.create(Arrays.asList(normalization)).fingerprint(SaxonUtils.buildDocument(fragment));
+	}
+
+}
@@ -0,0 +1,330 @@
+/**
+ * ResourceFetcherTest.java - is a test class checking the conditional requests sent by the ResourceFetcher and the copies stored by the
+ *  ResourceDiskCache against a local stand-in HTTP server as used within the ImportMoreXtension developed at the Digital Academy of the Academy of
+ *  Sciences and Literature | Mainz.
+ * @author Patrick D. Brookshire
+ * @version 1.0.0
+ */
+package org.adwmainz.da.extensions.importmore.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.SocketTimeoutException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.TimeZone;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.adwmainz.da.extensions.importmore.models.DiskCacheEntry;
+import org.adwmainz.da.extensions.importmore.models.FetchedResource;
+import org.adwmainz.da.extensions.importmore.models.ResourceVersion;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+public class ResourceFetcherTest {
+
+	// constants
+	protected static final long LAST_MODIFIED = 1500000000000L;
+
+	// fields
+	protected File directory;
+	protected File previousDirectory;
+	protected HttpServer server;
+	protected URL url;
+	protected volatile String content = "<r><p>first</p></r>";
+	protected volatile String eTag = "\"v1\"";
+	protected volatile long lastModified = LAST_MODIFIED;
+	protected final List<Request> requests = Collections.synchronizedList(new ArrayList<Request>());
+	protected final CountDownLatch stalledResponses = new CountDownLatch(1);
+
+	// set up and tear down
+	@Before
+	public void setUp() throws IOException {
+		previousDirectory = ResourceDiskCache.getDirectory();
+		directory = Files.createTempDirectory("importmore-fetcher").toFile();
+		ResourceDiskCache.setDirectory(directory);
+		CircuitBreaker.resetAll();
+
+		// serve the current content while answering conditional requests like a real server
+		server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+		server.createContext("/resource.xml", new HttpHandler() {
+			@Override
+			public void handle(HttpExchange exchange) throws IOException {
+				String ifNoneMatch = exchange.getRequestHeaders().getFirst("If-None-Match");
+				String ifModifiedSince = exchange.getRequestHeaders().getFirst("If-Modified-Since");
+				requests.add(new Request(ifNoneMatch, ifModifiedSince));
+
+				if (eTag != null)
+					exchange.getResponseHeaders().set("ETag", eTag);
+				if (lastModified > 0)
+					exchange.getResponseHeaders().set("Last-Modified", formatDate(lastModified));
+				boolean notModified = (ifNoneMatch != null) ? ifNoneMatch.equals(eTag)
+						: (ifModifiedSince != null && lastModified > 0 && ifModifiedSince.equals(formatDate(lastModified)));
+				if (notModified) {
+					exchange.sendResponseHeaders(HttpURLConnection.HTTP_NOT_MODIFIED, -1);
+				} else {
+					byte[] body = content.getBytes(StandardCharsets.UTF_8);
+					exchange.sendResponseHeaders(HttpURLConnection.HTTP_OK, body.length);
+					try (OutputStream out = exchange.getResponseBody()) {
+						out.write(body);
+					}
+				}
+				exchange.close();
+			}
+		});
+		server.createContext("/stalled.xml", new HttpHandler() {
+			@Override
+			public void handle(HttpExchange exchange) throws IOException {
+				// stop sending the body until the test is done
+				exchange.sendResponseHeaders(HttpURLConnection.HTTP_OK, 1000);
+				exchange.getResponseBody().write("<r>".getBytes(StandardCharsets.UTF_8));
+				exchange.getResponseBody().flush();
+				try {
+					stalledResponses.await(10, TimeUnit.SECONDS);
+				} catch (InterruptedException ex) {
+					Thread.currentThread().interrupt();
+				}
+				exchange.close();
+			}
+		});
+		server.createContext("/error.xml", new HttpHandler() {
+			@Override
+			public void handle(HttpExchange exchange) throws IOException {
+				exchange.sendResponseHeaders(HttpURLConnection.HTTP_UNAVAILABLE, -1);
+				exchange.close();
+			}
+		});
+		server.createContext("/missing.xml", new HttpHandler() {
+			@Override
+			public void handle(HttpExchange exchange) throws IOException {
+				exchange.sendResponseHeaders(HttpURLConnection.HTTP_NOT_FOUND, -1);
+				exchange.close();
+			}
+		});
+		server.setExecutor(Executors.newCachedThreadPool());
+		server.start();
+		url = new URL("http://127.0.0.1:" + server.getAddress().getPort() + "/resource.xml");
+	}
+
+	@After
+	public void tearDown() {
+		stalledResponses.countDown();
+		server.stop(0);
+		System.clearProperty(ImportMoreSettings.PROPERTY_READ_TIMEOUT);
+		CircuitBreaker.resetAll();
+		ResourceDiskCache.clear();
+		ResourceDiskCache.setDirectory(previousDirectory);
+		delete(directory);
+	}
+
+	// tests
+	@Test
+	public void testInitialFetchStoresCopy() throws Exception {
+		FetchedResource resource = ResourceFetcher.fetch(url, null);
+		assertTrue(resource.isModified());
+		assertEquals(content, read(resource));
+		assertEquals(new ResourceVersion(eTag, LAST_MODIFIED, -1), resource.getVersion());
+
+		DiskCacheEntry entry = ResourceDiskCache.get(url);
+		assertNotNull(entry);
+		assertEquals(resource.getVersion(), entry.getVersion());
+		assertEquals(content, new String(Files.readAllBytes(entry.getDataFile().toPath()), StandardCharsets.UTF_8));
+		assertNoTemporaryFiles();
+	}
+
+	@Test
+	public void testETagRevalidation() throws Exception {
+		read(ResourceFetcher.fetch(url, null));
+
+		// the stored copy is validated by its ETag and served without downloading it again
+		FetchedResource resource = ResourceFetcher.fetch(url, null);
+		assertEquals(2, requests.size());
+		assertEquals(eTag, requests.get(1).ifNoneMatch);
+		assertTrue(resource.isModified());
+		assertFalse(resource.isStale());
+		assertEquals(content, read(resource));
+
+		// the known version is not opened again
+		resource = ResourceFetcher.fetch(url, resource.getVersion());
+		assertFalse(resource.isModified());
+	}
+
+	@Test
+	public void testLastModifiedRevalidation() throws Exception {
+		eTag = null;
+		read(ResourceFetcher.fetch(url, null));
+
+		FetchedResource resource = ResourceFetcher.fetch(url, null);
+		assertEquals(2, requests.size());
+		assertNull(requests.get(1).ifNoneMatch);
+		assertEquals(formatDate(LAST_MODIFIED), requests.get(1).ifModifiedSince);
+		assertEquals(content, read(resource));
+		assertEquals(new ResourceVersion(null, LAST_MODIFIED, -1), resource.getVersion());
+	}
+
+	@Test
+	public void testModifiedResourceReplacesCopy() throws Exception {
+		FetchedResource resource = ResourceFetcher.fetch(url, null);
+		read(resource);
+
+		content = "<r><p>second</p></r>";
+		eTag = "\"v2\"";
+		lastModified = LAST_MODIFIED + 60000;
+		FetchedResource modifiedResource = ResourceFetcher.fetch(url, resource.getVersion());
+		assertEquals("\"v1\"", requests.get(1).ifNoneMatch);
+		assertTrue(modifiedResource.isModified());
+		assertEquals(content, read(modifiedResource));
+
+		DiskCacheEntry entry = ResourceDiskCache.get(url);
+		assertEquals(new ResourceVersion(eTag, lastModified, -1), entry.getVersion());
+		assertEquals(content, new String(Files.readAllBytes(entry.getDataFile().toPath()), StandardCharsets.UTF_8));
+		assertNoTemporaryFiles();
+	}
+
+	@Test
+	public void testIncompleteReadIsNotStored() throws Exception {
+		FetchedResource resource = ResourceFetcher.fetch(url, null);
+		resource.getStream().read();
+		resource.close();
+		assertNull(ResourceDiskCache.get(url));
+		assertNoTemporaryFiles();
+	}
+
+	@Test
+	public void testStaleCopyIfServerIsUnavailable() throws Exception {
+		read(ResourceFetcher.fetch(url, null));
+		server.stop(0);
+
+		FetchedResource resource = ResourceFetcher.fetch(url, null);
+		assertTrue(resource.isStale());
+		assertEquals(content, read(resource));
+	}
+
+	@Test
+	public void testServerErrorIsRecorded() throws Exception {
+		URL errorUrl = new URL(url, "error.xml");
+		try {
+			ResourceFetcher.fetch(errorUrl, null);
+		} catch (IOException ex) {
+			// expected
+		}
+		assertEquals(1, CircuitBreaker.forHost(errorUrl.getHost()).getConsecutiveFailures());
+	}
+
+	@Test
+	public void testClientErrorIsNotRecorded() throws Exception {
+		URL missingUrl = new URL(url, "missing.xml");
+		try {
+			ResourceFetcher.fetch(missingUrl, null);
+			fail("A missing resource has been fetched");
+		} catch (IOException ex) {
+			assertTrue(ex.getMessage(), ex.getMessage().contains("404"));
+		}
+		assertEquals(0, CircuitBreaker.forHost(missingUrl.getHost()).getConsecutiveFailures());
+	}
+
+	@Test
+	public void testFailedBodyIsRecorded() throws Exception {
+		System.setProperty(ImportMoreSettings.PROPERTY_READ_TIMEOUT, "200");
+		URL stalledUrl = new URL(url, "stalled.xml");
+		try {
+			read(ResourceFetcher.fetch(stalledUrl, null));
+			fail("The read timeout has not been reached");
+		} catch (SocketTimeoutException ex) {
+			// expected
+		}
+		assertEquals(1, CircuitBreaker.forHost(stalledUrl.getHost()).getConsecutiveFailures());
+		assertNull(ResourceDiskCache.get(stalledUrl));
+	}
+
+	@Test
+	public void testSuccessfulTrialClosesCircuit() throws Exception {
+		CircuitBreaker circuitBreaker = new CircuitBreaker(url.getHost(), 1, 0);
+		circuitBreaker.recordFailure();
+		assertTrue(circuitBreaker.isOpen());
+		synchronized (CircuitBreaker.circuitBreakers) {
+			CircuitBreaker.circuitBreakers.put(url.getHost(), circuitBreaker);
+		}
+
+		assertEquals(content, read(ResourceFetcher.fetch(url, null)));
+		assertFalse(circuitBreaker.isOpen());
+		assertTrue(circuitBreaker.allowsRequest());
+	}
+
+	// helper methods
+	protected String read(FetchedResource resource) throws IOException {
+		try (InputStream in = resource.getStream()) {
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			byte[] buffer = new byte[8192];
+			int length;
+			while ((length = in.read(buffer)) != -1)
+				out.write(buffer, 0, length);
+			return new String(out.toByteArray(), StandardCharsets.UTF_8);
+		}
+	}
+
+	protected void assertNoTemporaryFiles() {
+		for (File file: directory.listFiles())
+			assertFalse(file.getName(), file.getName().endsWith(ResourceDiskCache.TEMP_SUFFIX));
+	}
+
+	protected static String formatDate(long time) {
+		SimpleDateFormat format = new SimpleDateFormat("EEE, dd MMM yyyy HH:mm:ss zzz", Locale.US);
+		format.setTimeZone(TimeZone.getTimeZone("GMT"));
+		return format.format(new Date(time));
+	}
+
+	protected static void delete(File file) {
+		File[] children = file.listFiles();
+		if (children != null) {
+			for (File child: children)
+				delete(child);
+		}
+		file.delete();
+	}
+
+	// nested class
+	/**
+	 * The validators of a request received by the stand-in server
+	 */
+	protected static class Request {
+
+		// fields
+		protected final String ifNoneMatch;
+		protected final String ifModifiedSince;
+
+		// constructor
+		protected Request(String ifNoneMatch, String ifModifiedSince) {
+			this.ifNoneMatch = ifNoneMatch;
+			this.ifModifiedSince = ifModifiedSince;
+		}
+
+	}
+
+}
@@ -0,0 +1,93 @@
+/**
+ * SaxonUtilsTest.java - is a test class checking the extraction of nodes together with their keys and labels by a combined XPath expression
+ *  (evaluated at once or on parallel chunks of nodes) as used within the ImportMoreXtension developed at the Digital Academy of the Academy of
+ *  Sciences and Literature | Mainz.
+ * @author Patrick D. Brookshire
+ * @version 1.0.0
+ */
+package org.adwmainz.da.extensions.importmore.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.adwmainz.da.extensions.importmore.exceptions.ImportMoreXPathException;
+import org.adwmainz.da.extensions.importmore.models.ExtractedNode;
+import org.junit.After;
+import org.junit.Test;
+
+import net.sf.saxon.s9api.XdmNode;
+
+public class SaxonUtilsTest {
+
+	// constants
+	protected static final Map<String, String> NAMESPACE_MAP = Collections.singletonMap("tei", "http://www.tei-c.org/ns/1.0");
+	protected static final int NUMBER_OF_PERSONS = 1000;
+
+	// tear down
+	@After
+	public void tearDown() {
+		System.clearProperty(ImportMoreSettings.PROPERTY_PARALLELISM);
+		System.clearProperty(ImportMoreSettings.PROPERTY_PARALLEL_THRESHOLD);
+	}
+
+	// tests
+	@Test
+	public void testSingleEvaluation() throws Exception {
+		System.setProperty(ImportMoreSettings.PROPERTY_PARALLELISM, "1");
+		assertExtraction(buildRegister());
+	}
+
+	@Test
+	public void testChunkedEvaluation() throws Exception {
+		System.setProperty(ImportMoreSettings.PROPERTY_PARALLELISM, "4");
+		System.setProperty(ImportMoreSettings.PROPERTY_PARALLEL_THRESHOLD, "10");
+		assertExtraction(buildRegister());
+	}
+
+	@Test
+	public void testEmptyLabel() throws Exception {
+		System.setProperty(ImportMoreSettings.PROPERTY_PARALLELISM, "1");
+		XdmNode document = SaxonUtils.buildDocument("<listPerson xmlns='http://www.tei-c.org/ns/1.0'><person xml:id='p1'/></listPerson>");
+		List<ExtractedNode> extractedNodes = SaxonUtils.extractNodes(document, "//tei:person", "@xml:id", "tei:persName", NAMESPACE_MAP, null);
+		assertEquals("p1", extractedNodes.get(0).getKey());
+		assertNull(extractedNodes.get(0).getLabel());
+	}
+
+	@Test
+	public void testEmptyKey() throws Exception {
+		XdmNode document = SaxonUtils.buildDocument("<listPerson xmlns='http://www.tei-c.org/ns/1.0'><person/></listPerson>");
+		try {
+			SaxonUtils.extractNodes(document, "//tei:person", "@xml:id", null, NAMESPACE_MAP, null);
+			fail("An empty key has been extracted");
+		} catch (ImportMoreXPathException ex) {
+			// expected
+		}
+	}
+
+	// helper methods
+	protected void assertExtraction(XdmNode document) throws Exception {
+		List<XdmNode> persons = SaxonUtils.getNodes(document, "//tei:person", NAMESPACE_MAP);
+		List<ExtractedNode> extractedNodes = SaxonUtils.extractNodes(document, "//tei:person", "@xml:id", "tei:persName[1]", NAMESPACE_MAP, null);
+		assertEquals(NUMBER_OF_PERSONS, extractedNodes.size());
+		for (int i=0; i<NUMBER_OF_PERSONS; ++i) {
+			ExtractedNode extractedNode = extractedNodes.get(i);
+			assertSame(persons.get(i).getUnderlyingNode(), extractedNode.getNode().getUnderlyingNode());
+			assertEquals("p" + i, extractedNode.getKey());
+			assertEquals("Person " + i, extractedNode.getLabel());
+		}
+	}
+
+	protected static XdmNode buildRegister() throws Exception {
+		StringBuilder register = new StringBuilder("<listPerson xmlns='http://www.tei-c.org/ns/1.0'>");
+		for (int i=0; i<NUMBER_OF_PERSONS; ++i)
+			register.append("<person xml:id='p").append(i).append("'><persName>Person ").append(i).append("</persName><persName>alt</persName></person>");
+		return SaxonUtils.buildDocument(register.append("</listPerson>").toString());
+	}
+
+}
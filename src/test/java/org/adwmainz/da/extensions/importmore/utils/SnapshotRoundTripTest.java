@@ -0,0 +1,140 @@
+/**
+ * SnapshotRoundTripTest.java - is a test class checking that resources written by a SnapshotWriter are read back unchanged by a SnapshotReader
+ *  as used within the ImportMoreXtension developed at the Digital Academy of the Academy of Sciences and Literature | Mainz.
+ * @author Patrick D. Brookshire
+ * @version 1.0.0
+ */
+package org.adwmainz.da.extensions.importmore.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import org.adwmainz.da.extensions.importmore.models.ResourceVersion;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import net.sf.saxon.s9api.XdmNode;
+
+public class SnapshotRoundTripTest {
+
+	// fields
+	protected File directory;
+	protected File previousDirectory;
+
+	// set up and tear down
+	@Before
+	public void setUp() throws IOException {
+		previousDirectory = ResourceDiskCache.getDirectory();
+		directory = Files.createTempDirectory("importmore-snapshots").toFile();
+		ResourceDiskCache.setDirectory(new File(directory, "cache"));
+	}
+
+	@After
+	public void tearDown() {
+		ResourceDiskCache.clear();
+		ResourceDiskCache.setDirectory(previousDirectory);
+		delete(directory);
+	}
+
+	// tests
+	@Test
+	public void testShortText() throws Exception {
+		assertRoundTrip("<r a=\"value\"><p>short text</p></r>");
+	}
+
+	@Test
+	public void testLongText() throws Exception {
+		assertRoundTrip("<r><p>" + repeat("long text ", 500) + "</p></r>");
+	}
+
+	@Test
+	public void testLongAttributeValue() throws Exception {
+		assertRoundTrip("<r a=\"" + repeat("v", 3000) + "\"><p b=\"" + repeat("w ", 1500) + "\"/></r>");
+	}
+
+	@Test
+	public void testNonBMPCharacters() throws Exception {
+		String text = repeat("𝄞 ü漢 ", 1000);
+		assertRoundTrip("<r a=\"" + text + "\"><p>" + text + "</p><!--" + text + "--><?pi " + text + "?></r>");
+	}
+
+	@Test
+	public void testMixedContent() throws Exception {
+		StringBuilder xml = new StringBuilder("<r xmlns=\"urn:d\" xmlns:g=\"urn:g\">");
+		for (int i=0; i<2000; ++i)
+			xml.append("<g:p g:n=\"").append(i).append("\" t=\"tab&#9;nl&#10;\">mixed <hi>").append(repeat("x", i)).append("</hi> &amp; ")
+					.append("<![CDATA[<raw>]]></g:p>\n");
+		assertRoundTrip(xml.append("</r>").toString());
+	}
+
+	@Test
+	public void testNoSnapshotForDTD() throws Exception {
+		File file = write("<!DOCTYPE r [<!ENTITY e 'entity'>]><r>&e;</r>");
+		storeSnapshot(file);
+		assertNull(ResourceDiskCache.getSnapshot(file.toURI().toURL()));
+	}
+
+	// helper methods
+	protected void assertRoundTrip(String xml) throws Exception {
+		File file = write(xml);
+		URL url = file.toURI().toURL();
+		XdmNode parsedDocument = storeSnapshot(file);
+		File snapshotFile = ResourceDiskCache.getSnapshot(url);
+		assertNotNull(snapshotFile);
+		assertEquals(ResourceVersion.of(file), SnapshotReader.readVersion(snapshotFile, url));
+		XdmNode readDocument;
+		try (InputStream stream = ResourceDiskCache.openSnapshot(snapshotFile)) {
+			readDocument = SaxonUtils.buildDocument(stream, url.toExternalForm(), new SnapshotReader());
+		}
+		assertEquals(SaxonUtils.serializeNode(parsedDocument), SaxonUtils.serializeNode(readDocument));
+	}
+
+	protected XdmNode storeSnapshot(File file) throws Exception {
+		URL url = file.toURI().toURL();
+		SnapshotWriter snapshotWriter = ResourceDiskCache.storeSnapshot(url, ResourceVersion.of(file));
+		assertNotNull(snapshotWriter);
+		snapshotWriter.setParent(SaxonUtils.newXMLReader());
+		try (InputStream stream = new FileInputStream(file)) {
+			return SaxonUtils.buildDocument(stream, url.toExternalForm(), snapshotWriter);
+		} finally {
+			snapshotWriter.close();
+		}
+	}
+
+	protected File write(String xml) throws IOException {
+		File file = File.createTempFile("resource", ".xml", directory);
+		try (OutputStream stream = new FileOutputStream(file)) {
+			stream.write(xml.getBytes(StandardCharsets.UTF_8));
+		}
+		return file;
+	}
+
+	protected static String repeat(String text, int count) {
+		StringBuilder builder = new StringBuilder(text.length() * count);
+		for (int i=0; i<count; ++i)
+			builder.append(text);
+		return builder.toString();
+	}
+
+	protected static void delete(File file) {
+		File[] children = file.listFiles();
+		if (children != null) {
+			for (File child: children)
+				delete(child);
+		}
+		file.delete();
+	}
+
+}